@@ -0,0 +1,62 @@
+package rf.senla.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Задача физического удаления данных аккаунта, помеченного как удалённый. Хранит прогресс, чтобы удаление
+ * продолжалось после перезапуска приложения.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(schema = "advertisement", name = "account_purges")
+public class AccountPurge {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private PurgeStatus status = PurgeStatus.PENDING;
+
+    @Column(name = "step")
+    private String step;
+
+    @Builder.Default
+    @Column(name = "deleted_rows", nullable = false)
+    private Long deletedRows = 0L;
+
+    @Builder.Default
+    @Column(name = "requested_at", nullable = false, updatable = false)
+    private LocalDateTime requestedAt = LocalDateTime.now();
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
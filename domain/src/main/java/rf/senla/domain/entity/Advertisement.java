@@ -4,6 +4,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -16,9 +17,17 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.LocalDateTime;
 
 /**
  * Сущность, представляющая объявление.
+ * <p>
+ * Ленивые ссылки на сущность загружаются пачками, поэтому страница архивных сообщений не выполняет запрос на
+ * каждое объявление.
  */
 @Entity
 @Getter
@@ -28,12 +37,15 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(schema = "advertisement", name = "advertisements")
+@SQLRestriction(TombstoneRestrictions.ADVERTISEMENT)
+@BatchSize(size = 100)
 public class Advertisement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -50,6 +62,54 @@ public class Advertisement {
     @Column(name = "status", nullable = false)
     private AdvertisementStatus status;
 
-    @Column(name = "boosted", columnDefinition = "BOOLEAN DEFAULT FALSE")
-    private Boolean boosted;
+    @Builder.Default
+    @Column(name = "boosted", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean boosted = Boolean.FALSE;
+
+    @Column(name = "boosted_until")
+    private LocalDateTime boostedUntil;
+
+    /**
+     * Момент постановки объявления в очередь модерации.
+     */
+    @Builder.Default
+    @Column(name = "submitted_at", nullable = false, updatable = false)
+    private LocalDateTime submittedAt = LocalDateTime.now();
+
+    /**
+     * Момент автоматической проверки объявления. Изменяется только запросами модерации.
+     */
+    @Column(name = "moderated_at", insertable = false, updatable = false)
+    private LocalDateTime moderatedAt;
+
+    /**
+     * Причина отклонения объявления модерацией.
+     */
+    @Column(name = "rejection_reason", insertable = false, updatable = false)
+    private String rejectionReason;
+
+    @Builder.Default
+    @Column(name = "seller_rating", nullable = false, columnDefinition = "DOUBLE PRECISION DEFAULT 0")
+    private Double sellerRating = 0.0;
+
+    /**
+     * Количество комментариев к объявлению. Изменяется только атомарными запросами репозитория.
+     */
+    @Builder.Default
+    @Column(name = "comment_count", nullable = false, updatable = false)
+    private Integer commentCount = 0;
+
+    /**
+     * Количество просмотров объявления. Счётчики копятся в памяти и периодически сбрасываются в
+     * {@code advertisement_stats}, поэтому значение отстаёт на интервал сброса.
+     */
+    @Formula("COALESCE((SELECT s.view_count FROM advertisement.advertisement_stats s " +
+            "WHERE s.advertisement_id = id), 0)")
+    private Long viewCount;
+
+    /**
+     * Ранг объявления в ленте: вес продвижения плюс рейтинг продавца. Вычисляется БД.
+     */
+    @Column(name = "rank_score", insertable = false, updatable = false)
+    private Double rankScore;
 }
@@ -6,5 +6,6 @@ package rf.senla.domain.entity;
 public enum AdvertisementStatus {
     ACTIVE,
     SOLD,
-    REVIEW
+    REVIEW,
+    REJECTED
 }
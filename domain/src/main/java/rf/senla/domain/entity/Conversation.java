@@ -0,0 +1,94 @@
+package rf.senla.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сущность, представляющая переписку двух пользователей по объявлению.
+ * <p>
+ * Участники хранятся в каноническом порядке (меньший ID первым). Последнее сообщение и счётчики непрочитанных
+ * поддерживаются запросами {@link rf.senla.domain.repository.ConversationRepository} при изменении сообщений,
+ * поэтому сущность доступна только для чтения.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Immutable
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(schema = "advertisement", name = "conversations")
+@SQLRestriction(TombstoneRestrictions.CONVERSATION)
+public class Conversation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "first_user_id", nullable = false)
+    private User firstUser;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "second_user_id", nullable = false)
+    private User secondUser;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "advertisement_id", nullable = false)
+    private Advertisement advertisement;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_message_id")
+    private Message lastMessage;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "first_unread_count", nullable = false)
+    private Integer firstUnreadCount;
+
+    @Column(name = "second_unread_count", nullable = false)
+    private Integer secondUnreadCount;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Получение собеседника пользователя
+     * @param username логин пользователя
+     * @return второй участник переписки
+     */
+    public User getInterlocutor(String username) {
+        return firstUser.getUsername().equals(username) ? secondUser : firstUser;
+    }
+
+    /**
+     * Получение количества непрочитанных пользователем сообщений
+     * @param username логин пользователя
+     * @return количество непрочитанных сообщений
+     */
+    public Integer getUnreadCount(String username) {
+        return firstUser.getUsername().equals(username) ? firstUnreadCount : secondUnreadCount;
+    }
+}
@@ -0,0 +1,69 @@
+package rf.senla.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Письмо в очереди исходящей почты. Записывается в той же транзакции, что и бизнес-изменение, и отправляется
+ * фоновым диспетчером.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(schema = "advertisement", name = "email_outbox")
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @ToString.Exclude
+    @Column(name = "content", nullable = false)
+    private String content;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Builder.Default
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Builder.Default
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Builder.Default
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
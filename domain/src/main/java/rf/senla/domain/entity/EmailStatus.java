@@ -0,0 +1,12 @@
+package rf.senla.domain.entity;
+
+/**
+ * Перечисление статусов доставки письма из очереди исходящей почты. {@link #IN_PROGRESS} - письмо захвачено
+ * диспетчером до {@code next_attempt_at}, после этого захват считается потерянным.
+ */
+public enum EmailStatus {
+    PENDING,
+    IN_PROGRESS,
+    SENT,
+    FAILED
+}
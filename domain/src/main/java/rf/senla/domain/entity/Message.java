@@ -2,11 +2,13 @@ package rf.senla.domain.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,11 +16,16 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 
 /**
  * Сущность, представляющая сообщение.
+ * <p>
+ * Таблица секционирована по {@code sent_at}, а Hibernate обновляет и удаляет строки только по ID, проверяя каждую
+ * секцию. Поэтому колонки не обновляются через сущность: изменения выполняются запросами репозитория по ключу
+ * {@code (id, sent_at)}.
  */
 @Entity
 @Getter
@@ -28,29 +35,49 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(schema = "advertisement", name = "messages")
+@SQLRestriction(TombstoneRestrictions.MESSAGE)
 public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
-    @JoinColumn(name = "advertisement_id", nullable = false)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "advertisement_id", nullable = false, updatable = false)
     private Advertisement advertisement;
 
-    @ManyToOne
-    @JoinColumn(name = "sender_id", nullable = false)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id", nullable = false, updatable = false)
     private User sender;
 
-    @ManyToOne
-    @JoinColumn(name = "recipient_id", nullable = false)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipient_id", nullable = false, updatable = false)
     private User recipient;
 
-    @Column(name = "text", nullable = false)
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", nullable = false, updatable = false)
+    private Conversation conversation;
+
+    @Column(name = "text", nullable = false, updatable = false)
     private String text;
 
-    @Column(name = "sent_at", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    @Column(name = "sent_at", nullable = false, updatable = false,
+            columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime sentAt;
 
-    @Column(name = "read", columnDefinition = "BOOLEAN DEFAULT FALSE")
+    @Column(name = "read", updatable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
     private Boolean read;
+
+    /**
+     * Заполнение времени отправки перед сохранением: по нему сообщение попадает в месячную секцию таблицы
+     */
+    @PrePersist
+    private void prePersist() {
+        if (sentAt == null) {
+            sentAt = LocalDateTime.now();
+        }
+    }
 }
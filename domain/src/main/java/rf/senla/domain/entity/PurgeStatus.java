@@ -0,0 +1,10 @@
+package rf.senla.domain.entity;
+
+/**
+ * Перечисление статусов физического удаления данных аккаунта.
+ */
+public enum PurgeStatus {
+    PENDING,
+    RUNNING,
+    DONE
+}
@@ -0,0 +1,37 @@
+package rf.senla.domain.entity;
+
+/**
+ * SQL-условия, скрывающие данные аккаунтов, помеченных как удалённые, до их физического удаления.
+ * <p>
+ * Используются в {@link org.hibernate.annotations.SQLRestriction} сущностей и в нативных запросах. Помеченных
+ * аккаунтов немного, поэтому подзапрос по частичному индексу {@code users_deleted_idx} дешёвый.
+ */
+public final class TombstoneRestrictions {
+    /**
+     * Подзапрос ID пользователей, помеченных как удалённые
+     */
+    public static final String DELETED_USERS =
+            "(SELECT du.id FROM advertisement.users du WHERE du.deleted_at IS NOT NULL)";
+
+    /**
+     * Подзапрос ID объявлений пользователей, помеченных как удалённые
+     */
+    public static final String HIDDEN_ADVERTISEMENTS =
+            "(SELECT da.id FROM advertisement.advertisements da WHERE da.user_id IN " + DELETED_USERS + ")";
+
+    public static final String ADVERTISEMENT = "user_id NOT IN " + DELETED_USERS;
+
+    public static final String COMMENT = "user_id NOT IN " + DELETED_USERS
+            + " AND advertisement_id NOT IN " + HIDDEN_ADVERTISEMENTS;
+
+    public static final String MESSAGE = "sender_id NOT IN " + DELETED_USERS
+            + " AND recipient_id NOT IN " + DELETED_USERS
+            + " AND advertisement_id NOT IN " + HIDDEN_ADVERTISEMENTS;
+
+    public static final String CONVERSATION = "first_user_id NOT IN " + DELETED_USERS
+            + " AND second_user_id NOT IN " + DELETED_USERS
+            + " AND advertisement_id NOT IN " + HIDDEN_ADVERTISEMENTS;
+
+    private TombstoneRestrictions() {
+    }
+}
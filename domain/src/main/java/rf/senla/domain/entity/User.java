@@ -16,16 +16,22 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.SQLRestriction;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 /**
  * Сущность, представляющая пользователя.
+ * <p>
+ * Ленивые ссылки на сущность загружаются пачками, поэтому страница архивных сообщений не выполняет запрос на
+ * каждого участника.
  */
 @Entity
 @Getter
@@ -35,6 +41,8 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(schema = "advertisement", name = "users")
+@SQLRestriction("deleted_at IS NULL")
+@BatchSize(size = 100)
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -49,8 +57,24 @@ public class User implements UserDetails {
     @Column(name = "phone_number", nullable = false)
     private String phoneNumber;
 
-    @Column(name = "rating", columnDefinition = "DOUBLE PRECISION DEFAULT 0")
-    private Double rating;
+    @Builder.Default
+    @Column(name = "rating", columnDefinition = "DOUBLE PRECISION DEFAULT 0", updatable = false)
+    private Double rating = 0.0;
+
+    @Builder.Default
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private Long ratingSum = 0L;
+
+    @Builder.Default
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    private Integer ratingCount = 0;
+
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
+
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
 
     @Column(name = "email", unique = true, nullable = false)
     private String email;
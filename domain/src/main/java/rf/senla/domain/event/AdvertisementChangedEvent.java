@@ -0,0 +1,9 @@
+package rf.senla.domain.event;
+
+/**
+ * Событие изменения объявления (создание, обновление, продажа, продвижение, удаление).
+ * @param id ID объявления
+ * @param price актуальная цена объявления
+ */
+public record AdvertisementChangedEvent(Long id, Integer price) {
+}
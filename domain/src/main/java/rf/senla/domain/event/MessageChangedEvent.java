@@ -0,0 +1,29 @@
+package rf.senla.domain.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие создания или изменения сообщения (в том числе отметки о прочтении). Событие {@link Type#READ} описывает
+ * прочтение получателем всех сообщений переписки до {@code id} включительно, текст и время отправки в нём не
+ * заполняются.
+ * @param type тип изменения
+ * @param id ID сообщения
+ * @param conversationId ID переписки
+ * @param senderId ID отправителя
+ * @param recipientId ID получателя
+ * @param sender логин отправителя
+ * @param text текст сообщения
+ * @param sentAt время отправки
+ * @param read статус прочтения
+ */
+public record MessageChangedEvent(Type type, Long id, Long conversationId, Long senderId, Long recipientId,
+                                  String sender, String text, LocalDateTime sentAt, boolean read) {
+    /**
+     * Тип изменения сообщения
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        READ
+    }
+}
@@ -0,0 +1,8 @@
+package rf.senla.domain.event;
+
+/**
+ * Событие изменения продавца, влияющего на все его объявления (рейтинг, данные профиля, удаление).
+ * @param userId ID продавца
+ */
+public record SellerChangedEvent(Long userId) {
+}
@@ -0,0 +1,17 @@
+package rf.senla.domain.event;
+
+/**
+ * Событие изменения учётных данных пользователя (пароль, роль, профиль, удаление).
+ * @param id ID пользователя
+ * @param username логин пользователя
+ * @param tokenVersion актуальная версия токенов пользователя или {@code null}, если пользователь удалён
+ */
+public record UserChangedEvent(Long id, String username, Integer tokenVersion) {
+    /**
+     * Проверка, удалён ли пользователь
+     * @return {@code true}, если пользователь удалён
+     */
+    public boolean isDeleted() {
+        return tokenVersion == null;
+    }
+}
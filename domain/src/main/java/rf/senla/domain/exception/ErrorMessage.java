@@ -12,18 +12,25 @@ public enum ErrorMessage {
     NO_ADVERTISEMENT_FOUND("The advertisement could not be found"),
     NO_MESSAGE_FOUND("The message could not be found"),
     NO_COMMENT_FOUND("The comment could not be found"),
+    NO_CONVERSATION_FOUND("The conversation could not be found"),
+    NO_ACCOUNT_PURGE_FOUND("The account deletion could not be found"),
     MIN_PRICE_IS_HIGHEST("The minimum price cannot be higher than the maximum price"),
     ADVERTISEMENT_ALREADY_EXISTS("The advertisement already exists"),
     MESSAGE_ALREADY_EXISTS("The message already exists"),
     COMMENT_ALREADY_EXISTS("The comment already exists"),
     PASSWORDS_DO_NOT_MATCH("Current and transferred passwords do not match"),
     USER_NOT_FOUND("User not found"),
+    REFERENCED_ENTITY_NOT_FOUND("The referenced user, advertisement or conversation could not be found"),
     USERNAME_ALREADY_EXISTS("Username already exists"),
     EMAIL_ALREADY_EXISTS("Email already exists"),
     TOKEN_EXPIRED("Token expired"),
     INCORRECT_HTTP_METHOD_SELECTED("Incorrect http method selected"),
     SENDER_ALREADY_VOTED("The sender and receiver pair is already in place"),
     SENDER_MISMATCH("The sender and current user does not match"),
+    CONVERSATION_PARTICIPANT_MISMATCH("The current user is not a participant of the conversation"),
+    INVALID_CURSOR("The pagination cursor is invalid"),
+    CURSOR_DIRECTION_CONFLICT("Only one of the before and after cursors can be set"),
+    SERVICE_BUSY("The service is busy. Please try again later"),
     EMAIL_EXCEPTION("There's been an email error. Please try again later"),
     INTERNAL_SERVER_ERROR("There's been an unexpected error. Please try again later");
 
@@ -0,0 +1,37 @@
+package rf.senla.domain.exception;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/**
+ * Распознавание нарушений внешнего ключа среди ошибок целостности данных.
+ * <p>
+ * Запись по ссылкам на пользователей и объявления не проверяет их существование заранее, отсутствие сущности
+ * обнаруживает внешний ключ. Остальные нарушения целостности (уникальность, {@code NOT NULL}, {@code CHECK}) к
+ * отсутствию сущности не относятся и должны пробрасываться как есть.
+ */
+public final class ForeignKeyViolations {
+    /**
+     * Код SQLState нарушения внешнего ключа в PostgreSQL
+     */
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    private ForeignKeyViolations() {
+    }
+
+    /**
+     * Проверка, вызвана ли ошибка нарушением внешнего ключа
+     * @param e ошибка целостности данных
+     * @return {@code true}, если в цепочке причин есть {@link SQLException} с SQLState {@code 23503}
+     */
+    public static boolean isForeignKeyViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && FOREIGN_KEY_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package rf.senla.domain.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Исключение, выбрасываемое при перегрузке ограниченного ресурса, когда запрос отклоняется без ожидания
+ */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
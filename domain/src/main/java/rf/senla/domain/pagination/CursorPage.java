@@ -0,0 +1,35 @@
+package rf.senla.domain.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница данных с курсорной пагинацией.
+ * @param content элементы страницы
+ * @param nextCursor токен следующей страницы, {@code null}, если страница последняя
+ * @param <T> тип элементов
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+    /**
+     * Формирование страницы по выборке. Следующий курсор строится по последнему элементу, если страница заполнена
+     * @param content элементы страницы
+     * @param size запрошенный размер страницы
+     * @param cursor функция получения токена по элементу
+     * @return страница
+     * @param <T> тип элементов
+     */
+    public static <T> CursorPage<T> of(List<T> content, int size, Function<T, String> cursor) {
+        String next = content.size() < size || content.isEmpty() ? null : cursor.apply(content.getLast());
+        return new CursorPage<>(content, next);
+    }
+
+    /**
+     * Преобразование элементов страницы
+     * @param mapper функция преобразования
+     * @return страница с преобразованными элементами
+     * @param <R> тип результата
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,57 @@
+package rf.senla.domain.pagination;
+
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.TechnicalException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор ленты объявлений: ключ последнего объявления страницы в порядке сортировки ленты
+ * (ранг по убыванию, ID по возрастанию).
+ * @param rankScore ранг объявления
+ * @param id ID объявления
+ */
+public record FeedCursor(double rankScore, long id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Формирование курсора, указывающего на переданное объявление
+     * @param advertisement последнее объявление страницы
+     * @return курсор
+     */
+    public static FeedCursor of(Advertisement advertisement) {
+        return new FeedCursor(advertisement.getRankScore() == null ? 0.0 : advertisement.getRankScore(),
+                advertisement.getId());
+    }
+
+    /**
+     * Преобразование курсора в непрозрачный токен
+     * @return токен
+     */
+    public String encode() {
+        String value = rankScore + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстановление курсора из токена
+     * @param token токен
+     * @return курсор
+     * @throws TechnicalException если токен некорректен
+     */
+    public static FeedCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(value);
+            }
+
+            return new FeedCursor(Double.parseDouble(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new TechnicalException(ErrorMessage.INVALID_CURSOR.getMessage());
+        }
+    }
+}
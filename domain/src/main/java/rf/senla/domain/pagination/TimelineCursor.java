@@ -0,0 +1,71 @@
+package rf.senla.domain.pagination;
+
+import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.TechnicalException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Курсор ленты сообщений или комментариев: ключ {@code (время, ID)} последнего элемента страницы.
+ * <p>
+ * Страницы без курсора и с курсором {@code before} идут от новых к старым, страницы с курсором {@code after} - от
+ * старых к новым. Токен следующей страницы передаётся в том же параметре, что и текущий.
+ * @param timestamp время создания элемента
+ * @param id ID элемента
+ */
+public record TimelineCursor(LocalDateTime timestamp, long id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Преобразование курсора в непрозрачный токен
+     * @return токен
+     */
+    public String encode() {
+        String value = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстановление курсора из токена
+     * @param token токен
+     * @return курсор
+     * @throws TechnicalException если токен некорректен
+     */
+    public static TimelineCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(value);
+            }
+
+            return new TimelineCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new TechnicalException(ErrorMessage.INVALID_CURSOR.getMessage());
+        }
+    }
+
+    /**
+     * Проверка, что задан не более чем один из курсоров
+     * @param before курсор перехода к более старым элементам
+     * @param after курсор перехода к более новым элементам
+     * @throws TechnicalException если заданы оба курсора
+     */
+    public static void checkDirection(String before, String after) {
+        if (isPresent(before) && isPresent(after)) {
+            throw new TechnicalException(ErrorMessage.CURSOR_DIRECTION_CONFLICT.getMessage());
+        }
+    }
+
+    /**
+     * Проверка, что курсор задан
+     * @param token токен курсора
+     * @return {@code true}, если токен не пустой
+     */
+    public static boolean isPresent(String token) {
+        return token != null && !token.isBlank();
+    }
+}
@@ -0,0 +1,126 @@
+package rf.senla.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rf.senla.domain.entity.AccountPurge;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий задач физического удаления аккаунтов. Удаление данных выполняется порциями фиксированного размера,
+ * каждая порция - отдельный короткий запрос.
+ */
+@Repository
+public interface AccountPurgeRepository extends JpaRepository<AccountPurge, Long> {
+    /**
+     * Захватить старейшую незавершённую задачу на время аренды. Задача переводится в статус {@code RUNNING}, а
+     * {@code lease_until} сдвигается на конец аренды, поэтому другие экземпляры приложения её не берут, пока аренда
+     * не истечёт. Задачи с истёкшей арендой, в том числе прерванные перезапуском, захватываются повторно
+     * @param leaseSeconds длительность аренды в секундах
+     * @return объект Optional, содержащий захваченную задачу, если она есть, иначе пустой Optional
+     */
+    @Query(value = "UPDATE advertisement.account_purges p " +
+            "SET status = 'RUNNING', lease_until = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds), " +
+            "started_at = COALESCE(p.started_at, LOCALTIMESTAMP) " +
+            "WHERE p.user_id = (SELECT user_id FROM advertisement.account_purges " +
+            "WHERE status IN ('PENDING', 'RUNNING') AND (lease_until IS NULL OR lease_until <= LOCALTIMESTAMP) " +
+            "ORDER BY requested_at " +
+            "LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING p.*",
+            nativeQuery = true)
+    Optional<AccountPurge> claimNext(@Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Получить последнюю задачу по логину пользователя
+     * @param username логин пользователя
+     * @return объект Optional, содержащий задачу, если найдена, иначе пустой Optional
+     */
+    Optional<AccountPurge> findFirstByUsernameOrderByRequestedAtDesc(String username);
+
+    /**
+     * Удалить порцию сообщений пользователя и сообщений по его объявлениям
+     * @param userId ID пользователя
+     * @param limit размер порции
+     * @return количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM advertisement.messages WHERE id IN (" +
+            "SELECT m.id FROM advertisement.messages m " +
+            "WHERE m.sender_id = :userId OR m.recipient_id = :userId " +
+            "OR m.advertisement_id IN (SELECT a.id FROM advertisement.advertisements a WHERE a.user_id = :userId) " +
+            "LIMIT :limit)",
+            nativeQuery = true)
+    int deleteMessagesChunk(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Удалить порцию архивных сообщений пользователя и архивных сообщений по его объявлениям
+     * @param userId ID пользователя
+     * @param limit размер порции
+     * @return количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM advertisement.messages_archive WHERE id IN (" +
+            "SELECT m.id FROM advertisement.messages_archive m " +
+            "WHERE m.sender_id = :userId OR m.recipient_id = :userId " +
+            "OR m.advertisement_id IN (SELECT a.id FROM advertisement.advertisements a WHERE a.user_id = :userId) " +
+            "LIMIT :limit)",
+            nativeQuery = true)
+    int deleteArchivedMessagesChunk(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Удалить порцию комментариев пользователя и комментариев к его объявлениям, уменьшив количество
+     * комментариев затронутых объявлений
+     * @param userId ID пользователя
+     * @param limit размер порции
+     * @return количество удалённых строк
+     */
+    @Query(value = "WITH deleted AS (DELETE FROM advertisement.comments WHERE id IN (" +
+            "SELECT c.id FROM advertisement.comments c " +
+            "WHERE c.user_id = :userId " +
+            "OR c.advertisement_id IN (SELECT a.id FROM advertisement.advertisements a WHERE a.user_id = :userId) " +
+            "LIMIT :limit) RETURNING advertisement_id), " +
+            CommentRepository.COUNTS_DECREMENT +
+            "SELECT COUNT(*) FROM deleted",
+            nativeQuery = true)
+    int deleteCommentsChunk(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Удалить порцию оценок, поставленных пользователем или ему
+     * @param userId ID пользователя
+     * @param limit размер порции
+     * @return количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM advertisement.ratings WHERE id IN (" +
+            "SELECT r.id FROM advertisement.ratings r " +
+            "WHERE r.sender_id = :userId OR r.recipient_id = :userId " +
+            "LIMIT :limit)",
+            nativeQuery = true)
+    int deleteRatingsChunk(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Удалить порцию объявлений пользователя
+     * @param userId ID пользователя
+     * @param limit размер порции
+     * @return количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM advertisement.advertisements WHERE id IN (" +
+            "SELECT a.id FROM advertisement.advertisements a WHERE a.user_id = :userId LIMIT :limit)",
+            nativeQuery = true)
+    int deleteAdvertisementsChunk(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Удалить строку пользователя, помеченного как удалённый
+     * @param userId ID пользователя
+     * @return количество удалённых строк
+     */
+    @Modifying
+    @Query(value = "DELETE FROM advertisement.users WHERE id = :userId AND deleted_at IS NOT NULL",
+            nativeQuery = true)
+    int deleteTombstonedUser(@Param("userId") Long userId);
+}
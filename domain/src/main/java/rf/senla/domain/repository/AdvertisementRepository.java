@@ -1,20 +1,39 @@
 package rf.senla.domain.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.entity.TombstoneRestrictions;
 import rf.senla.domain.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с сущностью объявления в базе данных.
  */
 @Repository
 public interface AdvertisementRepository extends JpaRepository<Advertisement, Long> {
+    String FEED_KEYWORD_CONDITION = "AND ( CAST(:keyword AS text) IS NULL " +
+            "OR LOWER(a.headline) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') " +
+            "OR LOWER(a.description) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') ) ";
+
+    /**
+     * Получить объявление вместе с владельцем одним запросом
+     * @param id ID объявления
+     * @return объект Optional, содержащий объявление, если найдено, иначе пустой Optional
+     */
+    @EntityGraph(attributePaths = "user")
+    Optional<Advertisement> findWithUserById(Long id);
+
     /**
      * Получить список объявлений
      * @param min минимальная цена
@@ -24,15 +43,266 @@ public interface AdvertisementRepository extends JpaRepository<Advertisement, Lo
      * @return список объявлений
      */
     @Query("SELECT a FROM Advertisement a " +
-            "WHERE a.price BETWEEN :min AND :max " +
-            "AND ( (:keyword) IS NULL OR LOWER(a.headline) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') ) " +
-            "OR ( (:keyword) IS NULL OR LOWER(a.description) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') ) " +
-            "AND a.status = 'ACTIVE'")
+            "WHERE a.status = 'ACTIVE' " +
+            "AND a.price BETWEEN :min AND :max " +
+            "AND ( (:keyword) IS NULL " +
+            "OR LOWER(a.headline) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') " +
+            "OR LOWER(a.description) LIKE ('%' || LOWER(CAST(:keyword AS text)) || '%') )")
+    @EntityGraph(attributePaths = "user")
     List<Advertisement> findAllWithActiveStatus(@Param("min") Integer min,
                                                 @Param("max") Integer max,
                                                 @Param("keyword") String keyword,
                                                 Pageable pageable);
 
+    /**
+     * Полнотекстовый поиск ID активных объявлений по колонке {@code search_vector} (GIN-индекс) со стеммингом
+     * русского и английского языков.
+     * <p>
+     * Сортировка фиксирована: продвигаемые объявления, релевантность, рейтинг продавца. Сортировка из
+     * {@code pageable} не применяется, используются только номер и размер страницы.
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword поисковый запрос в формате websearch
+     * @param pageable пагинация
+     * @return список ID объявлений
+     */
+    @Query(value = "SELECT a.id FROM advertisement.advertisements a " +
+            "CROSS JOIN (SELECT websearch_to_tsquery('russian', :keyword) || " +
+            "websearch_to_tsquery('english', :keyword) AS q) query " +
+            "WHERE a.status = 'ACTIVE' " +
+            "AND a.price BETWEEN :min AND :max " +
+            "AND a.search_vector @@ query.q " +
+            "AND a." + TombstoneRestrictions.ADVERTISEMENT + " " +
+            "ORDER BY a.boosted DESC, ts_rank(a.search_vector, query.q) DESC, a.seller_rating DESC, a.id",
+            nativeQuery = true)
+    List<Long> findIdsWithActiveStatusByFullText(@Param("min") Integer min,
+                                                 @Param("max") Integer max,
+                                                 @Param("keyword") String keyword,
+                                                 Pageable pageable);
+
+    /**
+     * Получить ID первой страницы ленты активных объявлений в порядке ранга по убыванию и ID по возрастанию.
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово в заголовке или описании
+     * @param limit размер страницы
+     * @return список ID объявлений
+     */
+    @Query(value = "SELECT a.id FROM advertisement.advertisements a " +
+            "WHERE a.status = 'ACTIVE' " +
+            "AND a.price BETWEEN :min AND :max " +
+            FEED_KEYWORD_CONDITION +
+            "AND a." + TombstoneRestrictions.ADVERTISEMENT + " " +
+            "ORDER BY a.rank_score DESC, a.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findFeedIds(@Param("min") Integer min,
+                           @Param("max") Integer max,
+                           @Param("keyword") String keyword,
+                           @Param("limit") int limit);
+
+    /**
+     * Получить ID страницы ленты активных объявлений, следующих за ключом курсора (keyset-пагинация по индексу
+     * {@code idx_advertisements_rank}). Избыточное условие {@code rank_score <= :rankScore} служит границей
+     * диапазона индекса, поэтому сканирование начинается с курсора, а не с начала ленты.
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово в заголовке или описании
+     * @param rankScore ранг последнего объявления предыдущей страницы
+     * @param id ID последнего объявления предыдущей страницы
+     * @param limit размер страницы
+     * @return список ID объявлений
+     */
+    @Query(value = "SELECT a.id FROM advertisement.advertisements a " +
+            "WHERE a.status = 'ACTIVE' " +
+            "AND a.price BETWEEN :min AND :max " +
+            FEED_KEYWORD_CONDITION +
+            "AND a." + TombstoneRestrictions.ADVERTISEMENT + " " +
+            "AND a.rank_score <= :rankScore " +
+            "AND (a.rank_score < :rankScore OR (a.rank_score = :rankScore AND a.id > :id)) " +
+            "ORDER BY a.rank_score DESC, a.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findFeedIdsAfter(@Param("min") Integer min,
+                                @Param("max") Integer max,
+                                @Param("keyword") String keyword,
+                                @Param("rankScore") double rankScore,
+                                @Param("id") long id,
+                                @Param("limit") int limit);
+
+    /**
+     * Получить объявления вместе с владельцами по списку ID. Порядок не гарантируется
+     * @param ids ID объявлений
+     * @return список объявлений
+     */
+    @EntityGraph(attributePaths = "user")
+    List<Advertisement> findWithUserByIdIn(Collection<Long> ids);
+
+    /**
+     * Обновить денормализованный рейтинг продавца во всех его объявлениях
+     * @param userId ID продавца
+     * @param rating рейтинг
+     */
+    @Modifying
+    @Query("UPDATE Advertisement a SET a.sellerRating = :rating WHERE a.user.id = :userId")
+    void updateSellerRating(@Param("userId") Long userId, @Param("rating") Double rating);
+
+    /**
+     * Синхронизировать денормализованный рейтинг продавца с рейтингом в таблице пользователей
+     * @return количество обновлённых объявлений
+     */
+    @Modifying
+    @Query(value = "UPDATE advertisement.advertisements a SET seller_rating = u.rating " +
+            "FROM advertisement.users u " +
+            "WHERE u.id = a.user_id AND a.seller_rating IS DISTINCT FROM u.rating",
+            nativeQuery = true)
+    int syncSellerRatings();
+
+    /**
+     * Атомарно изменить количество комментариев объявления
+     * @param id ID объявления
+     * @param delta изменение количества
+     * @return новое количество комментариев или {@code null}, если объявление не найдено
+     */
+    @Query(value = "UPDATE advertisement.advertisements SET comment_count = GREATEST(comment_count + :delta, 0) " +
+            "WHERE id = :id RETURNING comment_count",
+            nativeQuery = true)
+    Integer addCommentCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Пересчитать количество комментариев у объявлений, где оно разошлось с таблицей комментариев. Расхождение,
+     * видимое в снимке запроса, прибавляется к текущему значению, поэтому параллельные изменения не теряются
+     * @return список расхождений [ID объявления, сохранённое количество, фактическое количество]
+     */
+    @Query(value = "WITH drift AS (" +
+            "SELECT a.id, a.comment_count AS stored, COUNT(c.id) AS actual " +
+            "FROM advertisement.advertisements a " +
+            "LEFT JOIN advertisement.comments c ON c.advertisement_id = a.id " +
+            "GROUP BY a.id " +
+            "HAVING a.comment_count <> COUNT(c.id)), " +
+            "fixed AS (" +
+            "UPDATE advertisement.advertisements a " +
+            "SET comment_count = GREATEST(a.comment_count + d.actual - d.stored, 0) " +
+            "FROM drift d WHERE a.id = d.id " +
+            "RETURNING a.id, d.stored, d.actual) " +
+            "SELECT id, stored, actual FROM fixed ORDER BY id",
+            nativeQuery = true)
+    List<Object[]> recomputeCommentCounts();
+
+    /**
+     * Прибавить накопленные просмотры к статистике объявлений одним запросом. Просмотры удалённых объявлений
+     * пропускаются
+     * @param ids ID объявлений
+     * @param counts количество просмотров в том же порядке
+     * @return ID объявлений, просмотры которых записаны
+     */
+    @Query(value = "INSERT INTO advertisement.advertisement_stats (advertisement_id, view_count) " +
+            "SELECT v.id, v.views " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:counts AS BIGINT[])) AS v(id, views) " +
+            "JOIN advertisement.advertisements a ON a.id = v.id " +
+            "ON CONFLICT (advertisement_id) DO UPDATE " +
+            "SET view_count = advertisement_stats.view_count + EXCLUDED.view_count, updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING advertisement_id",
+            nativeQuery = true)
+    List<Long> addViewCounts(@Param("ids") Long[] ids, @Param("counts") Long[] counts);
+
+    /**
+     * Получить незавершённые продвижения объявлений
+     * @return список пар [ID объявления, окончание продвижения]
+     */
+    @Query("SELECT a.id, a.boostedUntil FROM Advertisement a WHERE a.boosted = TRUE AND a.boostedUntil IS NOT NULL")
+    List<Object[]> findPendingBoosts();
+
+    /**
+     * Снять истёкшее продвижение с объявлений одним запросом. Продлённые продвижения не затрагиваются
+     * @param ids ID объявлений
+     * @param now текущий момент
+     * @return ID объявлений, с которых снято продвижение
+     */
+    @Query(value = "UPDATE advertisement.advertisements SET boosted = FALSE, boosted_until = NULL " +
+            "WHERE id IN (:ids) AND boosted AND boosted_until <= :now " +
+            "RETURNING id",
+            nativeQuery = true)
+    List<Long> expireBoosts(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Снять все истёкшие продвижения по частичному индексу {@code idx_advertisements_boost_expiry}
+     * @param now текущий момент
+     * @param limit максимальное количество объявлений
+     * @return ID объявлений, с которых снято продвижение
+     */
+    @Query(value = "UPDATE advertisement.advertisements SET boosted = FALSE, boosted_until = NULL " +
+            "WHERE id IN (SELECT a.id FROM advertisement.advertisements a " +
+            "WHERE a.boosted AND a.boosted_until <= :now LIMIT :limit) " +
+            "RETURNING id",
+            nativeQuery = true)
+    List<Long> expireDueBoosts(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Захватить пачку объявлений из очереди автоматической модерации в порядке поступления. Строки блокируются до
+     * конца транзакции, уже заблокированные другими обработчиками пропускаются
+     * @param limit размер пачки
+     * @return список [ID объявления, заголовок, описание, цена, время ожидания в очереди в миллисекундах]
+     */
+    @Query(value = "SELECT a.id, a.headline, a.description, a.price, " +
+            "CAST(EXTRACT(EPOCH FROM LOCALTIMESTAMP - a.submitted_at) * 1000 AS BIGINT) " +
+            "FROM advertisement.advertisements a " +
+            "WHERE a.status = 'REVIEW' AND a.moderated_at IS NULL " +
+            "AND a." + TombstoneRestrictions.ADVERTISEMENT + " " +
+            "ORDER BY a.submitted_at, a.id " +
+            "LIMIT :limit " +
+            "FOR UPDATE OF a SKIP LOCKED",
+            nativeQuery = true)
+    List<Object[]> lockReviewQueue(@Param("limit") int limit);
+
+    /**
+     * Применить решения модерации к пачке объявлений одним запросом. Объявления, покинувшие статус
+     * {@code REVIEW}, не затрагиваются
+     * @param ids ID объявлений
+     * @param statuses новые статусы в том же порядке
+     * @param reasons причины отклонения в том же порядке
+     * @return список [ID объявления, новый статус]
+     */
+    @Query(value = "UPDATE advertisement.advertisements a " +
+            "SET status = v.status, rejection_reason = v.reason, moderated_at = LOCALTIMESTAMP " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:statuses AS VARCHAR[]), CAST(:reasons AS VARCHAR[])) " +
+            "AS v(id, status, reason) " +
+            "WHERE a.id = v.id AND a.status = 'REVIEW' " +
+            "RETURNING a.id, a.status",
+            nativeQuery = true)
+    List<Object[]> applyModeration(@Param("ids") Long[] ids,
+                                   @Param("statuses") String[] statuses,
+                                   @Param("reasons") String[] reasons);
+
+    /**
+     * Одобрить объявления на модерации или отклонённые модерацией одним запросом
+     * @param ids ID объявлений
+     * @return ID одобренных объявлений
+     */
+    @Query(value = "UPDATE advertisement.advertisements " +
+            "SET status = 'ACTIVE', rejection_reason = NULL, moderated_at = LOCALTIMESTAMP " +
+            "WHERE id IN (:ids) AND status IN ('REVIEW', 'REJECTED') " +
+            "AND " + TombstoneRestrictions.ADVERTISEMENT + " " +
+            "RETURNING id",
+            nativeQuery = true)
+    List<Long> approve(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Получить состояние очереди модерации по частичному индексу {@code idx_advertisements_review_queue}
+     * @return список из одной строки [размер очереди автоматической проверки, возраст её старейшего объявления
+     * в миллисекундах, размер очереди ручной проверки, возраст её старейшего объявления в миллисекундах]
+     */
+    @Query(value = "SELECT COUNT(*) FILTER (WHERE a.moderated_at IS NULL), " +
+            "COALESCE(CAST(EXTRACT(EPOCH FROM LOCALTIMESTAMP - MIN(a.submitted_at) " +
+            "FILTER (WHERE a.moderated_at IS NULL)) * 1000 AS BIGINT), 0), " +
+            "COUNT(*) FILTER (WHERE a.moderated_at IS NOT NULL), " +
+            "COALESCE(CAST(EXTRACT(EPOCH FROM LOCALTIMESTAMP - MIN(a.submitted_at) " +
+            "FILTER (WHERE a.moderated_at IS NOT NULL)) * 1000 AS BIGINT), 0) " +
+            "FROM advertisement.advertisements a " +
+            "WHERE a.status = 'REVIEW' AND a." + TombstoneRestrictions.ADVERTISEMENT,
+            nativeQuery = true)
+    List<Object[]> getReviewQueueStats();
+
     /**
      * Получить список объявлений по пользователю
      * @param user пользователь
@@ -44,11 +314,14 @@ public interface AdvertisementRepository extends JpaRepository<Advertisement, Lo
             "WHERE a.user = :user " +
             "AND ( (:active) IS NULL OR " +
             "(CASE WHEN :active = TRUE THEN a.status = 'ACTIVE' ELSE 1=1 END) )")
+    @EntityGraph(attributePaths = "user")
     List<Advertisement> findByUser(@Param("user") User user, @Param("active") Boolean active, Pageable pageable);
 
     /**
-     * Удаление объявления по владельцу
-     * @param id ID пользователя
+     * Получить все объявления с указанным статусом вместе с владельцами
+     * @param status статус объявления
+     * @return список объявлений
      */
-    void deleteByUser_Id(Long id);
+    @EntityGraph(attributePaths = "user")
+    List<Advertisement> findByStatus(AdvertisementStatus status);
 }
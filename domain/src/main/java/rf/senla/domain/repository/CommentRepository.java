@@ -1,10 +1,16 @@
 package rf.senla.domain.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rf.senla.domain.entity.Comment;
+import rf.senla.domain.entity.TombstoneRestrictions;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,29 +18,118 @@ import java.util.List;
  */
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    String TIMELINE_CONDITION = "WHERE c.advertisement_id = :advertisementId " +
+            "AND " + TombstoneRestrictions.COMMENT + " ";
+
+    /**
+     * Часть CTE, уменьшающая количество комментариев объявлений на число строк из CTE {@code deleted}
+     */
+    String COUNTS_DECREMENT = "decremented AS (" +
+            "UPDATE advertisement.advertisements a " +
+            "SET comment_count = GREATEST(a.comment_count - d.deleted_count, 0) " +
+            "FROM (SELECT advertisement_id, COUNT(*) AS deleted_count FROM deleted GROUP BY advertisement_id) d " +
+            "WHERE a.id = d.advertisement_id) ";
+
+    /**
+     * Получить объявление с продавцом и автора комментария одним запросом
+     * @param advertisementId ID объявления
+     * @param username логин автора
+     * @return список из одной строки [объявление, автор] или пустой список, если кто-то из них не найден
+     */
+    @Query("SELECT a, u FROM Advertisement a JOIN FETCH a.user, User u " +
+            "WHERE a.id = :advertisementId AND u.username = :username")
+    List<Object[]> findAdvertisementAndAuthor(@Param("advertisementId") Long advertisementId,
+                                              @Param("username") String username);
+
+    /**
+     * Сохранить комментарий и увеличить количество комментариев объявления одним запросом
+     * @param advertisementId ID объявления
+     * @param userId ID автора
+     * @param text текст комментария
+     * @param createdAt время создания
+     * @return список из одной строки [ID комментария, новое количество комментариев объявления]
+     */
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO advertisement.comments (advertisement_id, user_id, text, created_at) " +
+            "VALUES (:advertisementId, :userId, :text, :createdAt) " +
+            "RETURNING id, advertisement_id), " +
+            "incremented AS (" +
+            "UPDATE advertisement.advertisements a SET comment_count = a.comment_count + 1 " +
+            "FROM inserted i WHERE a.id = i.advertisement_id " +
+            "RETURNING a.comment_count) " +
+            "SELECT i.id, c.comment_count FROM inserted i LEFT JOIN incremented c ON TRUE",
+            nativeQuery = true)
+    List<Object[]> insertComment(@Param("advertisementId") Long advertisementId,
+                                 @Param("userId") Long userId,
+                                 @Param("text") String text,
+                                 @Param("createdAt") LocalDateTime createdAt);
+
     /**
      * Получает список комментариев, связанных с указанным объявлением, с пагинацией.
      * @param advertisementId ID объявления, для которого нужно получить комментарии.
      * @param pageable Пагинация.
      * @return Список комментариев, связанных с объявлением.
      */
+    @EntityGraph(attributePaths = {"user", "advertisement", "advertisement.user"})
     List<Comment> findByAdvertisement_Id(Long advertisementId, Pageable pageable);
 
     /**
-     * Удаление комментариев пользователя
-     * @param id ID пользователя
+     * Получить ID последних комментариев к объявлению (keyset-пагинация по индексу
+     * {@code comments_advertisement_timeline_idx}).
+     * @param advertisementId ID объявления
+     * @param limit размер страницы
+     * @return список ID комментариев от новых к старым
+     */
+    @Query(value = "SELECT c.id FROM advertisement.comments c " +
+            TIMELINE_CONDITION +
+            "ORDER BY c.created_at DESC, c.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findLatestTimelineIds(@Param("advertisementId") Long advertisementId, @Param("limit") int limit);
+
+    /**
+     * Получить ID комментариев к объявлению, созданных раньше ключа курсора.
+     * @param advertisementId ID объявления
+     * @param createdAt время создания последнего комментария предыдущей страницы
+     * @param id ID последнего комментария предыдущей страницы
+     * @param limit размер страницы
+     * @return список ID комментариев от новых к старым
      */
-    void deleteByUser_Id(Long id);
+    @Query(value = "SELECT c.id FROM advertisement.comments c " +
+            TIMELINE_CONDITION +
+            "AND (c.created_at, c.id) < (:createdAt, :id) " +
+            "ORDER BY c.created_at DESC, c.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTimelineIdsBefore(@Param("advertisementId") Long advertisementId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") long id,
+                                     @Param("limit") int limit);
 
     /**
-     * Удаление комментариев с объявлениями, у которых владельцем является пользователь
-     * @param id ID пользователя
+     * Получить ID комментариев к объявлению, созданных позже ключа курсора.
+     * @param advertisementId ID объявления
+     * @param createdAt время создания последнего комментария предыдущей страницы
+     * @param id ID последнего комментария предыдущей страницы
+     * @param limit размер страницы
+     * @return список ID комментариев от старых к новым
      */
-    void deleteByAdvertisement_User_Id(Long id);
+    @Query(value = "SELECT c.id FROM advertisement.comments c " +
+            TIMELINE_CONDITION +
+            "AND (c.created_at, c.id) > (:createdAt, :id) " +
+            "ORDER BY c.created_at, c.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTimelineIdsAfter(@Param("advertisementId") Long advertisementId,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") long id,
+                                    @Param("limit") int limit);
 
     /**
-     * Удаление комментариев по объявлению
-     * @param id ID объявления
+     * Получить комментарии вместе с авторами и объявлением по списку ID. Порядок не гарантируется
+     * @param ids ID комментариев
+     * @return список комментариев
      */
-    void deleteByAdvertisement_Id(Long id);
+    @EntityGraph(attributePaths = {"user", "advertisement", "advertisement.user"})
+    List<Comment> findWithUserByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,117 @@
+package rf.senla.domain.repository;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rf.senla.domain.entity.Conversation;
+import rf.senla.domain.entity.TombstoneRestrictions;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с перепиской в базе данных. Последнее сообщение и счётчики непрочитанных обновляются
+ * одним запросом на каждое изменение сообщения, поэтому входящие читаются без агрегации по сообщениям.
+ */
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+    /**
+     * Получить ID переписок страницы входящих пользователя: сначала недавние, переписки без сообщений - в конце.
+     * Пользователь может быть первым или вторым участником, поэтому каждая роль читается своей веткой по индексу
+     * {@code (user_id, last_message_at DESC NULLS LAST, id DESC)}, а ветки объединяются через {@code UNION ALL}
+     * @param userId ID пользователя
+     * @param limit размер страницы
+     * @param offset смещение страницы
+     * @return ID переписок в порядке страницы
+     */
+    @Query(value = "SELECT c.id FROM (" +
+            "(SELECT id, last_message_at FROM advertisement.conversations " +
+            "WHERE first_user_id = :userId AND " + TombstoneRestrictions.CONVERSATION + " " +
+            "ORDER BY last_message_at DESC NULLS LAST, id DESC LIMIT :limit + :offset) " +
+            "UNION ALL " +
+            "(SELECT id, last_message_at FROM advertisement.conversations " +
+            "WHERE second_user_id = :userId AND first_user_id <> :userId " +
+            "AND " + TombstoneRestrictions.CONVERSATION + " " +
+            "ORDER BY last_message_at DESC NULLS LAST, id DESC LIMIT :limit + :offset)) c " +
+            "ORDER BY c.last_message_at DESC NULLS LAST, c.id DESC " +
+            "LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Long> findInboxIds(@Param("userId") Long userId, @Param("limit") int limit, @Param("offset") long offset);
+
+    /**
+     * Получить переписки с участниками, объявлением и последним сообщением по списку ID. Порядок не гарантируется
+     * @param ids ID переписок
+     * @return список переписок
+     */
+    @Query("SELECT c FROM Conversation c WHERE c.id IN :ids")
+    @EntityGraph(attributePaths = {"firstUser", "secondUser", "advertisement", "lastMessage"})
+    List<Conversation> findWithParticipantsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Изменить счётчик непрочитанных получателя сообщения
+     * @param messageId ID сообщения
+     * @param sentAt время отправки сообщения
+     * @param delta изменение счётчика
+     * @return количество обновлённых строк
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE advertisement.conversations c SET " +
+            "first_unread_count = GREATEST(c.first_unread_count " +
+            "+ CASE WHEN m.recipient_id = c.first_user_id THEN :delta ELSE 0 END, 0), " +
+            "second_unread_count = GREATEST(c.second_unread_count " +
+            "+ CASE WHEN m.recipient_id = c.second_user_id AND c.first_user_id <> c.second_user_id " +
+            "THEN :delta ELSE 0 END, 0) " +
+            "FROM advertisement.messages m " +
+            "WHERE m.id = :messageId AND m.sent_at = :sentAt AND c.id = m.conversation_id",
+            nativeQuery = true)
+    int adjustUnread(@Param("messageId") Long messageId,
+                     @Param("sentAt") LocalDateTime sentAt,
+                     @Param("delta") int delta);
+
+    /**
+     * Уменьшить счётчик непрочитанных участника переписки после массовой отметки о прочтении
+     * @param conversationId ID переписки
+     * @param userId ID участника, прочитавшего сообщения
+     * @param count количество прочитанных сообщений
+     * @return количество обновлённых строк
+     */
+    @Modifying
+    @Query(value = "UPDATE advertisement.conversations c SET " +
+            "first_unread_count = CASE WHEN c.first_user_id = :userId " +
+            "THEN GREATEST(c.first_unread_count - :count, 0) ELSE c.first_unread_count END, " +
+            "second_unread_count = CASE WHEN c.second_user_id = :userId AND c.first_user_id <> c.second_user_id " +
+            "THEN GREATEST(c.second_unread_count - :count, 0) ELSE c.second_unread_count END " +
+            "WHERE c.id = :conversationId",
+            nativeQuery = true)
+    int subtractUnread(@Param("conversationId") Long conversationId,
+                       @Param("userId") Long userId,
+                       @Param("count") int count);
+
+    /**
+     * Исключить сообщение перед удалением: снять его из непрочитанных и, если оно последнее, сделать последним
+     * предыдущее сообщение переписки
+     * @param messageId ID сообщения
+     * @param sentAt время отправки сообщения
+     * @return количество обновлённых строк
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE advertisement.conversations c SET " +
+            "first_unread_count = GREATEST(c.first_unread_count " +
+            "- CASE WHEN m.read IS NOT TRUE AND m.recipient_id = c.first_user_id THEN 1 ELSE 0 END, 0), " +
+            "second_unread_count = GREATEST(c.second_unread_count " +
+            "- CASE WHEN m.read IS NOT TRUE AND m.recipient_id = c.second_user_id " +
+            "AND c.first_user_id <> c.second_user_id THEN 1 ELSE 0 END, 0), " +
+            "last_message_id = CASE WHEN c.last_message_id = m.id THEN p.id ELSE c.last_message_id END, " +
+            "last_message_at = CASE WHEN c.last_message_id = m.id THEN p.sent_at ELSE c.last_message_at END " +
+            "FROM advertisement.messages m " +
+            "LEFT JOIN LATERAL (SELECT pm.id, pm.sent_at FROM advertisement.messages pm " +
+            "WHERE pm.conversation_id = m.conversation_id AND pm.id <> m.id " +
+            "ORDER BY pm.sent_at DESC, pm.id DESC LIMIT 1) p ON TRUE " +
+            "WHERE m.id = :messageId AND m.sent_at = :sentAt AND c.id = m.conversation_id",
+            nativeQuery = true)
+    int detachMessage(@Param("messageId") Long messageId, @Param("sentAt") LocalDateTime sentAt);
+}
@@ -0,0 +1,72 @@
+package rf.senla.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rf.senla.domain.entity.EmailOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с очередью исходящей почты в базе данных.
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    /**
+     * Захватить пачку писем, готовых к отправке, на время аренды. Письма переводятся в статус
+     * {@code IN_PROGRESS}, а {@code next_attempt_at} сдвигается на конец аренды, поэтому блокировка строк нужна
+     * только на время этого запроса. Письма с истёкшей арендой захватываются повторно.
+     * @param limit размер пачки
+     * @param leaseSeconds длительность аренды в секундах
+     * @return список захваченных писем
+     */
+    @Query(value = "UPDATE advertisement.email_outbox o " +
+            "SET status = 'IN_PROGRESS', next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds) " +
+            "WHERE o.id IN (SELECT id FROM advertisement.email_outbox " +
+            "WHERE status IN ('PENDING', 'IN_PROGRESS') AND next_attempt_at <= LOCALTIMESTAMP " +
+            "ORDER BY next_attempt_at, id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING o.*",
+            nativeQuery = true)
+    List<EmailOutbox> claimPending(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Отметить захваченные письма доставленными. Письма, аренда которых истекла и была перехвачена, не меняются
+     * @param ids ID писем
+     * @param leaseUntil конец аренды, выданной при захвате
+     * @return количество обновлённых писем
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.email_outbox " +
+            "SET status = 'SENT', attempts = attempts + 1, sent_at = LOCALTIMESTAMP, last_error = NULL " +
+            "WHERE id IN (:ids) AND status = 'IN_PROGRESS' AND next_attempt_at = :leaseUntil",
+            nativeQuery = true)
+    int markSent(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Отметить неудачную попытку отправки захваченного письма
+     * @param id ID письма
+     * @param leaseUntil конец аренды, выданной при захвате
+     * @param status новый статус: {@code PENDING} для повтора или {@code FAILED}
+     * @param nextAttemptAt время следующей попытки
+     * @param lastError текст ошибки
+     * @return количество обновлённых писем
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.email_outbox " +
+            "SET status = :status, attempts = attempts + 1, next_attempt_at = :nextAttemptAt, " +
+            "last_error = :lastError " +
+            "WHERE id = :id AND status = 'IN_PROGRESS' AND next_attempt_at = :leaseUntil",
+            nativeQuery = true)
+    int markFailed(@Param("id") Long id,
+                   @Param("leaseUntil") LocalDateTime leaseUntil,
+                   @Param("status") String status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+}
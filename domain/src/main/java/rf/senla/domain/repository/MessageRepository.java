@@ -1,40 +1,279 @@
 package rf.senla.domain.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rf.senla.domain.entity.Message;
+import rf.senla.domain.entity.TombstoneRestrictions;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
- * Репозиторий для работы с сущностью сообщения в базе данных.
+ * Репозиторий для работы с сущностью сообщения в базе данных. Таблица сообщений секционирована по месяцам
+ * {@code sent_at}, старые секции переносятся в архив {@code messages_archive}, который читают только запросы ленты
+ * с явным флагом {@code archived}.
+ * <p>
+ * Первичный ключ сообщения - {@code (id, sent_at)}, поэтому запросы ограничивают {@code sent_at}: точным значением,
+ * если оно известно, или временем создания переписки. Иначе запрос проверяет каждую секцию.
  */
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
+    String CONVERSATION_CREATED_AT = "(SELECT MIN(c.created_at) FROM advertisement.conversations c " +
+            "WHERE c.first_user_id = :firstId AND c.second_user_id = :secondId)";
+    String TIMELINE_SOURCE = "(SELECT id, conversation_id, advertisement_id, sender_id, recipient_id, sent_at " +
+            "FROM advertisement.messages WHERE sent_at >= " + CONVERSATION_CREATED_AT + " " +
+            "UNION ALL SELECT id, conversation_id, advertisement_id, sender_id, recipient_id, sent_at " +
+            "FROM advertisement.messages_archive WHERE :archived) m ";
+    String TIMELINE_CONDITION = "WHERE m.conversation_id IN (SELECT c.id FROM advertisement.conversations c " +
+            "WHERE c.first_user_id = :firstId AND c.second_user_id = :secondId) " +
+            "AND " + TombstoneRestrictions.MESSAGE + " ";
+
     /**
-     * Возвращает список сообщений между двумя пользователями с пагинацией.
-     * @param firstId идентификатор первого пользователя
-     * @param secondId идентификатор второго пользователя
+     * Возвращает список сообщений между двумя пользователями с пагинацией. Сообщения выбираются по переписке,
+     * поэтому запрос использует индекс {@code (conversation_id, sent_at DESC, id DESC)}, а секции старше переписки
+     * отсекаются.
+     * @param firstId меньший идентификатор пользователя
+     * @param secondId больший идентификатор пользователя
      * @param pageable пагинация
      * @return список сообщений между двумя пользователями
      */
-    @Query("SELECT m FROM Message m " +
-            "WHERE (m.sender.id = :firstId AND m.recipient.id = :secondId) " +
-            "OR (m.sender.id = :secondId AND m.recipient.id = :firstId)")
+    @Query("SELECT m FROM Message m JOIN m.conversation c " +
+            "WHERE c.firstUser.id = :firstId AND c.secondUser.id = :secondId " +
+            "AND m.sentAt >= (SELECT MIN(b.createdAt) FROM Conversation b " +
+            "WHERE b.firstUser.id = :firstId AND b.secondUser.id = :secondId)")
+    @EntityGraph(attributePaths = {"sender", "recipient", "advertisement", "advertisement.user"})
     List<Message> findMessagesBetweenUsers(Long firstId, Long secondId, Pageable pageable);
 
     /**
-     * Удаление сообщений по отправителю или получателю
-     * @param sender ID отправителя
-     * @param recipient ID получателя
+     * Получить ID последних сообщений между двумя пользователями (keyset-пагинация по индексу
+     * {@code messages_conversation_timeline_idx}).
+     * @param firstId меньший идентификатор пользователя
+     * @param secondId больший идентификатор пользователя
+     * @param archived учитывать ли архив сообщений
+     * @param limit размер страницы
+     * @return список ID сообщений от новых к старым
+     */
+    @Query(value = "SELECT m.id FROM " + TIMELINE_SOURCE +
+            TIMELINE_CONDITION +
+            "ORDER BY m.sent_at DESC, m.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findLatestTimelineIds(@Param("firstId") Long firstId,
+                                     @Param("secondId") Long secondId,
+                                     @Param("archived") boolean archived,
+                                     @Param("limit") int limit);
+
+    /**
+     * Получить ID сообщений между двумя пользователями, отправленных раньше ключа курсора. Условие по
+     * {@code sent_at} отсекает месячные секции новее курсора.
+     * @param firstId меньший идентификатор пользователя
+     * @param secondId больший идентификатор пользователя
+     * @param sentAt время отправки последнего сообщения предыдущей страницы
+     * @param id ID последнего сообщения предыдущей страницы
+     * @param archived учитывать ли архив сообщений
+     * @param limit размер страницы
+     * @return список ID сообщений от новых к старым
+     */
+    @Query(value = "SELECT m.id FROM " + TIMELINE_SOURCE +
+            TIMELINE_CONDITION +
+            "AND m.sent_at <= :sentAt AND (m.sent_at, m.id) < (:sentAt, :id) " +
+            "ORDER BY m.sent_at DESC, m.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTimelineIdsBefore(@Param("firstId") Long firstId,
+                                     @Param("secondId") Long secondId,
+                                     @Param("sentAt") LocalDateTime sentAt,
+                                     @Param("id") long id,
+                                     @Param("archived") boolean archived,
+                                     @Param("limit") int limit);
+
+    /**
+     * Получить ID сообщений между двумя пользователями, отправленных позже ключа курсора. Условие по
+     * {@code sent_at} отсекает месячные секции старше курсора.
+     * @param firstId меньший идентификатор пользователя
+     * @param secondId больший идентификатор пользователя
+     * @param sentAt время отправки последнего сообщения предыдущей страницы
+     * @param id ID последнего сообщения предыдущей страницы
+     * @param archived учитывать ли архив сообщений
+     * @param limit размер страницы
+     * @return список ID сообщений от старых к новым
+     */
+    @Query(value = "SELECT m.id FROM " + TIMELINE_SOURCE +
+            TIMELINE_CONDITION +
+            "AND m.sent_at >= :sentAt AND (m.sent_at, m.id) > (:sentAt, :id) " +
+            "ORDER BY m.sent_at, m.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTimelineIdsAfter(@Param("firstId") Long firstId,
+                                    @Param("secondId") Long secondId,
+                                    @Param("sentAt") LocalDateTime sentAt,
+                                    @Param("id") long id,
+                                    @Param("archived") boolean archived,
+                                    @Param("limit") int limit);
+
+    /**
+     * Получить сообщения вместе с участниками и объявлением по списку ID. Порядок не гарантируется
+     * @param ids ID сообщений
+     * @return список сообщений
+     */
+    @EntityGraph(attributePaths = {"sender", "recipient", "advertisement", "advertisement.user"})
+    List<Message> findWithParticipantsByIdIn(Collection<Long> ids);
+
+    /**
+     * Получить сообщение по ключу секционированной таблицы, запрос читает одну секцию
+     * @param id ID сообщения
+     * @param sentAt время отправки сообщения
+     * @return объект Optional, содержащий сообщение, если найдено, иначе пустой Optional
+     */
+    Optional<Message> findByIdAndSentAt(Long id, LocalDateTime sentAt);
+
+    /**
+     * Получить объявление с продавцом, отправителя и получателя сообщения одним запросом
+     * @param advertisementId ID объявления
+     * @param sender логин отправителя
+     * @param recipient логин получателя
+     * @return список из одной строки [объявление, отправитель, получатель] или пустой список, если кто-то из них
+     * не найден
+     */
+    @Query("SELECT a, s, r FROM Advertisement a JOIN FETCH a.user, User s, User r " +
+            "WHERE a.id = :advertisementId AND s.username = :sender AND r.username = :recipient")
+    List<Object[]> findParticipants(@Param("advertisementId") Long advertisementId,
+                                    @Param("sender") String sender,
+                                    @Param("recipient") String recipient);
+
+    /**
+     * Сохранить новое непрочитанное сообщение одним запросом: переписка создаётся при первом сообщении, иначе в ней
+     * обновляются последнее сообщение, счётчик непрочитанных получателя и время создания. Существование участников
+     * и объявления проверяют внешние ключи переписки. Конфликт по участникам блокирует строку переписки, поэтому
+     * одновременные сообщения не теряют обновления счётчиков
+     * @param senderId ID отправителя
+     * @param recipientId ID получателя
+     * @param advertisementId ID объявления
+     * @param text текст сообщения
+     * @param sentAt время отправки сообщения
+     * @return список из одной строки [ID сообщения, ID переписки]
+     */
+    @Query(value = "WITH message_id AS (SELECT nextval('advertisement.messages_id_seq') AS id), " +
+            "conversation AS (" +
+            "INSERT INTO advertisement.conversations AS c (first_user_id, second_user_id, advertisement_id, " +
+            "last_message_id, last_message_at, first_unread_count, second_unread_count, created_at) " +
+            "SELECT LEAST(:senderId, :recipientId), GREATEST(:senderId, :recipientId), :advertisementId, " +
+            "n.id, :sentAt, CASE WHEN :recipientId <= :senderId THEN 1 ELSE 0 END, " +
+            "CASE WHEN :recipientId > :senderId THEN 1 ELSE 0 END, :sentAt FROM message_id n " +
+            "ON CONFLICT (first_user_id, second_user_id, advertisement_id) DO UPDATE SET " +
+            "last_message_id = EXCLUDED.last_message_id, last_message_at = EXCLUDED.last_message_at, " +
+            "first_unread_count = c.first_unread_count + EXCLUDED.first_unread_count, " +
+            "second_unread_count = c.second_unread_count + EXCLUDED.second_unread_count, " +
+            "created_at = LEAST(c.created_at, EXCLUDED.created_at) " +
+            "RETURNING c.id), " +
+            "inserted AS (" +
+            "INSERT INTO advertisement.messages " +
+            "(id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id) " +
+            "SELECT n.id, :advertisementId, :senderId, :recipientId, :text, :sentAt, FALSE, c.id " +
+            "FROM message_id n, conversation c " +
+            "RETURNING id, conversation_id) " +
+            "SELECT id, conversation_id FROM inserted",
+            nativeQuery = true)
+    List<Object[]> insertMessage(@Param("senderId") Long senderId,
+                                 @Param("recipientId") Long recipientId,
+                                 @Param("advertisementId") Long advertisementId,
+                                 @Param("text") String text,
+                                 @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Изменить текст и статус прочтения сообщения в его секции
+     * @param id ID сообщения
+     * @param sentAt время отправки сообщения
+     * @param text текст сообщения
+     * @param read статус прочтения
+     * @return количество обновлённых сообщений
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE advertisement.messages SET text = :text, read = :read " +
+            "WHERE id = :id AND sent_at = :sentAt",
+            nativeQuery = true)
+    int updateContent(@Param("id") Long id,
+                      @Param("sentAt") LocalDateTime sentAt,
+                      @Param("text") String text,
+                      @Param("read") boolean read);
+
+    /**
+     * Удалить сообщение из его секции
+     * @param id ID сообщения
+     * @param sentAt время отправки сообщения
+     * @return количество удалённых сообщений
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM advertisement.messages WHERE id = :id AND sent_at = :sentAt", nativeQuery = true)
+    int deleteByKey(@Param("id") Long id, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Получить архивные сообщения по списку ID. Порядок не гарантируется
+     * @param ids ID сообщений
+     * @return список сообщений
+     */
+    @Query(value = "SELECT * FROM advertisement.messages_archive WHERE id IN (:ids)", nativeQuery = true)
+    List<Message> findArchivedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Создать месячную секцию таблицы сообщений, если её ещё нет. Строки этого месяца из секции по умолчанию
+     * переносятся в новую секцию
+     * @param month любой день месяца
+     * @return имя секции
+     */
+    @Query(value = "SELECT advertisement.create_messages_partition(CAST(:month AS DATE))", nativeQuery = true)
+    String createPartition(@Param("month") LocalDate month);
+
+    /**
+     * Получить месячные секции, закончившиеся до указанной даты, в том числе уже отсоединённые, но ещё не
+     * перенесённые в архив
+     * @param before граница хранения
+     * @return список [имя таблицы, состояние: {@code ATTACHED}, {@code DETACH_PENDING} или {@code DETACHED}]
+     */
+    @Query(value = "SELECT c.relname, CASE WHEN i.inhrelid IS NULL THEN 'DETACHED' " +
+            "WHEN i.inhdetachpending THEN 'DETACH_PENDING' ELSE 'ATTACHED' END " +
+            "FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "LEFT JOIN pg_inherits i ON i.inhrelid = c.oid " +
+            "WHERE n.nspname = 'advertisement' AND c.relkind = 'r' " +
+            "AND c.relname ~ '^messages_[0-9]{4}_[0-9]{2}$' " +
+            "AND to_date(substr(c.relname, 10), 'YYYY_MM') + INTERVAL '1 month' <= CAST(:before AS DATE) " +
+            "ORDER BY c.relname",
+            nativeQuery = true)
+    List<Object[]> findExpiredPartitions(@Param("before") LocalDate before);
+
+    /**
+     * Перенести пачку строк отсоединённой секции в архив сообщений и скорректировать счётчики переписок
+     * @param name имя отсоединённой секции
+     * @param limit размер пачки
+     * @return количество перенесённых сообщений, 0 - секция пуста
      */
-    void deleteBySender_IdOrRecipient_Id(Long sender, Long recipient);
+    @Query(value = "SELECT advertisement.archive_messages_chunk(:name, :limit)", nativeQuery = true)
+    int archivePartitionChunk(@Param("name") String name, @Param("limit") int limit);
 
     /**
-     * Удаление сообщений по привязанному объявлению
-     * @param id ID объявления
+     * Отметить прочитанными все непрочитанные сообщения получателя в переписке до указанного ID включительно.
+     * Секции старше переписки отсекаются
+     * @param conversationId ID переписки
+     * @param recipientId ID получателя
+     * @param upToId ID последнего прочитанного сообщения
+     * @return количество отмеченных сообщений
      */
-    void deleteByAdvertisement_Id(Long id);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.messages SET read = TRUE " +
+            "WHERE conversation_id = :conversationId AND recipient_id = :recipientId AND id <= :upToId " +
+            "AND read IS NOT TRUE " +
+            "AND sent_at >= (SELECT c.created_at FROM advertisement.conversations c WHERE c.id = :conversationId)",
+            nativeQuery = true)
+    int markReadUpTo(@Param("conversationId") Long conversationId,
+                     @Param("recipientId") Long recipientId,
+                     @Param("upToId") Long upToId);
 }
@@ -1,9 +1,15 @@
 package rf.senla.domain.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import rf.senla.domain.entity.TombstoneRestrictions;
 import rf.senla.domain.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +17,13 @@ import java.util.Optional;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Получить страницу пользователей без подсчёта общего количества.
+     * @param pageable пагинация
+     * @return список пользователей
+     */
+    List<User> findAllBy(Pageable pageable);
+
     /**
      * Найти пользователя по его имени пользователя.
      * @param username имя пользователя
@@ -19,24 +32,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     /**
-     * Проверить существование пользователя по его имени пользователя.
+     * Найти ID пользователя по его имени пользователя без загрузки остальных полей
      * @param username имя пользователя
-     * @return {@code true}, если пользователь существует, иначе {@code false}
+     * @return объект Optional, содержащий ID пользователя, если найден, иначе пустой Optional
      */
-    boolean existsByUsername(String username);
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
 
     /**
-     * Проверить существование пользователя по его адресу электронной почты.
-     * @param email адрес электронной почты пользователя
+     * Проверить существование пользователя по его имени пользователя, включая помеченных как удалённые до их
+     * физического удаления.
+     * @param username имя пользователя
      * @return {@code true}, если пользователь существует, иначе {@code false}
      */
-    boolean existsByEmail(String email);
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM advertisement.users WHERE username = :username)", nativeQuery = true)
+    boolean existsByUsername(@Param("username") String username);
 
     /**
-     * Удалить пользователя по его имени пользователя.
-     * @param username имя пользователя
+     * Проверить существование пользователя по его адресу электронной почты, включая помеченных как удалённые
+     * до их физического удаления.
+     * @param email адрес электронной почты пользователя
+     * @return {@code true}, если пользователь существует, иначе {@code false}
      */
-    void deleteByUsername(String username);
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM advertisement.users WHERE email = :email)", nativeQuery = true)
+    boolean existsByEmail(@Param("email") String email);
 
     /**
      * Получить пользователя по токену восстановления пароля.
@@ -44,4 +63,86 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return объект Optional, содержащий пользователя, если найден, иначе пустой Optional
      */
     Optional<User> findByResetPasswordToken(String resetPasswordToken);
+
+    /**
+     * Атомарно добавить оценку в агрегаты рейтинга пользователя и пересчитать средний рейтинг.
+     * @param id ID пользователя
+     * @param evaluation оценка
+     * @return количество обновлённых строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.ratingSum = u.ratingSum + :evaluation, u.ratingCount = u.ratingCount + 1, " +
+            "u.rating = CAST(u.ratingSum + :evaluation AS Double) / (u.ratingCount + 1) " +
+            "WHERE u.id = :id")
+    int addEvaluation(@Param("id") Long id, @Param("evaluation") int evaluation);
+
+    /**
+     * Вычесть из агрегатов рейтинга получателей оценки, поставленные пользователем. Вызывается перед удалением
+     * оценок пользователя.
+     * @param senderId ID отправителя оценок
+     * @return количество обновлённых строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.users u " +
+            "SET rating_sum = u.rating_sum - r.evaluation, rating_count = u.rating_count - 1, " +
+            "rating = CASE WHEN u.rating_count = 1 THEN 0 " +
+            "ELSE CAST(u.rating_sum - r.evaluation AS DOUBLE PRECISION) / (u.rating_count - 1) END " +
+            "FROM advertisement.ratings r " +
+            "WHERE r.recipient_id = u.id AND r.sender_id = :senderId",
+            nativeQuery = true)
+    int subtractEvaluationsBySender(@Param("senderId") Long senderId);
+
+    /**
+     * Пересчитать агрегаты рейтинга по таблице оценок для пользователей, у которых они расходятся.
+     * @return количество исправленных пользователей
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.users u " +
+            "SET rating_sum = agg.rating_sum, rating_count = agg.rating_count, rating = agg.rating " +
+            "FROM (SELECT u2.id, COALESCE(SUM(r.evaluation), 0) AS rating_sum, COUNT(r.id) AS rating_count, " +
+            "COALESCE(AVG(r.evaluation), 0) AS rating " +
+            "FROM advertisement.users u2 " +
+            "LEFT JOIN advertisement.ratings r ON r.recipient_id = u2.id " +
+            "AND r.sender_id NOT IN " + TombstoneRestrictions.DELETED_USERS + " " +
+            "GROUP BY u2.id) agg " +
+            "WHERE agg.id = u.id AND (u.rating_sum <> agg.rating_sum OR u.rating_count <> agg.rating_count " +
+            "OR u.rating IS DISTINCT FROM CAST(agg.rating AS DOUBLE PRECISION))",
+            nativeQuery = true)
+    int recomputeRatingAggregates();
+
+    /**
+     * Получить версии токенов всех пользователей.
+     * @return список пар [ID пользователя, версия токенов]
+     */
+    @Query("SELECT u.id, u.tokenVersion FROM User u")
+    List<Object[]> findAllTokenVersions();
+
+    /**
+     * Получить версию токенов пользователя.
+     * @param id ID пользователя
+     * @return объект Optional, содержащий версию токенов, если пользователь найден, иначе пустой Optional
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Обновить хэш пароля пользователя.
+     * @param username имя пользователя
+     * @param password новый хэш пароля
+     * @return количество обновлённых строк
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    /**
+     * Пометить пользователя как удалённого. Его данные скрываются из всех запросов до физического удаления.
+     * @param id ID пользователя
+     * @return количество обновлённых строк
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE advertisement.users SET deleted_at = CURRENT_TIMESTAMP " +
+            "WHERE id = :id AND deleted_at IS NULL",
+            nativeQuery = true)
+    int markDeleted(@Param("id") Long id);
 }
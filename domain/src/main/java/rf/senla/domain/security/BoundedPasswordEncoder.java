@@ -0,0 +1,145 @@
+package rf.senla.domain.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.ServiceBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кодировщик паролей BCrypt, выполняющий хэширование и проверку на выделенном пуле потоков ограниченного размера.
+ * <p>
+ * Количество одновременно вычисляемых хэшей не превышает размера пула, поэтому всплеск входов не занимает все ядра
+ * и не мешает остальным эндпоинтам. При заполненной очереди задача отклоняется сразу с
+ * {@link ServiceBusyException}. Стоимость хэширования задаётся свойством {@code advertisement.security.bcrypt.strength};
+ * хэши с другой стоимостью помечаются для перехэширования при успешном входе.
+ */
+@Slf4j
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final String EXECUTOR_NAME = "passwordHashing";
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final Duration timeout;
+    private final Duration retryAfter;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(@Value("${advertisement.security.bcrypt.strength:10}") int strength,
+                                  @Value("${advertisement.security.bcrypt.threads:0}") int threads,
+                                  @Value("${advertisement.security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                  @Value("${advertisement.security.bcrypt.timeout:5s}") Duration timeout,
+                                  @Value("${advertisement.security.bcrypt.retry-after:1s}") Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, EXECUTOR_NAME);
+        this.encodeTimer = Timer.builder("password.hashing").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        log.info("Пул хэширования паролей: {} потоков, очередь {}, стоимость {}", poolSize, queueCapacity, strength);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Остановка пула потоков при закрытии контекста
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Выполнение задачи в пуле с ожиданием результата
+     * @param timer таймер длительности операции
+     * @param task задача
+     * @return результат задачи
+     * @param <T> тип результата
+     * @throws ServiceBusyException если очередь заполнена или результат не получен за отведённое время
+     */
+    private <T> T submit(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Очередь хэширования паролей заполнена, запрос отклонён");
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            log.warn("Хэширование пароля не завершилось за {}", timeout);
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
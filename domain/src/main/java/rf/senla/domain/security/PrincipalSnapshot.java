@@ -0,0 +1,42 @@
+package rf.senla.domain.security;
+
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+
+/**
+ * Неизменяемый снимок аутентифицированного пользователя: из него строится принципал запроса.
+ * <p>
+ * Принципал содержит только ID, логин, почту, роль и версию токенов. Пароль, телефон, рейтинг и остальные поля
+ * {@link User} в нём не заполнены: сервисы, которым они нужны, загружают пользователя из БД по ID или логину.
+ * Логин, почта и роль в режиме без состояния берутся из токена, поэтому их смена увеличивает версию токенов.
+ * @param id ID пользователя
+ * @param username логин пользователя
+ * @param email адрес электронной почты пользователя
+ * @param role роль пользователя
+ * @param tokenVersion версия токенов пользователя
+ */
+public record PrincipalSnapshot(Long id, String username, String email, Role role, Integer tokenVersion) {
+    /**
+     * Снимок загруженного пользователя
+     * @param user пользователь
+     * @return снимок пользователя
+     */
+    public static PrincipalSnapshot of(User user) {
+        return new PrincipalSnapshot(user.getId(), user.getUsername(), user.getEmail(), user.getRole(),
+                user.getTokenVersion());
+    }
+
+    /**
+     * Построение нового объекта принципала, не связанного с контекстом персистентности
+     * @return принципал запроса
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .role(role)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package rf.senla.domain.security;
+
+import java.time.Instant;
+
+/**
+ * Неизменяемый результат проверки JWT: подпись и срок действия уже проверены.
+ * @param username имя пользователя (subject)
+ * @param userId ID пользователя
+ * @param email адрес электронной почты пользователя
+ * @param role роль пользователя
+ * @param tokenVersion версия токенов пользователя на момент выдачи
+ * @param expiresAt момент истечения токена
+ */
+public record ValidatedToken(String username, Long userId, String email, String role, int tokenVersion,
+                             Instant expiresAt) {
+    /**
+     * Проверка, истёк ли токен к указанному моменту
+     * @param now текущий момент
+     * @return {@code true}, если токен истёк
+     */
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
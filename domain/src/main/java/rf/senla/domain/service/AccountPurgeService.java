@@ -0,0 +1,176 @@
+package rf.senla.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.entity.AccountPurge;
+import rf.senla.domain.entity.PurgeStatus;
+import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.repository.AccountPurgeRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Фоновое физическое удаление данных аккаунтов, помеченных как удалённые.
+ * <p>
+ * Данные удаляются порциями фиксированного размера, каждая порция - в отдельной короткой транзакции вместе с
+ * обновлением прогресса, поэтому строки не блокируются надолго, а после перезапуска удаление продолжается с
+ * сохранённого шага. Все шаги идемпотентны.
+ * <p>
+ * Задачи захватываются по одной через {@code FOR UPDATE SKIP LOCKED} с арендой {@code lease}, которая продлевается
+ * каждой порцией, поэтому экземпляры приложения не удаляют один аккаунт одновременно. Ошибка удаления одного
+ * аккаунта не останавливает остальные: задача остаётся незавершённой и повторяется после окончания аренды.
+ */
+@Slf4j
+@Service
+public class AccountPurgeService implements IAccountPurgeService {
+    private final AccountPurgeRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final Duration lease;
+
+    public AccountPurgeService(AccountPurgeRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${advertisement.account.purge.enabled:true}") boolean enabled,
+                               @Value("${advertisement.account.purge.chunk-size:1000}") int chunkSize,
+                               @Value("${advertisement.account.purge.lease:PT5M}") Duration lease) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+    }
+
+    @Override
+    @Transactional
+    public AccountPurge schedule(Long userId, String username) {
+        log.info("Постановка аккаунта {} в очередь на удаление", username);
+        AccountPurge purge = repository.save(AccountPurge.builder()
+                .userId(userId)
+                .username(username)
+                .build());
+        log.info("Аккаунт {} поставлен в очередь на удаление", username);
+        return purge;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AccountPurge getStatus(String username) {
+        log.info("Получение прогресса удаления аккаунта {}", username);
+        return repository.findFirstByUsernameOrderByRequestedAtDesc(username)
+                .orElseThrow(() -> new NoEntityException(ErrorMessage.NO_ACCOUNT_PURGE_FOUND.getMessage()));
+    }
+
+    /**
+     * Периодический запуск незавершённых задач, если удаление включено
+     */
+    @Scheduled(fixedDelayString = "${advertisement.account.purge.poll-interval:PT10S}")
+    public void poll() {
+        if (enabled) {
+            purgePending();
+        }
+    }
+
+    @Override
+    public int purgePending() {
+        int purged = 0;
+        for (AccountPurge purge = claim(); purge != null; purge = claim()) {
+            try {
+                purge(purge);
+                purged++;
+            } catch (RuntimeException e) {
+                log.error("Не удалось удалить данные аккаунта {}, повтор после окончания аренды", purge.getUsername(),
+                        e);
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Захват следующей незавершённой задачи в отдельной транзакции
+     * @return задача удаления или {@code null}, если свободных задач нет
+     */
+    private AccountPurge claim() {
+        return transactionTemplate.execute(status -> repository.claimNext(lease.toSeconds()).orElse(null));
+    }
+
+    /**
+     * Выполнение задачи удаления начиная с сохранённого шага
+     * @param purge задача удаления
+     */
+    private void purge(AccountPurge purge) {
+        log.info("Удаление данных аккаунта {} с шага {}", purge.getUsername(), purge.getStep());
+        Step first = purge.getStep() == null ? Step.MESSAGES : Step.valueOf(purge.getStep());
+        for (Step step : Step.values()) {
+            if (step.ordinal() >= first.ordinal()) {
+                run(purge, step);
+            }
+        }
+
+        purge.setStatus(PurgeStatus.DONE);
+        purge.setFinishedAt(LocalDateTime.now());
+        purge.setLeaseUntil(null);
+        transactionTemplate.executeWithoutResult(status -> repository.save(purge));
+        log.info("Данные аккаунта {} удалены, всего строк: {}", purge.getUsername(), purge.getDeletedRows());
+    }
+
+    /**
+     * Выполнение шага порциями до тех пор, пока шаг удаляет строки
+     * @param purge задача удаления
+     * @param step шаг
+     */
+    private void run(AccountPurge purge, Step step) {
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                int count = step.delete(repository, purge.getUserId(), chunkSize);
+                purge.setStep(step.name());
+                purge.setStatus(PurgeStatus.RUNNING);
+                if (purge.getStartedAt() == null) {
+                    purge.setStartedAt(LocalDateTime.now());
+                }
+                purge.setLeaseUntil(LocalDateTime.now().plus(lease));
+                purge.setDeletedRows(purge.getDeletedRows() + count);
+                repository.save(purge);
+                return count;
+            });
+        } while (deleted >= chunkSize);
+    }
+
+    /**
+     * Шаги удаления в порядке, не нарушающем внешние ключи
+     */
+    private enum Step {
+        MESSAGES((repository, id, limit) -> repository.deleteMessagesChunk(id, limit)),
+        ARCHIVED_MESSAGES((repository, id, limit) -> repository.deleteArchivedMessagesChunk(id, limit)),
+        COMMENTS((repository, id, limit) -> repository.deleteCommentsChunk(id, limit)),
+        RATINGS((repository, id, limit) -> repository.deleteRatingsChunk(id, limit)),
+        ADVERTISEMENTS((repository, id, limit) -> repository.deleteAdvertisementsChunk(id, limit)),
+        USER((repository, id, limit) -> repository.deleteTombstonedUser(id));
+
+        private final ChunkDeletion deletion;
+
+        Step(ChunkDeletion deletion) {
+            this.deletion = deletion;
+        }
+
+        int delete(AccountPurgeRepository repository, Long userId, int limit) {
+            return deletion.delete(repository, userId, limit);
+        }
+    }
+
+    /**
+     * Удаление одной порции строк
+     */
+    @FunctionalInterface
+    private interface ChunkDeletion {
+        int delete(AccountPurgeRepository repository, Long userId, int limit);
+    }
+}
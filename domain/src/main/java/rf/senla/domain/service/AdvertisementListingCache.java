@@ -0,0 +1,217 @@
+package rf.senla.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.event.AdvertisementChangedEvent;
+import rf.senla.domain.event.SellerChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш результатов {@link IAdvertisementService#getAll(Integer, Integer, String, Pageable)} на Caffeine.
+ * <p>
+ * Размер ограничен суммарным количеством объявлений в записях. Записи удаляются по событиям изменения объявлений
+ * после завершения транзакции: удаляются только выборки, содержащие объявление или покрывающие его цену.
+ * <p>
+ * Каждая очистка увеличивает поколение кэша. Выборка сохраняется с поколением, прочитанным до запроса к БД, и
+ * удаляется, если поколение успело измениться, поэтому выборка, прочитанная до очистки, не возвращается в кэш после
+ * неё. Счётчики комментариев и просмотров меняются без событий, поэтому записи живут не дольше
+ * {@code expire-after-write}. В кэше хранятся неизменяемые снимки, каждое чтение возвращает новые объекты.
+ */
+@Slf4j
+@Service
+public class AdvertisementListingCache implements IAdvertisementListingCache {
+    private static final String CACHE_NAME = "advertisementListing";
+
+    private final boolean enabled;
+    private final Cache<ListingKey, Listing> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public AdvertisementListingCache(@Value("${advertisement.cache.listing.enabled:true}") boolean enabled,
+                                     @Value("${advertisement.cache.listing.max-weight:10000}") long maxWeight,
+                                     @Value("${advertisement.cache.listing.expire-after-write:PT30S}")
+                                     Duration expireAfterWrite,
+                                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((ListingKey key, Listing listing) -> listing.advertisements().size() + 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Optional<List<Advertisement>> get(int min, int max, String keyword, Pageable pageable) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(cache.getIfPresent(ListingKey.of(min, max, keyword, pageable)))
+                .map(Listing::toAdvertisements);
+    }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
+
+    @Override
+    public void put(int min, int max, String keyword, Pageable pageable, long generation,
+                    List<Advertisement> advertisements) {
+        if (!enabled || generation != this.generation.get()) {
+            return;
+        }
+
+        ListingKey key = ListingKey.of(min, max, keyword, pageable);
+        Listing listing = Listing.of(advertisements);
+        cache.put(key, listing);
+        if (generation != this.generation.get()) {
+            cache.asMap().remove(key, listing);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Удаление выборок, на которые влияет изменение объявления
+     * @param event событие изменения объявления
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onAdvertisementChanged(AdvertisementChangedEvent event) {
+        long id = event.id();
+        Integer price = event.price();
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> entry.getValue().contains(id)
+                || (price != null && entry.getKey().min() <= price && price <= entry.getKey().max()));
+        log.info("Кэш ленты объявлений очищен по изменению объявления с ID {}", id);
+    }
+
+    /**
+     * Очистка кэша при изменении продавца, так как меняется порядок и содержимое выборок
+     * @param event событие изменения продавца
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onSellerChanged(SellerChangedEvent event) {
+        invalidateAll();
+        log.info("Кэш ленты объявлений очищен по изменению продавца с ID {}", event.userId());
+    }
+
+    /**
+     * Служебный record-класс нормализованного ключа выборки
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово в нижнем регистре или {@code null}
+     * @param page номер страницы
+     * @param size размер страницы
+     * @param sort сортировка
+     */
+    private record ListingKey(int min, int max, String keyword, int page, int size, String sort) {
+        static ListingKey of(int min, int max, String keyword, Pageable pageable) {
+            String normalized = keyword == null || keyword.isBlank() ? null : keyword.trim().toLowerCase(Locale.ROOT);
+            return pageable.isPaged()
+                    ? new ListingKey(min, max, normalized, pageable.getPageNumber(), pageable.getPageSize(),
+                            pageable.getSort().toString())
+                    : new ListingKey(min, max, normalized, -1, -1, pageable.getSort().toString());
+        }
+    }
+
+    /**
+     * Служебный record-класс закэшированной выборки
+     * @param advertisements снимки объявлений
+     * @param ids отсортированные ID объявлений
+     */
+    private record Listing(List<AdvertisementSnapshot> advertisements, long[] ids) {
+        static Listing of(List<Advertisement> advertisements) {
+            long[] ids = advertisements.stream().mapToLong(Advertisement::getId).sorted().toArray();
+            return new Listing(advertisements.stream().map(AdvertisementSnapshot::of).toList(), ids);
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, id) >= 0;
+        }
+
+        List<Advertisement> toAdvertisements() {
+            return advertisements.stream().map(AdvertisementSnapshot::toAdvertisement).toList();
+        }
+    }
+
+    /**
+     * Служебный record-класс неизменяемого снимка объявления с продавцом
+     */
+    private record AdvertisementSnapshot(Long id, Integer price, String headline, String description,
+                                         AdvertisementStatus status, Boolean boosted, LocalDateTime boostedUntil,
+                                         String rejectionReason, Double sellerRating, Integer commentCount,
+                                         Long viewCount, Double rankScore, SellerSnapshot seller) {
+        static AdvertisementSnapshot of(Advertisement advertisement) {
+            return new AdvertisementSnapshot(advertisement.getId(), advertisement.getPrice(),
+                    advertisement.getHeadline(), advertisement.getDescription(), advertisement.getStatus(),
+                    advertisement.getBoosted(), advertisement.getBoostedUntil(), advertisement.getRejectionReason(),
+                    advertisement.getSellerRating(), advertisement.getCommentCount(), advertisement.getViewCount(),
+                    advertisement.getRankScore(), SellerSnapshot.of(advertisement.getUser()));
+        }
+
+        Advertisement toAdvertisement() {
+            return Advertisement.builder()
+                    .id(id)
+                    .user(seller == null ? null : seller.toUser())
+                    .price(price)
+                    .headline(headline)
+                    .description(description)
+                    .status(status)
+                    .boosted(boosted)
+                    .boostedUntil(boostedUntil)
+                    .rejectionReason(rejectionReason)
+                    .sellerRating(sellerRating)
+                    .commentCount(commentCount)
+                    .viewCount(viewCount)
+                    .rankScore(rankScore)
+                    .build();
+        }
+    }
+
+    /**
+     * Служебный record-класс неизменяемого снимка продавца
+     */
+    private record SellerSnapshot(Long id, String username, String phoneNumber, Double rating, String email,
+                                  Role role) {
+        static SellerSnapshot of(User user) {
+            return user == null ? null : new SellerSnapshot(user.getId(), user.getUsername(), user.getPhoneNumber(),
+                    user.getRating(), user.getEmail(), user.getRole());
+        }
+
+        User toUser() {
+            return User.builder()
+                    .id(id)
+                    .username(username)
+                    .phoneNumber(phoneNumber)
+                    .rating(rating)
+                    .email(email)
+                    .role(role)
+                    .build();
+        }
+    }
+}
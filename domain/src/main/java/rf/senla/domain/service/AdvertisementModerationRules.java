@@ -0,0 +1,111 @@
+package rf.senla.domain.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rf.senla.domain.entity.AdvertisementStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Правила автоматической модерации объявлений.
+ * <p>
+ * Объявление отклоняется, если содержит запрещённые слова, слишком короткое описание, слишком много ссылок или
+ * цену выше допустимой. Объявления дороже {@code manual-review-price} оставляются на ручную проверку, остальные
+ * одобряются. Правила задаются свойствами {@code advertisement.moderation.rules}.
+ */
+@Component
+public class AdvertisementModerationRules {
+    private static final Pattern LINK = Pattern.compile("https?://|www\\.", Pattern.CASE_INSENSITIVE);
+
+    private final Pattern bannedWords;
+    private final int minDescriptionLength;
+    private final int maxLinks;
+    private final int maxPrice;
+    private final int manualReviewPrice;
+
+    public AdvertisementModerationRules(
+            @Value("${advertisement.moderation.rules.banned-words:}") List<String> bannedWords,
+            @Value("${advertisement.moderation.rules.min-description-length:10}") int minDescriptionLength,
+            @Value("${advertisement.moderation.rules.max-links:2}") int maxLinks,
+            @Value("${advertisement.moderation.rules.max-price:2147483647}") int maxPrice,
+            @Value("${advertisement.moderation.rules.manual-review-price:2147483647}") int manualReviewPrice) {
+        String words = bannedWords.stream()
+                .map(String::strip)
+                .filter(word -> !word.isEmpty())
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|"));
+        this.bannedWords = words.isEmpty() ? null : Pattern.compile("\\b(" + words + ")\\b",
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS);
+        this.minDescriptionLength = minDescriptionLength;
+        this.maxLinks = maxLinks;
+        this.maxPrice = maxPrice;
+        this.manualReviewPrice = manualReviewPrice;
+    }
+
+    /**
+     * Проверка объявления по правилам
+     * @param headline заголовок
+     * @param description описание
+     * @param price цена
+     * @return решение модерации
+     */
+    public Verdict check(String headline, String description, Integer price) {
+        Optional<String> bannedWord = findBannedWord(headline).or(() -> findBannedWord(description));
+        if (bannedWord.isPresent()) {
+            return Verdict.reject("Contains a banned word: " + bannedWord.get());
+        }
+
+        if (description == null || description.strip().length() < minDescriptionLength) {
+            return Verdict.reject("The description is shorter than " + minDescriptionLength + " characters");
+        }
+
+        if (LINK.matcher(description).results().count() > maxLinks) {
+            return Verdict.reject("The description contains more than " + maxLinks + " links");
+        }
+
+        int amount = price == null ? 0 : price;
+        if (amount > maxPrice) {
+            return Verdict.reject("The price is higher than " + maxPrice);
+        }
+
+        return amount > manualReviewPrice ? Verdict.HOLD : Verdict.APPROVE;
+    }
+
+    /**
+     * Служебный метод ищет первое запрещённое слово в тексте
+     * @param text текст
+     * @return запрещённое слово, если найдено
+     */
+    private Optional<String> findBannedWord(String text) {
+        if (bannedWords == null || text == null) {
+            return Optional.empty();
+        }
+
+        Matcher matcher = bannedWords.matcher(text);
+        return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Решение модерации
+     * @param status статус объявления после проверки: {@code ACTIVE}, {@code REJECTED} или {@code REVIEW} для
+     *               ручной проверки
+     * @param reason причина отклонения
+     */
+    public record Verdict(AdvertisementStatus status, String reason) {
+        public static final Verdict APPROVE = new Verdict(AdvertisementStatus.ACTIVE, null);
+        public static final Verdict HOLD = new Verdict(AdvertisementStatus.REVIEW, null);
+
+        /**
+         * Отклонение объявления
+         * @param reason причина отклонения
+         * @return решение модерации
+         */
+        public static Verdict reject(String reason) {
+            return new Verdict(AdvertisementStatus.REJECTED, reason);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package rf.senla.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.repository.AdvertisementRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул обработчиков автоматической модерации объявлений на виртуальных потоках.
+ * <p>
+ * Каждый обработчик захватывает пачку объявлений в статусе {@link AdvertisementStatus#REVIEW} через
+ * {@code FOR UPDATE SKIP LOCKED}, поэтому обработчики и экземпляры приложения не проверяют одно объявление дважды.
+ * Решения {@link AdvertisementModerationRules} применяются к пачке одним запросом. Объявления, оставленные на ручную
+ * проверку, остаются в статусе {@code REVIEW} и одобряются админом. Пропускная способность и возраст очереди
+ * публикуются в метриках {@code advertisement.moderation}.
+ */
+@Slf4j
+@Service
+public class AdvertisementModerationWorker {
+    private final AdvertisementRepository repository;
+    private final AdvertisementModerationRules rules;
+    private final IAdvertisementSearchIndex searchIndex;
+    private final IAdvertisementListingCache listingCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Counter approved;
+    private final Counter rejected;
+    private final Counter held;
+    private final Timer batchTimer;
+    private final Timer waitTimer;
+    private final AtomicLong automaticQueueSize = new AtomicLong();
+    private final AtomicLong automaticQueueAge = new AtomicLong();
+    private final AtomicLong manualQueueSize = new AtomicLong();
+    private final AtomicLong manualQueueAge = new AtomicLong();
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public AdvertisementModerationWorker(AdvertisementRepository repository,
+                                         AdvertisementModerationRules rules,
+                                         IAdvertisementSearchIndex searchIndex,
+                                         IAdvertisementListingCache listingCache,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${advertisement.moderation.enabled:true}") boolean enabled,
+                                         @Value("${advertisement.moderation.workers:2}") int workers,
+                                         @Value("${advertisement.moderation.batch-size:100}") int batchSize,
+                                         @Value("${advertisement.moderation.poll-interval:PT5S}") Duration pollInterval,
+                                         MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.rules = rules;
+        this.searchIndex = searchIndex;
+        this.listingCache = listingCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.approved = Counter.builder("advertisement.moderation").tag("result", "approved").register(meterRegistry);
+        this.rejected = Counter.builder("advertisement.moderation").tag("result", "rejected").register(meterRegistry);
+        this.held = Counter.builder("advertisement.moderation").tag("result", "held").register(meterRegistry);
+        this.batchTimer = Timer.builder("advertisement.moderation.batch").register(meterRegistry);
+        this.waitTimer = Timer.builder("advertisement.moderation.wait").register(meterRegistry);
+        registerQueueGauges(meterRegistry, "automatic", automaticQueueSize, automaticQueueAge);
+        registerQueueGauges(meterRegistry, "manual", manualQueueSize, manualQueueAge);
+    }
+
+    /**
+     * Запуск обработчиков при старте приложения, если модерация включена
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+
+        running = true;
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("advertisement-moderation-", 1)
+                .factory());
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+        log.info("Запущено {} обработчиков модерации объявлений, пачка {}", workers, batchSize);
+    }
+
+    /**
+     * Остановка обработчиков при закрытии контекста
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(pollInterval.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                log.warn("Обработчики модерации объявлений не завершились вовремя");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * Проверка одной пачки объявлений из очереди модерации
+     * @return количество проверенных объявлений
+     */
+    public int moderate() {
+        Timer.Sample sample = Timer.start();
+        List<Object[]> decided = transactionTemplate.execute(status -> decide(repository.lockReviewQueue(batchSize)));
+        if (decided.isEmpty()) {
+            return 0;
+        }
+
+        sample.stop(batchTimer);
+        List<Long> changed = new ArrayList<>();
+        int activated = 0;
+        for (Object[] row : decided) {
+            AdvertisementStatus status = AdvertisementStatus.valueOf((String) row[1]);
+            switch (status) {
+                case ACTIVE -> {
+                    approved.increment();
+                    activated++;
+                    changed.add(((Number) row[0]).longValue());
+                }
+                case REJECTED -> {
+                    rejected.increment();
+                    changed.add(((Number) row[0]).longValue());
+                }
+                default -> held.increment();
+            }
+        }
+
+        if (searchIndex.isEnabled() && !changed.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.findWithUserByIdIn(changed).forEach(searchIndex::index));
+        }
+        if (activated > 0) {
+            listingCache.invalidateAll();
+        }
+        log.info("Проверено {} объявлений: одобрено {}, отклонено {}, оставлено на ручную проверку {}",
+                decided.size(), activated, changed.size() - activated, decided.size() - changed.size());
+        return decided.size();
+    }
+
+    /**
+     * Периодическое обновление метрик размера и возраста очереди модерации
+     */
+    @Scheduled(fixedDelayString = "${advertisement.moderation.poll-interval:PT5S}")
+    public void refreshQueueStats() {
+        Object[] stats = repository.getReviewQueueStats().getFirst();
+        automaticQueueSize.set(((Number) stats[0]).longValue());
+        automaticQueueAge.set(((Number) stats[1]).longValue());
+        manualQueueSize.set(((Number) stats[2]).longValue());
+        manualQueueAge.set(((Number) stats[3]).longValue());
+    }
+
+    /**
+     * Цикл обработчика: пачки проверяются подряд, пока очередь не опустеет, затем обработчик ждёт
+     * {@code poll-interval}
+     */
+    private void work() {
+        while (running) {
+            int processed;
+            try {
+                processed = moderate();
+            } catch (RuntimeException e) {
+                log.error("Ошибка модерации объявлений", e);
+                processed = 0;
+            }
+
+            if (processed < batchSize) {
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Служебный метод проверяет захваченные объявления и применяет решения одним запросом
+     * @param rows строки очереди [ID, заголовок, описание, цена, время ожидания в миллисекундах]
+     * @return список [ID объявления, новый статус]
+     */
+    private List<Object[]> decide(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Long[] ids = new Long[rows.size()];
+        String[] statuses = new String[rows.size()];
+        String[] reasons = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            AdvertisementModerationRules.Verdict verdict = rules.check((String) row[1], (String) row[2],
+                    row[3] == null ? null : ((Number) row[3]).intValue());
+            ids[i] = ((Number) row[0]).longValue();
+            statuses[i] = verdict.status().name();
+            reasons[i] = verdict.reason();
+            waitTimer.record(Duration.ofMillis(Math.max(0, ((Number) row[4]).longValue())));
+        }
+        return repository.applyModeration(ids, statuses, reasons);
+    }
+
+    /**
+     * Служебный метод регистрирует метрики размера и возраста очереди
+     * @param meterRegistry реестр метрик
+     * @param stage этап проверки
+     * @param size размер очереди
+     * @param age возраст старейшего объявления в миллисекундах
+     */
+    private static void registerQueueGauges(MeterRegistry meterRegistry, String stage, AtomicLong size,
+                                            AtomicLong age) {
+        Gauge.builder("advertisement.moderation.queue.size", size, AtomicLong::doubleValue)
+                .tag("stage", stage)
+                .register(meterRegistry);
+        Gauge.builder("advertisement.moderation.queue.age", age, value -> value.get() / 1000.0)
+                .tag("stage", stage)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,467 @@
+package rf.senla.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.repository.AdvertisementRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Внутренний инвертированный индекс активных объявлений: термин - отсортированный массив ID объявлений.
+ * <p>
+ * Документы дополнительно хранятся упорядоченными по ленте, поэтому страница без ключевого слова читается с начала
+ * упорядоченного набора, а для ключевых слов отбираются только первые {@code offset + size} совпадений. При
+ * перестройке списки вхождений собираются целиком и сортируются один раз.
+ * <p>
+ * Включается свойством {@code advertisement.search.index.enabled}, перестраивается при старте приложения и
+ * поддерживается в актуальном состоянии методами {@link AdvertisementService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdvertisementSearchIndex implements IAdvertisementSearchIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final Comparator<IndexedAdvertisement> FEED_ORDER =
+            Comparator.comparing(IndexedAdvertisement::boosted).reversed()
+                    .thenComparing(Comparator.comparingDouble(IndexedAdvertisement::rating).reversed())
+                    .thenComparing(Comparator.comparingLong(IndexedAdvertisement::id).reversed());
+
+    private final AdvertisementRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, long[]> postings = new HashMap<>();
+    private final Map<Long, IndexedAdvertisement> documents = new HashMap<>();
+    private final NavigableSet<IndexedAdvertisement> feed = new TreeSet<>(FEED_ORDER);
+    @Value("${advertisement.search.index.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Перестройка индекса после запуска приложения, если индекс включён
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.info("Перестройка поискового индекса объявлений");
+        List<IndexedAdvertisement> loaded = repository.findByStatus(AdvertisementStatus.ACTIVE).stream()
+                .map(AdvertisementSearchIndex::toDocument)
+                .toList();
+        Map<String, long[]> builtPostings = buildPostings(loaded);
+        NavigableSet<IndexedAdvertisement> builtFeed = new TreeSet<>(FEED_ORDER);
+        builtFeed.addAll(loaded);
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            postings.putAll(builtPostings);
+            documents.clear();
+            feed.clear();
+            feed.addAll(builtFeed);
+            feed.forEach(document -> documents.put(document.id(), document));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс перестроен: {} объявлений, {} терминов", documents.size(), postings.size());
+    }
+
+    @Override
+    public void index(Advertisement advertisement) {
+        if (!enabled) {
+            return;
+        }
+
+        IndexedAdvertisement document = AdvertisementStatus.ACTIVE.equals(advertisement.getStatus())
+                ? toDocument(advertisement)
+                : null;
+        Long id = advertisement.getId();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(id);
+                if (document != null) {
+                    put(document);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void remove(Long id) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void removeBySeller(Long userId) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                sellerDocuments(userId).forEach(document -> delete(document.id()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void updateSellerRating(Long userId, Double rating) {
+        if (!enabled) {
+            return;
+        }
+
+        double value = rating == null ? 0.0 : rating;
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                for (IndexedAdvertisement document : sellerDocuments(userId)) {
+                    feed.remove(document);
+                    IndexedAdvertisement updated = document.withRating(value);
+                    documents.put(updated.id(), updated);
+                    feed.add(updated);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public List<Long> search(int min, int max, String keyword, Pageable pageable) {
+        Set<String> terms = tokenize(keyword);
+        lock.readLock().lock();
+        try {
+            int limit = pageable.isPaged()
+                    ? (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize())
+                    : Integer.MAX_VALUE;
+            List<IndexedAdvertisement> top = terms.isEmpty()
+                    ? first(min, max, limit)
+                    : select(intersect(terms), min, max, limit);
+            int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), top.size()) : 0;
+            return top.subList(from, top.size()).stream()
+                    .map(IndexedAdvertisement::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Служебный метод разбивает текст на нормализованные термины
+     * @param text текст
+     * @return множество терминов
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+
+        for (String term : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Служебный метод читает первые документы ленты в заданном диапазоне цен. Вызывается под блокировкой чтения
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param limit максимальное количество документов
+     * @return документы в порядке ленты
+     */
+    private List<IndexedAdvertisement> first(int min, int max, int limit) {
+        List<IndexedAdvertisement> result = new ArrayList<>();
+        for (Iterator<IndexedAdvertisement> iterator = feed.iterator(); iterator.hasNext() && result.size() < limit; ) {
+            IndexedAdvertisement document = iterator.next();
+            if (document.price() >= min && document.price() <= max) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Служебный метод отбирает первые в порядке ленты документы из найденных, не сортируя все совпадения: куча
+     * ограничена {@code limit} элементами, в её вершине худший из отобранных. Вызывается под блокировкой чтения
+     * @param ids ID найденных объявлений
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param limit максимальное количество документов
+     * @return документы в порядке ленты
+     */
+    private List<IndexedAdvertisement> select(long[] ids, int min, int max, int limit) {
+        PriorityQueue<IndexedAdvertisement> heap = new PriorityQueue<>(FEED_ORDER.reversed());
+        for (long id : ids) {
+            IndexedAdvertisement document = documents.get(id);
+            if (document.price() < min || document.price() > max) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(document);
+            } else if (FEED_ORDER.compare(document, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(document);
+            }
+        }
+
+        List<IndexedAdvertisement> result = new ArrayList<>(heap);
+        result.sort(FEED_ORDER);
+        return result;
+    }
+
+    /**
+     * Служебный метод пересекает списки вхождений терминов, начиная с самого короткого
+     * @param terms термины
+     * @return отсортированный массив ID объявлений, содержащих все термины
+     */
+    private long[] intersect(Set<String> terms) {
+        List<long[]> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            long[] list = postings.get(term);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        long[] result = lists.getFirst();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Служебный метод пересекает два отсортированных массива
+     * @param left первый массив
+     * @param right второй массив
+     * @return отсортированный массив общих элементов
+     */
+    private static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Служебный метод собирает списки вхождений для набора документов: ID копятся по терминам, затем каждый
+     * список сортируется и очищается от повторов один раз
+     * @param documents документы
+     * @return отсортированные массивы ID по терминам
+     */
+    private static Map<String, long[]> buildPostings(List<IndexedAdvertisement> documents) {
+        Map<String, List<Long>> ids = new HashMap<>();
+        for (IndexedAdvertisement document : documents) {
+            for (String term : document.terms()) {
+                ids.computeIfAbsent(term, key -> new ArrayList<>()).add(document.id());
+            }
+        }
+
+        Map<String, long[]> result = new HashMap<>();
+        ids.forEach((term, list) -> result.put(term, list.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray()));
+        return result;
+    }
+
+    /**
+     * Служебный метод находит документы продавца. Вызывается под блокировкой
+     * @param userId ID продавца
+     * @return документы продавца
+     */
+    private List<IndexedAdvertisement> sellerDocuments(Long userId) {
+        return documents.values().stream()
+                .filter(document -> document.userId() == userId)
+                .toList();
+    }
+
+    /**
+     * Служебный метод добавляет документ в индекс. Вызывается под блокировкой записи
+     * @param document документ
+     */
+    private void put(IndexedAdvertisement document) {
+        documents.put(document.id(), document);
+        feed.add(document);
+        for (String term : document.terms()) {
+            postings.compute(term, (key, list) -> insert(list == null ? EMPTY : list, document.id()));
+        }
+    }
+
+    /**
+     * Служебный метод удаляет документ из индекса. Вызывается под блокировкой записи
+     * @param id ID объявления
+     */
+    private void delete(Long id) {
+        IndexedAdvertisement document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+
+        feed.remove(document);
+        for (String term : document.terms()) {
+            postings.computeIfPresent(term, (key, list) -> {
+                long[] result = remove(list, id);
+                return result.length == 0 ? null : result;
+            });
+        }
+    }
+
+    /**
+     * Служебный метод вставляет ID в отсортированный массив
+     * @param list массив
+     * @param id ID
+     * @return новый массив
+     */
+    private static long[] insert(long[] list, long id) {
+        int position = Arrays.binarySearch(list, id);
+        if (position >= 0) {
+            return list;
+        }
+
+        position = -position - 1;
+        long[] result = new long[list.length + 1];
+        System.arraycopy(list, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(list, position, result, position + 1, list.length - position);
+        return result;
+    }
+
+    /**
+     * Служебный метод удаляет ID из отсортированного массива
+     * @param list массив
+     * @param id ID
+     * @return новый массив
+     */
+    private static long[] remove(long[] list, long id) {
+        int position = Arrays.binarySearch(list, id);
+        if (position < 0) {
+            return list;
+        }
+
+        long[] result = new long[list.length - 1];
+        System.arraycopy(list, 0, result, 0, position);
+        System.arraycopy(list, position + 1, result, position, list.length - position - 1);
+        return result;
+    }
+
+    /**
+     * Служебный метод формирует документ индекса по объявлению
+     * @param advertisement объявление
+     * @return документ индекса
+     */
+    private static IndexedAdvertisement toDocument(Advertisement advertisement) {
+        Set<String> terms = tokenize(advertisement.getHeadline());
+        terms.addAll(tokenize(advertisement.getDescription()));
+        Double rating = advertisement.getUser().getRating();
+        return new IndexedAdvertisement(
+                advertisement.getId(),
+                advertisement.getUser().getId(),
+                advertisement.getPrice() == null ? 0 : advertisement.getPrice(),
+                Boolean.TRUE.equals(advertisement.getBoosted()),
+                rating == null ? 0.0 : rating,
+                terms.toArray(String[]::new));
+    }
+
+    /**
+     * Служебный метод выполняет действие после фиксации текущей транзакции либо сразу, если транзакции нет
+     * @param action действие
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Служебный record-класс документа индекса
+     * @param id ID объявления
+     * @param userId ID продавца
+     * @param price цена
+     * @param boosted флаг продвижения
+     * @param rating рейтинг продавца
+     * @param terms термины заголовка и описания
+     */
+    private record IndexedAdvertisement(long id, long userId, int price, boolean boosted, double rating,
+                                        String[] terms) {
+        IndexedAdvertisement withRating(double value) {
+            return new IndexedAdvertisement(id, userId, price, boosted, value, terms);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package rf.senla.domain.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,16 +12,25 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.event.AdvertisementChangedEvent;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.ErrorMessage;
 import rf.senla.domain.exception.NoEntityException;
 import rf.senla.domain.exception.TechnicalException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.FeedCursor;
 import rf.senla.domain.repository.AdvertisementRepository;
 import rf.senla.domain.entity.User;
-import rf.senla.domain.repository.CommentRepository;
-import rf.senla.domain.repository.MessageRepository;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Сервис для работы с объявлениями.
@@ -30,8 +42,16 @@ import java.util.List;
 public class AdvertisementService implements IAdvertisementService {
     private final IUserService userService;
     private final AdvertisementRepository repository;
-    private final CommentRepository commentRepository;
-    private final MessageRepository messageRepository;
+    private final IAdvertisementSearchIndex searchIndex;
+    private final IAdvertisementListingCache listingCache;
+    private final IAdvertisementViewCounter viewCounter;
+    private final ITrendingTracker trendingTracker;
+    private final IBoostExpiryScheduler boostExpiryScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    @Value("${advertisement.search.full-text:false}")
+    private boolean fullTextSearch;
+    @Value("${advertisement.boost.duration:P7D}")
+    private Duration boostDuration = Duration.ofDays(7);
 
     @Override
     @Transactional
@@ -43,9 +63,14 @@ public class AdvertisementService implements IAdvertisementService {
             throw new EntityContainedException(ErrorMessage.ADVERTISEMENT_ALREADY_EXISTS.getMessage());
         }
 
-        entity.setUser(userService.getByUsername(sender.getUsername()));
+        User user = userService.getByUsername(sender.getUsername());
+        entity.setUser(user);
+        entity.setSellerRating(user.getRating());
         entity.setStatus(AdvertisementStatus.REVIEW);
+        entity.setSubmittedAt(LocalDateTime.now());
         Advertisement advertisement = repository.save(entity);
+        searchIndex.index(advertisement);
+        publishChanged(advertisement);
         log.info("Удалось сохранить объявление {}", advertisement);
         return advertisement;
     }
@@ -60,6 +85,8 @@ public class AdvertisementService implements IAdvertisementService {
         advertisement.setHeadline(entity.getHeadline());
         advertisement.setDescription(entity.getDescription());
         advertisement = repository.save(advertisement);
+        searchIndex.index(advertisement);
+        publishChanged(advertisement);
         log.info("Удалось обновить объявление {}", advertisement);
         return advertisement;
     }
@@ -74,8 +101,22 @@ public class AdvertisementService implements IAdvertisementService {
             throw new NoEntityException(ErrorMessage.NO_ADVERTISEMENT_FOUND.getMessage());
         }
 
-        advertisement.setUser(userService.getByUsername(advertisement.getUser().getUsername()));
+        User user = userService.getByUsername(advertisement.getUser().getUsername());
+        advertisement.setUser(user);
+        advertisement.setSellerRating(user.getRating());
+        if (advertisement.getBoosted() == null) {
+            advertisement.setBoosted(Boolean.FALSE);
+        }
+        if (!advertisement.getBoosted()) {
+            advertisement.setBoostedUntil(null);
+        } else if (advertisement.getBoostedUntil() == null) {
+            advertisement.setBoostedUntil(LocalDateTime.now().plus(boostDuration));
+        }
+
         advertisement = repository.save(advertisement);
+        boostExpiryScheduler.schedule(advertisement.getId(), advertisement.getBoostedUntil());
+        searchIndex.index(advertisement);
+        publishChanged(advertisement);
         log.info("Удалось обновить объявление {} админом", advertisement);
         return advertisement;
     }
@@ -105,11 +146,51 @@ public class AdvertisementService implements IAdvertisementService {
         log.info("Получение списка объявлений по ключевому слову {} в промежутке цен {} и {}, с пагинацией {}",
                 keyword, min, max, pageable);
         Prices prices = getPrices(min, max);
-        List<Advertisement> list = repository.findAllWithActiveStatus(prices.min, prices.max, keyword, pageable);
+        Optional<List<Advertisement>> cached = listingCache.get(prices.min, prices.max, keyword, pageable);
+        if (cached.isPresent()) {
+            log.info("Список объявлений получен из кэша");
+            recordImpressions(cached.get());
+            return cached.get();
+        }
+
+        long generation = listingCache.generation();
+        List<Advertisement> list;
+        if (searchIndex.isEnabled()) {
+            log.info("Используется внутренний поисковый индекс");
+            list = hydrate(searchIndex.search(prices.min, prices.max, keyword, pageable));
+        } else if (fullTextSearch && keyword != null && !keyword.isBlank()) {
+            log.info("Используется полнотекстовый поиск по ключевому слову {}", keyword);
+            list = hydrate(repository.findIdsWithActiveStatusByFullText(prices.min, prices.max, keyword,
+                    withoutSort(pageable)));
+        } else {
+            list = repository.findAllWithActiveStatus(prices.min, prices.max, keyword, pageable);
+        }
+        listingCache.put(prices.min, prices.max, keyword, pageable, generation, list);
+        recordImpressions(list);
         successfullyListLog(list);
         return list;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Advertisement> getFeed(Integer min, Integer max, String keyword, String cursor, int size) {
+        log.info("Получение ленты объявлений по ключевому слову {} в промежутке цен {} и {}, курсор {}, размер {}",
+                keyword, min, max, cursor, size);
+        Prices prices = getPrices(min, max);
+        List<Advertisement> list;
+        if (cursor == null || cursor.isBlank()) {
+            list = hydrate(repository.findFeedIds(prices.min, prices.max, keyword, size));
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            list = hydrate(repository.findFeedIdsAfter(prices.min, prices.max, keyword, after.rankScore(),
+                    after.id(), size));
+        }
+
+        recordImpressions(list);
+        successfullyListLog(list);
+        return CursorPage.of(list, size, advertisement -> FeedCursor.of(advertisement).encode());
+    }
+
     @Override
     @Transactional
     public List<Advertisement> getAll(String username, Boolean active, Pageable pageable) {
@@ -126,7 +207,7 @@ public class AdvertisementService implements IAdvertisementService {
     public Advertisement getById(Long id) {
         try {
             log.info("Получение объявления с ID {}", id);
-            Advertisement advertisement = repository.findById(id)
+            Advertisement advertisement = repository.findWithUserById(id)
                     .orElseThrow(() -> new NoEntityException(ErrorMessage.NO_ADVERTISEMENT_FOUND.getMessage()));
             log.info("Получено объявление {}", advertisement);
             return advertisement;
@@ -136,6 +217,26 @@ public class AdvertisementService implements IAdvertisementService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Advertisement view(Long id) {
+        Advertisement advertisement = getById(id);
+        viewCounter.record(advertisement.getId());
+        trendingTracker.record(advertisement.getId(), ITrendingTracker.Signal.VIEW);
+        return advertisement;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Advertisement> getTrending(int limit) {
+        log.info("Получение {} популярных объявлений", limit);
+        List<Advertisement> list = hydrate(trendingTracker.getTop(limit)).stream()
+                .filter(advertisement -> advertisement.getStatus() == AdvertisementStatus.ACTIVE)
+                .toList();
+        successfullyListLog(list);
+        return list;
+    }
+
     @Override
     @Transactional
     public Advertisement sell(Long id, UserDetails sender) {
@@ -144,6 +245,8 @@ public class AdvertisementService implements IAdvertisementService {
         checkSenderAndCurrentUser(sender, advertisement.getUser());
         advertisement.setStatus(AdvertisementStatus.SOLD);
         advertisement = repository.save(advertisement);
+        searchIndex.index(advertisement);
+        publishChanged(advertisement);
         log.info("Удалось продать объявление {}", advertisement);
         return advertisement;
     }
@@ -155,11 +258,30 @@ public class AdvertisementService implements IAdvertisementService {
         Advertisement advertisement = getById(id);
         checkSenderAndCurrentUser(sender, advertisement.getUser());
         advertisement.setBoosted(true);
+        advertisement.setBoostedUntil(LocalDateTime.now().plus(boostDuration));
         advertisement = repository.save(advertisement);
+        boostExpiryScheduler.schedule(advertisement.getId(), advertisement.getBoostedUntil());
+        searchIndex.index(advertisement);
+        publishChanged(advertisement);
         log.info("Удалось продвинуть объявление {}", advertisement);
         return advertisement;
     }
 
+    @Override
+    @Transactional
+    public List<Long> approve(List<Long> ids) {
+        log.info("Одобрение объявлений с ID {} админом", ids);
+        List<Long> approved = repository.approve(ids);
+        if (!approved.isEmpty()) {
+            if (searchIndex.isEnabled()) {
+                repository.findWithUserByIdIn(approved).forEach(searchIndex::index);
+            }
+            listingCache.invalidateAll();
+        }
+        log.info("Одобрено {} объявлений из {} админом: {}", approved.size(), ids.size(), approved);
+        return approved;
+    }
+
     /**
      * Служебный метод проверяет совпадение переданного пользователя и пользователя из объявления
      * @param currentUser переданный пользователь
@@ -205,6 +327,32 @@ public class AdvertisementService implements IAdvertisementService {
         return new Prices(min, max);
     }
 
+    /**
+     * Служебный метод загружает объявления вместе с владельцами по списку ID одним запросом, сохраняя порядок
+     * @param ids список ID
+     * @return список объявлений
+     */
+    private List<Advertisement> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> order = IntStream.range(0, ids.size()).boxed()
+                .collect(Collectors.toMap(ids::get, Function.identity()));
+        return repository.findWithUserByIdIn(ids).stream()
+                .sorted(Comparator.comparing(advertisement -> order.get(advertisement.getId())))
+                .toList();
+    }
+
+    /**
+     * Служебный метод убирает сортировку из пагинации, оставляя номер и размер страницы
+     * @param pageable пагинация
+     * @return пагинация без сортировки
+     */
+    private static Pageable withoutSort(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+    }
+
     /**
      * Служебный record-класс нужен для оперирования набором из минимальной и максимальной цены
      * @param min минимальная цена
@@ -214,13 +362,30 @@ public class AdvertisementService implements IAdvertisementService {
     }
 
     /**
-     * Служебный метод удаляет объявление в репозиториях комментариев, сообщений и объявлений
+     * Служебный метод учитывает показ объявлений в ленте
+     * @param advertisements показанные объявления
+     */
+    private void recordImpressions(List<Advertisement> advertisements) {
+        viewCounter.record(advertisements.stream().map(Advertisement::getId).toList());
+    }
+
+    /**
+     * Служебный метод публикует событие изменения объявления
+     * @param advertisement объявление
+     */
+    private void publishChanged(Advertisement advertisement) {
+        eventPublisher.publishEvent(new AdvertisementChangedEvent(advertisement.getId(), advertisement.getPrice()));
+    }
+
+    /**
+     * Служебный метод удаляет объявление. Комментарии и сообщения по объявлению удаляются каскадно в БД
+     * ({@code ON DELETE CASCADE}), поэтому удаление выполняется одним запросом независимо от их количества
      * @param advertisement объявление
      */
     private void deleteAdvertisement(Advertisement advertisement) {
         Long id = advertisement.getId();
-        commentRepository.deleteByAdvertisement_Id(id);
-        messageRepository.deleteByAdvertisement_Id(id);
         repository.deleteById(id);
+        searchIndex.remove(id);
+        publishChanged(advertisement);
     }
 }
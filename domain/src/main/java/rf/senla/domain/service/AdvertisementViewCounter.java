@@ -0,0 +1,139 @@
+package rf.senla.domain.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.repository.AdvertisementRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчик просмотров объявлений с отложенной записью.
+ * <p>
+ * Просмотры копятся в памяти в {@link LongAdder} на каждое объявление, поэтому запросы не конкурируют ни за строку
+ * в БД, ни за один счётчик популярного объявления. Накопленные значения периодически забираются через
+ * {@link LongAdder#sumThenReset()}, который обнуляет каждую ячейку атомарно, и прибавляются к
+ * {@code advertisement_stats} пачками по одному запросу. Счётчики существующих объявлений не удаляются из карты:
+ * удаление счётчика, в который параллельно пишет запрос, теряло бы просмотры. Удаляются только счётчики объявлений,
+ * которых уже нет в БД, - их просмотры всё равно не записываются. Если запись не удалась, значения возвращаются в
+ * счётчики до следующей попытки. При остановке приложения счётчики сбрасываются, поэтому при аварийном завершении
+ * теряются просмотры не более чем за один интервал сброса.
+ */
+@Slf4j
+@Service
+public class AdvertisementViewCounter implements IAdvertisementViewCounter {
+    private final AdvertisementRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public AdvertisementViewCounter(AdvertisementRepository repository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${advertisement.views.enabled:true}") boolean enabled,
+                                    @Value("${advertisement.views.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void record(Long advertisementId) {
+        if (enabled && advertisementId != null) {
+            counters.computeIfAbsent(advertisementId, id -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void record(Collection<Long> advertisementIds) {
+        advertisementIds.forEach(this::record);
+    }
+
+    /**
+     * Периодическая запись накопленных просмотров
+     */
+    @Scheduled(fixedDelayString = "${advertisement.views.flush-interval:PT10S}")
+    public void poll() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Запись накопленных просмотров при остановке приложения
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @Override
+    public int flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        int flushed = 0;
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views == 0) {
+                continue;
+            }
+
+            ids.add(entry.getKey());
+            counts.add(views);
+            if (ids.size() >= batchSize) {
+                flushed += write(ids, counts);
+                ids.clear();
+                counts.clear();
+            }
+        }
+
+        if (!ids.isEmpty()) {
+            flushed += write(ids, counts);
+        }
+
+        if (flushed > 0) {
+            log.info("Записаны просмотры {} объявлений", flushed);
+        }
+        return flushed;
+    }
+
+    /**
+     * Служебный метод записывает пачку просмотров, при ошибке возвращает их в счётчики. Счётчики объявлений, которых
+     * нет в БД, удаляются
+     * @param ids ID объявлений
+     * @param counts количество просмотров
+     * @return количество записанных объявлений
+     */
+    private int write(List<Long> ids, List<Long> counts) {
+        try {
+            Set<Long> written = new HashSet<>(transactionTemplate.execute(status ->
+                    repository.addViewCounts(ids.toArray(Long[]::new), counts.toArray(Long[]::new))));
+            ids.stream()
+                    .filter(id -> !written.contains(id))
+                    .forEach(counters::remove);
+            return written.size();
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Не удалось записать просмотры {} объявлений, они будут записаны позже", ids.size(), e);
+            for (int i = 0; i < ids.size(); i++) {
+                counters.computeIfAbsent(ids.get(i), id -> new LongAdder()).add(counts.get(i));
+            }
+            return 0;
+        }
+    }
+}
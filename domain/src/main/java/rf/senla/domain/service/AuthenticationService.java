@@ -83,6 +83,7 @@ public class AuthenticationService implements IAuthenticationService {
         user.setResetPasswordToken(null);
         user.setResetPasswordTokenExpiryDate(null);
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userService.save(user);
         log.info("Удалось обновить пароль пользователю {}", user.getUsername());
     }
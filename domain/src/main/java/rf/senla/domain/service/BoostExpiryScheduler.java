@@ -0,0 +1,226 @@
+package rf.senla.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.repository.AdvertisementRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Планировщик снятия продвижения на иерархическом колесе таймеров.
+ * <p>
+ * Колесо состоит из нескольких уровней по {@code wheel-size} ячеек: ячейка нулевого уровня покрывает один тик,
+ * ячейка уровня {@code i} - {@code wheel-size^i} тиков. Сроки раскладываются по уровню старшего разряда, в котором
+ * срок отличается от текущего тика, поэтому вставка и сдвиг на тик выполняются за O(1), а при переходе разряда
+ * ячейка старшего уровня перераспределяется на младшие. Истёкшие объявления снимаются с продвижения пачками
+ * по одному запросу, продлённые продвижения запрос не затрагивает.
+ * <p>
+ * При старте колесо заполняется незавершёнными продвижениями из БД. Дополнительно по расписанию
+ * {@code sweep-interval} снимаются все истёкшие продвижения, в том числе запланированные другими экземплярами
+ * приложения.
+ */
+@Slf4j
+@Service
+public class BoostExpiryScheduler implements IBoostExpiryScheduler {
+    private final AdvertisementRepository repository;
+    private final IAdvertisementSearchIndex searchIndex;
+    private final IAdvertisementListingCache listingCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int batchSize;
+    private final Deque<Timer>[][] wheel;
+    private final List<Long> due = new ArrayList<>();
+    private long currentTick;
+
+    public BoostExpiryScheduler(AdvertisementRepository repository,
+                                IAdvertisementSearchIndex searchIndex,
+                                IAdvertisementListingCache listingCache,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${advertisement.boost.expiry.tick:PT1S}") Duration tick,
+                                @Value("${advertisement.boost.expiry.wheel-bits:6}") int wheelBits,
+                                @Value("${advertisement.boost.expiry.levels:4}") int levels,
+                                @Value("${advertisement.boost.expiry.batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.listingCache = listingCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.wheelBits = wheelBits;
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.batchSize = batchSize;
+        this.wheel = newWheel(levels, 1 << wheelBits);
+        this.currentTick = Math.floorDiv(System.currentTimeMillis(), tickMillis);
+    }
+
+    /**
+     * Загрузка незавершённых продвижений из БД при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<Object[]> pending = repository.findPendingBoosts();
+        pending.forEach(row -> schedule((Long) row[0], (LocalDateTime) row[1]));
+        log.info("Загружено {} незавершённых продвижений объявлений", pending.size());
+    }
+
+    @Override
+    public void schedule(Long advertisementId, LocalDateTime boostedUntil) {
+        if (advertisementId != null && boostedUntil != null) {
+            schedule(advertisementId, boostedUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Запланировать снятие продвижения на момент времени
+     * @param advertisementId ID объявления
+     * @param deadline момент времени в миллисекундах
+     */
+    public synchronized void schedule(long advertisementId, long deadline) {
+        insert(advertisementId, Math.floorDiv(deadline + tickMillis - 1, tickMillis));
+    }
+
+    /**
+     * Сдвиг колеса до момента времени
+     * @param now момент времени в миллисекундах
+     * @return ID объявлений, срок продвижения которых истёк
+     */
+    public synchronized List<Long> advance(long now) {
+        long target = Math.floorDiv(now, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = wheel.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+
+            Deque<Timer> slot = wheel[0][(int) (currentTick & wheelMask)];
+            while (!slot.isEmpty()) {
+                due.add(slot.poll().id());
+            }
+        }
+
+        List<Long> expired = new ArrayList<>(due);
+        due.clear();
+        return expired;
+    }
+
+    /**
+     * Периодический сдвиг колеса и снятие истёкших продвижений
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${advertisement.boost.expiry.tick:PT1S}")
+    public int expire() {
+        List<Long> ids = advance(System.currentTimeMillis());
+        int expired = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            expired += apply(transactionTemplate.execute(status ->
+                    repository.expireBoosts(batch, LocalDateTime.now())));
+        }
+        return expired;
+    }
+
+    /**
+     * Периодическое снятие всех истёкших продвижений по БД
+     * @return количество объявлений, с которых снято продвижение
+     */
+    @Scheduled(fixedDelayString = "${advertisement.boost.expiry.sweep-interval:PT5M}")
+    public int sweep() {
+        int expired = 0;
+        int count;
+        do {
+            count = apply(transactionTemplate.execute(status ->
+                    repository.expireDueBoosts(LocalDateTime.now(), batchSize)));
+            expired += count;
+        } while (count >= batchSize);
+        return expired;
+    }
+
+    /**
+     * Служебный метод обновляет поисковый индекс и кэш ленты после снятия продвижения
+     * @param ids ID объявлений, с которых снято продвижение
+     * @return количество объявлений
+     */
+    private int apply(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        if (searchIndex.isEnabled()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.findWithUserByIdIn(ids).forEach(searchIndex::index));
+        }
+        listingCache.invalidateAll();
+        log.info("Снято продвижение с {} объявлений: {}", ids.size(), ids);
+        return ids.size();
+    }
+
+    /**
+     * Служебный метод помещает срок в ячейку уровня старшего разряда, в котором он отличается от текущего тика.
+     * Сроки дальше горизонта колеса помещаются в нулевую ячейку верхнего уровня и перераспределяются при её обходе
+     * @param id ID объявления
+     * @param deadlineTick тик окончания продвижения
+     */
+    private void insert(long id, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            due.add(id);
+            return;
+        }
+
+        int level = (63 - Long.numberOfLeadingZeros(deadlineTick ^ currentTick)) / wheelBits;
+        Deque<Timer> slot = level < wheel.length
+                ? wheel[level][(int) ((deadlineTick >>> (wheelBits * level)) & wheelMask)]
+                : wheel[wheel.length - 1][0];
+        slot.add(new Timer(id, deadlineTick));
+    }
+
+    /**
+     * Служебный метод перераспределяет текущую ячейку уровня на младшие уровни
+     * @param level уровень колеса
+     */
+    private void cascade(int level) {
+        Deque<Timer> slot = wheel[level][(int) ((currentTick >>> (wheelBits * level)) & wheelMask)];
+        List<Timer> timers = new ArrayList<>(slot);
+        slot.clear();
+        timers.forEach(timer -> insert(timer.id(), timer.deadlineTick()));
+    }
+
+    /**
+     * Служебный метод создаёт пустое колесо
+     * @param levels количество уровней
+     * @param size количество ячеек уровня
+     * @return колесо
+     */
+    @SuppressWarnings("unchecked")
+    private static Deque<Timer>[][] newWheel(int levels, int size) {
+        Deque<Timer>[][] wheel = new Deque[levels][size];
+        for (Deque<Timer>[] level : wheel) {
+            for (int i = 0; i < size; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+        return wheel;
+    }
+
+    /**
+     * Служебный record-класс запланированного снятия продвижения
+     * @param id ID объявления
+     * @param deadlineTick тик окончания продвижения
+     */
+    private record Timer(long id, long deadlineTick) {
+    }
+}
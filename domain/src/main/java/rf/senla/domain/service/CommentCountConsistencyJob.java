@@ -0,0 +1,50 @@
+package rf.senla.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.repository.AdvertisementRepository;
+
+import java.util.List;
+
+/**
+ * Фоновая задача проверки согласованности количества комментариев объявлений с таблицей комментариев.
+ * <p>
+ * Количество пересчитывается одним запросом только для расходящихся объявлений, расхождение пишется в лог,
+ * после чего сбрасывается кэш ленты.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentCountConsistencyJob {
+    private static final int LOGGED_IDS_LIMIT = 20;
+
+    private final AdvertisementRepository advertisementRepository;
+    private final IAdvertisementListingCache listingCache;
+
+    /**
+     * Пересчёт количества комментариев по расписанию {@code advertisement.comments.consistency.cron}
+     * @return количество исправленных объявлений
+     */
+    @Transactional
+    @Scheduled(cron = "${advertisement.comments.consistency.cron:0 30 3 * * *}")
+    public int recompute() {
+        log.info("Проверка согласованности количества комментариев объявлений");
+        List<Object[]> drift = advertisementRepository.recomputeCommentCounts();
+        if (drift.isEmpty()) {
+            log.info("Количество комментариев объявлений согласовано");
+            return 0;
+        }
+
+        long total = drift.stream()
+                .mapToLong(row -> Math.abs(((Number) row[2]).longValue() - ((Number) row[1]).longValue()))
+                .sum();
+        List<Object> ids = drift.stream().limit(LOGGED_IDS_LIMIT).map(row -> row[0]).toList();
+        listingCache.invalidateAll();
+        log.warn("Исправлено количество комментариев {} объявлений, суммарное расхождение {}, ID объявлений: {}",
+                drift.size(), total, ids);
+        return drift.size();
+    }
+}
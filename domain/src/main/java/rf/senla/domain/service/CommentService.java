@@ -2,20 +2,30 @@ package rf.senla.domain.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.Comment;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.ForeignKeyViolations;
 import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.TimelineCursor;
+import rf.senla.domain.repository.AdvertisementRepository;
 import rf.senla.domain.repository.CommentRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.List;
 
 @Slf4j
@@ -25,6 +35,8 @@ public class CommentService implements ICommentService {
     private final IUserService userService;
     private final CommentRepository repository;
     private final IAdvertisementService advertisementService;
+    private final AdvertisementRepository advertisementRepository;
+    private final ITrendingTracker trendingTracker;
 
     @Override
     @Transactional
@@ -36,10 +48,29 @@ public class CommentService implements ICommentService {
             throw new EntityContainedException(ErrorMessage.COMMENT_ALREADY_EXISTS.getMessage());
         }
 
-        comment.setAdvertisement(advertisementService.getById(comment.getAdvertisement().getId()));
-        comment.setUser(userService.getByUsername(sender.getUsername()));
-        comment.setCreatedAt(LocalDateTime.now());
-        comment = repository.save(comment);
+        Object[] references = getAdvertisementAndAuthor(comment.getAdvertisement().getId(), sender);
+        Advertisement advertisement = (Advertisement) references[0];
+        comment.setAdvertisement(advertisement);
+        comment.setUser((User) references[1]);
+        comment.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        Object[] row;
+        try {
+            row = repository.insertComment(advertisement.getId(), comment.getUser().getId(), comment.getText(),
+                    comment.getCreatedAt()).getFirst();
+        } catch (DataIntegrityViolationException e) {
+            if (!ForeignKeyViolations.isForeignKeyViolation(e)) {
+                throw e;
+            }
+
+            log.error("Не удалось сохранить комментарий {}: нарушен внешний ключ", comment);
+            throw new NoEntityException(ErrorMessage.REFERENCED_ENTITY_NOT_FOUND.getMessage());
+        }
+
+        comment.setId(((Number) row[0]).longValue());
+        if (row[1] != null) {
+            advertisement.setCommentCount(((Number) row[1]).intValue());
+        }
+        trendingTracker.record(comment.getAdvertisement().getId(), ITrendingTracker.Signal.COMMENT);
         log.info("Удалось сохранить комментарий {}", comment);
         return comment;
     }
@@ -72,6 +103,7 @@ public class CommentService implements ICommentService {
         }
 
         repository.delete(comment);
+        changeCommentCount(comment.getAdvertisement(), -1);
         log.error("Удалось обновить комментарий {}", comment);
     }
 
@@ -85,6 +117,64 @@ public class CommentService implements ICommentService {
         return list;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> getTimeline(Long advertisementId, String before, String after, int size) {
+        TimelineCursor.checkDirection(before, after);
+        log.info("Получение ленты комментариев по объявлению {}, курсоры {} и {}, размер {}",
+                advertisementId, before, after, size);
+        List<Long> ids;
+        if (TimelineCursor.isPresent(after)) {
+            TimelineCursor cursor = TimelineCursor.decode(after);
+            ids = repository.findTimelineIdsAfter(advertisementId, cursor.timestamp(), cursor.id(), size);
+        } else if (TimelineCursor.isPresent(before)) {
+            TimelineCursor cursor = TimelineCursor.decode(before);
+            ids = repository.findTimelineIdsBefore(advertisementId, cursor.timestamp(), cursor.id(), size);
+        } else {
+            ids = repository.findLatestTimelineIds(advertisementId, size);
+        }
+
+        Comparator<Comment> order = Comparator.comparing(Comment::getCreatedAt).thenComparing(Comment::getId);
+        List<Comment> list = ids.isEmpty() ? List.of() : repository.findWithUserByIdIn(ids).stream()
+                .sorted(TimelineCursor.isPresent(after) ? order : order.reversed())
+                .toList();
+        log.info("Получена страница из {} комментариев", list.size());
+        return CursorPage.of(list, size,
+                comment -> new TimelineCursor(comment.getCreatedAt(), comment.getId()).encode());
+    }
+
+    /**
+     * Служебный метод получает объявление с продавцом и автора комментария одним запросом. Если строки нет,
+     * отдельно проверяется объявление, чтобы сообщить, какая сущность не найдена
+     * @param advertisementId ID объявления
+     * @param sender автор комментария
+     * @return массив [объявление, автор]
+     */
+    private Object[] getAdvertisementAndAuthor(Long advertisementId, UserDetails sender) {
+        List<Object[]> rows = repository.findAdvertisementAndAuthor(advertisementId, sender.getUsername());
+        if (rows.isEmpty()) {
+            advertisementService.getById(advertisementId);
+            log.error("Не удалось получить пользователя по логину {}", sender.getUsername());
+            throw new UsernameNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage());
+        }
+
+        return rows.getFirst();
+    }
+
+    /**
+     * Служебный метод атомарно изменяет количество комментариев объявления. Событие изменения объявления не
+     * публикуется: кэш выборок не очищается из-за счётчиков, их устаревание ограничено {@code expire-after-write}.
+     * Незагруженное объявление не инициализируется ради обновления счётчика
+     * @param advertisement объявление
+     * @param delta изменение количества комментариев
+     */
+    private void changeCommentCount(Advertisement advertisement, int delta) {
+        Integer count = advertisementRepository.addCommentCount(advertisement.getId(), delta);
+        if (count != null && Hibernate.isInitialized(advertisement)) {
+            advertisement.setCommentCount(count);
+        }
+    }
+
     /**
      * Получение комментария по ID
      * @param id ID комментария
@@ -0,0 +1,200 @@
+package rf.senla.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.entity.EmailOutbox;
+import rf.senla.domain.entity.EmailStatus;
+import rf.senla.domain.repository.EmailOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Фоновый диспетчер очереди исходящей почты.
+ * <p>
+ * Отправка разделена на три шага, и SMTP-обмен не держит ни транзакцию, ни блокировки строк:
+ * <ol>
+ *     <li>короткая транзакция захватывает пачку готовых писем через {@code FOR UPDATE SKIP LOCKED} и переводит их в
+ *     статус {@link EmailStatus#IN_PROGRESS} на время аренды {@code lease};</li>
+ *     <li>пачка отправляется вне транзакции через одно SMTP-соединение;</li>
+ *     <li>вторая короткая транзакция отмечает результат. Неудачные письма откладываются с экспоненциальной
+ *     задержкой, после исчерпания попыток помечаются как {@link EmailStatus#FAILED}.</li>
+ * </ol>
+ * Если экземпляр упал после захвата, письма отправляются повторно по истечении аренды.
+ */
+@Slf4j
+@Service
+public class EmailDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository repository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration lease;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailDispatcher(JavaMailSender mailSender,
+                           EmailOutboxRepository repository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${advertisement.email.outbox.enabled:true}") boolean enabled,
+                           @Value("${advertisement.email.outbox.batch-size:50}") int batchSize,
+                           @Value("${advertisement.email.outbox.max-attempts:5}") int maxAttempts,
+                           @Value("${advertisement.email.outbox.backoff:30s}") Duration backoff,
+                           @Value("${advertisement.email.outbox.lease:PT5M}") Duration lease,
+                           MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.repository = repository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.lease = lease;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sent = Counter.builder("email.outbox").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("email.outbox").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Периодическая отправка писем из очереди, если диспетчер включён
+     */
+    @Scheduled(fixedDelayString = "${advertisement.email.outbox.poll-interval:PT5S}")
+    public void poll() {
+        if (enabled) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Отправка одной пачки писем из очереди
+     * @return количество успешно отправленных писем
+     */
+    public int dispatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status ->
+                repository.claimPending(batchSize, lease.toSeconds()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        log.info("Отправка пачки из {} писем", batch.size());
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        for (EmailOutbox outbox : batch) {
+            try {
+                messages.put(toMimeMessage(outbox), outbox);
+            } catch (MessagingException e) {
+                failures.put(outbox, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    EmailOutbox outbox = messages.get(message);
+                    if (outbox != null) {
+                        failures.put(outbox, cause);
+                    }
+                });
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(outbox -> failures.put(outbox, e));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(outbox -> failures.put(outbox, e));
+            }
+        }
+
+        LocalDateTime leaseUntil = batch.getFirst().getNextAttemptAt();
+        List<Long> delivered = new ArrayList<>();
+        for (EmailOutbox outbox : batch) {
+            if (!failures.containsKey(outbox)) {
+                delivered.add(outbox.getId());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                sent.increment(repository.markSent(delivered, leaseUntil));
+            }
+            LocalDateTime now = LocalDateTime.now();
+            failures.forEach((outbox, cause) -> markFailed(outbox, cause, leaseUntil, now));
+        });
+        log.info("Отправлено {} писем из {}", delivered.size(), batch.size());
+        return delivered.size();
+    }
+
+    /**
+     * Формирование письма
+     * @param outbox письмо из очереди
+     * @return MIME-сообщение
+     * @throws MessagingException если письмо не удалось сформировать
+     */
+    private MimeMessage toMimeMessage(EmailOutbox outbox) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+        helper.setTo(outbox.getRecipient());
+        helper.setSubject(outbox.getSubject());
+        helper.setText(outbox.getContent(), true);
+        return message;
+    }
+
+    /**
+     * Отметка о неудачной попытке: письмо откладывается с экспоненциальной задержкой или помечается как
+     * недоставленное после исчерпания попыток
+     * @param outbox захваченное письмо
+     * @param cause причина ошибки
+     * @param leaseUntil конец аренды, выданной при захвате
+     * @param now текущее время
+     */
+    private void markFailed(EmailOutbox outbox, Exception cause, LocalDateTime leaseUntil, LocalDateTime now) {
+        int attempts = outbox.getAttempts() + 1;
+        String error = truncate(String.valueOf(cause.getMessage()));
+        if (attempts >= maxAttempts) {
+            if (repository.markFailed(outbox.getId(), leaseUntil, EmailStatus.FAILED.name(), leaseUntil, error) > 0) {
+                failed.increment();
+                log.error("Письмо {} на почту {} не доставлено после {} попыток", outbox.getId(),
+                        outbox.getRecipient(), attempts);
+            }
+        } else {
+            LocalDateTime nextAttemptAt = now.plus(backoff.multipliedBy(1L << (attempts - 1)));
+            if (repository.markFailed(outbox.getId(), leaseUntil, EmailStatus.PENDING.name(), nextAttemptAt,
+                    error) > 0) {
+                retried.increment();
+                log.warn("Письмо {} на почту {} не отправлено, повтор в {}", outbox.getId(), outbox.getRecipient(),
+                        nextAttemptAt);
+            }
+        }
+    }
+
+    /**
+     * Обрезка текста ошибки
+     * @param error текст ошибки
+     * @return текст ошибки не длиннее {@link #MAX_ERROR_LENGTH}
+     */
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,29 @@
+package rf.senla.domain.service;
+
+import rf.senla.domain.entity.AccountPurge;
+
+/**
+ * Интерфейс сервиса физического удаления данных аккаунтов, помеченных как удалённые.
+ */
+public interface IAccountPurgeService {
+    /**
+     * Постановка аккаунта в очередь на физическое удаление в текущей транзакции
+     * @param userId ID пользователя
+     * @param username логин пользователя
+     * @return задача удаления
+     */
+    AccountPurge schedule(Long userId, String username);
+
+    /**
+     * Получение прогресса удаления аккаунта
+     * @param username логин пользователя
+     * @return последняя задача удаления аккаунта с этим логином
+     */
+    AccountPurge getStatus(String username);
+
+    /**
+     * Выполнение всех незавершённых задач, включая прерванные перезапуском приложения
+     * @return количество завершённых задач
+     */
+    int purgePending();
+}
@@ -0,0 +1,44 @@
+package rf.senla.domain.service;
+
+import org.springframework.data.domain.Pageable;
+import rf.senla.domain.entity.Advertisement;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Интерфейс кэша результатов выборки ленты объявлений.
+ */
+public interface IAdvertisementListingCache {
+    /**
+     * Получение закэшированной выборки
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово
+     * @param pageable пагинация
+     * @return выборка, если она есть в кэше
+     */
+    Optional<List<Advertisement>> get(int min, int max, String keyword, Pageable pageable);
+
+    /**
+     * Получение текущего поколения кэша, его нужно прочитать до запроса выборки к БД
+     * @return поколение кэша
+     */
+    long generation();
+
+    /**
+     * Сохранение выборки в кэш. Выборка не сохраняется, если после чтения поколения кэш был очищен
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово
+     * @param pageable пагинация
+     * @param generation поколение кэша, прочитанное до запроса выборки
+     * @param advertisements выборка
+     */
+    void put(int min, int max, String keyword, Pageable pageable, long generation, List<Advertisement> advertisements);
+
+    /**
+     * Очистка кэша
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,59 @@
+package rf.senla.domain.service;
+
+import org.springframework.data.domain.Pageable;
+import rf.senla.domain.entity.Advertisement;
+
+import java.util.List;
+
+/**
+ * Интерфейс внутреннего поискового индекса активных объявлений.
+ */
+public interface IAdvertisementSearchIndex {
+    /**
+     * Проверка, включён ли индекс
+     * @return {@code true}, если поиск должен выполняться по индексу
+     */
+    boolean isEnabled();
+
+    /**
+     * Полная перестройка индекса по активным объявлениям из БД
+     */
+    void rebuild();
+
+    /**
+     * Добавление, обновление или удаление объявления из индекса в зависимости от его статуса.
+     * <p>
+     * При наличии активной транзакции изменение применяется после её фиксации.
+     * @param advertisement объявление
+     */
+    void index(Advertisement advertisement);
+
+    /**
+     * Удаление объявления из индекса
+     * @param id ID объявления
+     */
+    void remove(Long id);
+
+    /**
+     * Удаление из индекса всех объявлений продавца
+     * @param userId ID продавца
+     */
+    void removeBySeller(Long userId);
+
+    /**
+     * Обновление рейтинга продавца у всех его объявлений в индексе
+     * @param userId ID продавца
+     * @param rating новый рейтинг
+     */
+    void updateSellerRating(Long userId, Double rating);
+
+    /**
+     * Поиск ID активных объявлений. Порядок: продвигаемые, рейтинг продавца, ID по убыванию.
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевые слова (все слова должны присутствовать в заголовке или описании)
+     * @param pageable пагинация, сортировка не учитывается
+     * @return список ID объявлений запрошенной страницы
+     */
+    List<Long> search(int min, int max, String keyword, Pageable pageable);
+}
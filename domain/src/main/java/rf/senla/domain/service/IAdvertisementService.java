@@ -4,6 +4,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.pagination.CursorPage;
 
 import java.util.List;
 
@@ -53,6 +54,17 @@ public interface IAdvertisementService {
      */
     List<Advertisement> getAll(Integer min, Integer max, String keyword, Pageable pageable);
 
+    /**
+     * Получить страницу ленты активных объявлений с курсорной пагинацией
+     * @param min минимальная цена
+     * @param max максимальная цена
+     * @param keyword ключевое слово в заголовке или описании
+     * @param cursor токен курсора, {@code null} для первой страницы
+     * @param size размер страницы
+     * @return страница объявлений с токеном следующей страницы
+     */
+    CursorPage<Advertisement> getFeed(Integer min, Integer max, String keyword, String cursor, int size);
+
     /**
      * Получить объявления по пользователю
      * @param username логин пользователя
@@ -70,6 +82,21 @@ public interface IAdvertisementService {
      */
     Advertisement getById(Long id);
 
+    /**
+     * Просмотреть объявление: получить его по id и учесть просмотр.
+     * @param id уникальный идентификатор объявления
+     * @return объявление
+     * @throws NoEntityException если объявление не было найдено
+     */
+    Advertisement view(Long id);
+
+    /**
+     * Получить популярные активные объявления за скользящее окно
+     * @param limit максимальное количество объявлений
+     * @return список объявлений по убыванию популярности
+     */
+    List<Advertisement> getTrending(int limit);
+
     /**
      * Продажа объявления
      * @param id ID объявления
@@ -79,10 +106,17 @@ public interface IAdvertisementService {
     Advertisement sell(Long id, UserDetails sender);
 
     /**
-     * Продвижение объявления
+     * Продвижение объявления на срок {@code advertisement.boost.duration}, повторное продвижение продлевает срок
      * @param id ID объявления
      * @param sender пользователь, отправивший запрос
      * @return Обновлённое объявление
      */
     Advertisement boost(Long id, UserDetails sender);
+
+    /**
+     * Одобрение админом объявлений на модерации или отклонённых модерацией. Остальные объявления пропускаются
+     * @param ids ID объявлений
+     * @return ID одобренных объявлений
+     */
+    List<Long> approve(List<Long> ids);
 }
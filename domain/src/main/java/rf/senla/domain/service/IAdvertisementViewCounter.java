@@ -0,0 +1,26 @@
+package rf.senla.domain.service;
+
+import java.util.Collection;
+
+/**
+ * Интерфейс счётчика просмотров объявлений с отложенной записью в БД.
+ */
+public interface IAdvertisementViewCounter {
+    /**
+     * Учёт просмотра объявления
+     * @param advertisementId ID объявления
+     */
+    void record(Long advertisementId);
+
+    /**
+     * Учёт показа объявлений в ленте
+     * @param advertisementIds ID объявлений
+     */
+    void record(Collection<Long> advertisementIds);
+
+    /**
+     * Запись накопленных просмотров в БД
+     * @return количество объявлений, просмотры которых записаны
+     */
+    int flush();
+}
@@ -0,0 +1,21 @@
+package rf.senla.domain.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Интерфейс планировщика снятия продвижения объявлений.
+ */
+public interface IBoostExpiryScheduler {
+    /**
+     * Запланировать снятие продвижения
+     * @param advertisementId ID объявления
+     * @param boostedUntil окончание продвижения
+     */
+    void schedule(Long advertisementId, LocalDateTime boostedUntil);
+
+    /**
+     * Снять продвижение с объявлений, срок которого истёк
+     * @return количество объявлений, с которых снято продвижение
+     */
+    int expire();
+}
@@ -3,6 +3,7 @@ package rf.senla.domain.service;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import rf.senla.domain.entity.Comment;
+import rf.senla.domain.pagination.CursorPage;
 
 import java.util.List;
 
@@ -35,4 +36,16 @@ public interface ICommentService {
      * @return список комментариев
      */
     List<Comment> getAll(Long advertisementId, Pageable pageable);
+
+    /**
+     * Получение страницы комментариев объявления с курсорной пагинацией по {@code (createdAt, id)}.
+     * Без курсора и с курсором {@code before} комментарии идут от новых к старым, с курсором {@code after} - от
+     * старых к новым.
+     * @param advertisementId ID объявления
+     * @param before токен курсора для перехода к более старым комментариям
+     * @param after токен курсора для перехода к более новым комментариям
+     * @param size размер страницы
+     * @return страница комментариев
+     */
+    CursorPage<Comment> getTimeline(Long advertisementId, String before, String after, int size);
 }
@@ -5,7 +5,8 @@ package rf.senla.domain.service;
  */
 public interface IEmailService {
     /**
-     * Метод отправки сообщения с дальнейшими инструкциями по восстановлению пароля
+     * Метод постановки в очередь сообщения с дальнейшими инструкциями по восстановлению пароля. Письмо
+     * отправляется после фиксации текущей транзакции.
      * @param email почта
      * @param token токен восстановления пароля
      */
@@ -1,6 +1,9 @@
 package rf.senla.domain.service;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import rf.senla.domain.security.ValidatedToken;
+
+import java.util.Optional;
 
 /**
  * Интерфейс сервиса для работы с JWT.
@@ -27,4 +30,11 @@ public interface IJwtService {
      * @return true, если токен валиден
      */
     boolean isTokenValid(String token, UserDetails userDetails);
+
+    /**
+     * Однократный разбор и проверка подписи и срока действия токена
+     * @param token токен
+     * @return данные проверенного токена или пустой {@link Optional}, если токен невалиден или просрочен
+     */
+    Optional<ValidatedToken> validate(String token);
 }
@@ -0,0 +1,29 @@
+package rf.senla.domain.service;
+
+import rf.senla.domain.event.MessageChangedEvent;
+
+/**
+ * Интерфейс рассылки событий сообщений подключённым клиентам.
+ */
+public interface IMessagePushHub {
+    /**
+     * Подписка клиента на события сообщений пользователя
+     * @param userId ID пользователя
+     * @param sink канал доставки событий клиенту
+     * @return подписка, закрытие которой отключает клиента
+     * @throws rf.senla.domain.exception.ServiceBusyException если достигнут предел подключений
+     */
+    MessageSubscription subscribe(Long userId, MessageSink sink);
+
+    /**
+     * Рассылка события участникам переписки
+     * @param event событие сообщения
+     */
+    void publish(MessageChangedEvent event);
+
+    /**
+     * Получение количества подключённых клиентов
+     * @return количество подключений
+     */
+    int getConnectionCount();
+}
@@ -2,8 +2,11 @@ package rf.senla.domain.service;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
+import rf.senla.domain.entity.Conversation;
 import rf.senla.domain.entity.Message;
+import rf.senla.domain.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,7 +21,7 @@ public interface IMessageService {
      */
     Message create(Message message, UserDetails sender);
 
-    /** Обновление сообщения
+    /** Обновление сообщения. Если время отправки сообщения известно, сообщение ищется в одной месячной секции
      * @param message сообщение
      * @param sender данные пользователя
      * @return обновлённое сообщение
@@ -27,9 +30,10 @@ public interface IMessageService {
 
     /** Удаление сообщения
      * @param id ID сообщения
+     * @param sentAt время отправки сообщения, если известно - сообщение ищется в одной месячной секции
      * @param sender данные пользователя
      */
-    void delete(Long id, UserDetails sender);
+    void delete(Long id, LocalDateTime sentAt, UserDetails sender);
 
     /**
      * Получить все сообщения от или к конкретному пользователю с пагинацией.
@@ -39,4 +43,39 @@ public interface IMessageService {
      * @return список сообщений
      */
     List<Message> getAll(UserDetails sender, String recipientName, Pageable pageable);
+
+    /**
+     * Отметить прочитанными сообщения переписки, адресованные текущему пользователю, одним запросом. Счётчик
+     * непрочитанных переписки обновляется в той же транзакции.
+     * @param conversationId ID переписки
+     * @param upToId ID последнего прочитанного сообщения, если не указан - отмечается вся переписка
+     * @param user текущий пользователь
+     * @return количество отмеченных сообщений
+     */
+    int markRead(Long conversationId, Long upToId, UserDetails user);
+
+    /**
+     * Получить страницу переписки с пользователем с курсорной пагинацией по {@code (sentAt, id)}.
+     * Без курсора и с курсором {@code before} сообщения идут от новых к старым, с курсором {@code after} - от старых к
+     * новым.
+     * @param sender текущий пользователь
+     * @param recipientName логин собеседника
+     * @param before токен курсора для перехода к более старым сообщениям
+     * @param after токен курсора для перехода к более новым сообщениям
+     * @param size размер страницы
+     * @param archived учитывать ли архив сообщений
+     * @return страница сообщений
+     */
+    CursorPage<Message> getTimeline(UserDetails sender, String recipientName, String before, String after, int size,
+                                    boolean archived);
+
+    /**
+     * Получить входящие пользователя: переписки с последним сообщением и количеством непрочитанных. Переписки
+     * упорядочены по времени последнего сообщения, переписки без сообщений - в конце; сортировка пагинации не
+     * учитывается.
+     * @param user пользователь
+     * @param pageable пагинация
+     * @return список переписок
+     */
+    List<Conversation> getConversations(UserDetails user, Pageable pageable);
 }
@@ -0,0 +1,25 @@
+package rf.senla.domain.service;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import rf.senla.domain.entity.User;
+
+import java.util.function.Function;
+
+/**
+ * Интерфейс кэша аутентифицированных пользователей для фильтра JWT.
+ */
+public interface IPrincipalCache {
+    /**
+     * Получение принципала из кэша или загрузка пользователя
+     * @param username логин пользователя
+     * @param loader функция загрузки пользователя при отсутствии в кэше
+     * @return новый принципал, построенный по {@link rf.senla.domain.security.PrincipalSnapshot}
+     */
+    UserDetails get(String username, Function<String, User> loader);
+
+    /**
+     * Удаление пользователя из кэша
+     * @param username логин пользователя
+     */
+    void invalidate(String username);
+}
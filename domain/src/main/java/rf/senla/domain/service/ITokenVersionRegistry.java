@@ -0,0 +1,25 @@
+package rf.senla.domain.service;
+
+/**
+ * Интерфейс таблицы актуальных версий токенов пользователей для аутентификации без обращения к БД.
+ */
+public interface ITokenVersionRegistry {
+    /**
+     * Проверка, включён ли режим аутентификации без обращения к БД
+     * @return {@code true}, если принципал строится из данных токена
+     */
+    boolean isEnabled();
+
+    /**
+     * Проверка, что токен с указанной версией не отозван
+     * @param userId ID пользователя
+     * @param tokenVersion версия из токена
+     * @return {@code true}, если пользователь существует и версия токена совпадает с актуальной
+     */
+    boolean isCurrent(Long userId, int tokenVersion);
+
+    /**
+     * Полная перезагрузка таблицы версий из БД
+     */
+    void reload();
+}
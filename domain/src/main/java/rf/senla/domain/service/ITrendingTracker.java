@@ -0,0 +1,41 @@
+package rf.senla.domain.service;
+
+import java.util.List;
+
+/**
+ * Интерфейс учёта популярности объявлений за скользящее окно времени.
+ */
+public interface ITrendingTracker {
+    /**
+     * Учёт активности по объявлению
+     * @param advertisementId ID объявления
+     * @param signal вид активности
+     */
+    void record(Long advertisementId, Signal signal);
+
+    /**
+     * Получение самых популярных объявлений за окно
+     * @param limit максимальное количество объявлений
+     * @return ID объявлений по убыванию популярности
+     */
+    List<Long> getTop(int limit);
+
+    /**
+     * Вид активности и её вес в оценке популярности
+     */
+    enum Signal {
+        VIEW(1),
+        COMMENT(3),
+        MESSAGE(5);
+
+        private final int weight;
+
+        Signal(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
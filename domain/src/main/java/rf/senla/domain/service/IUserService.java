@@ -24,7 +24,7 @@ public interface IUserService {
      */
     User update(User user);
 
-    /** Удаление пользователя
+    /** Удаление пользователя. Пользователь и его данные сразу скрываются, а физически удаляются в фоне
      * @param username имя пользователя
      */
     void deleteByUsername(String username);
@@ -35,6 +35,15 @@ public interface IUserService {
      */
     User getByUsername(String username);
 
+    /**
+     * Получение ссылки на пользователя для заполнения внешних ключей без загрузки его данных. Если пользователь уже
+     * содержит ID (например, текущий пользователь), запрос к базе не выполняется, иначе ID ищется по логину
+     * @param user пользователь с ID или логином
+     * @return прокси пользователя
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException если пользователь не найден
+     */
+    User getReference(UserDetails user);
+
     /** Обновление пароля
      * @param username имя пользователя
      * @param oldPassword старый пароль
@@ -62,6 +71,16 @@ public interface IUserService {
      */
     UserDetailsService userDetailsService();
 
+    /**
+     * Сохранение перехэшированного пароля пользователя без изменения версии его токенов
+     * <p>
+     * Нужен для Spring Security при смене стоимости хэширования
+     * @param user пользователь
+     * @param encodedPassword новый хэш пароля
+     * @return пользователь с новым хэшем пароля
+     */
+    UserDetails rehashPassword(UserDetails user, String encodedPassword);
+
     /**
      * Получить список пользователей с пагинацией.
      * @param pageable пагинация
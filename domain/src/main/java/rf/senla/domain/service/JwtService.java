@@ -1,36 +1,73 @@
 package rf.senla.domain.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.security.ValidatedToken;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
 
 /**
  * Сервис для работы с JWT.
+ * <p>
+ * Ключ подписи и парсер создаются один раз. Токен разбирается и проверяется за один проход, результаты успешной
+ * проверки кэшируются по SHA-256 хэшу токена до момента его истечения.
  */
 @Slf4j
 @Service
 public class JwtService implements IJwtService {
-    @Value("${token.signing.key}")
-    private String jwtSigningKey;
+    private static final long EXPIRATION_MILLIS = 100_000L * 60 * 24 * 10;
+    private static final String CACHE_NAME = "validatedTokens";
+    private static final String VERSION_CLAIM = "ver";
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final boolean cacheEnabled;
+    private final Cache<String, ValidatedToken> cache;
+
+    public JwtService(@Value("${token.signing.key}") String jwtSigningKey,
+                      @Value("${token.validation-cache.enabled:true}") boolean cacheEnabled,
+                      @Value("${token.validation-cache.max-size:10000}") long maxSize,
+                      MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.cacheEnabled = cacheEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
 
     @Override
     public String extractUsername(String token) {
-        log.info("Извлечение имени пользователя из токена {}", token);
-        String claim = extractClaim(token, Claims::getSubject);
+        log.info("Извлечение имени пользователя из токена");
+        String claim = parse(token).username();
         log.info("Удалось извлечь имя пользователя {}", claim);
         return claim;
     }
@@ -43,6 +80,7 @@ public class JwtService implements IJwtService {
             claims.put("id", customUserDetails.getId());
             claims.put("email", customUserDetails.getEmail());
             claims.put("role", customUserDetails.getRole());
+            claims.put(VERSION_CLAIM, customUserDetails.getTokenVersion());
         }
 
         String token = generateToken(claims, userDetails);
@@ -52,24 +90,39 @@ public class JwtService implements IJwtService {
 
     @Override
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        log.info("Валидация токена {}", token);
-        boolean result = (extractUsername(token).equals(userDetails.getUsername())) && !isTokenExpired(token);
+        log.info("Валидация токена пользователя {}", userDetails.getUsername());
+        boolean result = validate(token)
+                .filter(validated -> validated.username().equals(userDetails.getUsername()))
+                .isPresent();
         log.info("Результат валидации токена - {}", result);
         return result;
     }
 
-    /**
-     * Извлечение данных из токена
-     * @param token токен
-     * @param claimsResolvers функция извлечения данных
-     * @return данные
-     */
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        log.info("Извлечение данных из токена");
-        final Claims claims = extractAllClaims(token);
-        T data = claimsResolvers.apply(claims);
-        log.info("Данные из токена извлечены успешно - {}", data);
-        return data;
+    @Override
+    public Optional<ValidatedToken> validate(String token) {
+        String key = cacheEnabled ? hash(token) : null;
+        if (cacheEnabled) {
+            ValidatedToken cached = cache.getIfPresent(key);
+            if (cached != null && !cached.isExpired(Instant.now())) {
+                return Optional.of(cached);
+            }
+        }
+
+        try {
+            ValidatedToken validated = parse(token);
+            if (validated.username() == null || validated.username().isBlank()) {
+                log.warn("Токен не содержит имени пользователя");
+                return Optional.empty();
+            }
+
+            if (cacheEnabled) {
+                cache.put(key, validated);
+            }
+            return Optional.of(validated);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Токен не прошёл проверку: {}", e.getMessage());
+            return Optional.empty();
+        }
     }
 
     /**
@@ -82,58 +135,61 @@ public class JwtService implements IJwtService {
         log.info("Генерация токена с дополнительными параметрами {}", extraClaims);
         String token = Jwts.builder().setClaims(extraClaims).setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 100_000 * 60 * 24 * 10))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256).compact();
-        log.info("Генерация токена с дополнительными параметрами прошла успешно - {}", token);
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MILLIS))
+                .signWith(signingKey, SignatureAlgorithm.HS256).compact();
+        log.info("Генерация токена с дополнительными параметрами прошла успешно");
         return token;
     }
 
     /**
-     * Проверка токена на просроченность
+     * Разбор токена с проверкой подписи и срока действия
      * @param token токен
-     * @return true, если токен просрочен
+     * @return данные проверенного токена
+     * @throws JwtException если токен невалиден или просрочен
      */
-    private boolean isTokenExpired(String token) {
-        log.info("Проверка токена {} на просроченность", token);
-        boolean result = extractExpiration(token).before(new Date());
-        log.info("Результат проверки токена на просроченность - {}", result);
-        return result;
+    private ValidatedToken parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        return new ValidatedToken(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                claims.get("email", String.class),
+                claims.get("role", String.class),
+                version == null ? 0 : version,
+                claims.getExpiration().toInstant());
     }
 
     /**
-     * Извлечение даты истечения токена
+     * Вычисление SHA-256 хэша токена для ключа кэша
      * @param token токен
-     * @return дата истечения
+     * @return хэш токена в Base64
      */
-    private Date extractExpiration(String token) {
-        log.info("Извлечение даты истечения токена {}", token);
-        Date date = extractClaim(token, Claims::getExpiration);
-        log.info("Дата истечения токена - {}", date);
-        return date;
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Извлечение всех данных из токена
-     * @param token токен
-     * @return данные
+     * Служебный класс политики истечения записи кэша: запись живёт до истечения самого токена
      */
-    private Claims extractAllClaims(String token) {
-        log.info("Извлечение всех данных из токена {}", token);
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey()).build().parseClaimsJws(token)
-                .getBody();
-        log.info("Извлечение данных прошло успешно - {}", claims);
-        return claims;
-    }
+    private static final class TokenExpiry implements Expiry<String, ValidatedToken> {
+        @Override
+        public long expireAfterCreate(String key, ValidatedToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+        }
 
-    /**
-     * Получение ключа для подписи токена
-     * @return ключ
-     */
-    private Key getSigningKey() {
-        log.info("Получение ключа для подписи токена");
-        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
-        log.info("Ключ для подписи токена успешно получен");
-        return key;
+        @Override
+        public long expireAfterUpdate(String key, ValidatedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ValidatedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,125 @@
+package rf.senla.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.repository.MessageRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Фоновое обслуживание месячных секций таблицы сообщений.
+ * <p>
+ * Заранее создаются секции на ближайшие месяцы, а секции старше срока хранения переносятся в архив сообщений.
+ * Секция отсоединяется через {@code DETACH PARTITION ... CONCURRENTLY} вне транзакции, поэтому запись в остальные
+ * секции не блокируется. Строки отсоединённой таблицы переносятся в архив пачками по {@code archive-chunk-size} в
+ * отдельных транзакциях, затем таблица удаляется. Прерванная архивация продолжается при следующем запуске.
+ */
+@Slf4j
+@Service
+public class MessagePartitionJob {
+    private final MessageRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int chunkSize;
+
+    public MessagePartitionJob(MessageRepository repository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${advertisement.messages.partitions.months-ahead:3}") int monthsAhead,
+                               @Value("${advertisement.messages.partitions.retention-months:12}") int retentionMonths,
+                               @Value("${advertisement.messages.partitions.archive-chunk-size:5000}") int chunkSize) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Создание секций при старте приложения: секции по умолчанию нет, поэтому без секции текущего месяца новые
+     * сообщения не сохранятся
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitions() {
+        createPartitions(LocalDate.now());
+    }
+
+    /**
+     * Обслуживание секций по расписанию {@code advertisement.messages.partitions.cron}
+     * @return количество перенесённых в архив сообщений
+     */
+    @Scheduled(cron = "${advertisement.messages.partitions.cron:0 30 2 * * *}")
+    public int maintain() {
+        return maintain(LocalDate.now());
+    }
+
+    /**
+     * Создание секций на {@code months-ahead} месяцев вперёд и архивация секций старше {@code retention-months}
+     * месяцев относительно указанной даты. Метод нельзя вызывать внутри транзакции: {@code DETACH CONCURRENTLY}
+     * выполняется только вне блока транзакции
+     * @param today текущая дата
+     * @return количество перенесённых в архив сообщений
+     */
+    public int maintain(LocalDate today) {
+        createPartitions(today);
+
+        LocalDate before = today.withDayOfMonth(1).minusMonths(retentionMonths);
+        int archived = 0;
+        for (Object[] partition : repository.findExpiredPartitions(before)) {
+            archived += archive((String) partition[0], (String) partition[1]);
+        }
+        log.info("В архив перенесено {} сообщений, отправленных до {}", archived, before);
+        return archived;
+    }
+
+    /**
+     * Служебный метод создаёт секции с месяца указанной даты на {@code months-ahead} месяцев вперёд
+     * @param today текущая дата
+     */
+    private void createPartitions(LocalDate today) {
+        LocalDate month = today.withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate partitionMonth = month.plusMonths(i);
+            String name = transactionTemplate.execute(status -> repository.createPartition(partitionMonth));
+            log.info("Секция сообщений {} готова", name);
+        }
+    }
+
+    /**
+     * Служебный метод отсоединяет секцию, переносит её строки в архив пачками и удаляет таблицу
+     * @param name имя секции
+     * @param state состояние секции: {@code ATTACHED}, {@code DETACH_PENDING} или {@code DETACHED}
+     * @return количество перенесённых в архив сообщений
+     */
+    private int archive(String name, String state) {
+        switch (state) {
+            case "ATTACHED" -> jdbcTemplate.execute("ALTER TABLE advertisement.messages DETACH PARTITION " +
+                    "advertisement." + name + " CONCURRENTLY");
+            case "DETACH_PENDING" -> jdbcTemplate.execute("ALTER TABLE advertisement.messages DETACH PARTITION " +
+                    "advertisement." + name + " FINALIZE");
+            default -> {
+            }
+        }
+
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> repository.archivePartitionChunk(name, chunkSize));
+            total += moved;
+        } while (moved > 0);
+
+        jdbcTemplate.execute("DROP TABLE advertisement." + name);
+        log.info("Секция сообщений {} перенесена в архив: {} сообщений", name, total);
+        return total;
+    }
+}
@@ -0,0 +1,140 @@
+package rf.senla.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rf.senla.domain.event.MessageChangedEvent;
+import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.ServiceBusyException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Внутрипроцессная рассылка событий сообщений подключённым клиентам.
+ * <p>
+ * События публикуются после фиксации транзакции {@link IMessageService} и раскладываются по очередям подписок
+ * участников переписки без блокировки. Каждая подписка отправляет события своим виртуальным потоком, поэтому узел
+ * держит тысячи простаивающих подключений при небольшом расходе памяти. Количество подключений ограничено свойством
+ * {@code advertisement.messages.push.max-connections}.
+ */
+@Slf4j
+@Service
+public class MessagePushHub implements IMessagePushHub {
+    private final Map<Long, Set<MessageSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("message-push-", 0).factory();
+    private final int maxConnections;
+    private final int bufferSize;
+    private final Duration heartbeat;
+    private final Duration retryAfter;
+    private final Counter delivered;
+    private final Counter dropped;
+
+    public MessagePushHub(@Value("${advertisement.messages.push.max-connections:10000}") int maxConnections,
+                          @Value("${advertisement.messages.push.buffer-size:64}") int bufferSize,
+                          @Value("${advertisement.messages.push.heartbeat:30s}") Duration heartbeat,
+                          @Value("${advertisement.messages.push.retry-after:5s}") Duration retryAfter,
+                          MeterRegistry meterRegistry) {
+        this.maxConnections = maxConnections;
+        this.bufferSize = bufferSize;
+        this.heartbeat = heartbeat;
+        this.retryAfter = retryAfter;
+        Gauge.builder("message.push.connections", connections, AtomicInteger::get).register(meterRegistry);
+        this.delivered = Counter.builder("message.push.events").tag("result", "queued").register(meterRegistry);
+        this.dropped = Counter.builder("message.push.events").tag("result", "dropped").register(meterRegistry);
+    }
+
+    @Override
+    public MessageSubscription subscribe(Long userId, MessageSink sink) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            log.error("Достигнут предел подключений к рассылке сообщений: {}", maxConnections);
+            throw new ServiceBusyException(ErrorMessage.SERVICE_BUSY.getMessage(), retryAfter);
+        }
+
+        MessageSubscription subscription = new MessageSubscription(userId, sink, bufferSize, heartbeat,
+                this::unsubscribe);
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscription.start(threadFactory);
+        log.info("Пользователь с ID {} подписан на события сообщений", userId);
+        return subscription;
+    }
+
+    @Override
+    public void publish(MessageChangedEvent event) {
+        deliver(event.recipientId(), event);
+        if (!event.senderId().equals(event.recipientId())) {
+            deliver(event.senderId(), event);
+        }
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Рассылка события после фиксации транзакции, в которой изменилось сообщение
+     * @param event событие сообщения
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageChanged(MessageChangedEvent event) {
+        publish(event);
+    }
+
+    /**
+     * Закрытие всех подписок при остановке приложения
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().stream()
+                .flatMap(Set::stream)
+                .toList()
+                .forEach(MessageSubscription::close);
+    }
+
+    /**
+     * Постановка события в очереди всех подписок пользователя
+     * @param userId ID пользователя
+     * @param event событие сообщения
+     */
+    private void deliver(Long userId, MessageChangedEvent event) {
+        Set<MessageSubscription> set = subscriptions.get(userId);
+        if (set == null) {
+            return;
+        }
+
+        for (MessageSubscription subscription : List.copyOf(set)) {
+            if (subscription.offer(event)) {
+                delivered.increment();
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Удаление закрытой подписки
+     * @param subscription подписка
+     */
+    private void unsubscribe(MessageSubscription subscription) {
+        subscriptions.computeIfPresent(subscription.getUserId(), (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        connections.decrementAndGet();
+        log.info("Пользователь с ID {} отписан от событий сообщений", subscription.getUserId());
+    }
+}
@@ -2,20 +2,39 @@ package rf.senla.domain.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.Conversation;
 import rf.senla.domain.entity.Message;
+import rf.senla.domain.event.MessageChangedEvent;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.ErrorMessage;
+import rf.senla.domain.exception.ForeignKeyViolations;
 import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.TimelineCursor;
+import rf.senla.domain.repository.ConversationRepository;
 import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.entity.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Сервис работы с сообщениями.
@@ -28,6 +47,9 @@ public class MessageService implements IMessageService {
     private final IUserService userService;
     private final MessageRepository repository;
     private final IAdvertisementService advertisementService;
+    private final ConversationRepository conversationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ITrendingTracker trendingTracker;
 
     @Override
     @Transactional
@@ -39,12 +61,32 @@ public class MessageService implements IMessageService {
             throw new EntityContainedException(ErrorMessage.MESSAGE_ALREADY_EXISTS.getMessage());
         }
 
-        message.setSender(userService.getByUsername(sender.getUsername()));
-        message.setRecipient(userService.getByUsername(message.getRecipient().getUsername()));
-        message.setAdvertisement(advertisementService.getById(message.getAdvertisement().getId()));
-        message.setSentAt(LocalDateTime.now());
+        Object[] participants = getParticipants(message.getAdvertisement().getId(), sender,
+                message.getRecipient().getUsername());
+        message.setAdvertisement((Advertisement) participants[0]);
+        message.setSender((User) participants[1]);
+        message.setRecipient((User) participants[2]);
+        message.setSentAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         message.setRead(Boolean.FALSE);
-        message = repository.save(message);
+        Object[] row;
+        try {
+            row = repository.insertMessage(message.getSender().getId(), message.getRecipient().getId(),
+                    message.getAdvertisement().getId(), message.getText(), message.getSentAt()).getFirst();
+        } catch (DataIntegrityViolationException e) {
+            if (!ForeignKeyViolations.isForeignKeyViolation(e)) {
+                throw e;
+            }
+
+            log.error("Не удалось сохранить сообщение {}: нарушен внешний ключ", message);
+            throw new NoEntityException(ErrorMessage.REFERENCED_ENTITY_NOT_FOUND.getMessage());
+        }
+
+        message.setId(((Number) row[0]).longValue());
+        message.setConversation(conversationRepository.getReferenceById(((Number) row[1]).longValue()));
+        eventPublisher.publishEvent(new MessageChangedEvent(MessageChangedEvent.Type.CREATED, message.getId(),
+                message.getConversation().getId(), message.getSender().getId(), message.getRecipient().getId(),
+                sender.getUsername(), message.getText(), message.getSentAt(), false));
+        trendingTracker.record(message.getAdvertisement().getId(), ITrendingTracker.Signal.MESSAGE);
         log.info("Сохранено сообщение {}", message);
         return message;
     }
@@ -53,36 +95,178 @@ public class MessageService implements IMessageService {
     @Transactional
     public Message update(Message message, UserDetails sender) {
         log.info("Обновление сообщения {}", message);
-        Message entity = getById(message.getId());
+        Message entity = getById(message.getId(), message.getSentAt());
         checkSenderAndCurrentUser(sender, entity.getSender());
-        entity.setRead(message.getRead() == null ? Boolean.FALSE : message.getRead());
+        boolean read = Boolean.TRUE.equals(message.getRead());
+        if (read != Boolean.TRUE.equals(entity.getRead())) {
+            conversationRepository.adjustUnread(entity.getId(), entity.getSentAt(), read ? -1 : 1);
+        }
+        repository.updateContent(entity.getId(), entity.getSentAt(), message.getText(), read);
+        entity.setRead(read);
         entity.setText(message.getText());
-        entity = repository.save(entity);
+        eventPublisher.publishEvent(toEvent(MessageChangedEvent.Type.UPDATED, entity));
         log.info("Удалось обновить сообщение {}", entity);
         return entity;
     }
 
     @Override
     @Transactional
-    public void delete(Long id, UserDetails sender) {
+    public void delete(Long id, LocalDateTime sentAt, UserDetails sender) {
         log.info("Удаление сообщения с ID {}", id);
-        Message message = getById(id);
+        Message message = getById(id, sentAt);
         checkSenderAndCurrentUser(sender, message.getSender());
-        repository.delete(message);
+        conversationRepository.detachMessage(message.getId(), message.getSentAt());
+        repository.deleteByKey(message.getId(), message.getSentAt());
         log.info("Удалось удалить сообщение {}", message);
     }
 
+    @Override
+    @Transactional
+    public int markRead(Long conversationId, Long upToId, UserDetails user) {
+        Long userId = ((User) user).getId();
+        log.info("Отметка о прочтении переписки {} до сообщения {} пользователем {}", conversationId, upToId,
+                user.getUsername());
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new NoEntityException(ErrorMessage.NO_CONVERSATION_FOUND.getMessage()));
+        Long firstId = conversation.getFirstUser().getId();
+        Long secondId = conversation.getSecondUser().getId();
+        if (!userId.equals(firstId) && !userId.equals(secondId)) {
+            log.error("Пользователь {} не является участником переписки {}", user.getUsername(), conversationId);
+            throw new AccessDeniedException(ErrorMessage.CONVERSATION_PARTICIPANT_MISMATCH.getMessage());
+        }
+
+        if (conversation.getLastMessage() == null) {
+            return 0;
+        }
+
+        Long lastReadId = upToId == null ? conversation.getLastMessage().getId() : upToId;
+        int marked = repository.markReadUpTo(conversationId, userId, upToId == null ? Long.MAX_VALUE : upToId);
+        if (marked > 0) {
+            conversationRepository.subtractUnread(conversationId, userId, marked);
+            eventPublisher.publishEvent(new MessageChangedEvent(MessageChangedEvent.Type.READ, lastReadId,
+                    conversationId, userId.equals(firstId) ? secondId : firstId, userId, null, null, null, true));
+        }
+
+        log.info("Отмечено прочитанными {} сообщений переписки {}", marked, conversationId);
+        return marked;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Message> getAll(UserDetails sender, String recipientName, Pageable pageable) {
         User user = (User) sender;
         User recipient = userService.getByUsername(recipientName);
         log.info("Получение списка сообщений между пользователями {} и {}, с пагинацией {}", user, recipient, pageable);
-        List<Message> list = repository.findMessagesBetweenUsers(user.getId(), recipient.getId(), pageable);
+        List<Message> list = repository.findMessagesBetweenUsers(Math.min(user.getId(), recipient.getId()),
+                Math.max(user.getId(), recipient.getId()), pageable);
         log.info("Получен список из {} сообщений: {}", list.size(), list);
         return list;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Message> getTimeline(UserDetails sender, String recipientName, String before, String after,
+                                           int size, boolean archived) {
+        TimelineCursor.checkDirection(before, after);
+        User user = (User) sender;
+        User recipient = userService.getByUsername(recipientName);
+        log.info("Получение ленты сообщений между пользователями {} и {}, курсоры {} и {}, размер {}, архив {}",
+                user.getUsername(), recipient.getUsername(), before, after, size, archived);
+        Long firstId = Math.min(user.getId(), recipient.getId());
+        Long secondId = Math.max(user.getId(), recipient.getId());
+        List<Long> ids;
+        if (TimelineCursor.isPresent(after)) {
+            TimelineCursor cursor = TimelineCursor.decode(after);
+            ids = repository.findTimelineIdsAfter(firstId, secondId, cursor.timestamp(), cursor.id(), archived, size);
+        } else if (TimelineCursor.isPresent(before)) {
+            TimelineCursor cursor = TimelineCursor.decode(before);
+            ids = repository.findTimelineIdsBefore(firstId, secondId, cursor.timestamp(), cursor.id(), archived,
+                    size);
+        } else {
+            ids = repository.findLatestTimelineIds(firstId, secondId, archived, size);
+        }
+
+        Comparator<Message> order = Comparator.comparing(Message::getSentAt).thenComparing(Message::getId);
+        List<Message> list = loadTimeline(ids, archived).stream()
+                .sorted(TimelineCursor.isPresent(after) ? order : order.reversed())
+                .toList();
+        log.info("Получена страница из {} сообщений", list.size());
+        return CursorPage.of(list, size, message -> new TimelineCursor(message.getSentAt(), message.getId()).encode());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Conversation> getConversations(UserDetails user, Pageable pageable) {
+        Long id = ((User) user).getId();
+        log.info("Получение входящих пользователя {} с пагинацией {}", user.getUsername(), pageable);
+        List<Long> ids = conversationRepository.findInboxIds(id, pageable.getPageSize(), pageable.getOffset());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> order = IntStream.range(0, ids.size()).boxed()
+                .collect(Collectors.toMap(ids::get, Function.identity()));
+        List<Conversation> list = conversationRepository.findWithParticipantsByIdIn(ids).stream()
+                .sorted(Comparator.comparing(conversation -> order.get(conversation.getId())))
+                .toList();
+        log.info("Получен список из {} переписок", list.size());
+        return list;
+    }
+
+    /**
+     * Служебный метод получает объявление с продавцом, отправителя и получателя одним запросом. Если строки нет,
+     * отдельно проверяется объявление, чтобы сообщить, какая сущность не найдена
+     * @param advertisementId ID объявления
+     * @param sender отправитель
+     * @param recipient логин получателя
+     * @return массив [объявление, отправитель, получатель]
+     */
+    private Object[] getParticipants(Long advertisementId, UserDetails sender, String recipient) {
+        List<Object[]> rows = repository.findParticipants(advertisementId, sender.getUsername(), recipient);
+        if (rows.isEmpty()) {
+            advertisementService.getById(advertisementId);
+            log.error("Не удалось получить пользователей по логинам {} и {}", sender.getUsername(), recipient);
+            throw new UsernameNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage());
+        }
+
+        return rows.getFirst();
+    }
+
+    /**
+     * Загрузка сообщений страницы ленты: сначала из секционированной таблицы, недостающие - из архива
+     * @param ids ID сообщений
+     * @param archived учитывать ли архив сообщений
+     * @return список сообщений без гарантии порядка
+     */
+    private List<Message> loadTimeline(List<Long> ids, boolean archived) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Message> list = repository.findWithParticipantsByIdIn(ids);
+        if (!archived || list.size() == ids.size()) {
+            return list;
+        }
+
+        Set<Long> missing = new HashSet<>(ids);
+        list.forEach(message -> missing.remove(message.getId()));
+        List<Message> result = new ArrayList<>(list);
+        result.addAll(repository.findArchivedByIdIn(missing));
+        return result;
+    }
+
+    /**
+     * Создание события для рассылки подключённым участникам переписки
+     * @param type тип изменения
+     * @param message сообщение
+     * @return событие сообщения
+     */
+    private static MessageChangedEvent toEvent(MessageChangedEvent.Type type, Message message) {
+        return new MessageChangedEvent(type, message.getId(), message.getConversation().getId(),
+                message.getSender().getId(), message.getRecipient().getId(), message.getSender().getUsername(),
+                message.getText(), message.getSentAt(), Boolean.TRUE.equals(message.getRead()));
+    }
+
     /**
      * Метод проверяет совпадение текущего пользователя и отправителя сообщения
      * @param currentUser текущий пользователь
@@ -97,13 +281,14 @@ public class MessageService implements IMessageService {
     }
 
     /**
-     * Получение сообщения по ID
+     * Получение сообщения по ID. Если время отправки известно, читается одна месячная секция, иначе все
      * @param id ID сообщения
+     * @param sentAt время отправки сообщения
      * @return сообщение
      * @throws NoEntityException если сообщение не было найдено
      */
-    private Message getById(Long id) {
-        return repository.findById(id)
+    private Message getById(Long id, LocalDateTime sentAt) {
+        return (sentAt == null ? repository.findById(id) : repository.findByIdAndSentAt(id, sentAt))
                 .orElseThrow(() -> new NoEntityException(ErrorMessage.NO_MESSAGE_FOUND.getMessage()));
     }
 }
@@ -0,0 +1,28 @@
+package rf.senla.domain.service;
+
+import rf.senla.domain.event.MessageChangedEvent;
+
+import java.io.IOException;
+
+/**
+ * Канал доставки событий сообщений одному подключённому клиенту.
+ */
+public interface MessageSink {
+    /**
+     * Отправка события клиенту
+     * @param event событие сообщения
+     * @throws IOException если клиент отключился
+     */
+    void send(MessageChangedEvent event) throws IOException;
+
+    /**
+     * Отправка пустого пакета для проверки соединения
+     * @throws IOException если клиент отключился
+     */
+    void heartbeat() throws IOException;
+
+    /**
+     * Закрытие канала со стороны сервера
+     */
+    void close();
+}
@@ -0,0 +1,111 @@
+package rf.senla.domain.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import rf.senla.domain.event.MessageChangedEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Подписка одного клиента на события сообщений.
+ * <p>
+ * События складываются в очередь ограниченного размера и отправляются клиенту отдельным виртуальным потоком, поэтому
+ * медленный клиент не задерживает рассылку остальным. Простаивающая подписка занимает только очередь и припаркованный
+ * виртуальный поток. При переполнении очереди подписка закрывается: клиент переподключается и перечитывает входящие.
+ */
+@Slf4j
+public class MessageSubscription implements AutoCloseable {
+    @Getter
+    private final Long userId;
+    private final MessageSink sink;
+    private final BlockingQueue<MessageChangedEvent> queue;
+    private final Duration heartbeat;
+    private final Consumer<MessageSubscription> onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Thread worker;
+
+    MessageSubscription(Long userId, MessageSink sink, int bufferSize, Duration heartbeat,
+                        Consumer<MessageSubscription> onClose) {
+        this.userId = userId;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+        this.heartbeat = heartbeat;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Запуск отправки событий в виртуальном потоке
+     * @param threadFactory фабрика виртуальных потоков
+     */
+    void start(ThreadFactory threadFactory) {
+        worker = threadFactory.newThread(this::drain);
+        worker.start();
+    }
+
+    /**
+     * Постановка события в очередь клиента без блокировки
+     * @param event событие сообщения
+     * @return {@code false}, если очередь переполнена и подписка закрыта
+     */
+    boolean offer(MessageChangedEvent event) {
+        if (closed.get()) {
+            return true;
+        }
+        if (queue.offer(event)) {
+            return true;
+        }
+
+        log.info("Очередь событий пользователя с ID {} переполнена, подписка закрыта", userId);
+        close();
+        return false;
+    }
+
+    /**
+     * Проверка, закрыта ли подписка
+     * @return {@code true}, если подписка закрыта
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            if (worker != null && worker != Thread.currentThread()) {
+                worker.interrupt();
+            }
+            sink.close();
+            onClose.accept(this);
+        }
+    }
+
+    /**
+     * Отправка событий клиенту до закрытия подписки. При простое отправляется пустой пакет, чтобы обнаружить
+     * отключившихся клиентов.
+     */
+    private void drain() {
+        try {
+            while (!closed.get()) {
+                MessageChangedEvent event = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    sink.heartbeat();
+                } else {
+                    sink.send(event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.info("Клиент пользователя с ID {} отключился: {}", userId, e.getMessage());
+        } finally {
+            close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package rf.senla.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.event.UserChangedEvent;
+import rf.senla.domain.security.PrincipalSnapshot;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш аутентифицированных пользователей на Caffeine с ограничением размера и временем жизни записи.
+ * <p>
+ * Записи удаляются по событию {@link UserChangedEvent} после завершения транзакции, в которой изменился
+ * пользователь, поэтому изменения пароля, роли и удаление вступают в силу сразу, а не по истечении TTL.
+ * <p>
+ * В кэше хранится неизменяемый {@link PrincipalSnapshot}, а не сущность: каждый запрос получает новый принципал.
+ */
+@Slf4j
+@Service
+public class PrincipalCache implements IPrincipalCache {
+    private static final String CACHE_NAME = "principals";
+
+    private final boolean enabled;
+    private final Cache<String, PrincipalSnapshot> cache;
+
+    public PrincipalCache(@Value("${advertisement.cache.principal.enabled:true}") boolean enabled,
+                          @Value("${advertisement.cache.principal.ttl:60s}") Duration ttl,
+                          @Value("${advertisement.cache.principal.max-size:10000}") long maxSize,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public UserDetails get(String username, Function<String, User> loader) {
+        PrincipalSnapshot snapshot = enabled
+                ? cache.get(username, name -> PrincipalSnapshot.of(loader.apply(name)))
+                : PrincipalSnapshot.of(loader.apply(username));
+        return snapshot.toUser();
+    }
+
+    @Override
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    /**
+     * Удаление изменённого пользователя из кэша
+     * @param event событие изменения пользователя
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.username());
+        log.info("Пользователь {} удалён из кэша аутентификации", event.username());
+    }
+}
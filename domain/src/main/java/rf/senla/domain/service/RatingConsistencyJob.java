@@ -0,0 +1,49 @@
+package rf.senla.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.UserRepository;
+
+/**
+ * Фоновая задача проверки согласованности агрегатов рейтинга пользователей с таблицей оценок.
+ * <p>
+ * Агрегаты пересчитываются одним запросом только для расходящихся пользователей, после чего синхронизируется
+ * рейтинг продавца в объявлениях и сбрасываются кэш ленты и поисковый индекс.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RatingConsistencyJob {
+    private final UserRepository userRepository;
+    private final AdvertisementRepository advertisementRepository;
+    private final IAdvertisementListingCache listingCache;
+    private final IAdvertisementSearchIndex searchIndex;
+
+    /**
+     * Пересчёт агрегатов рейтинга по расписанию {@code advertisement.rating.consistency.cron}
+     * @return количество исправленных пользователей
+     */
+    @Transactional
+    @Scheduled(cron = "${advertisement.rating.consistency.cron:0 0 3 * * *}")
+    public int recompute() {
+        log.info("Проверка согласованности агрегатов рейтинга пользователей");
+        int users = userRepository.recomputeRatingAggregates();
+        if (users == 0) {
+            log.info("Агрегаты рейтинга пользователей согласованы");
+            return users;
+        }
+
+        int advertisements = advertisementRepository.syncSellerRatings();
+        listingCache.invalidateAll();
+        if (searchIndex.isEnabled()) {
+            searchIndex.rebuild();
+        }
+
+        log.warn("Исправлены агрегаты рейтинга {} пользователей, обновлено {} объявлений", users, advertisements);
+        return users;
+    }
+}
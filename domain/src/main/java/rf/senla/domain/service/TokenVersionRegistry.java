@@ -0,0 +1,172 @@
+package rf.senla.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rf.senla.domain.event.UserChangedEvent;
+import rf.senla.domain.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Компактная таблица версий токенов: массив, индексированный ID пользователя, в ячейке которого хранится
+ * версия + 1. Значение {@code 0} означает, что пользователь ещё не загружен, {@code -1} - что он удалён.
+ * <p>
+ * Включается свойством {@code advertisement.auth.stateless}. Таблица загружается при старте приложения,
+ * обновляется по событию {@link UserChangedEvent} после завершения транзакции и периодически сверяется с БД,
+ * чтобы подхватить изменения, сделанные другими экземплярами приложения. Версии только растут, поэтому при
+ * сверке берётся максимум из локального и прочитанного значения.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenVersionRegistry implements ITokenVersionRegistry {
+    private static final int UNKNOWN = 0;
+    private static final int DELETED = -1;
+
+    private final UserRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] versions = new int[0];
+    @Value("${advertisement.auth.stateless:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        if (userId == null || userId < 0 || userId >= Integer.MAX_VALUE) {
+            return false;
+        }
+
+        int id = userId.intValue();
+        int stored = read(id);
+        if (stored == UNKNOWN) {
+            stored = repository.findTokenVersionById(userId)
+                    .map(version -> version + 1)
+                    .orElse(DELETED);
+            merge(id, stored);
+            stored = read(id);
+        }
+        return stored == tokenVersion + 1;
+    }
+
+    /**
+     * Загрузка таблицы после запуска приложения, если режим включён
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Периодическая сверка таблицы с БД, если режим включён
+     */
+    @Scheduled(fixedDelayString = "${advertisement.auth.refresh-interval:PT30S}",
+            initialDelayString = "${advertisement.auth.refresh-interval:PT30S}")
+    public void refresh() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void reload() {
+        List<Object[]> rows = repository.findAllTokenVersions();
+        int[] loaded = new int[capacity(rows)];
+        for (Object[] row : rows) {
+            loaded[((Long) row[0]).intValue()] = (Integer) row[1] + 1;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int[] merged = Arrays.copyOf(loaded, Math.max(loaded.length, versions.length));
+            for (int id = 0; id < versions.length; id++) {
+                int local = versions[id];
+                if (local == DELETED || (local != UNKNOWN && merged[id] != UNKNOWN && local > merged[id])) {
+                    merged[id] = local;
+                }
+            }
+            versions = merged;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Таблица версий токенов загружена: {} пользователей", rows.size());
+    }
+
+    /**
+     * Применение изменения пользователя к таблице
+     * @param event событие изменения пользователя
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled || event.id() == null) {
+            return;
+        }
+
+        merge(event.id().intValue(), event.isDeleted() ? DELETED : event.tokenVersion() + 1);
+        log.info("Версия токенов пользователя {} обновлена", event.username());
+    }
+
+    /**
+     * Чтение ячейки таблицы
+     * @param id ID пользователя
+     * @return версия + 1, {@link #UNKNOWN} или {@link #DELETED}
+     */
+    private int read(int id) {
+        lock.readLock().lock();
+        try {
+            return id < versions.length ? versions[id] : UNKNOWN;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Запись ячейки таблицы без понижения версии; удаление необратимо, так как ID не переиспользуются
+     * @param id ID пользователя
+     * @param value версия + 1 или {@link #DELETED}
+     */
+    private void merge(int id, int value) {
+        lock.writeLock().lock();
+        try {
+            if (id >= versions.length) {
+                versions = Arrays.copyOf(versions, Math.max(id + 1, versions.length * 2));
+            }
+            int current = versions[id];
+            if (current != DELETED && (value == DELETED || value > current)) {
+                versions[id] = value;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Размер массива, вмещающего все загруженные ID
+     * @param rows строки [ID, версия]
+     * @return размер массива
+     */
+    private static int capacity(List<Object[]> rows) {
+        long max = -1;
+        for (Object[] row : rows) {
+            max = Math.max(max, (Long) row[0]);
+        }
+        return (int) (max + 1);
+    }
+}
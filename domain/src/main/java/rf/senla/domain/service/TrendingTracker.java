@@ -0,0 +1,212 @@
+package rf.senla.domain.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Поиск популярных объявлений за скользящее окно на Count-Min Sketch с отбором top-K.
+ * <p>
+ * Окно разбито на корзины, у каждой корзины свой скетч. Ячейка скетча хранит номер корзины в старших битах и
+ * счётчик в младших, поэтому учёт активности - только CAS-инкремент ячеек без блокировок: ячейка корзины, вышедшей
+ * из окна, перезаписывается первым инкрементом новой корзины. Оценка объявления - минимум по строкам суммы
+ * ячеек корзин окна. Оценки Count-Min Sketch завышены не более чем на долю {@code e / width} от суммарного веса
+ * окна.
+ * <p>
+ * Кандидаты в top-K хранятся в наборе не больше {@code candidates} элементов: объявление попадает в набор, только
+ * если его оценка выше оценки K-го места при прошлом перестроении, поэтому память ограничена размером скетчей и
+ * набора и не зависит от размера каталога. Top-K перестраивается по расписанию раз в {@code refresh-interval},
+ * после перестроения в наборе остаются только объявления из top-K. Чтение top-K только копирует готовый список.
+ */
+@Slf4j
+@Service
+public class TrendingTracker implements ITrendingTracker {
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long TAG_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+    private static final Comparator<Candidate> ORDER = Comparator.comparingLong(Candidate::score).reversed()
+            .thenComparingLong(Candidate::id);
+
+    private final int topSize;
+    private final int depth;
+    private final int width;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final int capacity;
+    private final long[] seeds;
+    private final AtomicLongArray cells;
+    private final Set<Long> candidates = ConcurrentHashMap.newKeySet();
+    private volatile List<Candidate> ranking = List.of();
+    private volatile long admission;
+
+    public TrendingTracker(@Value("${advertisement.trending.window:PT1H}") Duration window,
+                           @Value("${advertisement.trending.buckets:12}") int bucketCount,
+                           @Value("${advertisement.trending.top-size:20}") int topSize,
+                           @Value("${advertisement.trending.sketch.depth:4}") int depth,
+                           @Value("${advertisement.trending.sketch.width:2048}") int width,
+                           @Value("${advertisement.trending.candidates:200}") int capacity) {
+        this.topSize = topSize;
+        this.depth = depth;
+        this.width = width;
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.capacity = capacity;
+        this.seeds = new SplittableRandom(SEED).longs(depth).toArray();
+        this.cells = new AtomicLongArray(bucketCount * depth * width);
+    }
+
+    @Override
+    public void record(Long advertisementId, Signal signal) {
+        record(advertisementId, signal, System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Long> getTop(int limit) {
+        return ranking.stream()
+                .limit(Math.min(limit, topSize))
+                .map(Candidate::id)
+                .toList();
+    }
+
+    /**
+     * Перестроение top-K по расписанию {@code advertisement.trending.refresh-interval}
+     */
+    @Scheduled(fixedDelayString = "${advertisement.trending.refresh-interval:PT5S}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    /**
+     * Учёт активности по объявлению в указанный момент времени
+     * @param advertisementId ID объявления
+     * @param signal вид активности
+     * @param now момент времени в миллисекундах
+     */
+    public void record(Long advertisementId, Signal signal, long now) {
+        if (advertisementId == null) {
+            return;
+        }
+
+        long bucket = Math.floorDiv(now, bucketMillis);
+        int slot = (int) Math.floorMod(bucket, (long) bucketCount);
+        long tag = bucket & TAG_MASK;
+        for (int row = 0; row < depth; row++) {
+            add(index(slot, row, column(advertisementId, row)), tag, signal.getWeight());
+        }
+
+        if (!candidates.contains(advertisementId) && candidates.size() < capacity
+                && estimate(advertisementId, tag) > admission) {
+            candidates.add(advertisementId);
+        }
+    }
+
+    /**
+     * Перестроение top-K за окно, заканчивающееся в указанный момент времени. Кандидаты, не попавшие в top-K,
+     * удаляются из набора, оценка K-го места становится порогом допуска новых кандидатов
+     * @param now момент времени в миллисекундах
+     */
+    public synchronized void refresh(long now) {
+        long tag = Math.floorDiv(now, bucketMillis) & TAG_MASK;
+        List<Candidate> scored = List.copyOf(candidates).stream()
+                .map(id -> new Candidate(id, estimate(id, tag)))
+                .sorted(ORDER)
+                .toList();
+        List<Candidate> top = scored.stream()
+                .filter(candidate -> candidate.score() > 0)
+                .limit(topSize)
+                .toList();
+        scored.subList(top.size(), scored.size()).forEach(candidate -> candidates.remove(candidate.id()));
+
+        ranking = top;
+        admission = top.size() < topSize ? 0 : top.getLast().score();
+        log.debug("Top-K популярных объявлений перестроен: {} кандидатов", scored.size());
+    }
+
+    /**
+     * Служебный метод прибавляет вес к ячейке корзины. Ячейка прошлой корзины того же слота начинается заново,
+     * запоздавшая запись в слот, уже занятый более новой корзиной, отбрасывается
+     * @param index индекс ячейки
+     * @param tag номер корзины
+     * @param weight вес активности
+     */
+    private void add(int index, long tag, long weight) {
+        long cell;
+        long updated;
+        do {
+            cell = cells.get(index);
+            long cellTag = cell >>> COUNT_BITS;
+            if (cellTag == tag) {
+                updated = cell + weight;
+            } else if (((cellTag - tag) & TAG_MASK) < bucketCount) {
+                return;
+            } else {
+                updated = tag << COUNT_BITS | weight;
+            }
+        } while (!cells.compareAndSet(index, cell, updated));
+    }
+
+    /**
+     * Служебный метод оценивает вес объявления за окно, заканчивающееся корзиной с указанным номером
+     * @param id ID объявления
+     * @param tag номер текущей корзины
+     * @return оценка сверху
+     */
+    private long estimate(long id, long tag) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(id, row);
+            long sum = 0;
+            for (int slot = 0; slot < bucketCount; slot++) {
+                long cell = cells.get(index(slot, row, column));
+                if (((tag - (cell >>> COUNT_BITS)) & TAG_MASK) < bucketCount) {
+                    sum += cell & COUNT_MASK;
+                }
+            }
+            estimate = Math.min(estimate, sum);
+        }
+        return estimate;
+    }
+
+    /**
+     * Служебный метод вычисляет индекс ячейки скетча корзины
+     * @param slot номер слота корзины
+     * @param row номер строки
+     * @param column номер столбца
+     * @return индекс ячейки
+     */
+    private int index(int slot, int row, int column) {
+        return (slot * depth + row) * width + column;
+    }
+
+    /**
+     * Служебный метод вычисляет столбец скетча для объявления в строке
+     * @param id ID объявления
+     * @param row номер строки
+     * @return номер столбца
+     */
+    private int column(long id, int row) {
+        long hash = (id ^ seeds[row]) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xD6E8FEB86659FD93L;
+        hash ^= hash >>> 32;
+        return (int) Math.floorMod(hash, (long) width);
+    }
+
+    /**
+     * Служебный record-класс кандидата в top-K
+     * @param id ID объявления
+     * @param score оценка популярности
+     */
+    private record Candidate(long id, long score) {
+    }
+}
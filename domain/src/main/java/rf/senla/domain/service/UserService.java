@@ -3,27 +3,29 @@ package rf.senla.domain.service;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import rf.senla.domain.entity.Rating;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.event.SellerChangedEvent;
+import rf.senla.domain.event.UserChangedEvent;
 import rf.senla.domain.exception.ErrorMessage;
 import rf.senla.domain.exception.NoEntityException;
 import rf.senla.domain.repository.AdvertisementRepository;
-import rf.senla.domain.repository.CommentRepository;
-import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.repository.RatingRepository;
 import rf.senla.domain.repository.UserRepository;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Сервис для управления пользователями.
@@ -35,16 +37,18 @@ import java.util.List;
 public class UserService implements IUserService {
     private final UserRepository repository;
     private final RatingRepository ratingRepository;
-    private final MessageRepository messageRepository;
-    private final CommentRepository commentRepository;
     private final AdvertisementRepository advertisementRepository;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final IAdvertisementSearchIndex advertisementSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
+    private final IAccountPurgeService accountPurgeService;
 
     @Override
     @Transactional
     public User save(User entity) {
         log.info("Сохранение пользователя {}", entity);
         User user = repository.save(entity);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion()));
         log.info("Пользователь {} сохранён", user);
         return user;
     }
@@ -67,11 +71,17 @@ public class UserService implements IUserService {
         String username = user.getUsername();
         String email = user.getEmail();
         checkUsernameAndEmail(username, email);
+        // Логин и почта входят в данные токена, поэтому при их смене выданные токены отзываются
+        if (!Objects.equals(entity.getUsername(), username) || !Objects.equals(entity.getEmail(), email)) {
+            entity.setTokenVersion(entity.getTokenVersion() + 1);
+        }
+        eventPublisher.publishEvent(
+                new UserChangedEvent(entity.getId(), entity.getUsername(), entity.getTokenVersion()));
         entity.setUsername(username);
         entity.setPhoneNumber(user.getPhoneNumber());
         entity.setEmail(email);
-        entity.setRating(getRating(entity));
         entity = save(entity);
+        eventPublisher.publishEvent(new SellerChangedEvent(entity.getId()));
         log.info("Пользователь успешно обновлён {}", entity);
         return entity;
     }
@@ -82,12 +92,14 @@ public class UserService implements IUserService {
         User user = getByUsername(username);
         log.info("Начало процесса удаления пользователя {}", user);
         Long id = user.getId();
-        messageRepository.deleteBySender_IdOrRecipient_Id(id, id);
-        commentRepository.deleteByUser_Id(id);
-        commentRepository.deleteByAdvertisement_User_Id(id);
-        advertisementRepository.deleteByUser_Id(id);
-        ratingRepository.deleteBySender_IdOrRecipient_Id(id, id);
-        repository.deleteByUsername(username);
+        repository.subtractEvaluationsBySender(id);
+        // Пользователь и его данные скрываются сразу, физически удаляются фоновой задачей
+        repository.markDeleted(id);
+        advertisementRepository.syncSellerRatings();
+        advertisementSearchIndex.removeBySeller(id);
+        accountPurgeService.schedule(id, username);
+        eventPublisher.publishEvent(new SellerChangedEvent(id));
+        eventPublisher.publishEvent(new UserChangedEvent(id, username, null));
         log.info("Процесс удаления пользователя {} завершён успешно", user);
     }
 
@@ -95,7 +107,7 @@ public class UserService implements IUserService {
     @Transactional
     public List<User> getAll(Pageable pageable) {
         log.info("Получение списка пользователей с пагинацией {}", pageable);
-        List<User> list = correctRating(repository.findAll(pageable).getContent());
+        List<User> list = repository.findAllBy(pageable);
         log.info("Получен список из {} объявлений: {}", list.size(), list);
         return list;
     }
@@ -107,8 +119,6 @@ public class UserService implements IUserService {
             log.info("Получение пользователя по логину {}", username);
             User user = repository.findByUsername(username)
                     .orElseThrow(() -> new UsernameNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage()));
-            user.setRating(getRating(user));
-
             log.info("Пользователь {} успешно получен", user);
             return user;
         } catch (UsernameNotFoundException e) {
@@ -117,6 +127,20 @@ public class UserService implements IUserService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public User getReference(UserDetails user) {
+        if (user instanceof User entity && entity.getId() != null) {
+            return repository.getReferenceById(entity.getId());
+        }
+
+        Long id = repository.findIdByUsername(user.getUsername()).orElseThrow(() -> {
+            log.error("Не удалось получить пользователя по логину {}", user.getUsername());
+            return new UsernameNotFoundException(ErrorMessage.USER_NOT_FOUND.getMessage());
+        });
+        return repository.getReferenceById(id);
+    }
+
     @Override
     @Transactional
     public User updatePassword(String username, String oldPassword, String newPassword) {
@@ -129,6 +153,7 @@ public class UserService implements IUserService {
 
         newPassword = passwordEncoder.encode(newPassword);
         user.setPassword(newPassword);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         User entity = save(user);
         log.info("Удалось обновить пароль для пользователя {}", entity);
         return entity;
@@ -140,6 +165,7 @@ public class UserService implements IUserService {
         log.info("Установление роли админа для пользователя {}", username);
         User user = getByUsername(username);
         user.setRole(Role.ROLE_ADMIN);
+        user.setTokenVersion(user.getTokenVersion() + 1);
         save(user);
         log.info("Удалось установить роль админа для пользователя {}", username);
     }
@@ -151,6 +177,20 @@ public class UserService implements IUserService {
         return this::getByUsername;
     }
 
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public UserDetails rehashPassword(UserDetails user, String encodedPassword) {
+        log.info("Перехэширование пароля пользователя {}", user.getUsername());
+        repository.updatePassword(user.getUsername(), encodedPassword);
+        if (user instanceof User entity) {
+            entity.setPassword(encodedPassword);
+            eventPublisher.publishEvent(
+                    new UserChangedEvent(entity.getId(), entity.getUsername(), entity.getTokenVersion()));
+        }
+        log.info("Пароль пользователя {} перехэширован", user.getUsername());
+        return user;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public User getByResetPasswordToken(String token) {
@@ -184,63 +224,18 @@ public class UserService implements IUserService {
                 .evaluation(evaluation)
                 .build();
         ratingRepository.save(rating);
-        recipient.setRating(getRating(recipient));
-
-        recipient = save(recipient);
+        repository.addEvaluation(recipient.getId(), evaluation);
+        recipient = repository.findById(recipient.getId())
+                .orElseThrow(() -> new NoEntityException(ErrorMessage.USER_NOT_FOUND.getMessage()));
+        advertisementRepository.updateSellerRating(recipient.getId(), recipient.getRating());
+        advertisementSearchIndex.updateSellerRating(recipient.getId(), recipient.getRating());
+        eventPublisher.publishEvent(new SellerChangedEvent(recipient.getId()));
+        eventPublisher.publishEvent(
+                new UserChangedEvent(recipient.getId(), recipient.getUsername(), recipient.getTokenVersion()));
         log.info("Пользователю {} удалось добавить рейтинг {} для пользователя {}", currentUser, rating, recipient);
         return recipient;
     }
 
-    /**
-     * Служебный метод корректирует рейтинг каждого пользователя переданного списка
-     * @param users список пользователей
-     * @return список пользователей
-     */
-    private List<User> correctRating(List<User> users) {
-        log.info("Вызов корректировки рейтинга для списка пользователей: {}", users);
-        List<User> result = users.stream()
-                .map(user -> {
-                    user.setRating(getRating(user));
-                    return user;
-                })
-                .toList();
-        log.info("Удалось скорректировать рейтинг для списка пользователей: {}", result);
-        return result;
-    }
-
-    /**
-     * Служебный метод получает рейтинг пользователя либо устанавливает дефолтное значение
-     * @param user пользователь
-     * @return рейтинг пользователя
-     */
-    private Double getRating(User user) {
-        log.info("Вызван метод получения рейтинга пользователя {}", user);
-        Double rating = getUserRating(user);
-        if (rating == null) {
-            rating = 0.0;
-            log.warn("У пользователя {} не было рейтинга, установлено значение по умолчанию {}", user, rating);
-        }
-
-        log.info("Пользователю {} установлен рейтинг {}", user, rating);
-        return rating;
-    }
-
-    /**
-     * Служебный метод получения рейтинга пользователя
-     * @param user пользователь, для которого требуется получить его рейтинг
-     * @return рейтинг
-     */
-    private Double getUserRating(User user) {
-        log.error("Получение рейтинга для пользователя {}", user);
-        Double rating = ratingRepository.getAverageRatingByRecipient(user);
-        if (rating != null) {
-            log.info("Для пользователя {} получен рейтинг {}", user, rating);
-        } else {
-            log.warn("У пользователя {} нет рейтинга", user);
-        }
-        return rating;
-    }
-
     /**
      * Служебный метод проверяет уникальность переданных логина и почты
      * @param username логин
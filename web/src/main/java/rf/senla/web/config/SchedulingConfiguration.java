@@ -0,0 +1,12 @@
+package rf.senla.web.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурационный класс, включающий выполнение фоновых задач по расписанию.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -1,5 +1,6 @@
 package rf.senla.web.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,7 +13,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,7 +25,7 @@ import java.util.List;
 /**
  * Конфигурационный класс для настройки безопасности приложения. Этот класс определяет настройки безопасности, такие
  * как фильтры, правила доступа к конечным точкам, провайдер аутентификации и другие. Он также содержит бины для
- * создания аутентификационного провайдера, кодировщика паролей и менеджера аутентификации.
+ * создания аутентификационного провайдера и менеджера аутентификации.
  */
 @Configuration
 @EnableWebSecurity
@@ -34,6 +34,7 @@ import java.util.List;
 public class SecurityConfiguration {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final IUserService userService;
+    private final PasswordEncoder passwordEncoder;
 
     /**
      * Настройка цепочки фильтров безопасности.
@@ -57,9 +58,11 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(request -> request
                         // Можно указать конкретный путь, * - 1 уровень вложенности, ** - любое количество уровней
                         // вложенности
+                        // Асинхронная отправка (потоки SSE) относится к уже авторизованному запросу
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-resources/*", "/v3/api-docs/**").permitAll()
-                        .requestMatchers("/endpoint", "/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/endpoint", "/admin/**", "/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(manager -> manager.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
@@ -69,23 +72,17 @@ public class SecurityConfiguration {
     }
 
     /**
-     * Создает и возвращает объект PasswordEncoder для кодирования паролей.
-     * @return объект PasswordEncoder
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    /**
-     * Создает и возвращает провайдер аутентификации для сервиса пользователей.
+     * Создает и возвращает провайдер аутентификации для сервиса пользователей. Пароли проверяются на выделенном пуле
+     * {@link rf.senla.domain.security.BoundedPasswordEncoder}, хэши с устаревшей стоимостью пересчитываются при
+     * успешном входе.
      * @return провайдер аутентификации
      */
     @Bean
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService.userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(userService::rehashPassword);
         return authProvider;
     }
 
@@ -19,6 +19,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -34,7 +35,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import rf.senla.web.dto.AdvertisementDto;
+import rf.senla.web.dto.ApproveAdvertisementsRequest;
 import rf.senla.web.dto.CreateAdvertisementRequest;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.domain.service.IAdvertisementService;
 import rf.senla.web.dto.UpdateAdvertisementRequest;
 import rf.senla.web.utils.AdvertisementMapper;
@@ -91,11 +94,66 @@ public class RestAdvertisementController {
             @Parameter(description = "Заголовок", example = "smartphone", in = ParameterIn.QUERY)
             @RequestParam(value = "keyword", required = false) String keyword,
 
-            @PageableDefault(sort = {"boosted", "user.rating"}, direction = Sort.Direction.DESC)
+            @PageableDefault
+            @SortDefault.SortDefaults({
+                    @SortDefault(sort = "rankScore", direction = Sort.Direction.DESC),
+                    @SortDefault(sort = "id", direction = Sort.Direction.ASC)})
             Pageable pageable) {
         return ResponseEntity.ok(mapper.toDtos(service.getAll(minPrice, maxPrice, keyword, pageable)));
     }
 
+    /**
+     * Получить страницу ленты активных объявлений с курсорной пагинацией.
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param keyword ключевое слово поиска в заголовке или описании
+     * @param cursor токен следующей страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return объект {@link ResponseEntity} со страницей объявлений и кодом 200 OK в случае успеха
+     */
+    @GetMapping("/feed")
+    @Operation(summary = "Получить ленту объявлений с курсорной пагинацией")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDto.class)))
+    })
+    public ResponseEntity<CursorPageDto<AdvertisementDto>> getFeed(
+            @Parameter(description = "Минимальная стоимость", example = "500", in = ParameterIn.QUERY)
+            @RequestParam(value = "min", required = false) @Min(0) @Max(Integer.MAX_VALUE) Integer minPrice,
+
+            @Parameter(description = "Максимальная стоимость", example = "20000", in = ParameterIn.QUERY)
+            @RequestParam(value = "max", required = false) @Min(0) @Max(Integer.MAX_VALUE) Integer maxPrice,
+
+            @Parameter(description = "Заголовок", example = "smartphone", in = ParameterIn.QUERY)
+            @RequestParam(value = "keyword", required = false) String keyword,
+
+            @Parameter(description = "Токен следующей страницы", in = ParameterIn.QUERY)
+            @RequestParam(value = "cursor", required = false) String cursor,
+
+            @Parameter(description = "Размер страницы", example = "20", in = ParameterIn.QUERY)
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) Integer size) {
+        return ResponseEntity.ok(mapper.toPageDto(service.getFeed(minPrice, maxPrice, keyword, cursor, size)));
+    }
+
+    /**
+     * Получить популярные объявления за скользящее окно по просмотрам, комментариям и сообщениям.
+     * @param limit максимальное количество объявлений, не больше размера top-K {@code advertisement.trending.top-size}
+     * @return объект {@link ResponseEntity} со списком объявлений и кодом 200 OK в случае успеха
+     */
+    @GetMapping("/trending")
+    @Operation(summary = "Получить популярные объявления")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AdvertisementDto.class)))
+    })
+    public ResponseEntity<List<AdvertisementDto>> getTrending(
+            @Parameter(description = "Количество объявлений", example = "10", in = ParameterIn.QUERY)
+            @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(20) Integer limit) {
+        return ResponseEntity.ok(mapper.toDtos(service.getTrending(limit)));
+    }
+
     /**
      * Получить список объявлений по пользователю с пагинацией.
      * @param username имя пользователя (логин)
@@ -124,11 +182,32 @@ public class RestAdvertisementController {
             @Parameter(description = "Флаг только активных объявлений", example = "true", in = ParameterIn.QUERY)
             @RequestParam(value = "active", required = false) Boolean active,
 
-            @PageableDefault(sort = {"boosted", "user.rating"}, direction = Sort.Direction.DESC)
+            @PageableDefault
+            @SortDefault.SortDefaults({
+                    @SortDefault(sort = "rankScore", direction = Sort.Direction.DESC),
+                    @SortDefault(sort = "id", direction = Sort.Direction.ASC)})
             Pageable pageable) {
         return ResponseEntity.ok(mapper.toDtos(service.getAll(username, active, pageable)));
     }
 
+    /**
+     * Получить объявление по ID с учётом просмотра.
+     * @param id ID объявления
+     * @return объект {@link ResponseEntity} с объявлением и кодом 200 OK в случае успеха
+     */
+    @GetMapping("/{id}/details")
+    @Operation(summary = "Получить объявление по ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AdvertisementDto.class)))
+    })
+    public ResponseEntity<AdvertisementDto> getById(
+            @Parameter(description = "ID объявления", example = "1", required = true, in = ParameterIn.PATH)
+            @PathVariable("id") @Positive Long id) {
+        return ResponseEntity.ok(mapper.toDto(service.view(id)));
+    }
+
     /**
      * Создать новое объявление.
      * @param request объект {@link CreateAdvertisementRequest} с данными нового объявления,
@@ -230,6 +309,26 @@ public class RestAdvertisementController {
         return ResponseEntity.ok(mapper.toDto(service.update(mapper.toEntity(dto))));
     }
 
+    /**
+     * Одобрить объявления на модерации.
+     * @param request объект {@link ApproveAdvertisementsRequest} со списком ID объявлений
+     * @return объект {@link ResponseEntity} со списком ID одобренных объявлений и кодом 200 OK в случае успеха
+     */
+    @PutMapping("${spring.data.rest.admin-path}/approval")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Одобрить объявления на модерации админом")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = "[1, 2, 3]")))
+    })
+    public ResponseEntity<List<Long>> approveByAdmin(
+            @Parameter(description = "ID объявлений", required = true,
+                    content = @Content(schema = @Schema(implementation = ApproveAdvertisementsRequest.class)))
+            @RequestBody @Valid ApproveAdvertisementsRequest request) {
+        return ResponseEntity.ok(service.approve(request.getIds()));
+    }
+
     /**
      * Удалить объявление.
      * @param id ID объявления
@@ -28,10 +28,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import rf.senla.web.dto.CommentDto;
 import rf.senla.domain.service.ICommentService;
 import rf.senla.web.dto.CreateCommentRequest;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.web.dto.UpdateCommentRequest;
 import rf.senla.web.utils.CommentMapper;
 
@@ -94,6 +96,37 @@ public class RestCommentController {
         return ResponseEntity.ok(mapper.toDtos(service.getAll(advertisementId, pageable)));
     }
 
+    /**
+     * Получить комментарии объявления с курсорной пагинацией по времени создания. Без курсоров и с курсором
+     * {@code before} комментарии идут от новых к старым, с курсором {@code after} - от старых к новым.
+     * @param advertisementId id объявления
+     * @param before курсор, до которого нужно получить более ранние комментарии
+     * @param after курсор, после которого нужно получить более поздние комментарии
+     * @param size размер страницы
+     * @return ответ с кодом 200 (OK) и страницей комментариев в формате JSON
+     */
+    @GetMapping("/{advertisementId}/timeline")
+    @Operation(summary = "Получить комментарии объявления с курсорной пагинацией")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDto.class)))
+    })
+    public ResponseEntity<CursorPageDto<CommentDto>> getTimeline(
+            @Parameter(description = "ID объявления", example = "1", required = true, in = ParameterIn.PATH)
+            @PathVariable @Min(1) @Max(Long.MAX_VALUE) Long advertisementId,
+
+            @Parameter(description = "Курсор более ранних комментариев", in = ParameterIn.QUERY)
+            @RequestParam(value = "before", required = false) String before,
+
+            @Parameter(description = "Курсор более поздних комментариев", in = ParameterIn.QUERY)
+            @RequestParam(value = "after", required = false) String after,
+
+            @Parameter(description = "Размер страницы", example = "20", in = ParameterIn.QUERY)
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) Integer size) {
+        return ResponseEntity.ok(mapper.toPageDto(service.getTimeline(advertisementId, before, after, size)));
+    }
+
     /**
      * Создать новый комментарий.
      * @param dto данные нового комментария в формате JSON
@@ -9,7 +9,9 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -29,6 +31,7 @@ import rf.senla.domain.exception.NoEntityException;
 import rf.senla.domain.exception.TechnicalException;
 import rf.senla.domain.exception.EmailException;
 import rf.senla.domain.exception.ResetPasswordTokenException;
+import rf.senla.domain.exception.ServiceBusyException;
 
 import java.time.LocalDateTime;
 
@@ -243,6 +246,29 @@ public class RestExceptionHandler {
         return getErrorDto(ex.getMessage(), request);
     }
 
+    /**
+     * Метод возвращает информацию об ошибке типа {@link ServiceBusyException} с заголовком {@code Retry-After}
+     * @param ex ошибка
+     * @param request запрос
+     * @return информация об ошибке
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "503", description = "Service Unavailable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDto.class),
+                            examples = @ExampleObject(value = "{\"message\": \"The service is busy. Please try " +
+                                    "again later\",\"description\": \"uri=/api/auth/login\",\"time\": " +
+                                    "\"2024-06-08T15:03:51.978Z\"}")))
+    })
+    public ResponseEntity<ErrorDto> serviceBusyException(ServiceBusyException ex, WebRequest request) {
+        log.warn("Сервис перегружен - {}", ex.getMessage());
+        long retryAfter = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(getErrorDto(ex.getMessage(), request));
+    }
+
     /**
      * Метод возвращает информацию об ошибке типа {@link EmailException}
      * @param ex ошибка
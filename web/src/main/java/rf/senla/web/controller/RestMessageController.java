@@ -15,9 +15,12 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -31,12 +34,22 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rf.senla.web.dto.ConversationDto;
 import rf.senla.web.dto.CreateMessageRequest;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.web.dto.MessageDto;
+import rf.senla.web.dto.MessageEventDto;
 import rf.senla.web.dto.UpdateMessageRequest;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.service.IMessagePushHub;
 import rf.senla.domain.service.IMessageService;
+import rf.senla.domain.service.MessageSubscription;
+import rf.senla.web.utils.ConversationMapper;
 import rf.senla.web.utils.MessageMapper;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -50,6 +63,10 @@ import java.util.List;
 public class RestMessageController {
     private final IMessageService service;
     private final MessageMapper mapper;
+    private final ConversationMapper conversationMapper;
+    private final IMessagePushHub pushHub;
+    @Value("${advertisement.messages.push.timeout:30m}")
+    private Duration streamTimeout;
 
     /**
      * Получает переписку между текущим пользователем и пользователем с указанным именем.
@@ -100,6 +117,112 @@ public class RestMessageController {
         return ResponseEntity.ok(mapper.toDtos(service.getAll(sender, username, pageable)));
     }
 
+    /**
+     * Получает переписку с пользователем с курсорной пагинацией по времени отправки. Без курсоров и с курсором
+     * {@code before} сообщения идут от новых к старым, с курсором {@code after} - от старых к новым.
+     * @param username Имя пользователя, с которым нужно получить переписку.
+     * @param before курсор, до которого нужно получить более ранние сообщения
+     * @param after курсор, после которого нужно получить более поздние сообщения
+     * @param size размер страницы
+     * @param archived учитывать ли архив сообщений
+     * @param sender текущий пользователь
+     * @return {@link ResponseEntity} со страницей сообщений в формате {@link CursorPageDto}
+     */
+    @GetMapping("/timeline")
+    @Operation(summary = "Получить переписку с пользователем с курсорной пагинацией")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageDto.class)))
+    })
+    public ResponseEntity<CursorPageDto<MessageDto>> getTimeline(
+            @Parameter(description = "Имя пользователя", example = "John_Doe", required = true, in = ParameterIn.QUERY)
+            @RequestParam(value = "username") @NotBlank @Size(min = 5, max = 50) String username,
+
+            @Parameter(description = "Курсор более ранних сообщений", in = ParameterIn.QUERY)
+            @RequestParam(value = "before", required = false) String before,
+
+            @Parameter(description = "Курсор более поздних сообщений", in = ParameterIn.QUERY)
+            @RequestParam(value = "after", required = false) String after,
+
+            @Parameter(description = "Размер страницы", example = "20", in = ParameterIn.QUERY)
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) Integer size,
+
+            @Parameter(description = "Учитывать архив сообщений", example = "false", in = ParameterIn.QUERY)
+            @RequestParam(value = "archived", defaultValue = "false") boolean archived,
+
+            @AuthenticationPrincipal UserDetails sender) {
+        return ResponseEntity.ok(mapper.toPageDto(service.getTimeline(sender, username, before, after, size,
+                archived)));
+    }
+
+    /**
+     * Получает входящие текущего пользователя: переписки с последним сообщением и количеством непрочитанных,
+     * сначала недавние.
+     * @param pageable пагинация
+     * @return {@link ResponseEntity} со списком переписок в формате {@link ConversationDto}
+     */
+    @GetMapping("/conversations")
+    @Operation(summary = "Получить входящие с пагинацией")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ConversationDto.class)))
+    })
+    public ResponseEntity<List<ConversationDto>> getConversations(
+            @PageableDefault Pageable pageable,
+            @AuthenticationPrincipal UserDetails user) {
+        return ResponseEntity.ok(conversationMapper.toDtos(service.getConversations(user, pageable),
+                user.getUsername()));
+    }
+
+    /**
+     * Отмечает прочитанными сообщения переписки, адресованные текущему пользователю, одним запросом.
+     * @param id ID переписки
+     * @param upTo ID последнего прочитанного сообщения, если не указан - отмечается вся переписка
+     * @param user текущий пользователь
+     * @return {@link ResponseEntity} с количеством отмеченных сообщений
+     */
+    @PutMapping("/conversations/{id}/read")
+    @Operation(summary = "Отметить переписку прочитанной")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "text/plain",
+                    examples = @ExampleObject(value = "Marked messages as read: 3")))
+    })
+    public ResponseEntity<String> markRead(
+            @Parameter(description = "ID переписки", example = "1", required = true, in = ParameterIn.PATH)
+            @PathVariable("id") @Min(1) @Max(Long.MAX_VALUE) Long id,
+
+            @Parameter(description = "ID последнего прочитанного сообщения", example = "10", in = ParameterIn.QUERY)
+            @RequestParam(value = "upTo", required = false) @Min(1) @Max(Long.MAX_VALUE) Long upTo,
+
+            @AuthenticationPrincipal UserDetails user) {
+        return ResponseEntity.ok("Marked messages as read: " + service.markRead(id, upTo, user));
+    }
+
+    /**
+     * Открывает поток Server-Sent Events с новыми сообщениями и изменениями сообщений (в том числе отметками о
+     * прочтении) в переписках текущего пользователя.
+     * @param user текущий пользователь
+     * @return {@link SseEmitter} потока событий
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Подписаться на новые сообщения")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = MessageEventDto.class)))
+    })
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails user) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        MessageSubscription subscription = pushHub.subscribe(((User) user).getId(),
+                new SseMessageSink(emitter, mapper));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
     /**
      * Создает новое сообщение.
      * @param request Сообщение в формате {@link CreateMessageRequest} для создания.
@@ -143,6 +266,7 @@ public class RestMessageController {
     /**
      * Удаляет сообщение.
      * @param id ID сообщения
+     * @param sentAt время отправки сообщения
      * @return {@link ResponseEntity} с информацией об удаленном сообщении.
      */
     @DeleteMapping("/{id}")
@@ -154,8 +278,14 @@ public class RestMessageController {
     public ResponseEntity<String> delete(
             @Parameter(description = "ID сообщения", example = "1", required = true, in = ParameterIn.PATH)
             @PathVariable("id") @Min(1) @Max(Long.MAX_VALUE) Long id,
+
+            @Parameter(description = "Время отправки сообщения", example = "2024-05-09T14:55:46.765819",
+                    in = ParameterIn.QUERY)
+            @RequestParam(value = "sentAt", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime sentAt,
+
             @AuthenticationPrincipal UserDetails user) {
-        service.delete(id, user);
+        service.delete(id, sentAt, user);
         return ResponseEntity.ok("Deleted message with ID: " + id);
     }
 }
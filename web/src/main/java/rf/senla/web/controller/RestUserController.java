@@ -32,9 +32,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import rf.senla.web.dto.AccountPurgeDto;
 import rf.senla.web.dto.ChangePasswordRequest;
 import rf.senla.web.dto.UpdateUserRequest;
 import rf.senla.web.dto.UserDto;
+import rf.senla.domain.service.IAccountPurgeService;
 import rf.senla.domain.service.IUserService;
 import rf.senla.web.utils.UserMapper;
 
@@ -50,6 +52,7 @@ import java.util.List;
 @RequestMapping("${spring.data.rest.base-path}/users")
 public class RestUserController {
     private final IUserService service;
+    private final IAccountPurgeService accountPurgeService;
     private final UserMapper mapper;
 
     /**
@@ -133,6 +136,25 @@ public class RestUserController {
         return ResponseEntity.ok("Deleted user with username: " + username);
     }
 
+    /**
+     * Получить прогресс удаления аккаунта.
+     * @param username имя пользователя
+     * @return ответ с прогрессом удаления
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("${spring.data.rest.admin-path}/purges/{username}")
+    @Operation(summary = "Получить прогресс удаления аккаунта")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AccountPurgeDto.class)))
+    })
+    public ResponseEntity<AccountPurgeDto> getPurgeStatus(
+            @Parameter(description = "Имя пользователя", example = "John_Doe", required = true, in = ParameterIn.PATH)
+            @PathVariable @NotBlank @Size(min = 5, max = 50) String username) {
+        return ResponseEntity.ok(mapper.toDto(accountPurgeService.getStatus(username)));
+    }
+
     /**
      * Метод обновления пароля у пользователя
      * @param request запрос пользователя, с обновлением пароля
@@ -0,0 +1,39 @@
+package rf.senla.web.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rf.senla.domain.event.MessageChangedEvent;
+import rf.senla.domain.service.MessageSink;
+import rf.senla.web.utils.MessageMapper;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Канал доставки событий сообщений клиенту через {@link SseEmitter}. Имя события SSE соответствует типу изменения
+ * сообщения: {@code created}, {@code updated} или {@code read}.
+ */
+@RequiredArgsConstructor
+class SseMessageSink implements MessageSink {
+    private final SseEmitter emitter;
+    private final MessageMapper mapper;
+
+    @Override
+    public void send(MessageChangedEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(event.type().name().toLowerCase(Locale.ROOT))
+                .data(mapper.toDto(event), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,46 @@
+package rf.senla.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import rf.senla.domain.entity.PurgeStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO, представляющее прогресс удаления аккаунта.
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO прогресса удаления аккаунта")
+public class AccountPurgeDto {
+    @Schema(description = "ID удаляемого пользователя", example = "1")
+    private Long userId;
+
+    @Schema(description = "Имя удаляемого пользователя", example = "John_Doe")
+    private String username;
+
+    @Schema(description = "Статус удаления", example = "RUNNING")
+    private PurgeStatus status;
+
+    @Schema(description = "Текущий шаг удаления", example = "COMMENTS")
+    private String step;
+
+    @Schema(description = "Количество удалённых строк", example = "1500")
+    private Long deletedRows;
+
+    @Schema(description = "Дата и время запроса удаления", example = "2024-05-01T12:00:00")
+    private LocalDateTime requestedAt;
+
+    @Schema(description = "Дата и время начала удаления", example = "2024-05-01T12:00:10")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Дата и время завершения удаления", example = "2024-05-01T12:01:00")
+    private LocalDateTime finishedAt;
+}
@@ -11,6 +11,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO, представляющее сущность объявления.
  */
@@ -50,4 +52,16 @@ public class AdvertisementDto {
 
     @Schema(description = "Помощь в продвижении", example = "false")
     private Boolean boosted;
+
+    @Schema(description = "Окончание продвижения", example = "2024-05-20T12:00:00")
+    private LocalDateTime boostedUntil;
+
+    @Schema(description = "Причина отклонения модерацией", example = "Описание короче 10 символов")
+    private String rejectionReason;
+
+    @Schema(description = "Количество комментариев", example = "3")
+    private Integer commentCount;
+
+    @Schema(description = "Количество просмотров", example = "120")
+    private Long viewCount;
 }
@@ -0,0 +1,30 @@
+package rf.senla.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Запрос на одобрение объявлений админом.
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Запрос на одобрение объявлений админом")
+public class ApproveAdvertisementsRequest {
+    @Schema(description = "ID объявлений", example = "[1, 2, 3]")
+    @NotEmpty(message = "Список объявлений не может быть пустым")
+    @Size(max = 1000, message = "За один запрос можно одобрить не более 1000 объявлений")
+    private List<@NotNull @Positive(message = "ID не может быть меньше 1") Long> ids;
+}
@@ -0,0 +1,42 @@
+package rf.senla.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO, представляющее переписку во входящих пользователя.
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO переписки")
+public class ConversationDto {
+    @Schema(description = "ID переписки", example = "1")
+    private Long id;
+
+    @Schema(description = "ID объявления", example = "2")
+    private Long advertisementId;
+
+    @Schema(description = "Заголовок объявления", example = "Laptop")
+    private String headline;
+
+    @Schema(description = "Имя собеседника", example = "cool_guy")
+    private String interlocutor;
+
+    @Schema(description = "Текст последнего сообщения", example = "Hello!", nullable = true)
+    private String lastMessage;
+
+    @Schema(description = "Время последнего сообщения", example = "2024-05-09T14:55:46.765819", nullable = true)
+    private LocalDateTime lastMessageAt;
+
+    @Schema(description = "Количество непрочитанных сообщений", example = "3")
+    private Integer unreadCount;
+}
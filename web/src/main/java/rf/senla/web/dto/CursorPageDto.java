@@ -0,0 +1,28 @@
+package rf.senla.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * DTO страницы с курсорной пагинацией.
+ * @param <T> тип элементов страницы
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница с курсорной пагинацией")
+public class CursorPageDto<T> {
+    @Schema(description = "Элементы страницы")
+    private List<T> content;
+
+    @Schema(description = "Токен следующей страницы", example = "ZmFsc2V8My41fDc", nullable = true)
+    private String nextCursor;
+}
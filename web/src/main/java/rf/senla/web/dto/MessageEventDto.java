@@ -0,0 +1,39 @@
+package rf.senla.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO, представляющее событие сообщения в потоке Server-Sent Events.
+ */
+@Data
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO события сообщения")
+public class MessageEventDto {
+    @Schema(description = "ID сообщения", example = "1")
+    private Long id;
+
+    @Schema(description = "ID переписки", example = "1")
+    private Long conversationId;
+
+    @Schema(description = "Имя отправителя", example = "user123")
+    private String sender;
+
+    @Schema(description = "Текст сообщения", example = "Hello!")
+    private String text;
+
+    @Schema(description = "Время создания", example = "2024-05-09T14:55:46.765819")
+    private LocalDateTime sentAt;
+
+    @Schema(description = "Статус прочтения", example = "false")
+    private Boolean read;
+}
@@ -9,6 +9,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.LocalDateTime;
+
 /**
  * Запрос на обновление сообщения.
  */
@@ -29,4 +31,8 @@ public class UpdateMessageRequest {
 
     @Schema(description = "Статус прочтения", example = "true", nullable = true)
     private Boolean read;
+
+    @Schema(description = "Время отправки сообщения, по нему сообщение ищется в одной месячной секции",
+            example = "2024-05-09T14:55:46.765819", nullable = true)
+    private LocalDateTime sentAt;
 }
@@ -14,13 +14,25 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.security.PrincipalSnapshot;
+import rf.senla.domain.security.ValidatedToken;
 import rf.senla.domain.service.IJwtService;
+import rf.senla.domain.service.IPrincipalCache;
+import rf.senla.domain.service.ITokenVersionRegistry;
 import rf.senla.domain.service.IUserService;
 
 import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Фильтр для аутентификации пользователей по JWT токену.
+ * <p>
+ * В режиме {@code advertisement.auth.stateless} принципал строится из данных токена без обращения к БД, а
+ * отзыв токенов обеспечивается сверкой версии токена с {@link ITokenVersionRegistry}. Иначе принципал берётся из
+ * кэша пользователей. В обоих случаях принципал - {@link PrincipalSnapshot} с одинаковым набором полей.
  */
 @Component
 @RequiredArgsConstructor
@@ -29,6 +41,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public static final String HEADER_NAME = "Authorization";
     private final IJwtService jwtService;
     private final IUserService userService;
+    private final IPrincipalCache principalCache;
+    private final ITokenVersionRegistry tokenVersionRegistry;
 
     /**
      * Фильтрует запросы и аутентифицирует пользователей по JWT токену.
@@ -48,15 +62,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // Обрезаем префикс и получаем имя пользователя из токена
+        // Обрезаем префикс и однократно проверяем токен
         String jwt = authHeader.substring(BEARER_PREFIX.length());
-        String username = jwtService.extractUsername(jwt);
+        Optional<ValidatedToken> token = jwtService.validate(jwt);
 
-        if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.userDetailsService().loadUserByUsername(username);
+        if (token.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = tokenVersionRegistry.isEnabled()
+                    ? fromClaims(token.get())
+                    : fromStore(token.get());
 
-            // Если токен валиден, то аутентифицируем пользователя
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // Если токен выдан этому пользователю и не отозван, то аутентифицируем его
+            if (userDetails != null) {
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
@@ -70,4 +86,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Построение принципала из данных токена после проверки его версии
+     * @param token проверенный токен
+     * @return пользователь или {@code null}, если токен отозван или не содержит нужных данных
+     */
+    private UserDetails fromClaims(ValidatedToken token) {
+        if (token.role() == null || !tokenVersionRegistry.isCurrent(token.userId(), token.tokenVersion())) {
+            return null;
+        }
+
+        return new PrincipalSnapshot(token.userId(), token.username(), token.email(), Role.valueOf(token.role()),
+                token.tokenVersion()).toUser();
+    }
+
+    /**
+     * Загрузка принципала через кэш пользователей с проверкой имени и версии токена
+     * @param token проверенный токен
+     * @return пользователь или {@code null}, если токен выдан другому пользователю или отозван
+     */
+    private UserDetails fromStore(ValidatedToken token) {
+        UserDetails userDetails = principalCache.get(token.username(), userService::getByUsername);
+        if (!token.username().equals(userDetails.getUsername())) {
+            return null;
+        }
+        if (userDetails instanceof User user && !Objects.equals(user.getTokenVersion(), token.tokenVersion())) {
+            return null;
+        }
+        return userDetails;
+    }
 }
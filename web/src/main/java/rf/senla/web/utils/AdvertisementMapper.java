@@ -2,9 +2,11 @@ package rf.senla.web.utils;
 
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import rf.senla.domain.pagination.CursorPage;
 import rf.senla.web.dto.AdvertisementDto;
 import rf.senla.web.dto.CreateAdvertisementRequest;
 import rf.senla.domain.entity.Advertisement;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.web.dto.UpdateAdvertisementRequest;
 
 import java.util.List;
@@ -48,4 +50,16 @@ public interface AdvertisementMapper {
      * @return список DTO объявлений
      */
     List<AdvertisementDto> toDtos(List<Advertisement> advertisements);
+
+    /**
+     * Метод маппит страницу объявлений {@link CursorPage} в DTO {@link CursorPageDto}
+     * @param page страница объявлений
+     * @return DTO страницы
+     */
+    default CursorPageDto<AdvertisementDto> toPageDto(CursorPage<Advertisement> page) {
+        return CursorPageDto.<AdvertisementDto>builder()
+                .content(toDtos(page.content()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
 }
@@ -3,8 +3,10 @@ package rf.senla.web.utils;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import rf.senla.domain.entity.Comment;
+import rf.senla.domain.pagination.CursorPage;
 import rf.senla.web.dto.CommentDto;
 import rf.senla.web.dto.CreateCommentRequest;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.web.dto.UpdateCommentRequest;
 
 import java.util.List;
@@ -49,4 +51,16 @@ public interface CommentMapper {
      * @return список DTO
      */
     List<CommentDto> toDtos(List<Comment> comments);
+
+    /**
+     * Метод маппит страницу комментариев {@link CursorPage} в DTO {@link CursorPageDto}
+     * @param page страница комментариев
+     * @return DTO страницы
+     */
+    default CursorPageDto<CommentDto> toPageDto(CursorPage<Comment> page) {
+        return CursorPageDto.<CommentDto>builder()
+                .content(toDtos(page.content()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
 }
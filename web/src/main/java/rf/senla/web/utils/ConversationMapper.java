@@ -0,0 +1,37 @@
+package rf.senla.web.utils;
+
+import org.mapstruct.Context;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import rf.senla.domain.entity.Conversation;
+import rf.senla.web.dto.ConversationDto;
+
+import java.util.List;
+
+/**
+ * Маппер переписок. Собеседник и количество непрочитанных зависят от того, чьи входящие отображаются.
+ */
+@Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface ConversationMapper {
+    /**
+     * Метод маппит сущность {@link Conversation} в DTO {@link ConversationDto}
+     * @param conversation переписка
+     * @param username логин владельца входящих
+     * @return DTO переписки
+     */
+    @Mapping(target = "advertisementId", source = "advertisement.id")
+    @Mapping(target = "headline", source = "advertisement.headline")
+    @Mapping(target = "interlocutor", expression = "java(conversation.getInterlocutor(username).getUsername())")
+    @Mapping(target = "lastMessage", source = "lastMessage.text")
+    @Mapping(target = "unreadCount", expression = "java(conversation.getUnreadCount(username))")
+    ConversationDto toDto(Conversation conversation, @Context String username);
+
+    /**
+     * Метод маппит список переписок {@link Conversation} в список DTO {@link ConversationDto}
+     * @param conversations список переписок
+     * @param username логин владельца входящих
+     * @return список DTO
+     */
+    List<ConversationDto> toDtos(List<Conversation> conversations, @Context String username);
+}
@@ -3,9 +3,13 @@ package rf.senla.web.utils;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import rf.senla.web.dto.CreateMessageRequest;
+import rf.senla.web.dto.CursorPageDto;
 import rf.senla.web.dto.MessageDto;
+import rf.senla.web.dto.MessageEventDto;
 import rf.senla.web.dto.UpdateMessageRequest;
 import rf.senla.domain.entity.Message;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.event.MessageChangedEvent;
 
 import java.util.List;
 
@@ -22,6 +26,13 @@ public interface MessageMapper {
      */
     MessageDto toDto(Message message);
 
+    /**
+     * Метод маппит событие сообщения {@link MessageChangedEvent} в DTO {@link MessageEventDto}
+     * @param event событие сообщения
+     * @return DTO события
+     */
+    MessageEventDto toDto(MessageChangedEvent event);
+
     /**
      * Метод маппит запрос на создание сообщения {@link CreateMessageRequest} в сообщение {@link Message}
      * @param request запрос на создание сообщения
@@ -42,4 +53,16 @@ public interface MessageMapper {
      * @return список DTO
      */
     List<MessageDto> toDtos(List<Message> messages);
+
+    /**
+     * Метод маппит страницу сообщений {@link CursorPage} в DTO {@link CursorPageDto}
+     * @param page страница сообщений
+     * @return DTO страницы
+     */
+    default CursorPageDto<MessageDto> toPageDto(CursorPage<Message> page) {
+        return CursorPageDto.<MessageDto>builder()
+                .content(toDtos(page.content()))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
 }
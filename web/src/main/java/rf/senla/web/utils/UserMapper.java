@@ -2,10 +2,12 @@ package rf.senla.web.utils;
 
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import rf.senla.web.dto.AccountPurgeDto;
 import rf.senla.web.dto.SignInRequest;
 import rf.senla.web.dto.SignUpRequest;
 import rf.senla.web.dto.UpdateUserRequest;
 import rf.senla.web.dto.UserDto;
+import rf.senla.domain.entity.AccountPurge;
 import rf.senla.domain.entity.User;
 
 import java.util.List;
@@ -22,6 +24,13 @@ public interface UserMapper {
      */
     UserDto toDto(User user);
 
+    /**
+     * Метод маппит задачу удаления аккаунта {@link AccountPurge} в DTO {@link AccountPurgeDto}
+     * @param purge задача удаления аккаунта
+     * @return DTO прогресса удаления
+     */
+    AccountPurgeDto toDto(AccountPurge purge);
+
     /**
      * Метод маппит DTO {@link UserDto} в сущность {@link User}
      * @param dto DTO пользователя
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset 014-add-search-vector-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', coalesce(headline, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(headline, '')), 'A') ||
+    setweight(to_tsvector('russian', coalesce(description, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(description, '')), 'B')
+) STORED;
+
+CREATE INDEX idx_advertisements_search_vector ON advertisement.advertisements USING GIN (search_vector);
+
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_search_vector;
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN search_vector;
@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset 015-add-feed-keyset-index-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements ADD COLUMN seller_rating DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+UPDATE advertisement.advertisements a SET seller_rating = COALESCE(u.rating, 0)
+FROM advertisement.users u
+WHERE u.id = a.user_id;
+
+UPDATE advertisement.advertisements SET boosted = FALSE WHERE boosted IS NULL;
+ALTER TABLE advertisement.advertisements ALTER COLUMN boosted SET NOT NULL;
+
+CREATE INDEX idx_advertisements_feed ON advertisement.advertisements (status, boosted, seller_rating, id);
+
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_feed;
+--rollback ALTER TABLE advertisement.advertisements ALTER COLUMN boosted DROP NOT NULL;
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN seller_rating;
@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset 016-add-rank-score-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements ADD COLUMN rank_score DOUBLE PRECISION GENERATED ALWAYS AS (
+    CASE WHEN boosted THEN 10 ELSE 0 END + seller_rating
+) STORED;
+
+CREATE INDEX idx_advertisements_rank ON advertisement.advertisements (status, rank_score DESC, id);
+CREATE INDEX idx_advertisements_user_rank ON advertisement.advertisements (user_id, rank_score DESC, id);
+DROP INDEX IF EXISTS advertisement.idx_advertisements_feed;
+
+--rollback CREATE INDEX idx_advertisements_feed ON advertisement.advertisements (status, boosted, seller_rating, id);
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_user_rank;
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_rank;
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN rank_score;
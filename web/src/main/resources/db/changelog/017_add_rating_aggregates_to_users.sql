@@ -0,0 +1,23 @@
+--liquibase formatted sql
+
+--changeset 017-add-rating-aggregates-to-users:dmitry
+ALTER TABLE advertisement.users ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE advertisement.users ADD COLUMN rating_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE advertisement.users u SET rating_sum = r.rating_sum, rating_count = r.rating_count
+FROM (
+    SELECT recipient_id, SUM(evaluation) AS rating_sum, COUNT(*) AS rating_count
+    FROM advertisement.ratings
+    GROUP BY recipient_id
+) r
+WHERE r.recipient_id = u.id;
+
+UPDATE advertisement.users
+SET rating = CASE WHEN rating_count = 0 THEN 0 ELSE rating_sum::DOUBLE PRECISION / rating_count END;
+
+UPDATE advertisement.advertisements a SET seller_rating = u.rating
+FROM advertisement.users u
+WHERE u.id = a.user_id AND a.seller_rating <> u.rating;
+
+--rollback ALTER TABLE advertisement.users DROP COLUMN rating_count;
+--rollback ALTER TABLE advertisement.users DROP COLUMN rating_sum;
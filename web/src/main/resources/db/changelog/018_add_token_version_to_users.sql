@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset 018-add-token-version-to-users:dmitry
+ALTER TABLE advertisement.users ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
+
+--rollback ALTER TABLE advertisement.users DROP COLUMN token_version;
@@ -0,0 +1,19 @@
+--liquibase formatted sql
+
+--changeset 019-create-email-outbox-table:dmitry
+CREATE TABLE advertisement.email_outbox (
+    id BIGINT PRIMARY KEY GENERATED BY DEFAULT AS IDENTITY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX email_outbox_pending_idx ON advertisement.email_outbox (next_attempt_at, id) WHERE status = 'PENDING';
+
+--rollback DROP TABLE advertisement.email_outbox;
@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+--changeset 020-add-on-delete-cascade-to-foreign-keys:dmitry
+ALTER TABLE advertisement.advertisements DROP CONSTRAINT advertisements_user_id_fkey,
+    ADD CONSTRAINT advertisements_user_id_fkey FOREIGN KEY (user_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.comments DROP CONSTRAINT comments_advertisement_id_fkey,
+    ADD CONSTRAINT comments_advertisement_id_fkey FOREIGN KEY (advertisement_id) REFERENCES advertisement.advertisements (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.comments DROP CONSTRAINT comments_user_id_fkey,
+    ADD CONSTRAINT comments_user_id_fkey FOREIGN KEY (user_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.messages DROP CONSTRAINT messages_advertisement_id_fkey,
+    ADD CONSTRAINT messages_advertisement_id_fkey FOREIGN KEY (advertisement_id) REFERENCES advertisement.advertisements (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.messages DROP CONSTRAINT messages_sender_id_fkey,
+    ADD CONSTRAINT messages_sender_id_fkey FOREIGN KEY (sender_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.messages DROP CONSTRAINT messages_recipient_id_fkey,
+    ADD CONSTRAINT messages_recipient_id_fkey FOREIGN KEY (recipient_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.ratings DROP CONSTRAINT ratings_sender_id_fkey,
+    ADD CONSTRAINT ratings_sender_id_fkey FOREIGN KEY (sender_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+ALTER TABLE advertisement.ratings DROP CONSTRAINT ratings_recipient_id_fkey,
+    ADD CONSTRAINT ratings_recipient_id_fkey FOREIGN KEY (recipient_id) REFERENCES advertisement.users (id) ON DELETE CASCADE;
+
+--rollback ALTER TABLE advertisement.advertisements DROP CONSTRAINT advertisements_user_id_fkey, ADD CONSTRAINT advertisements_user_id_fkey FOREIGN KEY (user_id) REFERENCES advertisement.users (id);
+--rollback ALTER TABLE advertisement.comments DROP CONSTRAINT comments_advertisement_id_fkey, ADD CONSTRAINT comments_advertisement_id_fkey FOREIGN KEY (advertisement_id) REFERENCES advertisement.advertisements (id);
+--rollback ALTER TABLE advertisement.comments DROP CONSTRAINT comments_user_id_fkey, ADD CONSTRAINT comments_user_id_fkey FOREIGN KEY (user_id) REFERENCES advertisement.users (id);
+--rollback ALTER TABLE advertisement.messages DROP CONSTRAINT messages_advertisement_id_fkey, ADD CONSTRAINT messages_advertisement_id_fkey FOREIGN KEY (advertisement_id) REFERENCES advertisement.advertisements (id);
+--rollback ALTER TABLE advertisement.messages DROP CONSTRAINT messages_sender_id_fkey, ADD CONSTRAINT messages_sender_id_fkey FOREIGN KEY (sender_id) REFERENCES advertisement.users (id);
+--rollback ALTER TABLE advertisement.messages DROP CONSTRAINT messages_recipient_id_fkey, ADD CONSTRAINT messages_recipient_id_fkey FOREIGN KEY (recipient_id) REFERENCES advertisement.users (id);
+--rollback ALTER TABLE advertisement.ratings DROP CONSTRAINT ratings_sender_id_fkey, ADD CONSTRAINT ratings_sender_id_fkey FOREIGN KEY (sender_id) REFERENCES advertisement.users (id);
+--rollback ALTER TABLE advertisement.ratings DROP CONSTRAINT ratings_recipient_id_fkey, ADD CONSTRAINT ratings_recipient_id_fkey FOREIGN KEY (recipient_id) REFERENCES advertisement.users (id);
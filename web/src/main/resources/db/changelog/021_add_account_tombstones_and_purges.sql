@@ -0,0 +1,22 @@
+--liquibase formatted sql
+
+--changeset 021-add-account-tombstones-and-purges:dmitry
+ALTER TABLE advertisement.users ADD COLUMN deleted_at TIMESTAMP;
+
+CREATE INDEX users_deleted_idx ON advertisement.users (id) WHERE deleted_at IS NOT NULL;
+
+CREATE TABLE advertisement.account_purges (
+    user_id BIGINT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    step VARCHAR(32),
+    deleted_rows BIGINT NOT NULL DEFAULT 0,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX account_purges_username_idx ON advertisement.account_purges (username);
+
+--rollback DROP TABLE advertisement.account_purges;
+--rollback ALTER TABLE advertisement.users DROP COLUMN deleted_at;
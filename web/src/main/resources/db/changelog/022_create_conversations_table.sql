@@ -0,0 +1,55 @@
+--liquibase formatted sql
+
+--changeset 022-create-conversations-table:dmitry
+CREATE TABLE advertisement.conversations (
+    id BIGINT PRIMARY KEY GENERATED BY DEFAULT AS IDENTITY,
+    first_user_id BIGINT NOT NULL REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    second_user_id BIGINT NOT NULL REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    advertisement_id BIGINT NOT NULL REFERENCES advertisement.advertisements (id) ON DELETE CASCADE,
+    last_message_id BIGINT,
+    last_message_at TIMESTAMP,
+    first_unread_count INTEGER NOT NULL DEFAULT 0,
+    second_unread_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT conversations_participants_key UNIQUE (first_user_id, second_user_id, advertisement_id),
+    CONSTRAINT conversations_participants_order_check CHECK (first_user_id <= second_user_id)
+);
+
+INSERT INTO advertisement.conversations (first_user_id, second_user_id, advertisement_id)
+SELECT DISTINCT LEAST(sender_id, recipient_id), GREATEST(sender_id, recipient_id), advertisement_id
+FROM advertisement.messages;
+
+ALTER TABLE advertisement.messages ADD COLUMN conversation_id BIGINT;
+
+UPDATE advertisement.messages m SET conversation_id = c.id
+FROM advertisement.conversations c
+WHERE c.first_user_id = LEAST(m.sender_id, m.recipient_id)
+  AND c.second_user_id = GREATEST(m.sender_id, m.recipient_id)
+  AND c.advertisement_id = m.advertisement_id;
+
+ALTER TABLE advertisement.messages ALTER COLUMN conversation_id SET NOT NULL,
+    ADD CONSTRAINT messages_conversation_id_fkey FOREIGN KEY (conversation_id)
+        REFERENCES advertisement.conversations (id) ON DELETE CASCADE;
+
+UPDATE advertisement.conversations c SET last_message_id = l.id, last_message_at = l.sent_at
+FROM (SELECT DISTINCT ON (conversation_id) conversation_id, id, sent_at
+      FROM advertisement.messages
+      ORDER BY conversation_id, sent_at DESC, id DESC) l
+WHERE l.conversation_id = c.id;
+
+UPDATE advertisement.conversations c SET
+    first_unread_count = (SELECT COUNT(*) FROM advertisement.messages m
+                          WHERE m.conversation_id = c.id AND m.read IS NOT TRUE
+                            AND m.recipient_id = c.first_user_id),
+    second_unread_count = (SELECT COUNT(*) FROM advertisement.messages m
+                           WHERE m.conversation_id = c.id AND m.read IS NOT TRUE
+                             AND m.recipient_id = c.second_user_id AND c.first_user_id <> c.second_user_id);
+
+ALTER TABLE advertisement.conversations ADD CONSTRAINT conversations_last_message_id_fkey
+    FOREIGN KEY (last_message_id) REFERENCES advertisement.messages (id) ON DELETE SET NULL;
+
+CREATE INDEX messages_conversation_sent_idx ON advertisement.messages (conversation_id, sent_at DESC, id);
+CREATE INDEX conversations_first_user_idx ON advertisement.conversations (first_user_id, last_message_at DESC);
+CREATE INDEX conversations_second_user_idx ON advertisement.conversations (second_user_id, last_message_at DESC);
+
+--rollback ALTER TABLE advertisement.messages DROP COLUMN conversation_id;
+--rollback DROP TABLE advertisement.conversations;
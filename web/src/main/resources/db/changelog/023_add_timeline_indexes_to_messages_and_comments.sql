@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset 023-add-timeline-indexes-to-messages-and-comments:dmitry
+DROP INDEX advertisement.messages_conversation_sent_idx;
+CREATE INDEX messages_conversation_timeline_idx ON advertisement.messages (conversation_id, sent_at DESC, id DESC);
+CREATE INDEX comments_advertisement_timeline_idx ON advertisement.comments (advertisement_id, created_at DESC, id DESC);
+
+--rollback DROP INDEX advertisement.comments_advertisement_timeline_idx;
+--rollback DROP INDEX advertisement.messages_conversation_timeline_idx;
+--rollback CREATE INDEX messages_conversation_sent_idx ON advertisement.messages (conversation_id, sent_at DESC, id);
@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset 024-add-unread-index-to-messages:dmitry
+CREATE INDEX messages_unread_idx ON advertisement.messages (conversation_id, recipient_id, id) WHERE read IS NOT TRUE;
+
+--rollback DROP INDEX advertisement.messages_unread_idx;
@@ -0,0 +1,152 @@
+--liquibase formatted sql
+
+--changeset 025-partition-messages-by-month:dmitry splitStatements:false
+ALTER TABLE advertisement.conversations DROP CONSTRAINT conversations_last_message_id_fkey;
+
+CREATE TABLE advertisement.messages_partitioned (
+    id BIGINT NOT NULL,
+    advertisement_id INTEGER NOT NULL,
+    sender_id INTEGER NOT NULL,
+    recipient_id INTEGER NOT NULL,
+    text TEXT NOT NULL,
+    sent_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    read BOOLEAN DEFAULT FALSE,
+    conversation_id BIGINT NOT NULL
+) PARTITION BY RANGE (sent_at);
+
+CREATE TABLE advertisement.messages_default PARTITION OF advertisement.messages_partitioned DEFAULT;
+
+INSERT INTO advertisement.messages_partitioned
+    (id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id)
+SELECT id, advertisement_id, sender_id, recipient_id, text, COALESCE(sent_at, CURRENT_TIMESTAMP), read,
+       conversation_id
+FROM advertisement.messages;
+
+DROP TABLE advertisement.messages;
+ALTER TABLE advertisement.messages_partitioned RENAME TO messages;
+
+CREATE SEQUENCE advertisement.messages_id_seq OWNED BY advertisement.messages.id;
+SELECT setval('advertisement.messages_id_seq', COALESCE((SELECT MAX(id) FROM advertisement.messages), 0) + 1, false);
+ALTER TABLE advertisement.messages ALTER COLUMN id SET DEFAULT nextval('advertisement.messages_id_seq');
+
+ALTER TABLE advertisement.messages
+    ADD CONSTRAINT messages_pkey PRIMARY KEY (id, sent_at),
+    ADD CONSTRAINT messages_advertisement_id_fkey FOREIGN KEY (advertisement_id)
+        REFERENCES advertisement.advertisements (id) ON DELETE CASCADE,
+    ADD CONSTRAINT messages_sender_id_fkey FOREIGN KEY (sender_id)
+        REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    ADD CONSTRAINT messages_recipient_id_fkey FOREIGN KEY (recipient_id)
+        REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    ADD CONSTRAINT messages_conversation_id_fkey FOREIGN KEY (conversation_id)
+        REFERENCES advertisement.conversations (id) ON DELETE CASCADE;
+
+CREATE INDEX messages_conversation_timeline_idx ON advertisement.messages (conversation_id, sent_at DESC, id DESC);
+CREATE INDEX messages_unread_idx ON advertisement.messages (conversation_id, recipient_id, id) WHERE read IS NOT TRUE;
+
+CREATE TABLE advertisement.messages_archive (
+    id BIGINT PRIMARY KEY,
+    advertisement_id INTEGER NOT NULL REFERENCES advertisement.advertisements (id) ON DELETE CASCADE,
+    sender_id INTEGER NOT NULL REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    recipient_id INTEGER NOT NULL REFERENCES advertisement.users (id) ON DELETE CASCADE,
+    text TEXT NOT NULL,
+    sent_at TIMESTAMP NOT NULL,
+    read BOOLEAN,
+    conversation_id BIGINT NOT NULL REFERENCES advertisement.conversations (id) ON DELETE CASCADE
+) WITH (fillfactor = 100);
+
+ALTER TABLE advertisement.messages_archive ALTER COLUMN text SET STORAGE EXTENDED;
+CREATE INDEX messages_archive_conversation_timeline_idx
+    ON advertisement.messages_archive (conversation_id, sent_at DESC, id DESC);
+CREATE INDEX messages_archive_sender_idx ON advertisement.messages_archive (sender_id);
+CREATE INDEX messages_archive_recipient_idx ON advertisement.messages_archive (recipient_id);
+
+CREATE FUNCTION advertisement.create_messages_partition(p_month DATE) RETURNS TEXT LANGUAGE plpgsql AS $$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_to DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'messages_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass('advertisement.' || v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    EXECUTE format('CREATE TABLE advertisement.%I (LIKE advertisement.messages INCLUDING DEFAULTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM advertisement.messages_default '
+                       'WHERE sent_at >= %L AND sent_at < %L RETURNING *) '
+                       'INSERT INTO advertisement.%I SELECT * FROM moved', v_from, v_to, v_name);
+    EXECUTE format('ALTER TABLE advertisement.messages ATTACH PARTITION advertisement.%I '
+                       'FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    RETURN v_name;
+END;
+$$;
+
+CREATE FUNCTION advertisement.archive_messages_partitions(p_before DATE) RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    v_name TEXT;
+    v_count INTEGER;
+    v_total INTEGER := 0;
+BEGIN
+    FOR v_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'advertisement.messages'::REGCLASS
+          AND c.relname ~ '^messages_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substr(c.relname, 10), 'YYYY_MM') + INTERVAL '1 month' <= p_before
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE advertisement.messages DETACH PARTITION advertisement.%I', v_name);
+        EXECUTE format('UPDATE advertisement.conversations c SET '
+                           'first_unread_count = GREATEST(c.first_unread_count - a.first_unread, 0), '
+                           'second_unread_count = GREATEST(c.second_unread_count - a.second_unread, 0), '
+                           'last_message_id = CASE WHEN a.last_archived THEN NULL ELSE c.last_message_id END '
+                           'FROM (SELECT m.conversation_id, '
+                           'COUNT(*) FILTER (WHERE m.read IS NOT TRUE '
+                           'AND m.recipient_id = x.first_user_id) AS first_unread, '
+                           'COUNT(*) FILTER (WHERE m.read IS NOT TRUE AND m.recipient_id = x.second_user_id '
+                           'AND x.first_user_id <> x.second_user_id) AS second_unread, '
+                           'BOOL_OR(m.id = x.last_message_id) AS last_archived '
+                           'FROM advertisement.%I m '
+                           'JOIN advertisement.conversations x ON x.id = m.conversation_id '
+                           'GROUP BY m.conversation_id) a '
+                           'WHERE c.id = a.conversation_id', v_name);
+        EXECUTE format('INSERT INTO advertisement.messages_archive '
+                           '(id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id) '
+                           'SELECT id, advertisement_id, sender_id, recipient_id, text, sent_at, read, '
+                           'conversation_id FROM advertisement.%I ON CONFLICT (id) DO NOTHING', v_name);
+        GET DIAGNOSTICS v_count = ROW_COUNT;
+        EXECUTE format('DROP TABLE advertisement.%I', v_name);
+        v_total := v_total + v_count;
+    END LOOP;
+
+    RETURN v_total;
+END;
+$$;
+
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT MIN(sent_at) FROM advertisement.messages),
+                                                 CURRENT_TIMESTAMP))::DATE;
+BEGIN
+    WHILE v_month <= CURRENT_DATE + INTERVAL '3 months' LOOP
+        PERFORM advertisement.create_messages_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+--rollback DROP FUNCTION advertisement.archive_messages_partitions(DATE);
+--rollback DROP FUNCTION advertisement.create_messages_partition(DATE);
+--rollback CREATE TABLE advertisement.messages_plain AS
+--rollback     SELECT id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id
+--rollback     FROM advertisement.messages
+--rollback     UNION ALL
+--rollback     SELECT id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id
+--rollback     FROM advertisement.messages_archive a
+--rollback     WHERE NOT EXISTS (SELECT 1 FROM advertisement.messages m WHERE m.id = a.id);
+--rollback DROP TABLE advertisement.messages_archive;
+--rollback DROP TABLE advertisement.messages;
+--rollback ALTER TABLE advertisement.messages_plain RENAME TO messages;
+--rollback ALTER TABLE advertisement.messages ADD PRIMARY KEY (id);
+--rollback ALTER TABLE advertisement.conversations ADD CONSTRAINT conversations_last_message_id_fkey
+--rollback     FOREIGN KEY (last_message_id) REFERENCES advertisement.messages (id) ON DELETE SET NULL;
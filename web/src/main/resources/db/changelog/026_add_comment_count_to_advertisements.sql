@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset 026-add-comment-count-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements ADD COLUMN comment_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE advertisement.advertisements a SET comment_count = c.comment_count
+FROM (
+    SELECT advertisement_id, COUNT(*) AS comment_count
+    FROM advertisement.comments
+    GROUP BY advertisement_id
+) c
+WHERE c.advertisement_id = a.id;
+
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN comment_count;
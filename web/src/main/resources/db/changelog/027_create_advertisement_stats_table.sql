@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset 027-create-advertisement-stats-table:dmitry
+CREATE TABLE advertisement.advertisement_stats (
+    advertisement_id BIGINT PRIMARY KEY REFERENCES advertisement.advertisements (id) ON DELETE CASCADE,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+--rollback DROP TABLE advertisement.advertisement_stats;
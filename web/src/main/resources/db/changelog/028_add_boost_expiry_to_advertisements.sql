@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset 028-add-boost-expiry-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements ADD COLUMN boosted_until TIMESTAMP;
+
+UPDATE advertisement.advertisements SET boosted_until = CURRENT_TIMESTAMP + INTERVAL '7 days' WHERE boosted;
+
+CREATE INDEX idx_advertisements_boost_expiry ON advertisement.advertisements (boosted_until) WHERE boosted;
+
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_boost_expiry;
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN boosted_until;
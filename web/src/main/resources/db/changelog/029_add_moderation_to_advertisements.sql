@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset 029-add-moderation-to-advertisements:dmitry
+ALTER TABLE advertisement.advertisements
+    ADD COLUMN submitted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN moderated_at TIMESTAMP,
+    ADD COLUMN rejection_reason VARCHAR(255);
+
+UPDATE advertisement.advertisements SET moderated_at = submitted_at WHERE status <> 'REVIEW';
+
+CREATE INDEX idx_advertisements_review_queue ON advertisement.advertisements (submitted_at, id)
+    WHERE status = 'REVIEW';
+
+--rollback DROP INDEX IF EXISTS advertisement.idx_advertisements_review_queue;
+--rollback ALTER TABLE advertisement.advertisements DROP COLUMN rejection_reason, DROP COLUMN moderated_at,
+--rollback     DROP COLUMN submitted_at;
@@ -0,0 +1,137 @@
+--liquibase formatted sql
+
+--changeset 030-add-created-at-to-conversations:dmitry
+ALTER TABLE advertisement.conversations ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+UPDATE advertisement.conversations c
+SET created_at = LEAST(c.created_at,
+                       (SELECT MIN(m.sent_at) FROM advertisement.messages m WHERE m.conversation_id = c.id),
+                       (SELECT MIN(a.sent_at) FROM advertisement.messages_archive a WHERE a.conversation_id = c.id));
+
+--rollback ALTER TABLE advertisement.conversations DROP COLUMN created_at;
+
+--changeset 030-drop-messages-default-partition:dmitry splitStatements:false
+CREATE OR REPLACE FUNCTION advertisement.create_messages_partition(p_month DATE) RETURNS TEXT LANGUAGE plpgsql AS $$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_to DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'messages_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass('advertisement.' || v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    EXECUTE format('CREATE TABLE advertisement.%I (LIKE advertisement.messages INCLUDING DEFAULTS)', v_name);
+    IF to_regclass('advertisement.messages_default') IS NOT NULL THEN
+        EXECUTE format('WITH moved AS (DELETE FROM advertisement.messages_default '
+                           'WHERE sent_at >= %L AND sent_at < %L RETURNING *) '
+                           'INSERT INTO advertisement.%I SELECT * FROM moved', v_from, v_to, v_name);
+    END IF;
+    EXECUTE format('ALTER TABLE advertisement.messages ATTACH PARTITION advertisement.%I '
+                       'FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    RETURN v_name;
+END;
+$$;
+
+DO $$
+DECLARE
+    v_month DATE;
+BEGIN
+    FOR v_month IN SELECT DISTINCT date_trunc('month', sent_at)::DATE FROM advertisement.messages_default
+                   UNION
+                   SELECT generate_series(date_trunc('month', CURRENT_DATE), CURRENT_DATE + INTERVAL '3 months',
+                                          INTERVAL '1 month')::DATE LOOP
+        PERFORM advertisement.create_messages_partition(v_month);
+    END LOOP;
+END;
+$$;
+
+ALTER TABLE advertisement.messages DETACH PARTITION advertisement.messages_default;
+DROP TABLE advertisement.messages_default;
+
+--rollback CREATE TABLE advertisement.messages_default PARTITION OF advertisement.messages DEFAULT;
+
+--changeset 030-archive-messages-in-chunks:dmitry splitStatements:false
+DROP FUNCTION advertisement.archive_messages_partitions(DATE);
+
+CREATE FUNCTION advertisement.archive_messages_chunk(p_name TEXT, p_limit INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql AS $$
+DECLARE
+    v_count INTEGER;
+BEGIN
+    IF p_name !~ '^messages_[0-9]{4}_[0-9]{2}$' THEN
+        RAISE EXCEPTION 'Not a messages partition: %', p_name;
+    END IF;
+
+    EXECUTE format('WITH moved AS ('
+                       'DELETE FROM advertisement.%1$I WHERE id IN '
+                       '(SELECT id FROM advertisement.%1$I ORDER BY id LIMIT %2$s) RETURNING *), '
+                       'archived AS ('
+                       'INSERT INTO advertisement.messages_archive '
+                       '(id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id) '
+                       'SELECT id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id '
+                       'FROM moved ON CONFLICT (id) DO NOTHING), '
+                       'counters AS ('
+                       'UPDATE advertisement.conversations c SET '
+                       'first_unread_count = GREATEST(c.first_unread_count - a.first_unread, 0), '
+                       'second_unread_count = GREATEST(c.second_unread_count - a.second_unread, 0), '
+                       'last_message_id = CASE WHEN a.last_archived THEN NULL ELSE c.last_message_id END '
+                       'FROM (SELECT m.conversation_id, '
+                       'COUNT(*) FILTER (WHERE m.read IS NOT TRUE '
+                       'AND m.recipient_id = x.first_user_id) AS first_unread, '
+                       'COUNT(*) FILTER (WHERE m.read IS NOT TRUE AND m.recipient_id = x.second_user_id '
+                       'AND x.first_user_id <> x.second_user_id) AS second_unread, '
+                       'BOOL_OR(m.id = x.last_message_id) AS last_archived '
+                       'FROM moved m '
+                       'JOIN advertisement.conversations x ON x.id = m.conversation_id '
+                       'GROUP BY m.conversation_id) a '
+                       'WHERE c.id = a.conversation_id) '
+                       'SELECT COUNT(*) FROM moved', p_name, p_limit) INTO v_count;
+    RETURN v_count;
+END;
+$$;
+
+--rollback DROP FUNCTION advertisement.archive_messages_chunk(TEXT, INTEGER);
+--rollback CREATE FUNCTION advertisement.archive_messages_partitions(p_before DATE) RETURNS INTEGER
+--rollback     LANGUAGE plpgsql AS $$
+--rollback DECLARE
+--rollback     v_name TEXT;
+--rollback     v_count INTEGER;
+--rollback     v_total INTEGER := 0;
+--rollback BEGIN
+--rollback     FOR v_name IN
+--rollback         SELECT c.relname
+--rollback         FROM pg_inherits i
+--rollback         JOIN pg_class c ON c.oid = i.inhrelid
+--rollback         WHERE i.inhparent = 'advertisement.messages'::REGCLASS
+--rollback           AND c.relname ~ '^messages_[0-9]{4}_[0-9]{2}$'
+--rollback           AND to_date(substr(c.relname, 10), 'YYYY_MM') + INTERVAL '1 month' <= p_before
+--rollback         ORDER BY c.relname
+--rollback     LOOP
+--rollback         EXECUTE format('ALTER TABLE advertisement.messages DETACH PARTITION advertisement.%I', v_name);
+--rollback         EXECUTE format('UPDATE advertisement.conversations c SET '
+--rollback                 'first_unread_count = GREATEST(c.first_unread_count - a.first_unread, 0), '
+--rollback                 'second_unread_count = GREATEST(c.second_unread_count - a.second_unread, 0), '
+--rollback                 'last_message_id = CASE WHEN a.last_archived THEN NULL ELSE c.last_message_id END '
+--rollback                 'FROM (SELECT m.conversation_id, '
+--rollback                 'COUNT(*) FILTER (WHERE m.read IS NOT TRUE '
+--rollback                 'AND m.recipient_id = x.first_user_id) AS first_unread, '
+--rollback                 'COUNT(*) FILTER (WHERE m.read IS NOT TRUE AND m.recipient_id = x.second_user_id '
+--rollback                 'AND x.first_user_id <> x.second_user_id) AS second_unread, '
+--rollback                 'BOOL_OR(m.id = x.last_message_id) AS last_archived '
+--rollback                 'FROM advertisement.%I m '
+--rollback                 'JOIN advertisement.conversations x ON x.id = m.conversation_id '
+--rollback                 'GROUP BY m.conversation_id) a '
+--rollback                 'WHERE c.id = a.conversation_id', v_name);
+--rollback         EXECUTE format('INSERT INTO advertisement.messages_archive '
+--rollback                 '(id, advertisement_id, sender_id, recipient_id, text, sent_at, read, conversation_id) '
+--rollback                 'SELECT id, advertisement_id, sender_id, recipient_id, text, sent_at, read, '
+--rollback                 'conversation_id FROM advertisement.%I ON CONFLICT (id) DO NOTHING', v_name);
+--rollback         GET DIAGNOSTICS v_count = ROW_COUNT;
+--rollback         EXECUTE format('DROP TABLE advertisement.%I', v_name);
+--rollback         v_total := v_total + v_count;
+--rollback     END LOOP;
+--rollback
+--rollback     RETURN v_total;
+--rollback END;
+--rollback $$;
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset 031-lease-email-outbox-claims:dmitry
+DROP INDEX advertisement.email_outbox_pending_idx;
+
+CREATE INDEX email_outbox_pending_idx ON advertisement.email_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'IN_PROGRESS');
+
+--rollback UPDATE advertisement.email_outbox SET status = 'PENDING' WHERE status = 'IN_PROGRESS';
+--rollback DROP INDEX advertisement.email_outbox_pending_idx;
+--rollback CREATE INDEX email_outbox_pending_idx ON advertisement.email_outbox (next_attempt_at, id)
+--rollback     WHERE status = 'PENDING';
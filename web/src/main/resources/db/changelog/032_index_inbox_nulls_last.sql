@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset 032-index-inbox-nulls-last:dmitry
+DROP INDEX advertisement.conversations_first_user_idx;
+DROP INDEX advertisement.conversations_second_user_idx;
+
+CREATE INDEX conversations_first_user_idx ON advertisement.conversations
+    (first_user_id, last_message_at DESC NULLS LAST, id DESC);
+CREATE INDEX conversations_second_user_idx ON advertisement.conversations
+    (second_user_id, last_message_at DESC NULLS LAST, id DESC);
+
+--rollback DROP INDEX advertisement.conversations_first_user_idx;
+--rollback DROP INDEX advertisement.conversations_second_user_idx;
+--rollback CREATE INDEX conversations_first_user_idx ON advertisement.conversations
+--rollback     (first_user_id, last_message_at DESC);
+--rollback CREATE INDEX conversations_second_user_idx ON advertisement.conversations
+--rollback     (second_user_id, last_message_at DESC);
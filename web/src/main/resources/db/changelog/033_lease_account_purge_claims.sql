@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset 033-lease-account-purge-claims:dmitry
+ALTER TABLE advertisement.account_purges ADD COLUMN lease_until TIMESTAMP;
+
+CREATE INDEX account_purges_pending_idx ON advertisement.account_purges (requested_at)
+    WHERE status IN ('PENDING', 'RUNNING');
+
+--rollback DROP INDEX advertisement.account_purges_pending_idx;
+--rollback ALTER TABLE advertisement.account_purges DROP COLUMN lease_until;
@@ -0,0 +1,173 @@
+package rf.senla.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.IAdvertisementListingCache;
+import rf.senla.web.dto.CreateCommentRequest;
+import rf.senla.web.dto.CreateMessageRequest;
+import rf.senla.web.utils.AdvertisementMapper;
+import rf.senla.web.utils.UserMapper;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Rollback
+@Transactional
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ListEndpointStatementCountTest {
+    private static final long MAX_STATEMENTS = 4;
+    private static final long CREATE_STATEMENTS = 2;
+    private Statistics statistics;
+    @Autowired
+    private MockMvc sut;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private IAdvertisementListingCache listingCache;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private AdvertisementMapper advertisementMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        listingCache.invalidateAll();
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getAllActiveExecutesConstantNumberOfStatements() {
+        assertConstant("/api/advertisements", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getAllActiveByKeywordExecutesConstantNumberOfStatements() {
+        assertConstant("/api/advertisements", "keyword", "portable");
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getFeedExecutesConstantNumberOfStatements() {
+        assertConstant("/api/advertisements/feed", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getAllByUserExecutesConstantNumberOfStatements() {
+        assertConstant("/api/advertisements/user123", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getCommentsExecutesConstantNumberOfStatements() {
+        assertConstant("/api/comments/1", null, null);
+    }
+
+    @Test
+    void getCorrespondenceExecutesConstantNumberOfStatements() {
+        User currentUser = userRepository.findByUsername("user123").orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+
+        assertConstant("/api/messages", "username", "cool_guy");
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void getAllUsersExecutesConstantNumberOfStatements() {
+        assertConstant("/api/users", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void createMessageExecutesTwoStatements() {
+        Advertisement advertisement = advertisementRepository.findWithUserById(2L).orElseThrow();
+        CreateMessageRequest message = new CreateMessageRequest();
+        message.setAdvertisement(advertisementMapper.toDto(advertisement));
+        message.setRecipient(userMapper.toDto(advertisement.getUser()));
+        message.setText("Hello!");
+
+        assertEquals(CREATE_STATEMENTS, countCreateStatements("/api/messages", message));
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void createCommentExecutesTwoStatements() {
+        Advertisement advertisement = advertisementRepository.findWithUserById(2L).orElseThrow();
+        CreateCommentRequest comment =
+                new CreateCommentRequest(advertisementMapper.toDto(advertisement), "Test Comment");
+
+        assertEquals(CREATE_STATEMENTS, countCreateStatements("/api/comments", comment));
+    }
+
+    private void assertConstant(String url, String param, String value) {
+        long single = countStatements(url, param, value, 1);
+        long full = countStatements(url, param, value, 20);
+
+        assertEquals(single, full);
+        assertTrue(full <= MAX_STATEMENTS, "Executed " + full + " statements");
+    }
+
+    @SneakyThrows
+    private long countStatements(String url, String param, String value, int size) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        MockHttpServletRequestBuilder request = get(url).param("size", String.valueOf(size));
+        if (param != null) {
+            request.param(param, value);
+        }
+        sut.perform(request).andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    @SneakyThrows
+    private long countCreateStatements(String url, Object body) {
+        String request = objectMapper.writeValueAsString(body);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        sut.perform(post(url).contentType("application/json").content(request)).andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -15,10 +15,16 @@ import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.TrendingTracker;
+import rf.senla.web.dto.ApproveAdvertisementsRequest;
 import rf.senla.web.dto.CreateAdvertisementRequest;
 import rf.senla.web.dto.UpdateAdvertisementRequest;
 import rf.senla.web.utils.UserMapper;
 
+import java.util.List;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -40,6 +46,12 @@ class RestAdvertisementControllerTest {
     private ObjectMapper objectMapper;
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TrendingTracker trendingTracker;
 
     @BeforeEach
     void setUp() {
@@ -76,7 +88,27 @@ class RestAdvertisementControllerTest {
                         .param("max", "5000")
                         .param("keyword", "one"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(5));
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getFeedReturnsPageWithCursor() {
+        sut.perform(get("/api/advertisements/feed")
+                        .param("size", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getFeedWithInvalidCursorReturnsBadRequest() {
+        sut.perform(get("/api/advertisements/feed")
+                        .param("cursor", "invalid"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -113,6 +145,57 @@ class RestAdvertisementControllerTest {
                 .andExpect(jsonPath("$.length()").value(1));
     }
 
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getByIdReturnsCorrectData() {
+        sut.perform(get("/api/advertisements/1/details"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.commentCount").value(2))
+                .andExpect(jsonPath("$.viewCount").isNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getTrendingReturnsViewedAdvertisement() {
+        sut.perform(get("/api/advertisements/1/details"))
+                .andExpect(status().isOk());
+        trendingTracker.refresh();
+
+        sut.perform(get("/api/advertisements/trending")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == 1)]").exists());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getTrendingWithIncorrectLimitReturnsBadRequest() {
+        sut.perform(get("/api/advertisements/trending")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getTrendingWithLimitAboveTopSizeReturnsBadRequest() {
+        sut.perform(get("/api/advertisements/trending")
+                        .param("limit", "21"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getByIdWithUnknownIdReturnsBadRequest() {
+        sut.perform(get("/api/advertisements/1000/details"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     @WithMockUser("user123")
@@ -270,6 +353,51 @@ class RestAdvertisementControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    @WithMockUser(value = "admin", roles = "ADMIN")
+    void approveByAdminReturnsApprovedIds() {
+        Advertisement review = advertisementRepository.saveAndFlush(Advertisement.builder()
+                .user(userRepository.getReferenceById(1L))
+                .price(1000)
+                .headline("Smartphone")
+                .description(advertisement.getDescription())
+                .status(AdvertisementStatus.REVIEW)
+                .build());
+        String request = objectMapper.writeValueAsString(new ApproveAdvertisementsRequest(List.of(review.getId(), 1L)));
+
+        sut.perform(put("/api/advertisements/admin/approval")
+                        .contentType("application/json")
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value(review.getId()));
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser(value = "admin", roles = "ADMIN")
+    void approveByAdminWithEmptyIdsThrowsException() {
+        String request = objectMapper.writeValueAsString(new ApproveAdvertisementsRequest(List.of()));
+
+        sut.perform(put("/api/advertisements/admin/approval")
+                        .contentType("application/json")
+                        .content(request))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void approveByRoleUserThrowsException() {
+        String request = objectMapper.writeValueAsString(new ApproveAdvertisementsRequest(List.of(1L)));
+
+        sut.perform(put("/api/advertisements/admin/approval")
+                        .contentType("application/json")
+                        .content(request))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     @WithMockUser(value = "admin", roles = "ADMIN")
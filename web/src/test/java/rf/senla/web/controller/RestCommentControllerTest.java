@@ -1,5 +1,6 @@
 package rf.senla.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +21,7 @@ import rf.senla.web.dto.UpdateCommentRequest;
 import rf.senla.web.utils.AdvertisementMapper;
 import rf.senla.web.utils.UserMapper;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -67,6 +69,8 @@ class RestCommentControllerTest {
                         "offering internet access, touchscreen interface, and various applications.")
                 .status(AdvertisementStatus.ACTIVE)
                 .boosted(false)
+                .commentCount(2)
+                .viewCount(0L)
                 .build();
     }
 
@@ -87,6 +91,39 @@ class RestCommentControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getTimelinePagesInBothDirections() {
+        JsonNode newest = objectMapper.readTree(sut.perform(get("/api/comments/1/timeline")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andReturn().getResponse().getContentAsString());
+        JsonNode oldest = objectMapper.readTree(sut.perform(get("/api/comments/1/timeline")
+                        .param("before", newest.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andReturn().getResponse().getContentAsString());
+
+        assertNotEquals(newest.at("/content/0/id").asLong(), oldest.at("/content/0/id").asLong());
+        sut.perform(get("/api/comments/1/timeline")
+                        .param("after", oldest.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(newest.at("/content/0/id").asLong()));
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getTimelineWithInvalidCursorReturnsBadRequest() {
+        sut.perform(get("/api/comments/1/timeline")
+                        .param("after", "invalid"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     @WithMockUser("user123")
@@ -94,6 +131,7 @@ class RestCommentControllerTest {
         CreateCommentRequest comment =
                 new CreateCommentRequest(advertisementMapper.toDto(advertisement), "Test Comment");
         String request = objectMapper.writeValueAsString(comment);
+        advertisement.setCommentCount(3);
 
         sut.perform(post("/api/comments")
                         .contentType("application/json")
@@ -1,5 +1,6 @@
 package rf.senla.web.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +18,8 @@ import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.ConversationRepository;
+import rf.senla.domain.service.MessagePushHub;
 import rf.senla.web.dto.CreateMessageRequest;
 import rf.senla.web.dto.UpdateMessageRequest;
 import rf.senla.web.utils.AdvertisementMapper;
@@ -24,11 +27,16 @@ import rf.senla.web.utils.UserMapper;
 
 import java.util.ArrayList;
 
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Rollback
@@ -47,6 +55,10 @@ class RestMessageControllerTest {
     private AdvertisementMapper advertisementMapper;
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private MessagePushHub pushHub;
+    @Autowired
+    private ConversationRepository conversationRepository;
 
     @BeforeEach
     void setUp() {
@@ -83,6 +95,8 @@ class RestMessageControllerTest {
                         "with a clamshell form factor and a built-in keyboard and display.")
                 .status(AdvertisementStatus.ACTIVE)
                 .boosted(false)
+                .commentCount(1)
+                .viewCount(0L)
                 .build();
     }
 
@@ -111,6 +125,121 @@ class RestMessageControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    void markReadClearsUnreadCount() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+        Long id = conversationRepository.findWithParticipantsByIdIn(
+                        conversationRepository.findInboxIds(currentUser.getId(), 20, 0)).stream()
+                .filter(conversation -> "bookworm".equals(conversation.getInterlocutor("user123").getUsername()))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+
+        sut.perform(put("/api/messages/conversations/{id}/read", id))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Marked messages as read: 1"));
+        sut.perform(get("/api/messages/conversations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.interlocutor == 'bookworm')].unreadCount").value(contains(0)));
+    }
+
+    @Test
+    @SneakyThrows
+    void markReadByStrangerThrowsException() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+        Long id = conversationRepository.findWithParticipantsByIdIn(
+                        conversationRepository.findInboxIds(recipient.getId(), 20, 0)).stream()
+                .filter(conversation -> !"user123".equals(conversation.getInterlocutor("cool_guy").getUsername()))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+
+        sut.perform(put("/api/messages/conversations/{id}/read", id))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void getTimelinePagesWithoutDuplicates() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+
+        JsonNode first = objectMapper.readTree(sut.perform(get("/api/messages/timeline")
+                        .param("username", "cool_guy")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString());
+        JsonNode second = objectMapper.readTree(sut.perform(get("/api/messages/timeline")
+                        .param("username", "cool_guy")
+                        .param("before", first.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andReturn().getResponse().getContentAsString());
+
+        assertNotEquals(first.at("/content/0/id").asLong(), second.at("/content/0/id").asLong());
+        sut.perform(get("/api/messages/timeline")
+                        .param("username", "cool_guy")
+                        .param("before", second.get("nextCursor").asText())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @SneakyThrows
+    void getTimelineWithBothCursorsReturnsBadRequest() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+
+        sut.perform(get("/api/messages/timeline")
+                        .param("username", "cool_guy")
+                        .param("before", "cursor")
+                        .param("after", "cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void getConversationsDoesNotThrowException() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+
+        sut.perform(get("/api/messages/conversations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[?(@.interlocutor == 'bookworm')].unreadCount").value(contains(1)))
+                .andExpect(jsonPath("$[?(@.interlocutor == 'cool_guy')].unreadCount").value(contains(0)))
+                .andExpect(jsonPath("$[?(@.interlocutor == 'cool_guy')].headline").value(contains("Laptop")));
+    }
+
+    @Test
+    @SneakyThrows
+    void streamDoesNotThrowException() {
+        User currentUser = sender;
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, new ArrayList<>()));
+        int connections = pushHub.getConnectionCount();
+
+        sut.perform(get("/api/messages/stream"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk());
+
+        assertEquals(connections + 1, pushHub.getConnectionCount());
+        pushHub.shutdown();
+    }
+
     @Test
     @SneakyThrows
     @WithMockUser("user123")
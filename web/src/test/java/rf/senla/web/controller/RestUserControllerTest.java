@@ -152,6 +152,35 @@ class RestUserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SneakyThrows
+    @WithMockUser(value = "admin", roles = "ADMIN")
+    void getPurgeStatusAfterDeleteDoesNotThrowException() {
+        sut.perform(delete("/api/users/user123"))
+                .andExpect(status().isOk());
+
+        sut.perform(get("/api/users/admin/purges/user123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(user.getUsername()))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser(value = "admin", roles = "ADMIN")
+    void getPurgeStatusWithoutDeleteThrowsException() {
+        sut.perform(get("/api/users/admin/purges/user123"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    @WithMockUser("user123")
+    void getPurgeStatusWithRoleUserThrowsException() {
+        sut.perform(get("/api/users/admin/purges/user123"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     @WithMockUser("user123")
@@ -1,10 +1,12 @@
 package rf.senla.web.repository;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
 import rf.senla.domain.entity.User;
@@ -15,6 +17,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -23,6 +26,8 @@ class AdvertisementRepositoryTest {
     private AdvertisementRepository sut;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     @Test
     void saveDoesNotThrowException() {
@@ -63,6 +68,109 @@ class AdvertisementRepositoryTest {
         assertEquals(size, actual.size());
     }
 
+    @Test
+    void findAllWithActiveStatusDoesNotReturnInactiveByKeyword() {
+        Pageable pageable = Pageable.ofSize(20);
+        User owner = userRepository.findByUsername("user123").orElseThrow();
+        sut.save(Advertisement.builder()
+                .user(owner)
+                .headline("Sold headline")
+                .description("Sold portable description")
+                .price(0)
+                .status(AdvertisementStatus.SOLD)
+                .boosted(false)
+                .build());
+        int size = 3;
+
+        List<Advertisement> actual = assertDoesNotThrow(() ->
+                sut.findAllWithActiveStatus(0, Integer.MAX_VALUE, "portable", pageable));
+
+        assertEquals(size, actual.size());
+    }
+
+    @Test
+    void findAllWithActiveStatusByFullTextReturnsCorrectData() {
+        Pageable pageable = Pageable.ofSize(20);
+        int size = 3;
+
+        List<Long> actual = assertDoesNotThrow(() ->
+                sut.findIdsWithActiveStatusByFullText(0, Integer.MAX_VALUE, "portable", pageable));
+
+        assertEquals(size, actual.size());
+    }
+
+    @Test
+    void findAllWithActiveStatusByFullTextUsesStemming() {
+        Pageable pageable = Pageable.ofSize(20);
+        int size = 5;
+
+        List<Long> actual = assertDoesNotThrow(() ->
+                sut.findIdsWithActiveStatusByFullText(0, Integer.MAX_VALUE, "devices", pageable));
+
+        assertEquals(size, actual.size());
+    }
+
+    @Test
+    void findFeedIdsAfterContinuesFromCursor() {
+        List<Long> first = sut.findFeedIds(0, Integer.MAX_VALUE, null, 4);
+        Advertisement last = sut.findById(first.getLast()).orElseThrow();
+
+        List<Long> second = assertDoesNotThrow(() -> sut.findFeedIdsAfter(0, Integer.MAX_VALUE, null,
+                last.getRankScore(), last.getId(), 20));
+
+        assertEquals(4, first.size());
+        assertEquals(6, second.size());
+        assertTrue(second.stream().noneMatch(first::contains));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findFeedIdsAfterStartsIndexScanAtCursor() throws NoSuchMethodException {
+        List<Long> first = sut.findFeedIds(0, Integer.MAX_VALUE, null, 4);
+        Advertisement last = sut.findById(first.getLast()).orElseThrow();
+        String query = AdvertisementRepository.class.getMethod("findFeedIdsAfter", Integer.class, Integer.class,
+                String.class, double.class, long.class, int.class).getAnnotation(Query.class).value();
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        List<String> plan = entityManager.createNativeQuery("EXPLAIN (ANALYZE, COSTS OFF) " + query)
+                .setParameter("min", 0)
+                .setParameter("max", Integer.MAX_VALUE)
+                .setParameter("keyword", null)
+                .setParameter("rankScore", last.getRankScore())
+                .setParameter("id", last.getId())
+                .setParameter("limit", 20)
+                .getResultList();
+
+        String indexCondition = plan.stream()
+                .filter(line -> line.contains("Index Cond"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(indexCondition.contains("rank_score <="), indexCondition);
+        // Строки первой страницы не попадают в диапазон сканирования и не отбрасываются фильтром
+        long removed = plan.stream()
+                .filter(line -> line.contains("Rows Removed by Filter"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .sum();
+        assertTrue(removed < first.size(), String.join("\n", plan));
+    }
+
+    @Test
+    void rankScoreCombinesBoostAndSellerRating() {
+        User owner = userRepository.findByUsername("user123").orElseThrow();
+        Advertisement advertisement = sut.saveAndFlush(Advertisement.builder()
+                .user(owner)
+                .headline("Test headline")
+                .description("Test description")
+                .price(0)
+                .status(AdvertisementStatus.ACTIVE)
+                .boosted(true)
+                .sellerRating(4.5)
+                .build());
+        entityManager.refresh(advertisement);
+
+        assertEquals(14.5, advertisement.getRankScore());
+    }
+
     @Test
     void findByUserReturnsCorrectData() {
         Pageable pageable = Pageable.ofSize(20);
@@ -82,11 +190,4 @@ class AdvertisementRepositoryTest {
 
         assertEquals(size, actual.size());
     }
-
-    @Test
-    void deleteByUserIdDoesNotThrowException() {
-        User user = userRepository.findByUsername("user123").orElseThrow();
-
-        assertDoesNotThrow(() -> sut.deleteByUser_Id(user.getId()));
-    }
 }
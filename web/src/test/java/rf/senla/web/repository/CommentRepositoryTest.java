@@ -13,6 +13,7 @@ import rf.senla.domain.repository.CommentRepository;
 import rf.senla.domain.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -55,23 +56,40 @@ class CommentRepositoryTest {
     }
 
     @Test
-    void deleteByUserIdDoesNotTrowsException() {
-        User sender = userRepository.findByUsername("user123").orElseThrow();
-
-        assertDoesNotThrow(() -> sut.deleteByUser_Id(sender.getId()));
+    void timelineQueriesSeekAroundCursor() {
+        Long advertisementId = advertisementRepository.findById(1L).orElseThrow().getId();
+
+        List<Long> latest = sut.findLatestTimelineIds(advertisementId, 20);
+        assertEquals(2, latest.size());
+        Comment newest = sut.findById(latest.get(0)).orElseThrow();
+        Comment oldest = sut.findById(latest.get(1)).orElseThrow();
+
+        assertEquals(List.of(oldest.getId()),
+                sut.findTimelineIdsBefore(advertisementId, newest.getCreatedAt(), newest.getId(), 20));
+        assertEquals(List.of(newest.getId()),
+                sut.findTimelineIdsAfter(advertisementId, oldest.getCreatedAt(), oldest.getId(), 20));
+        assertEquals(List.of(),
+                sut.findTimelineIdsAfter(advertisementId, newest.getCreatedAt(), newest.getId(), 20));
     }
 
     @Test
-    void deleteByAdvertisementUserIdDoesNotTrowsException() {
-        Advertisement advertisement = advertisementRepository.findById(1L).orElseThrow();
+    void findWithUserByIdInReturnsCorrectData() {
+        List<Long> ids = sut.findLatestTimelineIds(1L, 20);
 
-        assertDoesNotThrow(() -> sut.deleteByAdvertisement_Id(advertisement.getUser().getId()));
+        assertEquals(ids.size(), sut.findWithUserByIdIn(ids).size());
     }
 
     @Test
-    void deleteByAdvertisementIdDoesNotThrowException() {
-        Advertisement advertisement = advertisementRepository.findById(1L).orElseThrow();
+    void recomputeCommentCountsFixesDrift() {
+        Long advertisementId = advertisementRepository.findById(1L).orElseThrow().getId();
+        advertisementRepository.addCommentCount(advertisementId, 5);
+
+        List<Object[]> drift = advertisementRepository.recomputeCommentCounts();
 
-        assertDoesNotThrow(() -> sut.deleteByAdvertisement_Id(advertisement.getId()));
+        assertEquals(1, drift.size());
+        assertEquals(advertisementId, ((Number) drift.getFirst()[0]).longValue());
+        assertEquals(7, ((Number) drift.getFirst()[1]).intValue());
+        assertEquals(2, ((Number) drift.getFirst()[2]).intValue());
+        assertEquals(2, advertisementRepository.addCommentCount(advertisementId, 0));
     }
 }
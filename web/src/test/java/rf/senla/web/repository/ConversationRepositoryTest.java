@@ -0,0 +1,120 @@
+package rf.senla.web.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.Conversation;
+import rf.senla.domain.entity.Message;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.ConversationRepository;
+import rf.senla.domain.repository.MessageRepository;
+import rf.senla.domain.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ConversationRepositoryTest {
+    @Autowired
+    private ConversationRepository sut;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void findInboxReturnsCorrectData() {
+        User user = userRepository.findByUsername("user123").orElseThrow();
+        int expected = 3;
+
+        List<Conversation> actual = assertDoesNotThrow(() ->
+                sut.findWithParticipantsByIdIn(sut.findInboxIds(user.getId(), 20, 0)));
+
+        assertEquals(expected, actual.size());
+        assertEquals(1, actual.stream().mapToInt(conversation -> conversation.getUnreadCount("user123")).sum());
+    }
+
+    @Test
+    void findInboxIdsPutsConversationsWithoutMessagesLast() {
+        User user = userRepository.findByUsername("user123").orElseThrow();
+        User other = userRepository.findByUsername("adventure_lover").orElseThrow();
+        Long empty = sut.saveAndFlush(Conversation.builder()
+                .firstUser(user)
+                .secondUser(other)
+                .advertisement(advertisementRepository.getReferenceById(3L))
+                .firstUnreadCount(0)
+                .secondUnreadCount(0)
+                .build()).getId();
+
+        List<Long> ids = sut.findInboxIds(user.getId(), 20, 0);
+
+        assertEquals(4, ids.size());
+        assertEquals(empty, ids.getLast());
+        assertEquals(ids.subList(1, 2), sut.findInboxIds(user.getId(), 1, 1));
+    }
+
+    @Test
+    void insertAndDetachMessageMaintainLastMessageAndUnreadCount() {
+        User sender = userRepository.findByUsername("cool_guy").orElseThrow();
+        User recipient = userRepository.findByUsername("user123").orElseThrow();
+        Advertisement advertisement = advertisementRepository.findById(2L).orElseThrow();
+        Conversation conversation = findConversation(recipient, sender, advertisement);
+        Long previousId = conversation.getLastMessage().getId();
+        LocalDateTime sentAt = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MICROS);
+
+        Object[] row = messageRepository.insertMessage(sender.getId(), recipient.getId(), advertisement.getId(),
+                "Still available?", sentAt).getFirst();
+        Message message = Message.builder().id(((Number) row[0]).longValue()).sentAt(sentAt).build();
+
+        assertEquals(conversation.getId(), ((Number) row[1]).longValue());
+        entityManager.clear();
+        conversation = sut.findById(conversation.getId()).orElseThrow();
+        assertEquals(message.getId(), conversation.getLastMessage().getId());
+        assertEquals(1, conversation.getUnreadCount("user123"));
+        assertEquals(0, conversation.getUnreadCount("cool_guy"));
+
+        assertEquals(1, sut.detachMessage(message.getId(), message.getSentAt()));
+        entityManager.clear();
+        conversation = sut.findById(conversation.getId()).orElseThrow();
+        assertEquals(previousId, conversation.getLastMessage().getId());
+        assertEquals(0, conversation.getUnreadCount("user123"));
+    }
+
+    @Test
+    void markReadUpToAndSubtractUnreadClearUnreadCount() {
+        User reader = userRepository.findByUsername("user123").orElseThrow();
+        Conversation conversation = sut.findWithParticipantsByIdIn(sut.findInboxIds(reader.getId(), 20, 0)).stream()
+                .filter(inbox -> inbox.getUnreadCount("user123") > 0)
+                .findFirst()
+                .orElseThrow();
+
+        int marked = messageRepository.markReadUpTo(conversation.getId(), reader.getId(), Long.MAX_VALUE);
+        assertEquals(1, marked);
+        assertEquals(1, sut.subtractUnread(conversation.getId(), reader.getId(), marked));
+        assertEquals(0, messageRepository.markReadUpTo(conversation.getId(), reader.getId(), Long.MAX_VALUE));
+        entityManager.clear();
+        assertEquals(0, sut.findById(conversation.getId()).orElseThrow().getUnreadCount("user123"));
+    }
+
+    private Conversation findConversation(User user, User other, Advertisement advertisement) {
+        return sut.findWithParticipantsByIdIn(sut.findInboxIds(user.getId(), 20, 0)).stream()
+                .filter(conversation -> conversation.getAdvertisement().getId().equals(advertisement.getId()))
+                .filter(conversation -> conversation.getFirstUser().getId().equals(other.getId())
+                        || conversation.getSecondUser().getId().equals(other.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -4,16 +4,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.Conversation;
 import rf.senla.domain.entity.Message;
 import rf.senla.domain.entity.User;
 import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.ConversationRepository;
 import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.repository.UserRepository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -24,16 +34,26 @@ class MessageRepositoryTest {
     private AdvertisementRepository advertisementRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private ConversationRepository conversationRepository;
 
     @Test
     void saveDoesNotThrowsException() {
         Advertisement advertisement = advertisementRepository.findById(2L).orElseThrow();
         User sender = userRepository.findByUsername("user123").orElseThrow();
         User recipient = userRepository.findByUsername("cool_guy").orElseThrow();
+        Conversation conversation = conversationRepository
+                .findWithParticipantsByIdIn(conversationRepository.findInboxIds(sender.getId(), 20, 0)).stream()
+                .filter(inbox -> inbox.getAdvertisement().getId().equals(advertisement.getId()))
+                .filter(inbox -> inbox.getFirstUser().getId().equals(recipient.getId())
+                        || inbox.getSecondUser().getId().equals(recipient.getId()))
+                .findFirst()
+                .orElseThrow();
         Message expected = Message.builder()
                 .sender(sender)
                 .recipient(recipient)
                 .advertisement(advertisement)
+                .conversation(conversation)
                 .text("Test message")
                 .read(false)
                 .build();
@@ -43,6 +63,43 @@ class MessageRepositoryTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void insertMessageReusesExistingConversation() {
+        User sender = userRepository.findByUsername("user123").orElseThrow();
+        User recipient = userRepository.findByUsername("cool_guy").orElseThrow();
+        LocalDateTime sentAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        Object[] first = sut.insertMessage(sender.getId(), recipient.getId(), 2L, "First", sentAt).getFirst();
+        Object[] second = sut.insertMessage(recipient.getId(), sender.getId(), 2L, "Second", sentAt).getFirst();
+
+        assertNotEquals(first[0], second[0]);
+        assertEquals(first[1], second[1]);
+        assertTrue(sut.findByIdAndSentAt(((Number) second[0]).longValue(), sentAt).isPresent());
+    }
+
+    @Test
+    void insertMessageCreatesConversationWithUnreadMessage() {
+        User sender = userRepository.findByUsername("adventure_lover").orElseThrow();
+        User recipient = userRepository.findByUsername("user123").orElseThrow();
+        LocalDateTime sentAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        Object[] row = sut.insertMessage(sender.getId(), recipient.getId(), 3L, "Hello", sentAt).getFirst();
+
+        Conversation conversation = conversationRepository.findById(((Number) row[1]).longValue()).orElseThrow();
+        assertEquals(row[0], conversation.getLastMessage().getId());
+        assertEquals(1, conversation.getUnreadCount("user123"));
+        assertEquals(0, conversation.getUnreadCount("adventure_lover"));
+    }
+
+    @Test
+    void insertMessageThrowsDataIntegrityViolationExceptionForMissingRecipient() {
+        User sender = userRepository.findByUsername("user123").orElseThrow();
+        LocalDateTime sentAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> sut.insertMessage(sender.getId(), Long.MAX_VALUE, 2L, "Hello", sentAt));
+    }
+
     @Test
     void findMessagesBetweenUsersReturnsCorrectData() {
         User sender = userRepository.findByUsername("user123").orElseThrow();
@@ -57,16 +114,29 @@ class MessageRepositoryTest {
     }
 
     @Test
-    void deleteBySenderIdOrRecipientIdDoesNotThrowsException() {
-        Long id = userRepository.findByUsername("user123").orElseThrow().getId();
+    void timelineQueriesSeekAroundCursor() {
+        Long firstId = userRepository.findByUsername("user123").orElseThrow().getId();
+        Long secondId = userRepository.findByUsername("cool_guy").orElseThrow().getId();
+
+        List<Long> latest = sut.findLatestTimelineIds(firstId, secondId, false, 20);
+        assertEquals(2, latest.size());
+        Message newest = sut.findById(latest.get(0)).orElseThrow();
+        Message oldest = sut.findById(latest.get(1)).orElseThrow();
 
-        assertDoesNotThrow(() -> sut.deleteBySender_IdOrRecipient_Id(id, id));
+        assertEquals(List.of(oldest.getId()),
+                sut.findTimelineIdsBefore(firstId, secondId, newest.getSentAt(), newest.getId(), false, 20));
+        assertEquals(List.of(newest.getId()),
+                sut.findTimelineIdsAfter(firstId, secondId, oldest.getSentAt(), oldest.getId(), false, 20));
+        assertEquals(List.of(),
+                sut.findTimelineIdsBefore(firstId, secondId, oldest.getSentAt(), oldest.getId(), false, 20));
     }
 
     @Test
-    void deleteByAdvertisementIdDoesNotThrowsException() {
-        Long id = advertisementRepository.findById(2L).orElseThrow().getId();
+    void findWithParticipantsByIdInReturnsCorrectData() {
+        Long firstId = userRepository.findByUsername("user123").orElseThrow().getId();
+        Long secondId = userRepository.findByUsername("cool_guy").orElseThrow().getId();
+        List<Long> ids = sut.findLatestTimelineIds(firstId, secondId, false, 20);
 
-        assertDoesNotThrow(() -> sut.deleteByAdvertisement_Id(id));
+        assertEquals(ids.size(), sut.findWithParticipantsByIdIn(ids).size());
     }
 }
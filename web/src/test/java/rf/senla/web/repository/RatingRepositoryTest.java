@@ -69,12 +69,4 @@ class RatingRepositoryTest {
 
         assertFalse(actual);
     }
-
-    @Test
-    void deleteBySenderIdAndRecipientIdDoesNotThrowException() {
-        User sender = userRepository.findByUsername("user123").orElseThrow();
-        User recipient = userRepository.findByUsername("soccer_fanatic").orElseThrow();
-
-        assertDoesNotThrow(() -> sut.deleteBySender_IdOrRecipient_Id(sender.getId(), recipient.getId()));
-    }
 }
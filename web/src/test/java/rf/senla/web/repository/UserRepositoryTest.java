@@ -43,6 +43,39 @@ class UserRepositoryTest {
         assertEquals(expected.getUsername(), actual.getUsername());
     }
 
+    @Test
+    void addEvaluationIncrementsRatingAggregates() {
+        User before = sut.findByUsername("bookworm").orElseThrow();
+        long sum = before.getRatingSum() + 5;
+        int count = before.getRatingCount() + 1;
+
+        assertEquals(1, sut.addEvaluation(before.getId(), 5));
+
+        User after = sut.findById(before.getId()).orElseThrow();
+        assertEquals(sum, after.getRatingSum());
+        assertEquals(count, after.getRatingCount());
+        assertEquals((double) sum / count, after.getRating(), 1e-9);
+    }
+
+    @Test
+    void recomputeRatingAggregatesFixesOnlyDivergedUsers() {
+        User user = sut.findByUsername("bookworm").orElseThrow();
+        User expected = User.builder()
+                .rating(user.getRating())
+                .ratingSum(user.getRatingSum())
+                .ratingCount(user.getRatingCount())
+                .build();
+        sut.addEvaluation(user.getId(), 5);
+
+        assertEquals(1, sut.recomputeRatingAggregates());
+
+        User actual = sut.findById(user.getId()).orElseThrow();
+        assertEquals(expected.getRatingSum(), actual.getRatingSum());
+        assertEquals(expected.getRatingCount(), actual.getRatingCount());
+        assertEquals(expected.getRating(), actual.getRating(), 1e-9);
+        assertEquals(0, sut.recomputeRatingAggregates());
+    }
+
     @Test
     void saveUserWithDuplicateUsernameThrowsDataIntegrityViolationException() {
         User expected = User.builder()
@@ -128,16 +161,6 @@ class UserRepositoryTest {
         assertFalse(actual);
     }
 
-    @Test
-    void deleteByUsernameWithoutRelatedEntitiesDoesNotThrowsException() {
-        String expected = "foodie";
-
-        assertDoesNotThrow(() -> sut.deleteByUsername(expected));
-
-        assertThrows(UsernameNotFoundException.class, () -> sut.findByUsername(expected)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
-    }
-
     @Test
     void findResetByPasswordTokenDoesNotThrowsException() {
         String expected = "token";
@@ -0,0 +1,181 @@
+package rf.senla.web.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.AccountPurge;
+import rf.senla.domain.entity.PurgeStatus;
+import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.repository.AccountPurgeRepository;
+import rf.senla.domain.service.AccountPurgeService;
+import rf.senla.domain.service.IUserService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Rollback
+@Transactional
+@SpringBootTest
+class AccountPurgeServiceTest {
+    private static final int CHUNK_SIZE = 100;
+    private static final int ROWS = 350;
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private Long userId;
+    private AccountPurgeService sut;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private AccountPurgeRepository repository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private IUserService userService;
+
+    @BeforeEach
+    void setUp() {
+        sut = new AccountPurgeService(repository, transactionManager, false, CHUNK_SIZE, LEASE);
+        userId = (Long) entityManager.createQuery("SELECT u.id FROM User u WHERE u.username = 'user123'")
+                .getSingleResult();
+        Long otherId = (Long) entityManager.createQuery("SELECT u.id FROM User u WHERE u.username = 'cool_guy'")
+                .getSingleResult();
+        Long advertisementId = (Long) entityManager
+                .createQuery("SELECT MIN(a.id) FROM Advertisement a WHERE a.user.id = :id")
+                .setParameter("id", otherId)
+                .getSingleResult();
+        entityManager.createNativeQuery("INSERT INTO advertisement.conversations " +
+                        "(first_user_id, second_user_id, advertisement_id) " +
+                        "VALUES (LEAST(:sender, :recipient), GREATEST(:sender, :recipient), :ad) " +
+                        "ON CONFLICT DO NOTHING")
+                .setParameter("ad", advertisementId)
+                .setParameter("sender", otherId)
+                .setParameter("recipient", userId)
+                .executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO advertisement.messages " +
+                        "(advertisement_id, sender_id, recipient_id, conversation_id, text) " +
+                        "SELECT :ad, :sender, :recipient, c.id, 'Message ' || n " +
+                        "FROM advertisement.conversations c, generate_series(1, :rows) n " +
+                        "WHERE c.first_user_id = LEAST(:sender, :recipient) " +
+                        "AND c.second_user_id = GREATEST(:sender, :recipient) AND c.advertisement_id = :ad")
+                .setParameter("ad", advertisementId)
+                .setParameter("sender", otherId)
+                .setParameter("recipient", userId)
+                .setParameter("rows", ROWS)
+                .executeUpdate();
+    }
+
+    @Test
+    void deleteByUsernameHidesUserUntilPurged() {
+        userService.deleteByUsername("user123");
+
+        assertEquals(0, countUsers("SELECT COUNT(u) FROM User u WHERE u.id = :id"));
+        assertEquals(1, countNative("SELECT COUNT(*) FROM advertisement.users WHERE id = :id"));
+        assertEquals(PurgeStatus.PENDING, sut.getStatus("user123").getStatus());
+
+        assertEquals(1, sut.purgePending());
+
+        AccountPurge purge = sut.getStatus("user123");
+        assertEquals(PurgeStatus.DONE, purge.getStatus());
+        assertEquals("USER", purge.getStep());
+        assertNotNull(purge.getFinishedAt());
+        assertTrue(purge.getDeletedRows() > ROWS);
+        assertEquals(0, countNative("SELECT COUNT(*) FROM advertisement.users WHERE id = :id"));
+        assertEquals(0, countNative("SELECT COUNT(*) FROM advertisement.messages " +
+                "WHERE sender_id = :id OR recipient_id = :id"));
+    }
+
+    @Test
+    void purgePendingResumesFromSavedStep() {
+        userService.deleteByUsername("user123");
+        AccountPurge purge = sut.getStatus("user123");
+        purge.setStatus(PurgeStatus.RUNNING);
+        purge.setStep("RATINGS");
+        purge.setDeletedRows(1000L);
+        repository.save(purge);
+
+        assertEquals(1, sut.purgePending());
+
+        purge = sut.getStatus("user123");
+        assertEquals(PurgeStatus.DONE, purge.getStatus());
+        // Шаги до сохранённого не повторяются: сообщения удалены каскадом и не учтены в прогрессе
+        assertTrue(purge.getDeletedRows() > 1000L && purge.getDeletedRows() < 1000L + ROWS);
+        assertEquals(0, countNative("SELECT COUNT(*) FROM advertisement.users WHERE id = :id"));
+    }
+
+    @Test
+    void purgePendingSkipsLeasedPurge() {
+        userService.deleteByUsername("user123");
+        AccountPurge purge = sut.getStatus("user123");
+        purge.setStatus(PurgeStatus.RUNNING);
+        purge.setLeaseUntil(LocalDateTime.now().plusMinutes(1));
+        repository.save(purge);
+
+        assertEquals(0, sut.purgePending());
+
+        assertEquals(PurgeStatus.RUNNING, sut.getStatus("user123").getStatus());
+        assertEquals(1, countNative("SELECT COUNT(*) FROM advertisement.users WHERE id = :id"));
+    }
+
+    @Test
+    void purgePendingReclaimsExpiredLease() {
+        userService.deleteByUsername("user123");
+        AccountPurge purge = sut.getStatus("user123");
+        purge.setStatus(PurgeStatus.RUNNING);
+        purge.setLeaseUntil(LocalDateTime.now().minusMinutes(1));
+        repository.save(purge);
+
+        assertEquals(1, sut.purgePending());
+
+        purge = sut.getStatus("user123");
+        assertEquals(PurgeStatus.DONE, purge.getStatus());
+        assertNull(purge.getLeaseUntil());
+        assertEquals(0, countNative("SELECT COUNT(*) FROM advertisement.users WHERE id = :id"));
+    }
+
+    @Test
+    void purgePendingContinuesAfterFailedPurge() {
+        AccountPurgeRepository purges = mock(AccountPurgeRepository.class);
+        AccountPurge failed = AccountPurge.builder().userId(1L).username("failed").build();
+        AccountPurge purged = AccountPurge.builder().userId(2L).username("purged").build();
+        when(purges.claimNext(LEASE.toSeconds()))
+                .thenReturn(Optional.of(failed), Optional.of(purged), Optional.empty());
+        when(purges.deleteMessagesChunk(1L, CHUNK_SIZE)).thenThrow(new IllegalStateException("x"));
+        sut = new AccountPurgeService(purges, mock(PlatformTransactionManager.class), false, CHUNK_SIZE, LEASE);
+
+        assertEquals(1, sut.purgePending());
+
+        assertEquals(PurgeStatus.PENDING, failed.getStatus());
+        assertEquals(PurgeStatus.DONE, purged.getStatus());
+        verify(purges).deleteTombstonedUser(2L);
+        verify(purges, never()).deleteTombstonedUser(1L);
+    }
+
+    @Test
+    void getStatusThrowsNoEntityException() {
+        assertThrows(NoEntityException.class, () -> sut.getStatus("user123"));
+    }
+
+    private long countUsers(String jpql) {
+        return entityManager.createQuery(jpql, Long.class).setParameter("id", userId).getSingleResult();
+    }
+
+    private long countNative(String sql) {
+        return ((Number) entityManager.createNativeQuery(sql).setParameter("id", userId).getSingleResult())
+                .longValue();
+    }
+}
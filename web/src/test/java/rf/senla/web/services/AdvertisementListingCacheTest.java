@@ -0,0 +1,106 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.event.AdvertisementChangedEvent;
+import rf.senla.domain.event.SellerChangedEvent;
+import rf.senla.domain.service.AdvertisementListingCache;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdvertisementListingCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AdvertisementListingCache sut;
+    private List<Advertisement> cheap;
+    private List<Advertisement> expensive;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sut = new AdvertisementListingCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        cheap = List.of(Advertisement.builder().id(1L).price(500).build());
+        expensive = List.of(Advertisement.builder().id(2L).price(9000).build());
+        sut.put(0, 1000, null, Pageable.ofSize(20), sut.generation(), cheap);
+        sut.put(5000, 10000, null, Pageable.ofSize(20), sut.generation(), expensive);
+    }
+
+    @Test
+    void getNormalizesKeyword() {
+        sut.put(0, 1000, "Phone", Pageable.ofSize(20), sut.generation(), cheap);
+
+        assertEquals(1L, sut.get(0, 1000, "  phone ", Pageable.ofSize(20)).orElseThrow().getFirst().getId());
+    }
+
+    @Test
+    void getDistinguishesPages() {
+        assertTrue(sut.get(0, 1000, null, Pageable.ofSize(20).withPage(1)).isEmpty());
+    }
+
+    @Test
+    void advertisementChangeInvalidatesListingContainingAdvertisement() {
+        sut.onAdvertisementChanged(new AdvertisementChangedEvent(1L, 20000));
+
+        assertTrue(sut.get(0, 1000, null, Pageable.ofSize(20)).isEmpty());
+        assertEquals(2L, sut.get(5000, 10000, null, Pageable.ofSize(20)).orElseThrow().getFirst().getId());
+    }
+
+    @Test
+    void advertisementChangeInvalidatesListingCoveringPrice() {
+        sut.onAdvertisementChanged(new AdvertisementChangedEvent(3L, 7000));
+
+        assertEquals(1L, sut.get(0, 1000, null, Pageable.ofSize(20)).orElseThrow().getFirst().getId());
+        assertTrue(sut.get(5000, 10000, null, Pageable.ofSize(20)).isEmpty());
+    }
+
+    @Test
+    void sellerChangeInvalidatesAllListings() {
+        sut.onSellerChanged(new SellerChangedEvent(1L));
+
+        assertTrue(sut.get(0, 1000, null, Pageable.ofSize(20)).isEmpty());
+        assertTrue(sut.get(5000, 10000, null, Pageable.ofSize(20)).isEmpty());
+    }
+
+    @Test
+    void putSkipsListingReadBeforeInvalidation() {
+        long generation = sut.generation();
+        sut.onAdvertisementChanged(new AdvertisementChangedEvent(3L, 20000));
+
+        sut.put(0, 2000, null, Pageable.ofSize(20), generation, cheap);
+
+        assertTrue(sut.get(0, 2000, null, Pageable.ofSize(20)).isEmpty());
+    }
+
+    @Test
+    void getReturnsCopiesOfCachedAdvertisements() {
+        Advertisement advertisement = Advertisement.builder()
+                .id(3L)
+                .price(700)
+                .commentCount(1)
+                .user(User.builder().id(1L).username("user123").build())
+                .build();
+        sut.put(0, 1000, "phone", Pageable.ofSize(20), sut.generation(), List.of(advertisement));
+        advertisement.setCommentCount(5);
+        sut.get(0, 1000, "phone", Pageable.ofSize(20)).orElseThrow().getFirst().getUser().setUsername("changed");
+
+        Advertisement cached = sut.get(0, 1000, "phone", Pageable.ofSize(20)).orElseThrow().getFirst();
+        assertEquals(1, cached.getCommentCount());
+        assertEquals("user123", cached.getUser().getUsername());
+    }
+
+    @Test
+    void statisticsAreExposedAsMetrics() {
+        sut.get(0, 1000, null, Pageable.ofSize(20));
+        sut.get(0, 2000, null, Pageable.ofSize(20));
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,65 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.Test;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.service.AdvertisementModerationRules;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdvertisementModerationRulesTest {
+    private static final String DESCRIPTION = "A portable device combining a phone and a computer";
+    private final AdvertisementModerationRules sut =
+            new AdvertisementModerationRules(List.of("scam", " казино "), 10, 1, 1_000_000, 100_000);
+
+    @Test
+    void checkApprovesCleanAdvertisement() {
+        AdvertisementModerationRules.Verdict verdict = sut.check("Smartphone", DESCRIPTION, 1000);
+
+        assertEquals(AdvertisementStatus.ACTIVE, verdict.status());
+        assertNull(verdict.reason());
+    }
+
+    @Test
+    void checkRejectsBannedWordIgnoringCase() {
+        assertEquals(AdvertisementStatus.REJECTED, sut.check("Not a SCAM", DESCRIPTION, 1000).status());
+        assertEquals(AdvertisementStatus.REJECTED, sut.check("Smartphone", "Лучшее Казино города", 1000).status());
+        assertEquals(AdvertisementStatus.ACTIVE, sut.check("Scampi", DESCRIPTION, 1000).status());
+    }
+
+    @Test
+    void checkRejectsShortDescription() {
+        AdvertisementModerationRules.Verdict verdict = sut.check("Smartphone", " phone ", 1000);
+
+        assertEquals(AdvertisementStatus.REJECTED, verdict.status());
+        assertEquals("The description is shorter than 10 characters", verdict.reason());
+    }
+
+    @Test
+    void checkRejectsTooManyLinks() {
+        String description = "Details at https://example.com and www.example.org";
+
+        assertEquals(AdvertisementStatus.REJECTED, sut.check("Smartphone", description, 1000).status());
+    }
+
+    @Test
+    void checkRejectsTooHighPrice() {
+        assertEquals(AdvertisementStatus.REJECTED, sut.check("Smartphone", DESCRIPTION, 2_000_000).status());
+    }
+
+    @Test
+    void checkHoldsExpensiveAdvertisementForManualReview() {
+        assertEquals(AdvertisementStatus.REVIEW, sut.check("Smartphone", DESCRIPTION, 500_000).status());
+        assertEquals(AdvertisementStatus.ACTIVE, sut.check("Smartphone", DESCRIPTION, null).status());
+    }
+
+    @Test
+    void checkWithoutBannedWordsSkipsRule() {
+        AdvertisementModerationRules rules =
+                new AdvertisementModerationRules(List.of(), 10, 1, 1_000_000, 100_000);
+
+        assertEquals(AdvertisementStatus.ACTIVE, rules.check("Not a scam", DESCRIPTION, 1000).status());
+    }
+}
@@ -0,0 +1,135 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.AdvertisementModerationRules;
+import rf.senla.domain.service.AdvertisementModerationWorker;
+import rf.senla.domain.service.IAdvertisementListingCache;
+import rf.senla.domain.service.IAdvertisementSearchIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Rollback
+@Transactional
+@SpringBootTest
+class AdvertisementModerationWorkerTest {
+    private static final String DESCRIPTION = "A portable device combining a phone and a computer";
+    private SimpleMeterRegistry meterRegistry;
+    private AdvertisementModerationWorker sut;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private IAdvertisementSearchIndex searchIndex;
+    @Autowired
+    private IAdvertisementListingCache listingCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AdvertisementModerationRules rules =
+                new AdvertisementModerationRules(List.of("scam"), 10, 2, Integer.MAX_VALUE, 100_000);
+        sut = new AdvertisementModerationWorker(advertisementRepository, rules, searchIndex, listingCache,
+                transactionManager, false, 1, 10, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @Test
+    void moderateAppliesVerdictsToBatch() {
+        Advertisement clean = submit("Smartphone", DESCRIPTION, 1000);
+        Advertisement banned = submit("Scam phone", DESCRIPTION, 1000);
+        Advertisement expensive = submit("Car", DESCRIPTION, 500_000);
+
+        assertEquals(3, sut.moderate());
+
+        entityManager.clear();
+        Advertisement actualClean = advertisementRepository.findById(clean.getId()).orElseThrow();
+        Advertisement actualBanned = advertisementRepository.findById(banned.getId()).orElseThrow();
+        Advertisement actualExpensive = advertisementRepository.findById(expensive.getId()).orElseThrow();
+        assertEquals(AdvertisementStatus.ACTIVE, actualClean.getStatus());
+        assertNotNull(actualClean.getModeratedAt());
+        assertEquals(AdvertisementStatus.REJECTED, actualBanned.getStatus());
+        assertEquals("Contains a banned word: Scam", actualBanned.getRejectionReason());
+        assertEquals(AdvertisementStatus.REVIEW, actualExpensive.getStatus());
+        assertNotNull(actualExpensive.getModeratedAt());
+        assertEquals(1, meterRegistry.get("advertisement.moderation").tag("result", "approved").counter().count());
+        assertEquals(1, meterRegistry.get("advertisement.moderation").tag("result", "rejected").counter().count());
+        assertEquals(1, meterRegistry.get("advertisement.moderation").tag("result", "held").counter().count());
+        assertEquals(3, meterRegistry.get("advertisement.moderation.wait").timer().count());
+    }
+
+    @Test
+    void moderateSkipsCheckedAdvertisements() {
+        submit("Car", DESCRIPTION, 500_000);
+
+        assertEquals(1, sut.moderate());
+        assertEquals(0, sut.moderate());
+    }
+
+    @Test
+    void refreshQueueStatsPublishesQueueGauges() {
+        Advertisement expensive = submit("Car", DESCRIPTION, 500_000);
+        sut.moderate();
+        submit("Smartphone", DESCRIPTION, 1000);
+        submit("Laptop", DESCRIPTION, 2000);
+
+        sut.refreshQueueStats();
+
+        assertTrue(meterRegistry.get("advertisement.moderation.queue.size").tag("stage", "automatic")
+                .gauge().value() >= 2);
+        assertTrue(meterRegistry.get("advertisement.moderation.queue.size").tag("stage", "manual")
+                .gauge().value() >= 1);
+        assertTrue(meterRegistry.get("advertisement.moderation.queue.age").tag("stage", "manual")
+                .gauge().value() >= 3600);
+        assertNull(advertisementRepository.findById(expensive.getId()).orElseThrow().getRejectionReason());
+    }
+
+    @Test
+    void approveActivatesReviewAndRejectedAdvertisements() {
+        Advertisement banned = submit("Scam phone", DESCRIPTION, 1000);
+        Advertisement expensive = submit("Car", DESCRIPTION, 500_000);
+        sut.moderate();
+
+        List<Long> approved = advertisementRepository.approve(List.of(banned.getId(), expensive.getId(), 1L));
+
+        entityManager.clear();
+        assertEquals(2, approved.size());
+        assertTrue(approved.containsAll(List.of(banned.getId(), expensive.getId())));
+        Advertisement actual = advertisementRepository.findById(banned.getId()).orElseThrow();
+        assertEquals(AdvertisementStatus.ACTIVE, actual.getStatus());
+        assertNull(actual.getRejectionReason());
+    }
+
+    private Advertisement submit(String headline, String description, Integer price) {
+        return advertisementRepository.saveAndFlush(Advertisement.builder()
+                .user(userRepository.getReferenceById(1L))
+                .headline(headline)
+                .description(description)
+                .price(price)
+                .status(AdvertisementStatus.REVIEW)
+                .submittedAt(LocalDateTime.now().minusHours(2))
+                .build());
+    }
+}
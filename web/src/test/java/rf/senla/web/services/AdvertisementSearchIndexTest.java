@@ -0,0 +1,186 @@
+package rf.senla.web.services;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.service.AdvertisementSearchIndex;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class AdvertisementSearchIndexTest {
+    private User seller;
+    private User otherSeller;
+    private Advertisement smartphone;
+    private Advertisement laptop;
+    private Advertisement umbrella;
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @InjectMocks
+    private AdvertisementSearchIndex sut;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        seller = User.builder()
+                .id(1L)
+                .username("user123")
+                .rating(1.0)
+                .role(Role.ROLE_USER)
+                .build();
+        otherSeller = User.builder()
+                .id(2L)
+                .username("cool_guy")
+                .rating(5.0)
+                .role(Role.ROLE_USER)
+                .build();
+        smartphone = Advertisement.builder()
+                .id(1L)
+                .user(seller)
+                .price(1000)
+                .headline("Smartphone")
+                .description("A portable device with internet access")
+                .status(AdvertisementStatus.ACTIVE)
+                .boosted(false)
+                .build();
+        laptop = Advertisement.builder()
+                .id(2L)
+                .user(otherSeller)
+                .price(2000)
+                .headline("Laptop")
+                .description("A portable computer")
+                .status(AdvertisementStatus.ACTIVE)
+                .boosted(false)
+                .build();
+        umbrella = Advertisement.builder()
+                .id(3L)
+                .user(seller)
+                .price(8000)
+                .headline("Umbrella")
+                .description("A portable device against rain")
+                .status(AdvertisementStatus.ACTIVE)
+                .boosted(true)
+                .build();
+
+        for (Field field : sut.getClass().getDeclaredFields()) {
+            if (field.getName().equals("enabled")) {
+                field.setAccessible(true);
+                field.set(sut, true);
+            }
+        }
+
+        when(advertisementRepository.findByStatus(any())).thenReturn(List.of(smartphone, laptop, umbrella));
+        sut.rebuild();
+    }
+
+    @Test
+    void rebuildLoadsActiveAdvertisements() {
+        verify(advertisementRepository, times(1)).findByStatus(AdvertisementStatus.ACTIVE);
+    }
+
+    @Test
+    void searchReturnsFeedOrder() {
+        List<Long> actual = sut.search(0, Integer.MAX_VALUE, "portable", Pageable.ofSize(20));
+
+        assertEquals(List.of(3L, 2L, 1L), actual);
+    }
+
+    @Test
+    void searchIntersectsTermsCaseInsensitively() {
+        List<Long> actual = sut.search(0, Integer.MAX_VALUE, "PORTABLE Device", Pageable.ofSize(20));
+
+        assertEquals(List.of(3L, 1L), actual);
+    }
+
+    @Test
+    void searchFiltersByPrice() {
+        List<Long> actual = sut.search(500, 5000, "portable", Pageable.ofSize(20));
+
+        assertEquals(List.of(2L, 1L), actual);
+    }
+
+    @Test
+    void searchWithoutKeywordReturnsPage() {
+        List<Long> actual = sut.search(0, Integer.MAX_VALUE, null, Pageable.ofSize(2).withPage(1));
+
+        assertEquals(List.of(1L), actual);
+    }
+
+    @Test
+    void searchWithKeywordReturnsPage() {
+        List<Long> actual = sut.search(0, Integer.MAX_VALUE, "portable", Pageable.ofSize(2).withPage(1));
+
+        assertEquals(List.of(1L), actual);
+    }
+
+    @Test
+    void searchWithUnknownTermReturnsEmptyList() {
+        assertTrue(sut.search(0, Integer.MAX_VALUE, "portable camera", Pageable.ofSize(20)).isEmpty());
+    }
+
+    @Test
+    void indexRemovesSoldAdvertisement() {
+        smartphone.setStatus(AdvertisementStatus.SOLD);
+
+        sut.index(smartphone);
+
+        assertEquals(List.of(3L), sut.search(0, Integer.MAX_VALUE, "device", Pageable.ofSize(20)));
+    }
+
+    @Test
+    void indexReplacesUpdatedTerms() {
+        laptop.setDescription("A powerful notebook");
+
+        sut.index(laptop);
+
+        assertTrue(sut.search(0, Integer.MAX_VALUE, "computer", Pageable.ofSize(20)).isEmpty());
+        assertEquals(List.of(2L), sut.search(0, Integer.MAX_VALUE, "notebook", Pageable.ofSize(20)));
+    }
+
+    @Test
+    void removeBySellerRemovesAllSellerAdvertisements() {
+        sut.removeBySeller(seller.getId());
+
+        assertEquals(List.of(2L), sut.search(0, Integer.MAX_VALUE, null, Pageable.ofSize(20)));
+    }
+
+    @Test
+    void updateSellerRatingChangesOrder() {
+        sut.updateSellerRating(seller.getId(), 10.0);
+
+        assertEquals(List.of(3L, 1L, 2L), sut.search(0, Integer.MAX_VALUE, "portable", Pageable.ofSize(20)));
+    }
+
+    @Test
+    void updateSellerRatingChangesOrderWithoutKeyword() {
+        sut.updateSellerRating(seller.getId(), 10.0);
+
+        assertEquals(List.of(3L, 1L, 2L), sut.search(0, Integer.MAX_VALUE, null, Pageable.ofSize(20)));
+    }
+
+    @Test
+    void rebuildDeduplicatesPostings() {
+        when(advertisementRepository.findByStatus(any())).thenReturn(List.of(laptop, smartphone, laptop));
+
+        sut.rebuild();
+
+        assertEquals(List.of(2L, 1L), sut.search(0, Integer.MAX_VALUE, "portable", Pageable.ofSize(20)));
+    }
+}
@@ -6,28 +6,42 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.event.AdvertisementChangedEvent;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.NoEntityException;
 import rf.senla.domain.exception.TechnicalException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.FeedCursor;
 import rf.senla.domain.repository.AdvertisementRepository;
-import rf.senla.domain.repository.CommentRepository;
-import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.service.AdvertisementService;
+import rf.senla.domain.service.IAdvertisementListingCache;
+import rf.senla.domain.service.IAdvertisementSearchIndex;
+import rf.senla.domain.service.IAdvertisementViewCounter;
+import rf.senla.domain.service.IBoostExpiryScheduler;
+import rf.senla.domain.service.ITrendingTracker;
 import rf.senla.domain.service.UserService;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -45,9 +59,17 @@ class AdvertisementServiceTest {
     @Mock
     private AdvertisementRepository advertisementRepository;
     @Mock
-    private CommentRepository commentRepository;
+    private IAdvertisementSearchIndex advertisementSearchIndex;
     @Mock
-    private MessageRepository messageRepository;
+    private IAdvertisementListingCache listingCache;
+    @Mock
+    private IAdvertisementViewCounter viewCounter;
+    @Mock
+    private ITrendingTracker trendingTracker;
+    @Mock
+    private IBoostExpiryScheduler boostExpiryScheduler;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private AdvertisementService sut;
 
@@ -343,6 +365,75 @@ class AdvertisementServiceTest {
                 .findAllWithActiveStatus(anyInt(), anyInt(), anyString(), any());
     }
 
+    @Test
+    void getAllReturnsCachedListingWithoutQuery() {
+        when(listingCache.get(anyInt(), anyInt(), anyString(), any())).thenReturn(Optional.of(advertisements));
+
+        List<Advertisement> actual = assertDoesNotThrow(() -> sut.getAll(0, 5000, "one", Pageable.ofSize(20)));
+
+        assertEquals(advertisements, actual);
+        verify(advertisementRepository, times(0))
+                .findAllWithActiveStatus(anyInt(), anyInt(), anyString(), any());
+        verify(viewCounter, times(1)).record(anyCollection());
+    }
+
+    @Test
+    void getAllPutsListingIntoCache() {
+        when(advertisementRepository.findAllWithActiveStatus(anyInt(), anyInt(), anyString(), any()))
+                .thenReturn(advertisements);
+
+        assertDoesNotThrow(() -> sut.getAll(0, 5000, "one", Pageable.ofSize(20)));
+
+        verify(listingCache, times(1)).put(anyInt(), anyInt(), anyString(), any(), anyLong(), any());
+        verify(viewCounter, times(1)).record(anyCollection());
+    }
+
+    @Test
+    void getAllUsesSearchIndexWhenEnabled() {
+        when(advertisementSearchIndex.isEnabled()).thenReturn(true);
+        when(advertisementSearchIndex.search(anyInt(), anyInt(), anyString(), any())).thenReturn(List.of(2L, 1L));
+        when(advertisementRepository.findWithUserByIdIn(any()))
+                .thenReturn(List.of(advertisements.get(0), advertisements.get(1)));
+
+        List<Advertisement> actual = assertDoesNotThrow(() -> sut.getAll(0, 5000, "one", Pageable.ofSize(20)));
+
+        assertEquals(2L, actual.getFirst().getId());
+        verify(advertisementRepository, times(0))
+                .findAllWithActiveStatus(anyInt(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void getFeedWithoutCursorReturnsFirstPage() {
+        when(advertisementRepository.findFeedIds(anyInt(), anyInt(), any(), anyInt())).thenReturn(List.of(1L, 2L));
+        when(advertisementRepository.findWithUserByIdIn(any())).thenReturn(advertisements.subList(0, 2));
+
+        CursorPage<Advertisement> actual = assertDoesNotThrow(() -> sut.getFeed(null, null, null, null, 2));
+
+        assertEquals(2, actual.content().size());
+        assertNotNull(actual.nextCursor());
+        verify(advertisementRepository, times(1)).findFeedIds(anyInt(), anyInt(), any(), anyInt());
+        verify(viewCounter, times(1)).record(List.of(1L, 2L));
+    }
+
+    @Test
+    void getFeedWithCursorSeeksAfterCursor() {
+        String cursor = FeedCursor.of(advertisements.getFirst()).encode();
+        when(advertisementRepository.findFeedIdsAfter(anyInt(), anyInt(), any(), anyDouble(), anyLong(), anyInt()))
+                .thenReturn(List.of(2L));
+        when(advertisementRepository.findWithUserByIdIn(any())).thenReturn(advertisements.subList(1, 2));
+
+        CursorPage<Advertisement> actual = assertDoesNotThrow(() -> sut.getFeed(null, null, null, cursor, 2));
+
+        assertNull(actual.nextCursor());
+        verify(advertisementRepository, times(1)).findFeedIdsAfter(anyInt(), anyInt(), any(), anyDouble(), anyLong(),
+                anyInt());
+    }
+
+    @Test
+    void getFeedWithInvalidCursorThrowsException() {
+        assertThrows(TechnicalException.class, () -> sut.getFeed(null, null, null, "???", 2));
+    }
+
     @Test
     void getAllWithIncorrectDataThrowsException() {
         when(advertisementRepository.findAllWithActiveStatus(anyInt(), anyInt(), anyString(), any()))
@@ -409,12 +500,12 @@ class AdvertisementServiceTest {
     void updateByUserDoesNotThrowException() {
         Advertisement expected = advertisements.getFirst();
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(expected));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(expected));
         when(advertisementRepository.save(any())).thenReturn(expected);
 
         assertDoesNotThrow(() -> sut.update(expected, user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(1)).save(any());
     }
 
@@ -422,11 +513,11 @@ class AdvertisementServiceTest {
     void updateByUserThrowsNoEntityException() {
         Advertisement expected = advertisements.getFirst();
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.update(expected, user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).save(any());
     }
 
@@ -434,11 +525,11 @@ class AdvertisementServiceTest {
     void updateByUserThrowsAccessDeniedException() {
         Advertisement expected = advertisements.getFirst();
         User user = users.getLast();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(expected));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(expected));
 
         assertThrows(AccessDeniedException.class, () -> sut.update(expected, user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).save(any());
     }
 
@@ -456,6 +547,21 @@ class AdvertisementServiceTest {
         verify(advertisementRepository, times(1)).save(any());
     }
 
+    @Test
+    void updateByAdminSetsBoostExpiry() {
+        Advertisement expected = advertisements.getFirst();
+        expected.setBoosted(true);
+        expected.setBoostedUntil(null);
+        when(userService.getByUsername(anyString())).thenReturn(users.getFirst());
+        when(advertisementRepository.existsById(anyLong())).thenReturn(true);
+        when(advertisementRepository.save(any())).thenReturn(expected);
+
+        assertDoesNotThrow(() -> sut.update(expected));
+
+        assertNotNull(expected.getBoostedUntil());
+        verify(boostExpiryScheduler, times(1)).schedule(expected.getId(), expected.getBoostedUntil());
+    }
+
     @Test
     void updateByAdminThrowsNoEntityException() {
         Advertisement expected = advertisements.getFirst();
@@ -471,106 +577,130 @@ class AdvertisementServiceTest {
     @Test
     void deleteByUserDoesNotThrowException() {
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
 
         assertDoesNotThrow(() -> sut.delete(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(1)).deleteById(anyLong());
-        verify(commentRepository, times(1)).deleteByAdvertisement_Id(anyLong());
-        verify(messageRepository, times(1)).deleteByAdvertisement_Id(anyLong());
     }
 
     @Test
     void deleteByUserThrowsNoEntityException() {
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.delete(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).deleteById(anyLong());
-        verify(commentRepository, times(0)).deleteByAdvertisement_Id(anyLong());
-        verify(messageRepository, times(0)).deleteByAdvertisement_Id(anyLong());
     }
 
     @Test
     void deleteByUserThrowsAccessDeniedException() {
         User user = users.getLast();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
 
         assertThrows(AccessDeniedException.class, () -> sut.delete(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).deleteById(anyLong());
-        verify(commentRepository, times(0)).deleteByAdvertisement_Id(anyLong());
-        verify(messageRepository, times(0)).deleteByAdvertisement_Id(anyLong());
     }
 
     @Test
     void deleteByAdminDoesNotThrowException() {
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisements.getFirst()));
 
         assertDoesNotThrow(() -> sut.delete(anyLong()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(1)).deleteById(anyLong());
-        verify(commentRepository, times(1)).deleteByAdvertisement_Id(anyLong());
-        verify(messageRepository, times(1)).deleteByAdvertisement_Id(anyLong());
     }
 
     @Test
     void deleteByAdminThrowsNoEntityException() {
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.delete(anyLong()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).deleteById(anyLong());
-        verify(commentRepository, times(0)).deleteByAdvertisement_Id(anyLong());
-        verify(messageRepository, times(0)).deleteByAdvertisement_Id(anyLong());
     }
 
     @Test
     void getByIdDoesNotThrowException() {
         Advertisement expected = advertisements.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(expected));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(expected));
 
         assertDoesNotThrow(() -> sut.getById(anyLong()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
     }
 
     @Test
     void getByIdThrowsNoEntityException() {
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.getById(anyLong()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
+    }
+
+    @Test
+    void viewRecordsView() {
+        Advertisement expected = advertisements.getFirst();
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(expected));
+
+        assertEquals(expected, sut.view(expected.getId()));
+
+        verify(viewCounter, times(1)).record(expected.getId());
+        verify(trendingTracker, times(1)).record(expected.getId(), ITrendingTracker.Signal.VIEW);
+    }
+
+    @Test
+    void getTrendingKeepsTrackerOrderAndSkipsInactive() {
+        Advertisement active = advertisements.get(0);
+        Advertisement sold = Advertisement.builder().id(100L).status(AdvertisementStatus.SOLD).build();
+        when(trendingTracker.getTop(anyInt())).thenReturn(List.of(100L, 2L, active.getId()));
+        when(advertisementRepository.findWithUserByIdIn(any()))
+                .thenReturn(List.of(active, sold, advertisements.get(1)));
+
+        List<Advertisement> actual = sut.getTrending(10);
+
+        assertEquals(List.of(2L, active.getId()), actual.stream().map(Advertisement::getId).toList());
+    }
+
+    @Test
+    void viewThrowsNoEntityException() {
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NoEntityException.class, () -> sut.view(1L));
+
+        verify(viewCounter, times(0)).record(anyLong());
     }
 
     @Test
     void sellDoesNotThrowException() {
         Advertisement expected = advertisements.getFirst();
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(expected));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(expected));
         when(advertisementRepository.save(any())).thenReturn(expected);
 
         assertDoesNotThrow(() -> sut.sell(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(1)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(AdvertisementChangedEvent.class));
     }
 
     @Test
     void sellThrowsNoEntityException() {
         User user = users.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.sell(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).save(any());
     }
 
@@ -578,35 +708,58 @@ class AdvertisementServiceTest {
     void sellThrowsAccessDeniedException() {
         Advertisement advertisement = advertisements.getFirst();
         User user = users.getLast();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisement));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisement));
 
         assertThrows(AccessDeniedException.class, () -> sut.sell(anyLong(), user));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).save(any());
     }
 
     @Test
     void boostDoesNotThrowException() {
         Advertisement advertisement = advertisements.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisement));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisement));
         when(advertisementRepository.save(any())).thenReturn(advertisement);
 
         assertDoesNotThrow(() -> sut.boost(anyLong(), users.getFirst()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(1)).save(any());
+        assertTrue(advertisement.getBoosted());
+        assertTrue(advertisement.getBoostedUntil().isAfter(LocalDateTime.now()));
+        verify(boostExpiryScheduler, times(1)).schedule(advertisement.getId(), advertisement.getBoostedUntil());
     }
 
     @Test
     void boostWithIncorrectUserThrowsException() {
         Advertisement advertisement = advertisements.getFirst();
-        when(advertisementRepository.findById(anyLong())).thenReturn(Optional.of(advertisement));
+        when(advertisementRepository.findWithUserById(anyLong())).thenReturn(Optional.of(advertisement));
         when(advertisementRepository.save(any())).thenReturn(advertisement);
 
         assertThrows(AccessDeniedException.class, () -> sut.boost(anyLong(), users.getLast()));
 
-        verify(advertisementRepository, times(1)).findById(anyLong());
+        verify(advertisementRepository, times(1)).findWithUserById(anyLong());
         verify(advertisementRepository, times(0)).save(any());
+        verify(boostExpiryScheduler, times(0)).schedule(any(), any());
+    }
+
+    @Test
+    void approveInvalidatesListingCache() {
+        when(advertisementRepository.approve(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+        assertEquals(List.of(1L), sut.approve(List.of(1L, 2L)));
+
+        verify(advertisementRepository, times(1)).approve(List.of(1L, 2L));
+        verify(listingCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    void approveWithoutReviewAdvertisementsKeepsListingCache() {
+        when(advertisementRepository.approve(List.of(1L))).thenReturn(List.of());
+
+        assertEquals(List.of(), sut.approve(List.of(1L)));
+
+        verify(listingCache, times(0)).invalidateAll();
     }
 }
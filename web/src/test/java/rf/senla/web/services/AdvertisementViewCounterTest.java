@@ -0,0 +1,128 @@
+package rf.senla.web.services;
+
+import jakarta.persistence.EntityManager;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.service.AdvertisementViewCounter;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Rollback
+@Transactional
+@SpringBootTest
+class AdvertisementViewCounterTest {
+    private AdvertisementViewCounter sut;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        sut = new AdvertisementViewCounter(advertisementRepository, transactionManager, true, 2);
+    }
+
+    @Test
+    void flushAddsAccumulatedViewsInBatches() {
+        long before = getViewCount(1L);
+        sut.record(1L);
+        sut.record(1L);
+        sut.record(List.of(1L, 2L, 3L));
+
+        assertEquals(3, sut.flush());
+
+        assertEquals(before + 3, getViewCount(1L));
+        assertEquals(0, sut.flush());
+    }
+
+    @Test
+    void flushAccumulatesAcrossFlushes() {
+        long before = getViewCount(2L);
+        sut.record(2L);
+        sut.flush();
+        sut.record(2L);
+        sut.flush();
+
+        assertEquals(before + 2, getViewCount(2L));
+    }
+
+    @Test
+    @SneakyThrows
+    void flushDoesNotLoseViewsRecordedConcurrently() {
+        long before = getViewCount(3L);
+        int threads = 4;
+        int views = 20_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < views; j++) {
+                        sut.record(3L);
+                    }
+                    done.countDown();
+                });
+            }
+            while (done.getCount() > 0) {
+                sut.flush();
+            }
+        }
+        sut.flush();
+
+        assertEquals(before + (long) threads * views, getViewCount(3L));
+    }
+
+    @Test
+    void flushSkipsUnknownAdvertisements() {
+        sut.record(1000L);
+
+        assertEquals(0, sut.flush());
+
+        assertEquals(0L, entityManager.createNativeQuery("SELECT COUNT(*) FROM advertisement.advertisement_stats " +
+                        "WHERE advertisement_id = 1000")
+                .getSingleResult());
+    }
+
+    @Test
+    @SneakyThrows
+    void flushRemovesCountersOfUnknownAdvertisements() {
+        sut.record(1L);
+        sut.record(1000L);
+
+        assertEquals(1, sut.flush());
+
+        Field field = AdvertisementViewCounter.class.getDeclaredField("counters");
+        field.setAccessible(true);
+        Map<?, ?> counters = (Map<?, ?>) field.get(sut);
+        assertEquals(Set.of(1L), counters.keySet());
+    }
+
+    @Test
+    void disabledCounterIgnoresViews() {
+        sut = new AdvertisementViewCounter(advertisementRepository, transactionManager, false, 2);
+        sut.record(1L);
+
+        assertEquals(0, sut.flush());
+    }
+
+    private long getViewCount(Long id) {
+        entityManager.clear();
+        return advertisementRepository.findById(id).orElseThrow().getViewCount();
+    }
+}
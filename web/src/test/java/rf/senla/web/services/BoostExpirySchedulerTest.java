@@ -0,0 +1,135 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.service.BoostExpiryScheduler;
+import rf.senla.domain.service.IAdvertisementListingCache;
+import rf.senla.domain.service.IAdvertisementSearchIndex;
+
+import jakarta.persistence.EntityManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Rollback
+@Transactional
+@SpringBootTest
+class BoostExpirySchedulerTest {
+    private static final long SECOND = 1000;
+    private BoostExpiryScheduler sut;
+    private long start;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private IAdvertisementSearchIndex searchIndex;
+    @Autowired
+    private IAdvertisementListingCache listingCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        sut = new BoostExpiryScheduler(advertisementRepository, searchIndex, listingCache, transactionManager,
+                Duration.ofSeconds(1), 2, 2, 2);
+        long now = System.currentTimeMillis();
+        sut.advance(now);
+        start = Math.floorDiv(now, SECOND) * SECOND;
+    }
+
+    @Test
+    void advanceReturnsTimersWhenTheyExpire() {
+        sut.schedule(1L, start + 3 * SECOND);
+        sut.schedule(2L, start + SECOND);
+
+        assertEquals(List.of(), sut.advance(start));
+        assertEquals(List.of(2L), sut.advance(start + SECOND));
+        assertEquals(List.of(), sut.advance(start + 2 * SECOND));
+        assertEquals(List.of(1L), sut.advance(start + 3 * SECOND));
+    }
+
+    @Test
+    void advanceCascadesHigherLevels() {
+        sut.schedule(1L, start + 7 * SECOND);
+        sut.schedule(2L, start + 13 * SECOND);
+
+        assertEquals(List.of(), sut.advance(start + 6 * SECOND));
+        assertEquals(List.of(1L), sut.advance(start + 7 * SECOND));
+        assertEquals(List.of(), sut.advance(start + 12 * SECOND));
+        assertEquals(List.of(2L), sut.advance(start + 13 * SECOND));
+    }
+
+    @Test
+    void advanceKeepsTimersBeyondHorizon() {
+        sut.schedule(1L, start + 40 * SECOND);
+
+        assertEquals(List.of(), sut.advance(start + 39 * SECOND));
+        assertEquals(List.of(1L), sut.advance(start + 40 * SECOND));
+    }
+
+    @Test
+    void scheduleInThePastExpiresOnNextAdvance() {
+        sut.schedule(1L, start - SECOND);
+
+        assertEquals(List.of(1L), sut.advance(start));
+    }
+
+    @Test
+    void expireUnboostsAdvertisement() {
+        Advertisement advertisement = boost(1L, LocalDateTime.now().minusMinutes(1));
+        sut.schedule(advertisement.getId(), advertisement.getBoostedUntil());
+
+        assertEquals(1, sut.expire());
+
+        entityManager.clear();
+        Advertisement actual = advertisementRepository.findById(advertisement.getId()).orElseThrow();
+        assertFalse(actual.getBoosted());
+        assertNull(actual.getBoostedUntil());
+    }
+
+    @Test
+    void expireSkipsExtendedBoost() {
+        Advertisement advertisement = boost(1L, LocalDateTime.now().minusMinutes(1));
+        sut.schedule(advertisement.getId(), advertisement.getBoostedUntil());
+        boost(1L, LocalDateTime.now().plusDays(1));
+
+        assertEquals(0, sut.expire());
+
+        entityManager.clear();
+        assertTrue(advertisementRepository.findById(1L).orElseThrow().getBoosted());
+    }
+
+    @Test
+    void sweepUnboostsAllExpiredAdvertisements() {
+        boost(1L, LocalDateTime.now().minusMinutes(1));
+        boost(2L, LocalDateTime.now().minusMinutes(1));
+
+        assertTrue(sut.sweep() >= 2);
+
+        entityManager.clear();
+        assertFalse(advertisementRepository.findById(1L).orElseThrow().getBoosted());
+        assertFalse(advertisementRepository.findById(2L).orElseThrow().getBoosted());
+    }
+
+    private Advertisement boost(Long id, LocalDateTime until) {
+        Advertisement advertisement = advertisementRepository.findById(id).orElseThrow();
+        advertisement.setBoosted(true);
+        advertisement.setBoostedUntil(until);
+        advertisementRepository.saveAndFlush(advertisement);
+        return advertisement;
+    }
+}
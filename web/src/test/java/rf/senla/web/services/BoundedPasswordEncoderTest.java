@@ -0,0 +1,81 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import rf.senla.domain.exception.ServiceBusyException;
+import rf.senla.domain.security.BoundedPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder sut;
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void encodeAndMatchesRunOnPool() {
+        sut = new BoundedPasswordEncoder(4, 1, 4, Duration.ofSeconds(5), Duration.ofSeconds(1), meterRegistry);
+
+        String encoded = sut.encode("password123");
+
+        assertTrue(encoded.startsWith("$2a$04$"));
+        assertTrue(sut.matches("password123", encoded));
+        assertFalse(sut.matches("password", encoded));
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncodingDetectsDifferentCost() {
+        sut = new BoundedPasswordEncoder(5, 1, 4, Duration.ofSeconds(5), Duration.ofSeconds(1), meterRegistry);
+
+        assertTrue(sut.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123")));
+        assertTrue(sut.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password123")));
+        assertFalse(sut.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password123")));
+        assertFalse(sut.upgradeEncoding(null));
+    }
+
+    @Test
+    void saturatedPoolRejectsFast() {
+        sut = new BoundedPasswordEncoder(12, 1, 1, Duration.ofSeconds(30), Duration.ofSeconds(2), meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> sut.encode("password123"), callers));
+        }
+
+        List<Throwable> errors = new ArrayList<>();
+        for (CompletableFuture<String> result : results) {
+            try {
+                result.join();
+            } catch (CompletionException e) {
+                errors.add(e.getCause());
+            }
+        }
+        callers.shutdown();
+
+        assertFalse(errors.isEmpty());
+        errors.forEach(error -> {
+            assertInstanceOf(ServiceBusyException.class, error);
+            assertEquals(Duration.ofSeconds(2), ((ServiceBusyException) error).getRetryAfter());
+        });
+        assertEquals(errors.size(), meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+}
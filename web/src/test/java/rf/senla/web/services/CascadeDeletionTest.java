@@ -0,0 +1,136 @@
+package rf.senla.web.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+import rf.senla.domain.entity.PurgeStatus;
+import rf.senla.domain.service.IAccountPurgeService;
+import rf.senla.domain.service.IAdvertisementService;
+import rf.senla.domain.service.IUserService;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Rollback
+@Transactional
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CascadeDeletionTest {
+    private static final int ROWS = 500;
+    private static final long MAX_USER_STATEMENTS = 7;
+    private static final long MAX_ADVERTISEMENT_STATEMENTS = 2;
+    private Statistics statistics;
+    private Long advertisementId;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IAdvertisementService advertisementService;
+    @Autowired
+    private IAccountPurgeService accountPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Long userId = (Long) entityManager.createQuery("SELECT u.id FROM User u WHERE u.username = 'user123'")
+                .getSingleResult();
+        advertisementId = (Long) entityManager
+                .createQuery("SELECT MIN(a.id) FROM Advertisement a WHERE a.user.id = :id")
+                .setParameter("id", userId)
+                .getSingleResult();
+        Long otherId = (Long) entityManager.createQuery("SELECT u.id FROM User u WHERE u.username = 'cool_guy'")
+                .getSingleResult();
+        Long thirdId = (Long) entityManager
+                .createQuery("SELECT u.id FROM User u WHERE u.username = 'adventure_lover'")
+                .getSingleResult();
+
+        // Переписка с продавцом, переписка третьих лиц по его объявлению и комментарии к объявлению
+        insertMessages(otherId, userId);
+        insertMessages(otherId, thirdId);
+        insert("INSERT INTO advertisement.comments (advertisement_id, user_id, text) " +
+                "SELECT :ad, :sender, 'Comment ' || n FROM generate_series(1, :rows) n",
+                Map.of("ad", advertisementId, "sender", otherId));
+        entityManager.clear();
+    }
+
+    @Test
+    void deleteUserTombstonesWithConstantStatementsAndPurgesInBackground() {
+        statistics.clear();
+
+        userService.deleteByUsername("user123");
+        entityManager.flush();
+
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_USER_STATEMENTS,
+                "Executed " + statistics.getPrepareStatementCount() + " statements");
+        // Данные скрыты из чтения, но физически удаляются только фоновой задачей
+        assertEquals(0, count("SELECT COUNT(m) FROM Message m WHERE m.advertisement.id = :id"));
+        assertEquals(0, count("SELECT COUNT(c) FROM Comment c WHERE c.advertisement.id = :id"));
+        assertEquals(0, count("SELECT COUNT(a) FROM Advertisement a WHERE a.id = :id"));
+        assertTrue(nativeCount("SELECT COUNT(*) FROM advertisement.messages WHERE advertisement_id = :id")
+                >= 2L * ROWS);
+
+        accountPurgeService.purgePending();
+
+        assertEquals(0, nativeCount("SELECT COUNT(*) FROM advertisement.messages WHERE advertisement_id = :id"));
+        assertEquals(0, nativeCount("SELECT COUNT(*) FROM advertisement.comments WHERE advertisement_id = :id"));
+        assertEquals(0, nativeCount("SELECT COUNT(*) FROM advertisement.advertisements WHERE id = :id"));
+        assertEquals(PurgeStatus.DONE, accountPurgeService.getStatus("user123").getStatus());
+    }
+
+    @Test
+    void deleteAdvertisementRemovesFullCascadeWithConstantStatements() {
+        statistics.clear();
+
+        advertisementService.delete(advertisementId);
+        entityManager.flush();
+
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_ADVERTISEMENT_STATEMENTS,
+                "Executed " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(0, count("SELECT COUNT(m) FROM Message m WHERE m.advertisement.id = :id"));
+        assertEquals(0, count("SELECT COUNT(c) FROM Comment c WHERE c.advertisement.id = :id"));
+        assertEquals(0, count("SELECT COUNT(a) FROM Advertisement a WHERE a.id = :id"));
+    }
+
+    private void insertMessages(Long sender, Long recipient) {
+        Map<String, Long> parameters = Map.of("ad", advertisementId, "sender", sender, "recipient", recipient);
+        Query conversation = entityManager.createNativeQuery("INSERT INTO advertisement.conversations " +
+                "(first_user_id, second_user_id, advertisement_id) " +
+                "VALUES (LEAST(:sender, :recipient), GREATEST(:sender, :recipient), :ad) ON CONFLICT DO NOTHING");
+        parameters.forEach(conversation::setParameter);
+        conversation.executeUpdate();
+        insert("INSERT INTO advertisement.messages " +
+                "(advertisement_id, sender_id, recipient_id, conversation_id, text) " +
+                "SELECT :ad, :sender, :recipient, c.id, 'Message ' || n " +
+                "FROM advertisement.conversations c, generate_series(1, :rows) n " +
+                "WHERE c.first_user_id = LEAST(:sender, :recipient) " +
+                "AND c.second_user_id = GREATEST(:sender, :recipient) AND c.advertisement_id = :ad",
+                parameters);
+    }
+
+    private void insert(String sql, Map<String, Long> parameters) {
+        Query query = entityManager.createNativeQuery(sql).setParameter("rows", ROWS);
+        parameters.forEach(query::setParameter);
+        query.executeUpdate();
+    }
+
+    private long count(String jpql) {
+        return entityManager.createQuery(jpql, Long.class).setParameter("id", advertisementId).getSingleResult();
+    }
+
+    private long nativeCount(String sql) {
+        return ((Number) entityManager.createNativeQuery(sql).setParameter("id", advertisementId).getSingleResult())
+                .longValue();
+    }
+}
@@ -0,0 +1,46 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.service.CommentCountConsistencyJob;
+import rf.senla.domain.service.IAdvertisementListingCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class CommentCountConsistencyJobTest {
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @Mock
+    private IAdvertisementListingCache listingCache;
+    @InjectMocks
+    private CommentCountConsistencyJob sut;
+
+    @Test
+    void recomputeWithConsistentCountsDoesNothing() {
+        when(advertisementRepository.recomputeCommentCounts()).thenReturn(List.of());
+
+        assertEquals(0, sut.recompute());
+
+        verify(listingCache, times(0)).invalidateAll();
+    }
+
+    @Test
+    void recomputeWithDivergedCountsInvalidatesListing() {
+        when(advertisementRepository.recomputeCommentCounts()).thenReturn(List.of(
+                new Object[]{1L, 3, 2L},
+                new Object[]{4L, 0, 5L}));
+
+        assertEquals(2, sut.recompute());
+
+        verify(listingCache, times(1)).invalidateAll();
+    }
+}
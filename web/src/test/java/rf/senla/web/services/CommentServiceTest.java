@@ -6,30 +6,43 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
 import rf.senla.domain.entity.Comment;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.exception.TechnicalException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.TimelineCursor;
+import rf.senla.domain.repository.AdvertisementRepository;
 import rf.senla.domain.repository.CommentRepository;
 import rf.senla.domain.service.AdvertisementService;
 import rf.senla.domain.service.CommentService;
+import rf.senla.domain.service.ITrendingTracker;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
 import rf.senla.domain.service.UserService;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,6 +59,10 @@ class CommentServiceTest {
     private UserService userService;
     @Mock
     private AdvertisementService advertisementService;
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @Mock
+    private ITrendingTracker trendingTracker;
     @InjectMocks
     private CommentService sut;
 
@@ -433,21 +450,88 @@ class CommentServiceTest {
         verify(commentRepository, times(1)).findByAdvertisement_Id(anyLong(), any());
     }
 
+    @Test
+    void getTimelineWithBeforeCursorSeeksBackward() {
+        List<Comment> page = comments.subList(0, 2);
+        String cursor = new TimelineCursor(LocalDateTime.now(), 100L).encode();
+        when(commentRepository.findTimelineIdsBefore(anyLong(), any(), anyLong(), anyInt()))
+                .thenReturn(page.stream().map(Comment::getId).toList());
+        when(commentRepository.findWithUserByIdIn(any())).thenReturn(page);
+
+        CursorPage<Comment> actual = sut.getTimeline(1L, cursor, null, 2);
+
+        assertEquals(2, actual.content().size());
+        assertNotNull(actual.nextCursor());
+        verify(commentRepository, times(1)).findTimelineIdsBefore(anyLong(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getTimelineWithInvalidCursorThrowsTechnicalException() {
+        assertThrows(TechnicalException.class, () -> sut.getTimeline(1L, null, "???", 20));
+    }
+
+    @Test
+    void getTimelineWithBothCursorsThrowsTechnicalException() {
+        String cursor = new TimelineCursor(LocalDateTime.now(), 1L).encode();
+
+        assertThrows(TechnicalException.class, () -> sut.getTimeline(1L, cursor, cursor, 20));
+
+        verify(commentRepository, never()).findLatestTimelineIds(anyLong(), anyInt());
+    }
+
     @Test
     void createDoesNotThrowException() {
         Comment expected = comments.getFirst();
         User user = users.get(1);
         when(commentRepository.existsById(anyLong())).thenReturn(false);
-        when(commentRepository.save(any())).thenReturn(expected);
-        when(advertisementService.getById(anyLong())).thenReturn(advertisements.getFirst());
-        when(userService.getByUsername(anyString())).thenReturn(user);
+        when(commentRepository.findAdvertisementAndAuthor(anyLong(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user}));
+        when(commentRepository.insertComment(anyLong(), anyLong(), anyString(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 4}));
 
-        assertDoesNotThrow(() -> sut.create(expected, user));
+        Comment actual = assertDoesNotThrow(() -> sut.create(expected, user));
 
+        assertEquals(10L, actual.getId());
+        assertEquals(4, actual.getAdvertisement().getCommentCount());
         verify(commentRepository, times(1)).existsById(anyLong());
-        verify(commentRepository, times(1)).save(any());
-        verify(advertisementService, times(1)).getById(anyLong());
-        verify(userService, times(1)).getByUsername(anyString());
+        verify(commentRepository, times(0)).save(any());
+        verify(advertisementService, times(0)).getById(anyLong());
+        verify(userService, times(0)).getReference(any());
+        verify(userService, times(0)).getByUsername(anyString());
+        verify(advertisementRepository, times(0)).addCommentCount(anyLong(), anyInt());
+        verify(trendingTracker, times(1)).record(anyLong(), eq(ITrendingTracker.Signal.COMMENT));
+    }
+
+    @Test
+    void createThrowsNoEntityExceptionOnForeignKeyViolation() {
+        Comment expected = comments.getFirst();
+        User user = users.get(1);
+        when(commentRepository.existsById(anyLong())).thenReturn(false);
+        when(commentRepository.findAdvertisementAndAuthor(anyLong(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user}));
+        when(commentRepository.insertComment(anyLong(), anyLong(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk",
+                new SQLException("fk", "23503")));
+
+        assertThrows(NoEntityException.class, () -> sut.create(expected, user));
+
+        verify(advertisementRepository, times(0)).addCommentCount(anyLong(), anyInt());
+    }
+
+    @Test
+    void createRethrowsOtherDataIntegrityViolations() {
+        Comment expected = comments.getFirst();
+        User user = users.get(1);
+        when(commentRepository.existsById(anyLong())).thenReturn(false);
+        when(commentRepository.findAdvertisementAndAuthor(anyLong(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user}));
+        when(commentRepository.insertComment(anyLong(), anyLong(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("check",
+                new SQLException("check", "23514")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> sut.create(expected, user));
+
+        verify(advertisementRepository, times(0)).addCommentCount(anyLong(), anyInt());
     }
 
     @Test
@@ -457,9 +541,28 @@ class CommentServiceTest {
         assertThrows(EntityContainedException.class, () -> sut.create(comments.getFirst(), users.get(1)));
 
         verify(commentRepository, times(1)).existsById(anyLong());
-        verify(commentRepository, times(0)).save(any());
-        verify(advertisementService, times(0)).getById(anyLong());
-        verify(userService, times(0)).getByUsername(anyString());
+        verify(commentRepository, times(0)).insertComment(anyLong(), anyLong(), anyString(), any());
+        verify(commentRepository, times(0)).findAdvertisementAndAuthor(anyLong(), anyString());
+    }
+
+    @Test
+    void createThrowsNoEntityExceptionWhenAdvertisementNotFound() {
+        when(commentRepository.findAdvertisementAndAuthor(anyLong(), anyString())).thenReturn(List.of());
+        when(advertisementService.getById(anyLong())).thenThrow(new NoEntityException("no advertisement"));
+
+        assertThrows(NoEntityException.class, () -> sut.create(comments.getFirst(), users.get(1)));
+
+        verify(commentRepository, times(0)).insertComment(anyLong(), anyLong(), anyString(), any());
+    }
+
+    @Test
+    void createThrowsUsernameNotFoundExceptionWhenAuthorNotFound() {
+        when(commentRepository.findAdvertisementAndAuthor(anyLong(), anyString())).thenReturn(List.of());
+        when(advertisementService.getById(anyLong())).thenReturn(advertisements.getFirst());
+
+        assertThrows(UsernameNotFoundException.class, () -> sut.create(comments.getFirst(), users.get(1)));
+
+        verify(commentRepository, times(0)).insertComment(anyLong(), anyLong(), anyString(), any());
     }
 
     @Test
@@ -509,6 +612,7 @@ class CommentServiceTest {
 
         verify(commentRepository, times(1)).findById(anyLong());
         verify(commentRepository, times(1)).delete(any());
+        verify(advertisementRepository, times(1)).addCommentCount(anyLong(), eq(-1));
         verify(userService, times(0)).getByUsername(anyString());
     }
 
@@ -523,6 +627,7 @@ class CommentServiceTest {
 
         verify(commentRepository, times(1)).findById(anyLong());
         verify(commentRepository, times(1)).delete(any());
+        verify(advertisementRepository, times(1)).addCommentCount(anyLong(), eq(-1));
         verify(userService, times(1)).getByUsername(anyString());
     }
 
@@ -535,6 +640,7 @@ class CommentServiceTest {
 
         verify(commentRepository, times(1)).findById(anyLong());
         verify(commentRepository, times(0)).delete(any());
+        verify(advertisementRepository, times(0)).addCommentCount(anyLong(), anyInt());
     }
 
     @Test
@@ -0,0 +1,160 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rf.senla.domain.entity.EmailOutbox;
+import rf.senla.domain.entity.EmailStatus;
+import rf.senla.domain.repository.EmailOutboxRepository;
+import rf.senla.domain.service.EmailDispatcher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тест выполняется без транзакции, чтобы проверить, что отправка идёт вне транзакции. Созданные письма удаляются
+ * после каждого теста.
+ */
+@SpringBootTest
+class EmailDispatcherTest {
+    private final List<Long> created = new ArrayList<>();
+    private final List<Boolean> sentInTransaction = new ArrayList<>();
+    private LocalSmtpServer smtpServer;
+    private EmailDispatcher sut;
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        smtpServer = new LocalSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                sentInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+                super.send(mimeMessages);
+            }
+        };
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        mailSender.getJavaMailProperties().put("mail.smtp.from", "noreply@localhost");
+        sut = new EmailDispatcher(mailSender, outboxRepository, transactionManager, true, 10, 2,
+                Duration.ofSeconds(30), Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    @SneakyThrows
+    void tearDown() {
+        smtpServer.close();
+        outboxRepository.deleteAllById(created);
+    }
+
+    @Test
+    void dispatchSendsBatchOverSingleConnection() {
+        EmailOutbox first = enqueue("storm-yes@yandex.ru");
+        EmailOutbox second = enqueue("user123@gmail.com");
+
+        int sent = sut.dispatch();
+
+        assertEquals(2, sent);
+        assertEquals(1, smtpServer.getConnections());
+        assertEquals(2, smtpServer.getMessages().size());
+        assertEquals(List.of("storm-yes@yandex.ru"), smtpServer.getMessages().getFirst().recipients());
+        assertTrue(smtpServer.getMessages().getFirst().data().contains("Subject: Reset Password"));
+        assertEquals(EmailStatus.SENT, reload(first).getStatus());
+        assertEquals(EmailStatus.SENT, reload(second).getStatus());
+        assertNotNull(reload(first).getSentAt());
+        assertEquals(List.of(false), sentInTransaction);
+    }
+
+    @Test
+    void dispatchRetriesRejectedRecipientWithBackoff() {
+        EmailOutbox rejected = enqueue("reject@localhost");
+        EmailOutbox delivered = enqueue("storm-yes@yandex.ru");
+
+        int sent = sut.dispatch();
+
+        assertEquals(1, sent);
+        rejected = reload(rejected);
+        assertEquals(EmailStatus.SENT, reload(delivered).getStatus());
+        assertEquals(EmailStatus.PENDING, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertNotNull(rejected.getLastError());
+        assertTrue(rejected.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(20)));
+        assertEquals(0, sut.dispatch());
+    }
+
+    @Test
+    void dispatchMarksFailedAfterMaxAttempts() {
+        EmailOutbox rejected = enqueue("reject@localhost");
+        rejected.setAttempts(1);
+        outboxRepository.save(rejected);
+
+        sut.dispatch();
+
+        rejected = reload(rejected);
+        assertEquals(EmailStatus.FAILED, rejected.getStatus());
+        assertEquals(2, rejected.getAttempts());
+    }
+
+    @Test
+    @SneakyThrows
+    void dispatchKeepsMessagesWhenServerIsUnavailable() {
+        EmailOutbox outbox = enqueue("storm-yes@yandex.ru");
+        smtpServer.close();
+
+        assertEquals(0, sut.dispatch());
+
+        outbox = reload(outbox);
+        assertEquals(EmailStatus.PENDING, outbox.getStatus());
+        assertEquals(1, outbox.getAttempts());
+    }
+
+    @Test
+    void dispatchSkipsClaimedMessagesUntilLeaseExpires() {
+        EmailOutbox claimed = enqueue("storm-yes@yandex.ru");
+        claimed.setStatus(EmailStatus.IN_PROGRESS);
+        claimed.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+        outboxRepository.save(claimed);
+
+        assertEquals(0, sut.dispatch());
+        assertEquals(0, smtpServer.getMessages().size());
+
+        claimed.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(claimed);
+
+        assertEquals(1, sut.dispatch());
+        assertEquals(EmailStatus.SENT, reload(claimed).getStatus());
+    }
+
+    private EmailOutbox enqueue(String recipient) {
+        EmailOutbox outbox = outboxRepository.save(EmailOutbox.builder()
+                .recipient(recipient)
+                .subject("Reset Password")
+                .content("To reset your password, click the link below")
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+        created.add(outbox.getId());
+        return outbox;
+    }
+
+    private EmailOutbox reload(EmailOutbox outbox) {
+        return outboxRepository.findById(outbox.getId()).orElseThrow();
+    }
+}
@@ -1,17 +1,19 @@
 package rf.senla.web.services;
 
-import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.mail.javamail.JavaMailSender;
-import rf.senla.domain.exception.EmailException;
+import rf.senla.domain.entity.EmailOutbox;
+import rf.senla.domain.entity.EmailStatus;
+import rf.senla.domain.repository.EmailOutboxRepository;
 import rf.senla.domain.service.EmailService;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.doThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,31 +21,21 @@ import static org.mockito.Mockito.when;
 @SpringBootTest
 class EmailServiceTest {
     @Mock
-    private JavaMailSender mailSender;
-    @Mock
-    private MimeMessage mimeMessage;
+    private EmailOutboxRepository outboxRepository;
     @InjectMocks
     private EmailService sut;
 
     @Test
-    void sendResetPasswordEmailDoesNotThrowsException() {
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+    void sendResetPasswordEmailEnqueuesMessage() {
+        when(outboxRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
 
         assertDoesNotThrow(() -> sut.sendResetPasswordEmail("storm-yes@yandex.ru", "secret token"));
 
-        verify(mailSender, times(1)).createMimeMessage();
-        verify(mailSender, times(1)).send(mimeMessage);
-    }
-
-    @Test
-    void sendResetPasswordEmailThrowsEmailException() {
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
-        doThrow(EmailException.class).when(mailSender).send(mimeMessage);
-
-        assertThrows(EmailException.class,
-                () -> sut.sendResetPasswordEmail("storm-yes@yandex.ru", "secret token"));
-
-        verify(mailSender, times(1)).createMimeMessage();
-        verify(mailSender, times(1)).send(mimeMessage);
+        verify(outboxRepository, times(1)).save(captor.capture());
+        EmailOutbox outbox = captor.getValue();
+        assertEquals("storm-yes@yandex.ru", outbox.getRecipient());
+        assertEquals(EmailStatus.PENDING, outbox.getStatus());
+        assertTrue(outbox.getContent().contains("token=secret token"));
     }
 }
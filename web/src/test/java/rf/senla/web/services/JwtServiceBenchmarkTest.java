@@ -0,0 +1,90 @@
+package rf.senla.web.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.service.JwtService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение процессорного времени проверки токена на один запрос: прежняя схема (три разбора токена, ключ и
+ * парсер создаются на каждый вызов) против однократного разбора и кэша результатов проверки.
+ * <p>
+ * Запуск: {@code mvn test -Pbenchmark}
+ */
+@Slf4j
+@Tag("benchmark")
+class JwtServiceBenchmarkTest {
+    private static final String SIGNING_KEY = "53A73E5F1C4E0A2D3B5F2D784E6A1B423D6F247D1F6E5C3A596D635A75327855";
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .id(1L)
+                .username("user123")
+                .email("storm-yes@yandex.ru")
+                .role(Role.ROLE_USER)
+                .build();
+        token = new JwtService(SIGNING_KEY, false, 1, new SimpleMeterRegistry()).generateToken(user);
+    }
+
+    @Test
+    void validationCostPerRequest() {
+        JwtService uncached = new JwtService(SIGNING_KEY, false, 1, new SimpleMeterRegistry());
+        JwtService cached = new JwtService(SIGNING_KEY, true, 1000, new SimpleMeterRegistry());
+
+        double legacy = measure("legacy (3 parses, key per call)", this::legacyIsTokenValid);
+        double singleParse = measure("single parse", jwt -> uncached.isTokenValid(jwt, user));
+        double cachedParse = measure("single parse + cache", jwt -> cached.isTokenValid(jwt, user));
+
+        assertTrue(singleParse < legacy);
+        assertTrue(cachedParse < singleParse);
+    }
+
+    private double measure(String name, Predicate<String> validation) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertTrue(validation.test(token));
+        }
+
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            validation.test(token);
+        }
+        double nanosPerOp = (double) (threads.getCurrentThreadCpuTime() - start) / ITERATIONS;
+        log.info("{}: {} ns CPU/request", name, Math.round(nanosPerOp));
+        return nanosPerOp;
+    }
+
+    private boolean legacyIsTokenValid(String jwt) {
+        String subject = legacyClaims(jwt).getSubject();
+        return legacyClaims(jwt).getSubject().equals(subject)
+                && !legacyClaims(jwt).getExpiration().before(new Date());
+    }
+
+    private Claims legacyClaims(String jwt) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SIGNING_KEY)))
+                .build()
+                .parseSignedClaims(jwt)
+                .getPayload();
+    }
+}
@@ -1,20 +1,25 @@
 package rf.senla.web.services;
 
-import lombok.SneakyThrows;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.security.ValidatedToken;
 import rf.senla.domain.service.JwtService;
 
-import java.lang.reflect.Field;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -22,11 +27,9 @@ class JwtServiceTest {
     private User user;
     @Value("${token.signing.key}")
     private String jwtSigningKey;
-    @InjectMocks
     private JwtService sut;
 
     @BeforeEach
-    @SneakyThrows
     public void setUp() {
         user = User.builder()
                 .id(1L)
@@ -40,12 +43,7 @@ class JwtServiceTest {
                 .resetPasswordTokenExpiryDate(null)
                 .build();
 
-        for (Field field : sut.getClass().getDeclaredFields()) {
-            if (field.getName().equals("jwtSigningKey")) {
-                field.setAccessible(true);
-                field.set(sut, jwtSigningKey);
-            }
-        }
+        sut = new JwtService(jwtSigningKey, true, 100, new SimpleMeterRegistry());
     }
 
     @Test
@@ -68,4 +66,60 @@ class JwtServiceTest {
 
         assertTrue(sut.isTokenValid(expected, user));
     }
+
+    @Test
+    void isTokenValidWithOtherUserGivesFalse() {
+        String token = sut.generateToken(user);
+        User other = User.builder().username("cool_guy").build();
+
+        assertFalse(sut.isTokenValid(token, other));
+    }
+
+    @Test
+    void validateReturnsTokenVersion() {
+        user.setTokenVersion(4);
+        String token = sut.generateToken(user);
+
+        ValidatedToken validated = sut.validate(token).orElseThrow();
+
+        assertEquals(4, validated.tokenVersion());
+        assertEquals(user.getEmail(), validated.email());
+    }
+
+    @Test
+    void validateReturnsClaims() {
+        String token = sut.generateToken(user);
+
+        ValidatedToken actual = sut.validate(token).orElseThrow();
+
+        assertEquals(user.getUsername(), actual.username());
+        assertEquals(user.getId(), actual.userId());
+        assertEquals(user.getRole().name(), actual.role());
+    }
+
+    @Test
+    void validateCachesVerifiedToken() {
+        String token = sut.generateToken(user);
+
+        assertSame(sut.validate(token).orElseThrow(), sut.validate(token).orElseThrow());
+    }
+
+    @Test
+    void validateWithTamperedTokenReturnsEmpty() {
+        String token = sut.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(sut.validate(tampered).isEmpty());
+    }
+
+    @Test
+    void validateWithExpiredTokenReturnsEmpty() {
+        String token = Jwts.builder()
+                .subject(user.getUsername())
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey)))
+                .compact();
+
+        assertTrue(sut.validate(token).isEmpty());
+    }
 }
@@ -0,0 +1,121 @@
+package rf.senla.web.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Минимальный SMTP-сервер в памяти для тестов отправки почты. Получатели, начинающиеся с {@code reject},
+ * отклоняются кодом 550.
+ */
+class LocalSmtpServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final List<ReceivedMessage> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    LocalSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "local-smtp");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    List<ReceivedMessage> getMessages() {
+        return messages;
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread session = new Thread(() -> serve(socket), "local-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost ESMTP");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM")) {
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO")) {
+                    String recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                    if (recipient.startsWith("reject")) {
+                        reply(out, "550 Mailbox unavailable");
+                    } else {
+                        recipients.add(recipient);
+                        reply(out, "250 OK");
+                    }
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line).append('\n');
+                    }
+                    messages.add(new ReceivedMessage(List.copyOf(recipients), data.toString()));
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+            // Клиент закрыл соединение
+        }
+    }
+
+    private static void reply(PrintWriter out, String response) {
+        out.print(response + "\r\n");
+        out.flush();
+    }
+
+    /**
+     * Принятое письмо
+     * @param recipients получатели
+     * @param data содержимое вместе с заголовками
+     */
+    record ReceivedMessage(List<String> recipients, String data) {
+    }
+}
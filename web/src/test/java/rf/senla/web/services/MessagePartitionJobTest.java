@@ -0,0 +1,150 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rf.senla.domain.entity.Advertisement;
+import rf.senla.domain.entity.Conversation;
+import rf.senla.domain.entity.Message;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.ConversationRepository;
+import rf.senla.domain.repository.MessageRepository;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.IMessageService;
+import rf.senla.domain.service.MessagePartitionJob;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тест выполняется без транзакции: {@code DETACH PARTITION ... CONCURRENTLY} нельзя выполнить в блоке транзакции.
+ * Изменённая переписка и перенесённое сообщение восстанавливаются после каждого теста.
+ */
+@SpringBootTest
+class MessagePartitionJobTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private User reader;
+    private Message message;
+    private Map<String, Object> conversationState;
+    @Autowired
+    private MessagePartitionJob sut;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private ConversationRepository conversationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AdvertisementRepository advertisementRepository;
+    @Autowired
+    private IMessageService messageService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        message = transactionTemplate.execute(status -> {
+            reader = userRepository.findByUsername("user123").orElseThrow();
+            User author = userRepository.findByUsername("cool_guy").orElseThrow();
+            Advertisement advertisement = advertisementRepository.findById(2L).orElseThrow();
+            Long conversationId = jdbcTemplate.queryForObject("SELECT id FROM advertisement.conversations " +
+                    "WHERE first_user_id = ? AND second_user_id = ? AND advertisement_id = ?", Long.class,
+                    Math.min(reader.getId(), author.getId()), Math.max(reader.getId(), author.getId()),
+                    advertisement.getId());
+            conversationState = jdbcTemplate.queryForMap("SELECT last_message_id, last_message_at, " +
+                    "first_unread_count, second_unread_count, created_at FROM advertisement.conversations " +
+                    "WHERE id = ?", conversationId);
+            LocalDateTime sentAt = LocalDateTime.now().minusMonths(14).truncatedTo(ChronoUnit.MICROS);
+            messageRepository.createPartition(sentAt.toLocalDate());
+            Object[] row = messageRepository.insertMessage(author.getId(), reader.getId(), advertisement.getId(),
+                    "Is it still available?", sentAt).getFirst();
+            return messageRepository.findByIdAndSentAt(((Number) row[0]).longValue(), sentAt).orElseThrow();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM advertisement.messages WHERE id = ?", message.getId());
+        jdbcTemplate.update("DELETE FROM advertisement.messages_archive WHERE id = ?", message.getId());
+        jdbcTemplate.update("UPDATE advertisement.conversations SET last_message_id = ?, last_message_at = ?, " +
+                        "first_unread_count = ?, second_unread_count = ?, created_at = ? WHERE id = ?",
+                conversationState.get("last_message_id"), conversationState.get("last_message_at"),
+                conversationState.get("first_unread_count"),
+                conversationState.get("second_unread_count"), conversationState.get("created_at"),
+                message.getConversation().getId());
+    }
+
+    @Test
+    void maintainCreatesUpcomingPartitions() {
+        sut.maintain(TODAY);
+
+        String name = "messages_" + TODAY.plusMonths(3).toString().substring(0, 7).replace('-', '_');
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST('advertisement.messages' AS REGCLASS) AND c.relname = ?", Long.class, name));
+    }
+
+    @Test
+    void maintainMovesExpiredPartitionsToArchive() {
+        int archived = sut.maintain(TODAY);
+
+        assertTrue(archived >= 1);
+        assertFalse(messageRepository.existsById(message.getId()));
+        assertEquals(1, messageRepository.findArchivedByIdIn(List.of(message.getId())).size());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Conversation conversation = conversationRepository.findById(message.getConversation().getId())
+                    .orElseThrow();
+            assertNull(conversation.getLastMessage());
+            assertEquals(0, conversation.getUnreadCount("user123"));
+        });
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_class " +
+                "WHERE relname = ?", Long.class, partitionName()));
+    }
+
+    @Test
+    void maintainFinishesInterruptedArchive() {
+        jdbcTemplate.execute("ALTER TABLE advertisement.messages DETACH PARTITION advertisement." + partitionName());
+
+        int archived = sut.maintain(TODAY);
+
+        assertTrue(archived >= 1);
+        assertEquals(1, messageRepository.findArchivedByIdIn(List.of(message.getId())).size());
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_class " +
+                "WHERE relname = ?", Long.class, partitionName()));
+    }
+
+    @Test
+    void timelineIncludesArchiveOnlyWhenRequested() {
+        sut.maintain(TODAY);
+
+        assertTrue(messageService.getTimeline(reader, "cool_guy", null, null, 100, false).content().stream()
+                .noneMatch(m -> m.getId().equals(message.getId())));
+        assertTrue(messageService.getTimeline(reader, "cool_guy", null, null, 100, true).content().stream()
+                .anyMatch(m -> m.getId().equals(message.getId())));
+    }
+
+    /**
+     * Имя месячной секции тестового сообщения
+     * @return имя секции
+     */
+    private String partitionName() {
+        return "messages_" + message.getSentAt().toString().substring(0, 7).replace('-', '_');
+    }
+}
@@ -0,0 +1,118 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rf.senla.domain.event.MessageChangedEvent;
+import rf.senla.domain.exception.ServiceBusyException;
+import rf.senla.domain.service.MessagePushHub;
+import rf.senla.domain.service.MessageSink;
+import rf.senla.domain.service.MessageSubscription;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessagePushHubTest {
+    private static final int BUFFER_SIZE = 4;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MessagePushHub sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new MessagePushHub(2, BUFFER_SIZE, Duration.ofSeconds(30), Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void publishDeliversToBothParticipantsOnly() throws InterruptedException {
+        RecordingSink recipient = new RecordingSink();
+        RecordingSink sender = new RecordingSink();
+        sut.subscribe(1L, recipient);
+        sut.subscribe(2L, sender);
+
+        sut.publish(event(1L, 2L, 1L));
+        sut.publish(event(2L, 3L, 4L));
+
+        assertEquals(1L, recipient.events.poll(5, TimeUnit.SECONDS).id());
+        assertEquals(1L, sender.events.poll(5, TimeUnit.SECONDS).id());
+        assertNull(recipient.events.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(sender.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedOnOverflow() throws InterruptedException {
+        RecordingSink slow = new RecordingSink();
+        slow.block = new CountDownLatch(1);
+        MessageSubscription subscription = sut.subscribe(1L, slow);
+
+        for (long i = 0; i < BUFFER_SIZE + 2; i++) {
+            sut.publish(event(i, 2L, 1L));
+        }
+
+        assertTrue(subscription.isClosed());
+        assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, sut.getConnectionCount());
+        assertTrue(meterRegistry.get("message.push.events").tag("result", "dropped").counter().count() >= 1);
+        slow.block.countDown();
+    }
+
+    @Test
+    void subscribeRejectsOverLimit() {
+        sut.subscribe(1L, new RecordingSink());
+        MessageSubscription second = sut.subscribe(2L, new RecordingSink());
+
+        assertThrows(ServiceBusyException.class, () -> sut.subscribe(3L, new RecordingSink()));
+
+        second.close();
+        sut.subscribe(3L, new RecordingSink());
+        assertEquals(2, sut.getConnectionCount());
+    }
+
+    private static MessageChangedEvent event(Long id, Long senderId, Long recipientId) {
+        return new MessageChangedEvent(MessageChangedEvent.Type.CREATED, id, 1L, senderId, recipientId, "user123",
+                "Hello!", LocalDateTime.now(), false);
+    }
+
+    private static class RecordingSink implements MessageSink {
+        private final BlockingQueue<MessageChangedEvent> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private CountDownLatch block;
+
+        @Override
+        public void send(MessageChangedEvent event) {
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void heartbeat() {
+            // Пустой пакет не записывается
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
@@ -6,30 +6,50 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import rf.senla.domain.entity.Advertisement;
 import rf.senla.domain.entity.AdvertisementStatus;
+import rf.senla.domain.entity.Conversation;
 import rf.senla.domain.entity.Message;
+import rf.senla.domain.event.MessageChangedEvent;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.exception.NoEntityException;
+import rf.senla.domain.exception.TechnicalException;
+import rf.senla.domain.pagination.CursorPage;
+import rf.senla.domain.pagination.TimelineCursor;
+import rf.senla.domain.repository.ConversationRepository;
 import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.service.AdvertisementService;
+import rf.senla.domain.service.ITrendingTracker;
 import rf.senla.domain.service.MessageService;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
 import rf.senla.domain.service.UserService;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,6 +66,12 @@ class MessageServiceTest {
     private UserService userService;
     @Mock
     private AdvertisementService advertisementService;
+    @Mock
+    private ConversationRepository conversationRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ITrendingTracker trendingTracker;
     @InjectMocks
     private MessageService sut;
 
@@ -415,6 +441,9 @@ class MessageServiceTest {
                 advertisement5, advertisement6, advertisement7, advertisement8, advertisement9, advertisement10));
         messages = new ArrayList<>(List.of(message1, message2, message3, message4, message5, message6, message7,
                 message8, message9, message10));
+        messages.forEach(message -> message.setConversation(Conversation.builder()
+                .id(message.getAdvertisement().getId())
+                .build()));
     }
 
     @AfterEach
@@ -438,21 +467,184 @@ class MessageServiceTest {
                 .findMessagesBetweenUsers(anyLong(), anyLong(), any());
     }
 
+    @Test
+    void getTimelineReturnsNewestFirstWithCursor() {
+        User sender = users.getFirst();
+        User recipient = users.getLast();
+        List<Message> page = messages.subList(0, 2);
+        when(userService.getByUsername(anyString())).thenReturn(recipient);
+        when(messageRepository.findLatestTimelineIds(anyLong(), anyLong(), anyBoolean(), anyInt()))
+                .thenReturn(page.stream().map(Message::getId).toList());
+        when(messageRepository.findWithParticipantsByIdIn(any())).thenReturn(page);
+
+        CursorPage<Message> actual = sut.getTimeline(sender, recipient.getUsername(), null, null, 2, false);
+
+        assertEquals(2, actual.content().size());
+        Comparator<Message> order = Comparator.comparing(Message::getSentAt).thenComparing(Message::getId);
+        assertTrue(order.compare(actual.content().get(0), actual.content().get(1)) > 0);
+        assertNotNull(actual.nextCursor());
+        verify(messageRepository, times(1)).findLatestTimelineIds(anyLong(), anyLong(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    void getTimelineWithAfterCursorSeeksForward() {
+        User sender = users.getFirst();
+        User recipient = users.getLast();
+        String cursor = new TimelineCursor(LocalDateTime.now(), 1L).encode();
+        when(userService.getByUsername(anyString())).thenReturn(recipient);
+        when(messageRepository.findTimelineIdsAfter(anyLong(), anyLong(), any(), anyLong(), anyBoolean(), anyInt()))
+                .thenReturn(List.of());
+
+        CursorPage<Message> actual = sut.getTimeline(sender, recipient.getUsername(), null, cursor, 20, false);
+
+        assertTrue(actual.content().isEmpty());
+        assertNull(actual.nextCursor());
+        verify(messageRepository, never()).findWithParticipantsByIdIn(any());
+    }
+
+    @Test
+    void getTimelineWithBothCursorsThrowsTechnicalException() {
+        User sender = users.getFirst();
+        String cursor = new TimelineCursor(LocalDateTime.now(), 1L).encode();
+
+        assertThrows(TechnicalException.class, () -> sut.getTimeline(sender, "cool_guy", cursor, cursor, 20, false));
+
+        verify(userService, never()).getByUsername(anyString());
+    }
+
+    @Test
+    void markReadUpdatesCounterAndPublishesReceipt() {
+        User reader = users.getFirst();
+        User author = users.get(1);
+        Conversation conversation = Conversation.builder()
+                .id(1L)
+                .firstUser(reader)
+                .secondUser(author)
+                .lastMessage(messages.getFirst())
+                .build();
+        when(conversationRepository.findById(anyLong())).thenReturn(Optional.of(conversation));
+        when(messageRepository.markReadUpTo(anyLong(), anyLong(), anyLong())).thenReturn(3);
+
+        assertEquals(3, sut.markRead(1L, null, reader));
+
+        verify(messageRepository, times(1)).markReadUpTo(1L, reader.getId(), Long.MAX_VALUE);
+        verify(conversationRepository, times(1)).subtractUnread(1L, reader.getId(), 3);
+        verify(eventPublisher, times(1)).publishEvent(new MessageChangedEvent(MessageChangedEvent.Type.READ,
+                messages.getFirst().getId(), 1L, author.getId(), reader.getId(), null, null, null, true));
+    }
+
+    @Test
+    void markReadWithoutUnreadMessagesDoesNotPublishReceipt() {
+        User reader = users.getFirst();
+        Conversation conversation = Conversation.builder()
+                .id(1L)
+                .firstUser(reader)
+                .secondUser(users.get(1))
+                .lastMessage(messages.getFirst())
+                .build();
+        when(conversationRepository.findById(anyLong())).thenReturn(Optional.of(conversation));
+        when(messageRepository.markReadUpTo(anyLong(), anyLong(), anyLong())).thenReturn(0);
+
+        assertEquals(0, sut.markRead(1L, 5L, reader));
+
+        verify(conversationRepository, never()).subtractUnread(anyLong(), anyLong(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void markReadThrowsAccessDeniedException() {
+        Conversation conversation = Conversation.builder()
+                .id(1L)
+                .firstUser(users.get(1))
+                .secondUser(users.get(2))
+                .lastMessage(messages.getFirst())
+                .build();
+        when(conversationRepository.findById(anyLong())).thenReturn(Optional.of(conversation));
+        User reader = users.getFirst();
+
+        assertThrows(AccessDeniedException.class, () -> sut.markRead(1L, null, reader));
+
+        verify(messageRepository, never()).markReadUpTo(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getConversationsDoesNotThrowException() {
+        User user = users.getFirst();
+        when(conversationRepository.findInboxIds(anyLong(), anyInt(), anyLong())).thenReturn(List.of());
+
+        assertDoesNotThrow(() -> sut.getConversations(user, Pageable.ofSize(20)));
+
+        verify(conversationRepository, times(1)).findInboxIds(user.getId(), 20, 0L);
+        verify(conversationRepository, never()).findWithParticipantsByIdIn(any());
+    }
+
+    @Test
+    void getConversationsKeepsInboxOrder() {
+        User user = users.getFirst();
+        when(conversationRepository.findInboxIds(anyLong(), anyInt(), anyLong())).thenReturn(List.of(2L, 1L));
+        when(conversationRepository.findWithParticipantsByIdIn(any())).thenReturn(List.of(
+                Conversation.builder().id(1L).build(), Conversation.builder().id(2L).build()));
+
+        List<Conversation> actual = sut.getConversations(user, Pageable.ofSize(20));
+
+        assertEquals(List.of(2L, 1L), actual.stream().map(Conversation::getId).toList());
+    }
+
     @Test
     void createDoesNotThrowException() {
         Message expected = messages.getFirst();
         User user = users.getFirst();
         when(messageRepository.existsById(anyLong())).thenReturn(false);
-        when(messageRepository.save(any())).thenReturn(expected);
-        when(userService.getByUsername(anyString())).thenReturn(user);
-        when(advertisementService.getById(anyLong())).thenReturn(advertisements.getFirst());
+        when(messageRepository.insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 1L}));
+        when(messageRepository.findParticipants(anyLong(), anyString(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user, users.get(1)}));
+        when(conversationRepository.getReferenceById(anyLong())).thenReturn(Conversation.builder().id(1L).build());
 
-        assertDoesNotThrow(() -> sut.create(expected, user));
+        Message actual = assertDoesNotThrow(() -> sut.create(expected, user));
 
+        assertEquals(10L, actual.getId());
+        assertEquals(1L, actual.getConversation().getId());
         verify(messageRepository, times(1)).existsById(anyLong());
-        verify(messageRepository, times(1)).save(any());
-        verify(userService, times(2)).getByUsername(anyString());
-        verify(advertisementService, times(1)).getById(anyLong());
+        verify(messageRepository, times(1)).insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any());
+        verify(messageRepository, times(0)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(MessageChangedEvent.class));
+        verify(messageRepository, times(1)).findParticipants(anyLong(), anyString(), anyString());
+        verify(userService, times(0)).getReference(any());
+        verify(userService, times(0)).getByUsername(anyString());
+        verify(trendingTracker, times(1)).record(anyLong(), eq(ITrendingTracker.Signal.MESSAGE));
+        verify(advertisementService, times(0)).getById(anyLong());
+    }
+
+    @Test
+    void createThrowsNoEntityExceptionOnForeignKeyViolation() {
+        Message expected = messages.getFirst();
+        User user = users.getFirst();
+        when(messageRepository.existsById(anyLong())).thenReturn(false);
+        when(messageRepository.insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk", new SQLException("fk", "23503")));
+        when(messageRepository.findParticipants(anyLong(), anyString(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user, users.get(1)}));
+
+        assertThrows(NoEntityException.class, () -> sut.create(expected, user));
+
+        verify(eventPublisher, times(0)).publishEvent(any(MessageChangedEvent.class));
+        verify(trendingTracker, times(0)).record(anyLong(), any());
+    }
+
+    @Test
+    void createRethrowsOtherDataIntegrityViolations() {
+        Message expected = messages.getFirst();
+        User user = users.getFirst();
+        when(messageRepository.existsById(anyLong())).thenReturn(false);
+        when(messageRepository.insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("not null", new SQLException("not null", "23502")));
+        when(messageRepository.findParticipants(anyLong(), anyString(), anyString()))
+                .thenReturn(List.<Object[]>of(new Object[]{advertisements.getFirst(), user, users.get(1)}));
+
+        assertThrows(DataIntegrityViolationException.class, () -> sut.create(expected, user));
+
+        verify(eventPublisher, times(0)).publishEvent(any(MessageChangedEvent.class));
     }
 
     @Test
@@ -462,60 +654,128 @@ class MessageServiceTest {
         assertThrows(EntityContainedException.class, () -> sut.create(messages.getFirst(), users.getFirst()));
 
         verify(messageRepository, times(1)).existsById(anyLong());
-        verify(messageRepository, times(0)).save(any());
-        verify(userService, times(0)).getByUsername(anyString());
-        verify(advertisementService, times(0)).getById(anyLong());
+        verify(messageRepository, times(0)).insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any());
+        verify(messageRepository, times(0)).findParticipants(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void createThrowsNoEntityExceptionWhenAdvertisementNotFound() {
+        when(messageRepository.findParticipants(anyLong(), anyString(), anyString())).thenReturn(List.of());
+        when(advertisementService.getById(anyLong())).thenThrow(new NoEntityException("no advertisement"));
+
+        assertThrows(NoEntityException.class, () -> sut.create(messages.getFirst(), users.getFirst()));
+
+        verify(messageRepository, times(0)).insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any());
+    }
+
+    @Test
+    void createThrowsUsernameNotFoundExceptionWhenRecipientNotFound() {
+        when(messageRepository.findParticipants(anyLong(), anyString(), anyString())).thenReturn(List.of());
+        when(advertisementService.getById(anyLong())).thenReturn(advertisements.getFirst());
+
+        assertThrows(UsernameNotFoundException.class, () -> sut.create(messages.getFirst(), users.getFirst()));
+
+        verify(messageRepository, times(0)).insertMessage(anyLong(), anyLong(), anyLong(), anyString(), any());
     }
 
     @Test
     void updateDoesNotThrowException() {
         Message message = messages.getFirst();
         User user = users.getFirst();
-        when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
-        when(messageRepository.save(any())).thenReturn(messages.getLast());
+        when(messageRepository.findByIdAndSentAt(anyLong(), any())).thenReturn(Optional.of(message));
 
         assertDoesNotThrow(() -> sut.update(message, user));
 
-        verify(messageRepository, times(1)).findById(anyLong());
-        verify(messageRepository, times(1)).save(any());
+        verify(messageRepository, times(1)).findByIdAndSentAt(message.getId(), message.getSentAt());
+        verify(messageRepository, times(0)).findById(anyLong());
+        verify(messageRepository, times(1)).updateContent(message.getId(), message.getSentAt(), message.getText(),
+                Boolean.TRUE.equals(message.getRead()));
+        verify(messageRepository, times(0)).save(any());
+    }
+
+    @Test
+    void updateWithoutSentAtFindsMessageById() {
+        Message message = messages.getFirst();
+        User user = users.getFirst();
+        Message request = Message.builder()
+                .id(message.getId())
+                .text("Updated")
+                .read(message.getRead())
+                .build();
+        when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
+
+        assertDoesNotThrow(() -> sut.update(request, user));
+
+        verify(messageRepository, times(1)).findById(message.getId());
+        verify(messageRepository, times(1)).updateContent(eq(message.getId()), eq(message.getSentAt()),
+                eq("Updated"), anyBoolean());
+    }
+
+    @Test
+    void updateWithReadChangeAdjustsUnreadCount() {
+        Message message = messages.getFirst();
+        User user = users.getFirst();
+        message.setRead(true);
+        Message request = Message.builder()
+                .id(message.getId())
+                .text(message.getText())
+                .read(false)
+                .build();
+        when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
+
+        assertDoesNotThrow(() -> sut.update(request, user));
+
+        verify(conversationRepository, times(1)).adjustUnread(message.getId(), message.getSentAt(), 1);
+        verify(eventPublisher, times(1)).publishEvent(any(MessageChangedEvent.class));
     }
 
     @Test
     void updateThrowsNoEntityException() {
         Message message = messages.getFirst();
         User user = users.getFirst();
-        when(messageRepository.findById(anyLong())).thenReturn(Optional.empty());
-        when(messageRepository.save(any())).thenReturn(messages.getLast());
+        when(messageRepository.findByIdAndSentAt(anyLong(), any())).thenReturn(Optional.empty());
 
         assertThrows(NoEntityException.class, () -> sut.update(message, user));
 
-        verify(messageRepository, times(1)).findById(anyLong());
-        verify(messageRepository, times(0)).save(any());
+        verify(messageRepository, times(1)).findByIdAndSentAt(anyLong(), any());
+        verify(messageRepository, times(0)).updateContent(anyLong(), any(), anyString(), anyBoolean());
     }
 
     @Test
     void updateThrowsAccessDeniedException() {
         Message message = messages.getFirst();
         User user = users.getLast();
-        when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
-        when(messageRepository.save(any())).thenReturn(messages.getLast());
+        when(messageRepository.findByIdAndSentAt(anyLong(), any())).thenReturn(Optional.of(message));
 
         assertThrows(AccessDeniedException.class, () -> sut.update(message, user));
 
-        verify(messageRepository, times(1)).findById(anyLong());
-        verify(messageRepository, times(0)).save(any());
+        verify(messageRepository, times(1)).findByIdAndSentAt(anyLong(), any());
+        verify(messageRepository, times(0)).updateContent(anyLong(), any(), anyString(), anyBoolean());
     }
 
     @Test
     void deleteDoesNotThrowException() {
+        Message message = messages.getFirst();
+        User user = users.getFirst();
+        when(messageRepository.findByIdAndSentAt(anyLong(), any())).thenReturn(Optional.of(message));
+
+        assertDoesNotThrow(() -> sut.delete(message.getId(), message.getSentAt(), user));
+
+        verify(conversationRepository, times(1)).detachMessage(message.getId(), message.getSentAt());
+        verify(messageRepository, times(1)).deleteByKey(message.getId(), message.getSentAt());
+        verify(messageRepository, times(0)).findById(anyLong());
+    }
+
+    @Test
+    void deleteWithoutSentAtFindsMessageById() {
         Message message = messages.getFirst();
         User user = users.getFirst();
         when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
 
-        assertDoesNotThrow(() -> sut.delete(message.getId(), user));
+        assertDoesNotThrow(() -> sut.delete(message.getId(), null, user));
 
-        verify(messageRepository, times(1)).delete(any());
         verify(messageRepository, times(1)).findById(anyLong());
+        verify(messageRepository, times(1)).deleteByKey(message.getId(), message.getSentAt());
     }
 
     @Test
@@ -524,10 +784,10 @@ class MessageServiceTest {
         User user = users.getFirst();
         when(messageRepository.findById(anyLong())).thenReturn(Optional.empty());
 
-        assertThrows(NoEntityException.class, () -> sut.delete(message.getId(), user));
+        assertThrows(NoEntityException.class, () -> sut.delete(message.getId(), null, user));
 
         verify(messageRepository, times(1)).findById(anyLong());
-        verify(messageRepository, times(0)).delete(any());
+        verify(messageRepository, times(0)).deleteByKey(anyLong(), any());
     }
 
     @Test
@@ -536,9 +796,9 @@ class MessageServiceTest {
         User user = users.getLast();
         when(messageRepository.findById(anyLong())).thenReturn(Optional.of(message));
 
-        assertThrows(AccessDeniedException.class, () -> sut.delete(message.getId(), user));
+        assertThrows(AccessDeniedException.class, () -> sut.delete(message.getId(), null, user));
 
         verify(messageRepository, times(1)).findById(anyLong());
-        verify(messageRepository, times(0)).delete(any());
+        verify(messageRepository, times(0)).deleteByKey(anyLong(), any());
     }
 }
@@ -0,0 +1,94 @@
+package rf.senla.web.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import rf.senla.domain.entity.Role;
+import rf.senla.domain.entity.User;
+import rf.senla.domain.event.UserChangedEvent;
+import rf.senla.domain.service.PrincipalCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrincipalCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+    private Function<String, User> loader;
+    private PrincipalCache sut;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            return User.builder()
+                    .id(1L)
+                    .username(username)
+                    .password("secret")
+                    .role(Role.ROLE_USER)
+                    .build();
+        };
+        sut = new PrincipalCache(true, Duration.ofMinutes(1), 100, meterRegistry);
+    }
+
+    @Test
+    void getLoadsUserOnce() {
+        UserDetails first = sut.get("user123", loader);
+        UserDetails second = sut.get("user123", loader);
+
+        assertEquals(first.getUsername(), second.getUsername());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getReturnsNewPrincipalBuiltFromSnapshot() {
+        User first = (User) sut.get("user123", loader);
+        first.setRole(Role.ROLE_ADMIN);
+
+        User second = (User) sut.get("user123", loader);
+
+        assertNotSame(first, second);
+        assertEquals(1L, second.getId());
+        assertEquals(Role.ROLE_USER, second.getRole());
+        assertNull(second.getPassword());
+    }
+
+    @Test
+    void userChangedEventInvalidatesUser() {
+        sut.get("user123", loader);
+
+        sut.onUserChanged(new UserChangedEvent(1L, "user123", 1));
+        sut.get("user123", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoadsUser() {
+        sut = new PrincipalCache(false, Duration.ofMinutes(1), 100, meterRegistry);
+
+        sut.get("user123", loader);
+        sut.get("user123", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void statisticsAreExposedAsMetrics() {
+        sut.get("user123", loader);
+        sut.get("user123", loader);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "miss")
+                .functionCounter().count());
+    }
+}
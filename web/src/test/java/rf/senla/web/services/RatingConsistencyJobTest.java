@@ -0,0 +1,52 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import rf.senla.domain.repository.AdvertisementRepository;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.IAdvertisementListingCache;
+import rf.senla.domain.service.IAdvertisementSearchIndex;
+import rf.senla.domain.service.RatingConsistencyJob;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class RatingConsistencyJobTest {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AdvertisementRepository advertisementRepository;
+    @Mock
+    private IAdvertisementListingCache listingCache;
+    @Mock
+    private IAdvertisementSearchIndex searchIndex;
+    @InjectMocks
+    private RatingConsistencyJob sut;
+
+    @Test
+    void recomputeWithConsistentAggregatesDoesNothing() {
+        when(userRepository.recomputeRatingAggregates()).thenReturn(0);
+
+        assertEquals(0, sut.recompute());
+
+        verify(advertisementRepository, times(0)).syncSellerRatings();
+        verify(listingCache, times(0)).invalidateAll();
+    }
+
+    @Test
+    void recomputeWithDivergedAggregatesSyncsAdvertisements() {
+        when(userRepository.recomputeRatingAggregates()).thenReturn(2);
+        when(searchIndex.isEnabled()).thenReturn(true);
+
+        assertEquals(2, sut.recompute());
+
+        verify(advertisementRepository, times(1)).syncSellerRatings();
+        verify(listingCache, times(1)).invalidateAll();
+        verify(searchIndex, times(1)).rebuild();
+    }
+}
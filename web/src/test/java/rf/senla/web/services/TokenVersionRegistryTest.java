@@ -0,0 +1,96 @@
+package rf.senla.web.services;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import rf.senla.domain.event.UserChangedEvent;
+import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.TokenVersionRegistry;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class TokenVersionRegistryTest {
+    @Mock
+    private UserRepository userRepository;
+    @InjectMocks
+    private TokenVersionRegistry sut;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        Field enabled = sut.getClass().getDeclaredField("enabled");
+        enabled.setAccessible(true);
+        enabled.set(sut, true);
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, 0});
+        rows.add(new Object[] {2L, 3});
+        when(userRepository.findAllTokenVersions()).thenReturn(rows);
+        sut.reload();
+    }
+
+    @Test
+    void isCurrentAcceptsLoadedVersion() {
+        assertTrue(sut.isCurrent(1L, 0));
+        assertTrue(sut.isCurrent(2L, 3));
+        verify(userRepository, never()).findTokenVersionById(any());
+    }
+
+    @Test
+    void isCurrentRejectsOldVersion() {
+        assertFalse(sut.isCurrent(2L, 2));
+    }
+
+    @Test
+    void userChangedEventRevokesOldTokens() {
+        sut.onUserChanged(new UserChangedEvent(1L, "user123", 1));
+
+        assertFalse(sut.isCurrent(1L, 0));
+        assertTrue(sut.isCurrent(1L, 1));
+    }
+
+    @Test
+    void deletedUserIsRejected() {
+        sut.onUserChanged(new UserChangedEvent(2L, "cool_guy", null));
+
+        assertFalse(sut.isCurrent(2L, 3));
+    }
+
+    @Test
+    void reloadDoesNotLowerVersion() {
+        sut.onUserChanged(new UserChangedEvent(1L, "user123", 1));
+
+        sut.reload();
+
+        assertFalse(sut.isCurrent(1L, 0));
+    }
+
+    @Test
+    void unknownUserIsLoadedOnce() {
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0));
+
+        assertTrue(sut.isCurrent(7L, 0));
+        assertTrue(sut.isCurrent(7L, 0));
+        verify(userRepository, times(1)).findTokenVersionById(7L);
+    }
+
+    @Test
+    void missingUserIsRejected() {
+        assertFalse(sut.isCurrent(9L, 0));
+    }
+}
@@ -0,0 +1,170 @@
+package rf.senla.web.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rf.senla.domain.service.ITrendingTracker.Signal;
+import rf.senla.domain.service.TrendingTracker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingTrackerTest {
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long START = 1_000 * MINUTE;
+    private TrendingTracker sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new TrendingTracker(Duration.ofMinutes(10), 10, 3, 4, 256, 200);
+    }
+
+    @Test
+    void getTopOrdersByWeightedActivity() {
+        sut.record(1L, Signal.VIEW, START);
+        sut.record(1L, Signal.VIEW, START);
+        sut.record(2L, Signal.MESSAGE, START);
+        sut.record(3L, Signal.COMMENT, START);
+
+        sut.refresh(START);
+
+        assertEquals(List.of(2L, 3L, 1L), sut.getTop(10));
+        assertEquals(List.of(2L), sut.getTop(1));
+    }
+
+    @Test
+    void getTopKeepsOnlyHeavyHitters() {
+        for (long id = 1; id <= 100; id++) {
+            sut.record(id, Signal.VIEW, START);
+        }
+        for (int i = 0; i < 10; i++) {
+            sut.record(42L, Signal.VIEW, START);
+            sut.record(7L, Signal.COMMENT, START);
+        }
+        sut.record(99L, Signal.MESSAGE, START);
+        sut.refresh(START);
+
+        assertEquals(List.of(7L, 42L, 99L), sut.getTop(10));
+    }
+
+    @Test
+    void getTopForgetsActivityOutsideWindow() {
+        sut.record(1L, Signal.MESSAGE, START);
+        sut.record(2L, Signal.VIEW, START + 5 * MINUTE);
+
+        sut.refresh(START + 9 * MINUTE);
+        assertEquals(List.of(1L, 2L), sut.getTop(10));
+        sut.refresh(START + 10 * MINUTE);
+        assertEquals(List.of(2L), sut.getTop(10));
+        sut.refresh(START + 30 * MINUTE);
+        assertTrue(sut.getTop(10).isEmpty());
+    }
+
+    @Test
+    void recordAfterExpiredWindowStartsFromScratch() {
+        sut.record(1L, Signal.MESSAGE, START);
+        sut.record(2L, Signal.VIEW, START + 20 * MINUTE);
+        sut.refresh(START + 20 * MINUTE);
+
+        assertEquals(List.of(2L), sut.getTop(10));
+    }
+
+    @Test
+    void getTopIsCappedByTopSize() {
+        for (long id = 1; id <= 5; id++) {
+            sut.record(id, Signal.VIEW, START);
+        }
+        sut.refresh(START);
+
+        assertEquals(3, sut.getTop(100).size());
+    }
+
+    @Test
+    void getTopKeepsRankingUntilRefresh() {
+        sut.record(1L, Signal.VIEW, START);
+        sut.refresh(START);
+        assertEquals(List.of(1L), sut.getTop(10));
+
+        sut.record(2L, Signal.MESSAGE, START);
+
+        assertEquals(List.of(1L), sut.getTop(10));
+        sut.refresh(START);
+        assertEquals(List.of(2L, 1L), sut.getTop(10));
+    }
+
+    @Test
+    void refreshFreesCandidatesForNewHeavyHitters() {
+        TrendingTracker tracker = new TrendingTracker(Duration.ofMinutes(10), 10, 3, 4, 256, 5);
+        for (long id = 1; id <= 5; id++) {
+            tracker.record(id, Signal.VIEW, START);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(42L, Signal.VIEW, START);
+        }
+        tracker.refresh(START);
+        assertEquals(3, tracker.getTop(10).size());
+        assertFalse(tracker.getTop(10).contains(42L));
+
+        tracker.record(42L, Signal.VIEW, START);
+        tracker.refresh(START);
+
+        assertEquals(42L, tracker.getTop(10).getFirst());
+    }
+
+    @Test
+    void recordDoesNotAdmitCandidatesBelowTopK() {
+        TrendingTracker tracker = new TrendingTracker(Duration.ofMinutes(10), 10, 3, 4, 256, 4);
+        for (long id = 1; id <= 3; id++) {
+            for (int i = 0; i < 10; i++) {
+                tracker.record(id, Signal.VIEW, START);
+            }
+        }
+        tracker.refresh(START);
+
+        // Объявление 4 ниже порога и не занимает последнее место в наборе, поэтому объявление 5 в него попадает
+        tracker.record(4L, Signal.VIEW, START);
+        for (int i = 0; i < 20; i++) {
+            tracker.record(5L, Signal.VIEW, START);
+        }
+        tracker.refresh(START);
+
+        assertEquals(List.of(5L, 1L, 2L), tracker.getTop(10));
+    }
+
+    @Test
+    void recordFromManyThreadsLosesNoSignals() throws InterruptedException {
+        int threads = 4;
+        int views = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < views; j++) {
+                    sut.record(1L, Signal.VIEW, START);
+                }
+            });
+        }
+        for (int j = 0; j < threads * views - 1; j++) {
+            sut.record(2L, Signal.VIEW, START);
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        sut.refresh(START);
+        assertEquals(List.of(1L, 2L), sut.getTop(10));
+    }
+}
@@ -6,21 +6,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import rf.senla.domain.entity.Rating;
 import rf.senla.domain.exception.EntityContainedException;
 import rf.senla.domain.entity.Role;
 import rf.senla.domain.entity.User;
+import rf.senla.domain.event.UserChangedEvent;
 import rf.senla.domain.exception.NoEntityException;
 import rf.senla.domain.repository.AdvertisementRepository;
-import rf.senla.domain.repository.CommentRepository;
-import rf.senla.domain.repository.MessageRepository;
 import rf.senla.domain.repository.RatingRepository;
 import rf.senla.domain.repository.UserRepository;
+import rf.senla.domain.service.IAccountPurgeService;
+import rf.senla.domain.service.IAdvertisementSearchIndex;
 import rf.senla.domain.service.UserService;
 
 import java.util.ArrayList;
@@ -44,15 +47,19 @@ import static org.mockito.Mockito.when;
 class UserServiceTest {
     private List<User> users;
     @Mock
-    private MessageRepository messageRepository;
-    @Mock
-    private CommentRepository commentRepository;
-    @Mock
     private AdvertisementRepository advertisementRepository;
     @Mock
     private UserRepository userRepository;
     @Mock
     private RatingRepository ratingRepository;
+    @Mock
+    private IAdvertisementSearchIndex advertisementSearchIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private IAccountPurgeService accountPurgeService;
+    @Spy
+    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     @InjectMocks
     private UserService sut;
 
@@ -235,11 +242,11 @@ class UserServiceTest {
 
     @Test
     void getAllDoesNotThrowException() {
-        when(userRepository.findAll((Pageable) any())).thenReturn(Page.empty());
+        when(userRepository.findAllBy(any())).thenReturn(List.of());
 
         assertDoesNotThrow(() -> sut.getAll(Pageable.ofSize(20)));
 
-        verify(userRepository, times(1)).findAll((Pageable) any());
+        verify(userRepository, times(1)).findAllBy(any());
     }
 
     @Test
@@ -260,6 +267,29 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByUsername(anyString());
     }
 
+    @Test
+    void getReferenceDoesNotQueryUserWithKnownId() {
+        User user = users.getFirst();
+        when(userRepository.getReferenceById(anyLong())).thenReturn(user);
+
+        assertDoesNotThrow(() -> sut.getReference(user));
+
+        verify(userRepository, times(1)).getReferenceById(anyLong());
+        verify(userRepository, times(0)).findIdByUsername(anyString());
+        verify(userRepository, times(0)).findByUsername(anyString());
+    }
+
+    @Test
+    void getReferenceThrowsUsernameNotFoundException() {
+        when(userRepository.findIdByUsername(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> sut.getReference(User.builder().username("unknown").build()));
+
+        verify(userRepository, times(1)).findIdByUsername(anyString());
+        verify(userRepository, times(0)).getReferenceById(anyLong());
+    }
+
     @Test
     void updatePasswordDoesNotThrowException() {
         User user = users.getFirst();
@@ -274,6 +304,21 @@ class UserServiceTest {
         assert new BCryptPasswordEncoder().matches("secret_password", actual.getPassword());
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(userRepository, times(1)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(
+                new UserChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion()));
+    }
+
+    @Test
+    void rehashPasswordKeepsTokenVersion() {
+        User user = users.getFirst();
+        when(userRepository.updatePassword(anyString(), anyString())).thenReturn(1);
+
+        sut.rehashPassword(user, "$2a$12$rehashed");
+
+        assertEquals("$2a$12$rehashed", user.getPassword());
+        verify(userRepository, times(1)).updatePassword(user.getUsername(), "$2a$12$rehashed");
+        verify(eventPublisher, times(1)).publishEvent(
+                new UserChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion()));
     }
 
     @Test
@@ -345,14 +390,15 @@ class UserServiceTest {
         when(ratingRepository.save(any())).thenReturn(new Rating());
         when(ratingRepository.existsBySenderAndRecipient(any(), any())).thenReturn(false);
         when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
-        when(userRepository.save(any())).thenReturn(user);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         assertDoesNotThrow(() -> sut.addEvaluation(user, user.getUsername(), anyInt()));
 
         verify(ratingRepository, times(1)).save(any());
         verify(ratingRepository, times(1)).existsBySenderAndRecipient(any(), any());
         verify(userRepository, times(2)).findByUsername(anyString());
-        verify(userRepository, times(1)).save(any());
+        verify(userRepository, times(1)).addEvaluation(anyLong(), anyInt());
+        verify(userRepository, times(0)).save(any());
     }
 
     @Test
@@ -433,6 +479,33 @@ class UserServiceTest {
         verify(userRepository, times(1)).findById(anyLong());
     }
 
+    @Test
+    void updateKeepsTokenVersionWhenUsernameAndEmailAreUnchanged() {
+        User user = users.getFirst();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenReturn(user);
+
+        sut.update(User.builder().id(user.getId()).username(user.getUsername()).email(user.getEmail())
+                .phoneNumber("+7(999)000-00-00").build());
+
+        assertEquals(0, user.getTokenVersion());
+    }
+
+    @Test
+    void updateWithNewUsernameRevokesTokens() {
+        User user = users.getFirst();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenReturn(user);
+        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+
+        sut.update(User.builder().id(user.getId()).username("renamed").email(user.getEmail()).build());
+
+        assertEquals(1, user.getTokenVersion());
+        verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(user.getId(), "user123", 1));
+        verify(eventPublisher, times(1)).publishEvent(new UserChangedEvent(user.getId(), "renamed", 1));
+    }
+
     @Test
     void updateThrowsEntityContainedException() {
         User user = users.getFirst();
@@ -467,12 +540,10 @@ class UserServiceTest {
         assertDoesNotThrow(() -> sut.deleteByUsername(anyString()));
 
         verify(userRepository, times(1)).findByUsername(anyString());
-        verify(userRepository, times(1)).deleteByUsername(anyString());
-        verify(messageRepository, times(1)).deleteBySender_IdOrRecipient_Id(anyLong(), anyLong());
-        verify(commentRepository, times(1)).deleteByUser_Id(anyLong());
-        verify(commentRepository, times(1)).deleteByAdvertisement_User_Id(anyLong());
-        verify(advertisementRepository, times(1)).deleteByUser_Id(anyLong());
-        verify(ratingRepository, times(1)).deleteBySender_IdOrRecipient_Id(anyLong(), anyLong());
+        verify(userRepository, times(1)).subtractEvaluationsBySender(anyLong());
+        verify(userRepository, times(1)).markDeleted(anyLong());
+        verify(advertisementRepository, times(1)).syncSellerRatings();
+        verify(accountPurgeService, times(1)).schedule(anyLong(), anyString());
     }
 
     @Test
@@ -482,11 +553,7 @@ class UserServiceTest {
         assertThrows(UsernameNotFoundException.class, () -> sut.deleteByUsername(anyString()));
 
         verify(userRepository, times(1)).findByUsername(anyString());
-        verify(userRepository, times(0)).deleteByUsername(anyString());
-        verify(messageRepository, times(0)).deleteBySender_IdOrRecipient_Id(anyLong(), anyLong());
-        verify(commentRepository, times(0)).deleteByUser_Id(anyLong());
-        verify(commentRepository, times(0)).deleteByAdvertisement_User_Id(anyLong());
-        verify(advertisementRepository, times(0)).deleteByUser_Id(anyLong());
-        verify(ratingRepository, times(0)).deleteBySender_IdOrRecipient_Id(anyLong(), anyLong());
+        verify(userRepository, times(0)).markDeleted(anyLong());
+        verify(accountPurgeService, times(0)).schedule(anyLong(), anyString());
     }
 }